@@ -0,0 +1,110 @@
+package com.xhk.grpc.spring.benchmark;
+
+import com.xhk.grpc.spring.proto.proto.HealthCheckRequest;
+import com.xhk.grpc.spring.stream.GrpcStreams;
+import io.grpc.ClientInterceptor;
+import io.grpc.ManagedChannel;
+import io.grpc.ManagedChannelBuilder;
+import io.grpc.MethodDescriptor;
+import io.grpc.Server;
+import io.grpc.ServerBuilder;
+import io.grpc.ServerInterceptor;
+import io.grpc.ServerInterceptors;
+import io.grpc.ServerServiceDefinition;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.netty.shaded.io.grpc.netty.NettyChannelBuilder;
+import io.grpc.netty.shaded.io.grpc.netty.NettyServerBuilder;
+import io.grpc.protobuf.ProtoUtils;
+import io.grpc.stub.ServerCalls;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Server echo dùng cho benchmark: Unary trả lại request, Stream trả lại request streamMessages lần.
+ * Message là HealthCheckRequest với payload nằm trong field service để không cần thêm file proto.
+ */
+public final class EchoServer implements AutoCloseable {
+    static final String SERVICE_NAME = "bench.Echo";
+
+    static final MethodDescriptor<HealthCheckRequest, HealthCheckRequest> UNARY = method("Unary", MethodDescriptor.MethodType.UNARY);
+    static final MethodDescriptor<HealthCheckRequest, HealthCheckRequest> STREAM = method("Stream", MethodDescriptor.MethodType.SERVER_STREAMING);
+
+    public enum Transport {
+        IN_PROCESS,
+        NETTY
+    }
+
+    private final Server server;
+    private final ManagedChannel channel;
+
+    private EchoServer(Server server, ManagedChannel channel) {
+        this.server = server;
+        this.channel = channel;
+    }
+
+    /**
+     * @param directExecutor chạy handler và callback trên thread gọi, loại bỏ chi phí chuyển thread khỏi kết quả
+     */
+    static EchoServer start(Transport transport, boolean directExecutor, int streamMessages,
+                            ServerInterceptor serverInterceptor, ClientInterceptor clientInterceptor) throws IOException {
+        String name = "bench-" + System.nanoTime();
+        ServerBuilder<?> serverBuilder = transport == Transport.IN_PROCESS
+                ? InProcessServerBuilder.forName(name)
+                : NettyServerBuilder.forAddress(new InetSocketAddress("127.0.0.1", 0));
+        ServerServiceDefinition definition = definition(streamMessages);
+        serverBuilder.addService(serverInterceptor != null ? ServerInterceptors.intercept(definition, serverInterceptor) : definition);
+        if (directExecutor) {
+            serverBuilder.directExecutor();
+        }
+        Server server = serverBuilder.build().start();
+
+        ManagedChannelBuilder<?> channelBuilder = transport == Transport.IN_PROCESS
+                ? InProcessChannelBuilder.forName(name)
+                : NettyChannelBuilder.forAddress("127.0.0.1", server.getPort()).usePlaintext();
+        if (directExecutor) {
+            channelBuilder.directExecutor();
+        }
+        if (clientInterceptor != null) {
+            channelBuilder.intercept(clientInterceptor);
+        }
+        return new EchoServer(server, channelBuilder.build());
+    }
+
+    ManagedChannel channel() {
+        return channel;
+    }
+
+    static HealthCheckRequest payload(int bytes) {
+        return HealthCheckRequest.newBuilder().setService("x".repeat(bytes)).build();
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    private static ServerServiceDefinition definition(int streamMessages) {
+        return ServerServiceDefinition.builder(SERVICE_NAME)
+                .addMethod(UNARY, ServerCalls.asyncUnaryCall((request, responseObserver) -> {
+                    responseObserver.onNext(request);
+                    responseObserver.onCompleted();
+                }))
+                .addMethod(STREAM, ServerCalls.asyncServerStreamingCall((request, responseObserver) ->
+                        GrpcStreams.produce(responseObserver, Stream.generate(() -> request).limit(streamMessages))))
+                .build();
+    }
+
+    private static MethodDescriptor<HealthCheckRequest, HealthCheckRequest> method(String name, MethodDescriptor.MethodType type) {
+        return MethodDescriptor.<HealthCheckRequest, HealthCheckRequest>newBuilder()
+                .setType(type)
+                .setFullMethodName(MethodDescriptor.generateFullMethodName(SERVICE_NAME, name))
+                .setRequestMarshaller(ProtoUtils.marshaller(HealthCheckRequest.getDefaultInstance()))
+                .setResponseMarshaller(ProtoUtils.marshaller(HealthCheckRequest.getDefaultInstance()))
+                .build();
+    }
+}
@@ -0,0 +1,103 @@
+package com.xhk.grpc.spring.benchmark;
+
+import com.xhk.grpc.spring.interceptor.GrpcMiddleware;
+import com.xhk.grpc.spring.interceptor.GrpcServerMiddleware;
+import com.xhk.grpc.spring.interceptor.GrpcUtils;
+import com.xhk.grpc.spring.interceptor.HeaderClientInterceptor;
+import com.xhk.grpc.spring.interceptor.ServerLoggingInterceptor;
+import com.xhk.grpc.spring.proto.proto.HealthCheckRequest;
+import io.grpc.CallOptions;
+import io.grpc.ClientInterceptor;
+import io.grpc.Metadata;
+import io.grpc.ServerInterceptor;
+import io.grpc.stub.ClientCalls;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chi phí mỗi call của các interceptor có sẵn: unary call in-process với directExecutor,
+ * so sánh từng interceptor với NONE. Log được ghi vào appender Null (xem log4j2-test.xml).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class InterceptorBenchmark {
+    private static final Metadata.Key<String> REQUEST_ID = Metadata.Key.of("x-request-id", Metadata.ASCII_STRING_MARSHALLER);
+
+    public enum Interceptor {
+        NONE,
+        SERVER_LOGGING,
+        HEADER_CLIENT,
+        SERVER_MIDDLEWARE,
+        CLIENT_MIDDLEWARE
+    }
+
+    @Param
+    public Interceptor interceptor;
+
+    private EchoServer server;
+    private HealthCheckRequest request;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        ServerInterceptor serverInterceptor = switch (interceptor) {
+            case SERVER_LOGGING -> new ServerLoggingInterceptor();
+            case SERVER_MIDDLEWARE -> GrpcUtils.convert(new GrpcServerMiddleware() {
+                @Override
+                public void beforeRequest(String methodName, Metadata headers, Object request) {
+                }
+
+                @Override
+                public void afterResponse(String methodName, Metadata headers, Object response) {
+                }
+            });
+            default -> null;
+        };
+        ClientInterceptor clientInterceptor = switch (interceptor) {
+            case HEADER_CLIENT -> new HeaderClientInterceptor() {
+                @Override
+                protected void applyHeaders(Metadata headers) {
+                    headers.put(REQUEST_ID, "benchmark");
+                }
+            };
+            case CLIENT_MIDDLEWARE -> GrpcUtils.convert(new GrpcMiddleware() {
+                @Override
+                public void beforeRequest(String methodName, Metadata headers, Object request) {
+                }
+
+                @Override
+                public void afterResponse(String methodName, Metadata headers, Object response) {
+                }
+            });
+            default -> null;
+        };
+        server = EchoServer.start(EchoServer.Transport.IN_PROCESS, true, 0, serverInterceptor, clientInterceptor);
+        request = EchoServer.payload(16);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        server.close();
+    }
+
+    @Benchmark
+    public HealthCheckRequest unaryCall() {
+        return ClientCalls.blockingUnaryCall(server.channel(), EchoServer.UNARY, CallOptions.DEFAULT, request);
+    }
+}
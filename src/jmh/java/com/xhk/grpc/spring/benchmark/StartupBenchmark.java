@@ -0,0 +1,94 @@
+package com.xhk.grpc.spring.benchmark;
+
+import com.xhk.grpc.spring.annotation.GrpcClient;
+import com.xhk.grpc.spring.injector.GrpcClientInjector;
+import com.xhk.grpc.spring.proto.proto.HealthGrpc;
+import io.grpc.ManagedChannel;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.support.GenericApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chi phí inject @GrpcClient lúc khởi động: contextRefresh đo một lần refresh context lạnh (mỗi fork một JVM mới),
+ * injectBean đo chi phí inject cho mỗi bean khi metadata và stub đã được cache.
+ */
+@Fork(5)
+public class StartupBenchmark {
+    public static final int CLIENT_BEANS = 50;
+    private static final String CHANNEL_NAME = "bench";
+
+    public static class ClientHolder {
+        @GrpcClient(service = CHANNEL_NAME)
+        private HealthGrpc.HealthBlockingStub blockingStub;
+
+        @GrpcClient(service = CHANNEL_NAME)
+        private HealthGrpc.HealthFutureStub futureStub;
+
+        @GrpcClient(service = CHANNEL_NAME)
+        private HealthGrpc.HealthStub asyncStub;
+    }
+
+    @State(Scope.Benchmark)
+    public static class InjectorState {
+        private GenericApplicationContext context;
+        private GrpcClientInjector injector;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            context = newContext();
+            context.refresh();
+            injector = new GrpcClientInjector(context);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            context.close();
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 0)
+    @Measurement(iterations = 1)
+    public GenericApplicationContext contextRefresh() {
+        GenericApplicationContext context = newContext();
+        context.registerBean(GrpcClientInjector.class);
+        for (int i = 0; i < CLIENT_BEANS; i++) {
+            context.registerBean("holder" + i, ClientHolder.class);
+        }
+        context.refresh();
+        context.close();
+        return context;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @Warmup(iterations = 5, time = 1)
+    @Measurement(iterations = 5, time = 1)
+    public Object injectBean(InjectorState state) {
+        return state.injector.postProcessBeforeInitialization(new ClientHolder(), "holder");
+    }
+
+    private static GenericApplicationContext newContext() {
+        GenericApplicationContext context = new GenericApplicationContext();
+        context.registerBean(CHANNEL_NAME, ManagedChannel.class,
+                () -> InProcessChannelBuilder.forName(CHANNEL_NAME).build(),
+                definition -> definition.setDestroyMethodName("shutdownNow"));
+        return context;
+    }
+}
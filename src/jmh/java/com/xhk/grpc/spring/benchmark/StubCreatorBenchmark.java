@@ -0,0 +1,66 @@
+package com.xhk.grpc.spring.benchmark;
+
+import com.xhk.grpc.spring.injector.GrpcStubCreator;
+import com.xhk.grpc.spring.proto.proto.HealthGrpc;
+import io.grpc.ManagedChannel;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chi phí GrpcStubCreator.create cho từng loại stub (factory method đã được cache)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class StubCreatorBenchmark {
+
+    public enum StubType {
+        BLOCKING(HealthGrpc.HealthBlockingStub.class),
+        FUTURE(HealthGrpc.HealthFutureStub.class),
+        ASYNC(HealthGrpc.HealthStub.class);
+
+        private final Class<?> type;
+
+        StubType(Class<?> type) {
+            this.type = type;
+        }
+    }
+
+    @Param
+    public StubType stubType;
+
+    private ManagedChannel channel;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        // Channel chưa kết nối cho đến call đầu tiên nên không cần server
+        channel = InProcessChannelBuilder.forName("stub-creator").build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        channel.shutdownNow();
+    }
+
+    @Benchmark
+    public Object create() throws Exception {
+        return GrpcStubCreator.create(stubType.type, channel);
+    }
+}
@@ -0,0 +1,75 @@
+package com.xhk.grpc.spring.benchmark;
+
+import com.xhk.grpc.spring.proto.proto.HealthCheckRequest;
+import io.grpc.CallOptions;
+import io.grpc.stub.ClientCalls;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput và phân bố latency của call end-to-end qua transport in-process và Netty loopback,
+ * với executor mặc định như khi chạy thật. Dùng -t để đo nhiều caller đồng thời.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+@State(Scope.Benchmark)
+public class TransportBenchmark {
+    public static final int STREAM_MESSAGES = 100;
+
+    @Param
+    public EchoServer.Transport transport;
+
+    @Param({"16", "4096"})
+    public int payloadBytes;
+
+    private EchoServer server;
+    private HealthCheckRequest request;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        server = EchoServer.start(transport, false, STREAM_MESSAGES, null, null);
+        request = EchoServer.payload(payloadBytes);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        server.close();
+    }
+
+    @Benchmark
+    public HealthCheckRequest unary() {
+        return ClientCalls.blockingUnaryCall(server.channel(), EchoServer.UNARY, CallOptions.DEFAULT, request);
+    }
+
+    /**
+     * Một lần gọi nhận STREAM_MESSAGES message
+     */
+    @Benchmark
+    public int serverStreaming() {
+        Iterator<HealthCheckRequest> responses =
+                ClientCalls.blockingServerStreamingCall(server.channel(), EchoServer.STREAM, CallOptions.DEFAULT, request);
+        int received = 0;
+        while (responses.hasNext()) {
+            responses.next();
+            received++;
+        }
+        return received;
+    }
+}
@@ -1,6 +1,8 @@
 package com.xhk.grpc.spring.annotation;
 
+import com.xhk.grpc.spring.injector.GrpcClientInterfaceRegistrar;
 import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Import;
 
 import java.lang.annotation.Documented;
 import java.lang.annotation.ElementType;
@@ -12,5 +14,10 @@ import java.lang.annotation.Target;
 @Retention(RetentionPolicy.RUNTIME)
 @Documented
 @ComponentScan(basePackages = {"com.xhk.grpc.spring.injector", "com.xhk.grpc.spring.config"})
+@Import(GrpcClientInterfaceRegistrar.class)
 public @interface EnableGrpcClients {
-}
\ No newline at end of file
+    /**
+     * Package chứa các interface @GrpcClientInterface, mặc định là package của class khai báo annotation
+     */
+    String[] basePackages() default {};
+}
@@ -0,0 +1,18 @@
+package com.xhk.grpc.spring.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Đánh dấu method implement rpc stream hai chiều phục vụ batching (vd: getProductStream cho rpc GetProductStream).
+ * Response của stream được gửi dưới dạng BatchResult để lỗi của từng request không đóng cả stream,
+ * vì vậy method phải trả về GrpcBatchHandler.forUnary(...).
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface GrpcBatchStream {
+}
@@ -0,0 +1,22 @@
+package com.xhk.grpc.spring.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Cache response của một unary method trong @GrpcController, key là bytes của request và các header trong keyHeaders.
+ * Đặt trên method implement của service (vd: sayHello cho rpc SayHello).
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface GrpcCacheable {
+    long ttlSeconds() default 60;
+
+    long maxSize() default 10000;
+
+    String[] keyHeaders() default {};
+}
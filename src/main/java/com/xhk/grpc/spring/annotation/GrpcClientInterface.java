@@ -0,0 +1,26 @@
+package com.xhk.grpc.spring.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Đánh dấu interface được tạo thành client bean. Các method được gắn với MethodDescriptor của service
+ * một lần khi khởi động, theo tên method (camelCase) hoặc theo @GrpcMethod.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface GrpcClientInterface {
+    /**
+     * Tên bean ManagedChannel (key trong grpc.clients)
+     */
+    String service();
+
+    /**
+     * Class sinh bởi protoc-gen-grpc-java (vd: UserServiceGrpc.class)
+     */
+    Class<?> grpc();
+}
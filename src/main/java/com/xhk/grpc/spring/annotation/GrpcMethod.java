@@ -0,0 +1,17 @@
+package com.xhk.grpc.spring.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Tên method trong file proto (vd: "GetUser") khi tên method Java không khớp
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface GrpcMethod {
+    String value();
+}
@@ -0,0 +1,57 @@
+package com.xhk.grpc.spring.aot;
+
+import com.xhk.grpc.spring.annotation.GrpcController;
+import com.xhk.grpc.spring.injector.GrpcClientInjector;
+import com.xhk.grpc.spring.injector.GrpcStubCreator;
+import org.springframework.aot.hint.ExecutableMode;
+import org.springframework.aot.hint.ReflectionHints;
+import org.springframework.beans.factory.aot.BeanRegistrationAotContribution;
+import org.springframework.beans.factory.aot.BeanRegistrationAotProcessor;
+import org.springframework.beans.factory.support.RegisteredBean;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+
+import java.lang.reflect.Field;
+import java.util.List;
+
+/**
+ * Khi build AOT/native image: đăng ký hint cho field @GrpcClient (inject bằng reflection), method factory của stub
+ * và message của service, cùng message của các @GrpcController
+ */
+class GrpcBeanRegistrationAotProcessor implements BeanRegistrationAotProcessor {
+
+    @Override
+    public BeanRegistrationAotContribution processAheadOfTime(RegisteredBean registeredBean) {
+        Class<?> beanClass = registeredBean.getBeanClass();
+        List<Field> clientFields = GrpcClientInjector.injectionMetadata(beanClass);
+        boolean controller = AnnotatedElementUtils.hasAnnotation(beanClass, GrpcController.class);
+        if (clientFields.isEmpty() && !controller) {
+            return null;
+        }
+        return (generationContext, beanRegistrationCode) -> {
+            ReflectionHints hints = generationContext.getRuntimeHints().reflection();
+            for (Field field : clientFields) {
+                hints.registerField(field);
+                registerStub(hints, field.getType());
+            }
+            if (controller) {
+                Class<?> grpcClass = GrpcServiceHints.findGrpcClass(beanClass);
+                if (grpcClass != null) {
+                    GrpcServiceHints.registerService(hints, grpcClass);
+                }
+            }
+        };
+    }
+
+    private void registerStub(ReflectionHints hints, Class<?> stubType) {
+        try {
+            hints.registerMethod(GrpcStubCreator.getMethod(stubType), ExecutableMode.INVOKE);
+        } catch (Exception e) {
+            // Không phải stub sinh bởi gRPC, GrpcStubCreator sẽ báo lỗi lúc chạy
+            return;
+        }
+        Class<?> grpcClass = GrpcServiceHints.findGrpcClass(stubType);
+        if (grpcClass != null) {
+            GrpcServiceHints.registerService(hints, grpcClass);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.xhk.grpc.spring.aot;
+
+import com.xhk.grpc.spring.config.GrpcProperties;
+import com.xhk.grpc.spring.proto.proto.HealthGrpc;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.boot.context.properties.bind.BindableRuntimeHintsRegistrar;
+
+/**
+ * Hint cố định của starter: GrpcProperties được bind thủ công bằng Binder và service health có sẵn
+ */
+class GrpcRuntimeHints implements RuntimeHintsRegistrar {
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        BindableRuntimeHintsRegistrar.forTypes(GrpcProperties.class).registerHints(hints, classLoader);
+        GrpcServiceHints.registerService(hints.reflection(), HealthGrpc.class);
+    }
+}
@@ -0,0 +1,81 @@
+package com.xhk.grpc.spring.aot;
+
+import io.grpc.MethodDescriptor;
+import io.grpc.ServiceDescriptor;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.ReflectionHints;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+/**
+ * Hint reflection cho class sinh bởi protoc-gen-grpc-java: method factory của stub và các message request/response
+ * (protobuf dùng reflection trên getter/builder của message cho toString, equals, JSON)
+ */
+final class GrpcServiceHints {
+
+    private GrpcServiceHints() {
+    }
+
+    /**
+     * @param grpcClass class XxxGrpc, bỏ qua nếu không có getServiceDescriptor
+     */
+    static void registerService(ReflectionHints hints, Class<?> grpcClass) {
+        ServiceDescriptor service = serviceDescriptor(grpcClass);
+        if (service == null) {
+            return;
+        }
+        hints.registerType(grpcClass, MemberCategory.INVOKE_PUBLIC_METHODS);
+        for (MethodDescriptor<?, ?> method : service.getMethods()) {
+            registerMessage(hints, method.getRequestMarshaller());
+            registerMessage(hints, method.getResponseMarshaller());
+        }
+    }
+
+    /**
+     * Class XxxGrpc bao ngoài stub hoặc ImplBase trong cây kế thừa của type, null nếu không có
+     */
+    static Class<?> findGrpcClass(Class<?> type) {
+        for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+            Class<?> enclosing = current.getEnclosingClass();
+            if (enclosing != null && serviceDescriptorMethod(enclosing) != null) {
+                return enclosing;
+            }
+        }
+        return null;
+    }
+
+    private static void registerMessage(ReflectionHints hints, MethodDescriptor.Marshaller<?> marshaller) {
+        if (!(marshaller instanceof MethodDescriptor.PrototypeMarshaller<?> prototype) || prototype.getMessagePrototype() == null) {
+            return;
+        }
+        Class<?> messageClass = prototype.getMessagePrototype().getClass();
+        hints.registerType(messageClass, MemberCategory.INVOKE_PUBLIC_METHODS, MemberCategory.DECLARED_FIELDS);
+        for (Class<?> nested : messageClass.getDeclaredClasses()) {
+            if ("Builder".equals(nested.getSimpleName())) {
+                hints.registerType(nested, MemberCategory.INVOKE_PUBLIC_METHODS, MemberCategory.DECLARED_FIELDS);
+            }
+        }
+    }
+
+    private static ServiceDescriptor serviceDescriptor(Class<?> grpcClass) {
+        Method method = serviceDescriptorMethod(grpcClass);
+        if (method == null) {
+            return null;
+        }
+        try {
+            return (ServiceDescriptor) method.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    private static Method serviceDescriptorMethod(Class<?> grpcClass) {
+        try {
+            Method method = grpcClass.getMethod("getServiceDescriptor");
+            return Modifier.isStatic(method.getModifiers()) && method.getReturnType() == ServiceDescriptor.class ? method : null;
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+}
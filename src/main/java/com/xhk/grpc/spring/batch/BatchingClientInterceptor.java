@@ -0,0 +1,376 @@
+package com.xhk.grpc.spring.batch;
+
+import com.xhk.grpc.spring.config.GrpcProperties;
+import com.xhk.grpc.spring.interceptor.DeferredUnaryCall;
+import com.xhk.grpc.spring.proto.proto.BatchResult;
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.Context;
+import io.grpc.Deadline;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gom các unary call của method được cấu hình trong grpc.clients.&lt;name&gt;.batching và gửi chúng trên một stream
+ * hai chiều dùng lâu dài (streamMethod), mỗi caller nhận response của mình theo thứ tự gửi.
+ * Stream chỉ mang các header trong keyHeaders, mỗi bộ giá trị của chúng có stream riêng.
+ * Server trả kết quả của từng request dưới dạng BatchResult (xem GrpcBatchHandler) nên lỗi của một request không đóng stream.
+ * Khi stream lỗi, các request đã gửi nhưng chưa có kết quả nhận lỗi của stream mà không gửi lại (server có thể đã xử lý);
+ * chỉ khi server đóng stream bình thường mà chưa trả lời thì các request đó mới được gửi lại một lần trên stream mới.
+ * Request chỉ được ghi vào stream khi stream isReady(), phần còn lại chờ onReady thay vì bị đệm không giới hạn.
+ * close() (gọi khi channel bị shutdown) half-close các stream đang mở, trả lỗi cho request chưa gửi và dừng scheduler.
+ */
+public class BatchingClientInterceptor implements ClientInterceptor, AutoCloseable {
+
+    private final String clientName;
+    private final Map<String, GrpcProperties.BatchRule> rules;
+    private final MeterRegistry registry;
+    private final ScheduledExecutorService scheduler;
+    private final Map<String, List<Metadata.Key<String>>> keyHeaders = new HashMap<>();
+    private final Map<BatcherKey, Batcher<?, ?>> batchers = new ConcurrentHashMap<>();
+    private volatile boolean closed;
+
+    public BatchingClientInterceptor(String clientName, Map<String, GrpcProperties.BatchRule> rules, MeterRegistry registry) {
+        this.clientName = clientName;
+        this.rules = rules;
+        this.registry = registry;
+        rules.forEach((method, rule) -> keyHeaders.put(method, rule.getKeyHeaders().stream()
+                .map(header -> Metadata.Key.of(header, Metadata.ASCII_STRING_MARSHALLER))
+                .toList()));
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "grpc-batch-" + clientName);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(
+            MethodDescriptor<ReqT, RespT> method, CallOptions callOptions, Channel next) {
+        GrpcProperties.BatchRule rule = rules.get(method.getFullMethodName());
+        // Stream dùng chung không mang được credentials hay authority riêng của từng call
+        if (rule == null || method.getType() != MethodDescriptor.MethodType.UNARY
+                || callOptions.getCredentials() != null || callOptions.getAuthority() != null) {
+            return next.newCall(method, callOptions);
+        }
+        return new BatchedCall<>(method, rule, callOptions, next);
+    }
+
+    /**
+     * Request đã gửi vẫn nhận kết quả trên stream đã half-close, request chưa gửi nhận UNAVAILABLE
+     */
+    @Override
+    public void close() {
+        closed = true;
+        for (Batcher<?, ?> batcher : batchers.values()) {
+            batcher.close();
+        }
+        batchers.clear();
+        scheduler.shutdown();
+    }
+
+    private static Status closedStatus() {
+        return Status.UNAVAILABLE.withDescription("Batching client is closed");
+    }
+
+    @SuppressWarnings("unchecked")
+    private <ReqT, RespT> Batcher<ReqT, RespT> batcher(MethodDescriptor<ReqT, RespT> method, GrpcProperties.BatchRule rule,
+                                                       Metadata headers, Channel next) {
+        List<Metadata.Key<String>> keys = keyHeaders.get(method.getFullMethodName());
+        String[] values = new String[keys.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = headers.get(keys.get(i));
+        }
+        BatcherKey key = new BatcherKey(method, Arrays.asList(values));
+        Batcher<ReqT, RespT> batcher = (Batcher<ReqT, RespT>) batchers.get(key);
+        if (batcher == null) {
+            batcher = (Batcher<ReqT, RespT>) batchers.computeIfAbsent(key, k -> new Batcher<>(method, rule, keys, values, next));
+        }
+        return batcher;
+    }
+
+    /**
+     * Call của một caller, chờ trong batch đến khi có response, hết deadline hoặc bị huỷ
+     */
+    private final class BatchedCall<ReqT, RespT> extends DeferredUnaryCall<ReqT, RespT> {
+        private final MethodDescriptor<ReqT, RespT> method;
+        private final GrpcProperties.BatchRule rule;
+        private final CallOptions callOptions;
+        private final Channel next;
+        private final Context context = Context.current();
+        private final Context.CancellationListener cancellationListener = ctx -> cancel("Context cancelled", ctx.cancellationCause());
+        private ReqT request;
+        private boolean requeued;
+        private volatile ScheduledFuture<?> deadlineTimer;
+
+        BatchedCall(MethodDescriptor<ReqT, RespT> method, GrpcProperties.BatchRule rule, CallOptions callOptions, Channel next) {
+            super(callOptions);
+            this.method = method;
+            this.rule = rule;
+            this.callOptions = callOptions;
+            this.next = next;
+        }
+
+        @Override
+        protected void dispatch(ReqT request, Metadata headers) {
+            this.request = request;
+            if (closed) {
+                deliver(null, null, closedStatus(), new Metadata());
+                return;
+            }
+            Deadline deadline = callOptions.getDeadline();
+            Deadline contextDeadline = context.getDeadline();
+            if (contextDeadline != null && (deadline == null || contextDeadline.isBefore(deadline))) {
+                deadline = contextDeadline;
+            }
+            if (deadline != null) {
+                if (deadline.isExpired()) {
+                    deliver(null, null, Status.DEADLINE_EXCEEDED.withDescription("Deadline exceeded before batching"), new Metadata());
+                    return;
+                }
+                deadlineTimer = scheduler.schedule(() -> deliver(null, null,
+                                Status.DEADLINE_EXCEEDED.withDescription("Deadline exceeded while waiting in batch"), new Metadata()),
+                        deadline.timeRemaining(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+            }
+            context.addListener(cancellationListener, Runnable::run);
+            batcher(method, rule, headers, next).enqueue(this);
+        }
+
+        @Override
+        protected void onClosed() {
+            ScheduledFuture<?> timer = deadlineTimer;
+            if (timer != null) {
+                timer.cancel(false);
+            }
+            context.removeListener(cancellationListener);
+        }
+
+        // Mỗi call chỉ được gửi lại một lần khi stream lỗi
+        boolean requeue() {
+            if (isClosed() || requeued) {
+                return false;
+            }
+            requeued = true;
+            return true;
+        }
+    }
+
+    /**
+     * Hàng đợi và stream dùng chung của một method với một bộ giá trị keyHeaders
+     */
+    private final class Batcher<ReqT, RespT> {
+        private final MethodDescriptor<ReqT, RespT> method;
+        private final MethodDescriptor<ReqT, BatchResult> streamMethod;
+        private final GrpcProperties.BatchRule rule;
+        private final Channel next;
+        private final Metadata streamHeaders = new Metadata();
+        private final DistributionSummary batchSize;
+        private final Deque<BatchedCall<ReqT, RespT>> pending = new ArrayDeque<>();
+        private final Deque<BatchedCall<ReqT, RespT>> awaiting = new ArrayDeque<>();
+        private ClientCall<ReqT, BatchResult> stream;
+        private ScheduledFuture<?> flushTask;
+
+        Batcher(MethodDescriptor<ReqT, RespT> method, GrpcProperties.BatchRule rule,
+                List<Metadata.Key<String>> keys, String[] values, Channel next) {
+            // Request dùng cùng marshaller với unary method, response được gói trong BatchResult
+            this.method = method;
+            this.streamMethod = method.toBuilder(method.getRequestMarshaller(), GrpcBatchHandler.RESULT_MARSHALLER)
+                    .setFullMethodName(rule.getStreamMethod())
+                    .setType(MethodDescriptor.MethodType.BIDI_STREAMING)
+                    .build();
+            this.rule = rule;
+            this.next = next;
+            for (int i = 0; i < values.length; i++) {
+                if (values[i] != null) {
+                    streamHeaders.put(keys.get(i), values[i]);
+                }
+            }
+            this.batchSize = DistributionSummary.builder("grpc.client.batch.size")
+                    .tag("client", clientName)
+                    .tag("method", method.getFullMethodName())
+                    .register(registry);
+        }
+
+        synchronized void enqueue(BatchedCall<ReqT, RespT> call) {
+            if (closed) {
+                call.deliver(null, null, closedStatus(), new Metadata());
+                return;
+            }
+            pending.add(call);
+            if (pending.size() >= rule.getMaxBatchSize() || rule.getMaxDelayMicros() == 0) {
+                flush();
+            } else if (flushTask == null) {
+                flushTask = scheduler.schedule(this::flush, rule.getMaxDelayMicros(), TimeUnit.MICROSECONDS);
+            }
+        }
+
+        synchronized void flush() {
+            if (flushTask != null) {
+                flushTask.cancel(false);
+                flushTask = null;
+            }
+            int sent = 0;
+            while (!pending.isEmpty()) {
+                BatchedCall<ReqT, RespT> call = pending.peek();
+                if (call.isClosed()) {
+                    pending.poll();
+                    continue;
+                }
+                try {
+                    if (stream == null) {
+                        stream = openStream();
+                    }
+                    // Transport chưa nhận thêm dữ liệu: phần còn lại được gửi khi stream gọi onReady
+                    if (!stream.isReady()) {
+                        break;
+                    }
+                    pending.poll();
+                    awaiting.add(call);
+                    stream.sendMessage(call.request);
+                    stream.request(1);
+                    sent++;
+                } catch (RuntimeException e) {
+                    pending.remove(call);
+                    awaiting.remove(call);
+                    call.deliver(null, null, Status.fromThrowable(e), new Metadata());
+                }
+            }
+            if (sent > 0) {
+                batchSize.record(sent);
+            }
+        }
+
+        void close() {
+            List<BatchedCall<ReqT, RespT>> unsent;
+            ClientCall<ReqT, BatchResult> current;
+            synchronized (this) {
+                if (flushTask != null) {
+                    flushTask.cancel(false);
+                    flushTask = null;
+                }
+                unsent = new ArrayList<>(pending);
+                pending.clear();
+                current = stream;
+            }
+            for (BatchedCall<ReqT, RespT> call : unsent) {
+                call.deliver(null, null, closedStatus(), new Metadata());
+            }
+            if (current != null) {
+                try {
+                    current.halfClose();
+                } catch (IllegalStateException e) {
+                    // Stream đã bị đóng hoặc huỷ
+                }
+            }
+        }
+
+        // Stream tách khỏi Context của caller để không bị huỷ theo caller đã mở nó
+        private ClientCall<ReqT, BatchResult> openStream() {
+            Context previous = Context.ROOT.attach();
+            try {
+                ClientCall<ReqT, BatchResult> call = next.newCall(streamMethod, CallOptions.DEFAULT);
+                Metadata headers = new Metadata();
+                headers.merge(streamHeaders);
+                call.start(new StreamListener(call), headers);
+                return call;
+            } finally {
+                Context.ROOT.detach(previous);
+            }
+        }
+
+        private final class StreamListener extends ClientCall.Listener<BatchResult> {
+            private final ClientCall<ReqT, BatchResult> call;
+
+            StreamListener(ClientCall<ReqT, BatchResult> call) {
+                this.call = call;
+            }
+
+            @Override
+            public void onReady() {
+                flush();
+            }
+
+            @Override
+            public void onMessage(BatchResult result) {
+                BatchedCall<ReqT, RespT> waiter;
+                synchronized (Batcher.this) {
+                    waiter = awaiting.poll();
+                }
+                if (waiter == null) {
+                    return;
+                }
+                switch (result.getResultCase()) {
+                    case RESPONSE -> {
+                        RespT response;
+                        try {
+                            response = method.parseResponse(result.getResponse().newInput());
+                        } catch (RuntimeException e) {
+                            waiter.deliver(null, null, Status.INTERNAL.withDescription("Failed to parse batch response")
+                                    .withCause(e), new Metadata());
+                            return;
+                        }
+                        waiter.deliver(new Metadata(), response, Status.OK, new Metadata());
+                    }
+                    case ERROR -> waiter.deliver(null, null, Status.fromCodeValue(result.getError().getCode())
+                            .withDescription(result.getError().getDescription()), new Metadata());
+                    default -> waiter.deliver(null, null,
+                            Status.INTERNAL.withDescription("Empty batch result"), new Metadata());
+                }
+            }
+
+            @Override
+            public void onClose(Status status, Metadata trailers) {
+                List<BatchedCall<ReqT, RespT>> unanswered;
+                boolean waitingForReady;
+                synchronized (Batcher.this) {
+                    if (stream == call) {
+                        stream = null;
+                    }
+                    unanswered = new ArrayList<>(awaiting);
+                    awaiting.clear();
+                    waitingForReady = !pending.isEmpty();
+                }
+                // Request đang chờ stream cũ sẵn sàng được gửi trên stream mới
+                if (waitingForReady) {
+                    flush();
+                }
+                if (unanswered.isEmpty()) {
+                    return;
+                }
+                // Lỗi của stream (mất kết nối, huỷ...) không cho biết server đã xử lý request nào nên không gửi lại.
+                // Server chỉ đóng stream bình thường khi đã trả lời mọi request nó nhận được, phần còn lại chưa được xử lý
+                Status failure = status.isOk()
+                        ? Status.UNAVAILABLE.withDescription("Batch stream completed before responding")
+                        : status;
+                for (BatchedCall<ReqT, RespT> waiter : unanswered) {
+                    if (status.isOk() && waiter.requeue()) {
+                        enqueue(waiter);
+                    } else {
+                        waiter.deliver(null, null, failure, new Metadata());
+                    }
+                }
+            }
+        }
+    }
+
+    private record BatcherKey(MethodDescriptor<?, ?> method, List<String> headerValues) {
+    }
+}
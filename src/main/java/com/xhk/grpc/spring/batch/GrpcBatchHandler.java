@@ -0,0 +1,229 @@
+package com.xhk.grpc.spring.batch;
+
+import com.google.protobuf.MessageLite;
+import com.xhk.grpc.spring.annotation.GrpcBatchStream;
+import com.xhk.grpc.spring.proto.proto.BatchError;
+import com.xhk.grpc.spring.proto.proto.BatchResult;
+import com.xhk.grpc.spring.server.ServiceDefinitions;
+import io.grpc.Context;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerMethodDefinition;
+import io.grpc.ServerServiceDefinition;
+import io.grpc.Status;
+import io.grpc.protobuf.ProtoUtils;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.util.ClassUtils;
+
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.function.BiConsumer;
+
+/**
+ * Phía server của batching: implement rpc stream hai chiều bằng chính unary method của controller.
+ * Các request được xử lý song song (tối đa maxInFlight), kết quả được gửi lại đúng thứ tự request dưới dạng
+ * BatchResult: lỗi của một request chỉ được trả cho request đó, stream vẫn tiếp tục phục vụ các request khác.
+ * Method phải có @GrpcBatchStream để response của stream được đăng ký với marshaller của BatchResult.
+ *
+ * <pre>
+ * &#64;GrpcBatchStream
+ * public StreamObserver&lt;GetProductRequest&gt; getProductStream(StreamObserver&lt;Product&gt; responseObserver) {
+ *     return GrpcBatchHandler.forUnary(responseObserver, this::getProduct, executor, 64);
+ * }
+ * </pre>
+ */
+public final class GrpcBatchHandler {
+    private static final Logger logger = LogManager.getLogger(GrpcBatchHandler.class);
+
+    public static final int DEFAULT_MAX_IN_FLIGHT = 64;
+
+    static final MethodDescriptor.Marshaller<BatchResult> RESULT_MARSHALLER =
+            ProtoUtils.marshaller(BatchResult.getDefaultInstance());
+
+    private GrpcBatchHandler() {
+    }
+
+    /**
+     * Đổi response marshaller của các method có @GrpcBatchStream sang BatchResult, các method khác giữ nguyên
+     */
+    public static ServerServiceDefinition wrap(Object bean, ServerServiceDefinition definition) {
+        Set<String> streams = new HashSet<>();
+        for (Method method : ClassUtils.getUserClass(bean).getMethods()) {
+            if (method.isAnnotationPresent(GrpcBatchStream.class)) {
+                streams.add(method.getName());
+            }
+        }
+        if (streams.isEmpty()) {
+            return definition;
+        }
+        return ServiceDefinitions.rewrite(definition, method -> {
+            MethodDescriptor<?, ?> descriptor = method.getMethodDescriptor();
+            String bareName = descriptor.getBareMethodName();
+            if (bareName == null || bareName.isEmpty()
+                    || !streams.contains(Character.toLowerCase(bareName.charAt(0)) + bareName.substring(1))) {
+                return method;
+            }
+            if (descriptor.getType() != MethodDescriptor.MethodType.BIDI_STREAMING) {
+                logger.warn("@GrpcBatchStream is only supported for bidi streaming methods, ignoring {}",
+                        descriptor.getFullMethodName());
+                return method;
+            }
+            return withBatchResults(method);
+        });
+    }
+
+    // Handler của controller chỉ chuyển responseObserver cho forUnary, nơi response được gói thành BatchResult
+    @SuppressWarnings("unchecked")
+    private static <ReqT> ServerMethodDefinition<ReqT, BatchResult> withBatchResults(ServerMethodDefinition<ReqT, ?> method) {
+        MethodDescriptor<ReqT, BatchResult> descriptor = method.getMethodDescriptor()
+                .toBuilder(method.getMethodDescriptor().getRequestMarshaller(), RESULT_MARSHALLER)
+                .build();
+        return ServerMethodDefinition.create(descriptor,
+                (ServerCallHandler<ReqT, BatchResult>) (ServerCallHandler<ReqT, ?>) method.getServerCallHandler());
+    }
+
+    /**
+     * Gọi unary method ngay trên thread của gRPC, song song được khi unary method tự xử lý bất đồng bộ
+     */
+    public static <ReqT, RespT> StreamObserver<ReqT> forUnary(StreamObserver<RespT> responseObserver,
+                                                              BiConsumer<ReqT, StreamObserver<RespT>> unaryMethod) {
+        return forUnary(responseObserver, unaryMethod, Runnable::run, DEFAULT_MAX_IN_FLIGHT);
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <ReqT, RespT> StreamObserver<ReqT> forUnary(StreamObserver<RespT> responseObserver,
+                                                              BiConsumer<ReqT, StreamObserver<RespT>> unaryMethod,
+                                                              Executor executor, int maxInFlight) {
+        // Với @GrpcBatchStream, responseObserver thực chất nhận BatchResult (xem wrap)
+        return new OrderedBatchObserver<>((ServerCallStreamObserver<BatchResult>) (StreamObserver<?>) responseObserver,
+                unaryMethod, executor, maxInFlight);
+    }
+
+    private static BatchResult error(Throwable t) {
+        Status status = Status.fromThrowable(t);
+        BatchError.Builder error = BatchError.newBuilder().setCode(status.getCode().value());
+        if (status.getDescription() != null) {
+            error.setDescription(status.getDescription());
+        }
+        return BatchResult.newBuilder().setError(error).build();
+    }
+
+    private static final class OrderedBatchObserver<ReqT, RespT> implements StreamObserver<ReqT> {
+        private final ServerCallStreamObserver<BatchResult> responseObserver;
+        private final BiConsumer<ReqT, StreamObserver<RespT>> unaryMethod;
+        private final Executor executor;
+        private final Map<Long, BatchResult> results = new HashMap<>();
+        private long nextSequence;
+        private long nextToEmit;
+        private boolean halfClosed;
+        private boolean closed;
+
+        OrderedBatchObserver(ServerCallStreamObserver<BatchResult> responseObserver,
+                             BiConsumer<ReqT, StreamObserver<RespT>> unaryMethod, Executor executor, int maxInFlight) {
+            this.responseObserver = responseObserver;
+            this.unaryMethod = unaryMethod;
+            this.executor = executor;
+            // Chỉ nhận thêm request khi đã trả kết quả, để số request đang xử lý không vượt maxInFlight
+            responseObserver.disableAutoRequest();
+            responseObserver.request(maxInFlight);
+        }
+
+        @Override
+        public void onNext(ReqT request) {
+            long sequence;
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                sequence = nextSequence++;
+            }
+            ItemObserver item = new ItemObserver(sequence);
+            try {
+                executor.execute(Context.current().wrap(() -> {
+                    try {
+                        unaryMethod.accept(request, item);
+                    } catch (RuntimeException e) {
+                        item.onError(e);
+                    }
+                }));
+            } catch (RuntimeException e) {
+                item.onError(Status.RESOURCE_EXHAUSTED.withDescription("Batch executor rejected request")
+                        .withCause(e).asRuntimeException());
+            }
+        }
+
+        @Override
+        public synchronized void onError(Throwable t) {
+            // Client huỷ stream, không còn gì để gửi
+            closed = true;
+        }
+
+        @Override
+        public synchronized void onCompleted() {
+            halfClosed = true;
+            completeIfDone();
+        }
+
+        private synchronized void complete(long sequence, BatchResult result) {
+            if (closed) {
+                return;
+            }
+            results.put(sequence, result);
+            BatchResult next;
+            while ((next = results.remove(nextToEmit)) != null) {
+                responseObserver.onNext(next);
+                responseObserver.request(1);
+                nextToEmit++;
+            }
+            completeIfDone();
+        }
+
+        private void completeIfDone() {
+            if (!closed && halfClosed && nextToEmit == nextSequence) {
+                closed = true;
+                responseObserver.onCompleted();
+            }
+        }
+
+        /**
+         * StreamObserver truyền cho unary method, nhận đúng một response hoặc một lỗi.
+         * Response được serialize ngay trên thread của unary method, ngoài lock của stream.
+         */
+        private final class ItemObserver implements StreamObserver<RespT> {
+            private final long sequence;
+            private RespT value;
+
+            ItemObserver(long sequence) {
+                this.sequence = sequence;
+            }
+
+            @Override
+            public void onNext(RespT response) {
+                value = response;
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                complete(sequence, error(t));
+            }
+
+            @Override
+            public void onCompleted() {
+                if (!(value instanceof MessageLite message)) {
+                    onError(Status.INTERNAL.withDescription(value == null
+                            ? "Unary method completed without a response"
+                            : "Batch response must be a protobuf message").asRuntimeException());
+                    return;
+                }
+                complete(sequence, BatchResult.newBuilder().setResponse(message.toByteString()).build());
+            }
+        }
+    }
+}
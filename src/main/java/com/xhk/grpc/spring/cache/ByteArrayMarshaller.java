@@ -0,0 +1,36 @@
+package com.xhk.grpc.spring.cache;
+
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Marshaller giữ nguyên bytes đã serialize, dùng để cache và gửi lại response mà không marshal lại
+ */
+public final class ByteArrayMarshaller implements MethodDescriptor.Marshaller<byte[]> {
+    public static final ByteArrayMarshaller INSTANCE = new ByteArrayMarshaller();
+
+    private ByteArrayMarshaller() {
+    }
+
+    @Override
+    public InputStream stream(byte[] value) {
+        return new ByteArrayInputStream(value);
+    }
+
+    @Override
+    public byte[] parse(InputStream stream) {
+        try (stream) {
+            return stream.readAllBytes();
+        } catch (IOException e) {
+            throw Status.INTERNAL.withDescription("Failed to read message").withCause(e).asRuntimeException();
+        }
+    }
+
+    public static <T> byte[] toBytes(MethodDescriptor.Marshaller<T> marshaller, T value) {
+        return INSTANCE.parse(marshaller.stream(value));
+    }
+}
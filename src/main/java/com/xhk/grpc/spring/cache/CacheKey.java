@@ -0,0 +1,34 @@
+package com.xhk.grpc.spring.cache;
+
+import java.util.Arrays;
+
+/**
+ * Key của cache: bytes của request và giá trị các header được chọn, hash tính sẵn một lần
+ */
+final class CacheKey {
+    private final byte[] request;
+    private final String[] headerValues;
+    private final int hash;
+
+    CacheKey(byte[] request, String[] headerValues) {
+        this.request = request;
+        this.headerValues = headerValues;
+        this.hash = 31 * Arrays.hashCode(request) + Arrays.hashCode(headerValues);
+    }
+
+    boolean hasRequest(byte[] other) {
+        return Arrays.equals(request, other);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof CacheKey that)) return false;
+        return hash == that.hash && Arrays.equals(request, that.request) && Arrays.equals(headerValues, that.headerValues);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+}
@@ -0,0 +1,8 @@
+package com.xhk.grpc.spring.cache;
+
+/**
+ * Response trong cache: message (protobuf immutable) để interceptor vẫn nhận đúng kiểu,
+ * bytes đã serialize để transport gửi thẳng mà không marshal lại
+ */
+record CachedResponse<T>(T message, byte[] bytes) {
+}
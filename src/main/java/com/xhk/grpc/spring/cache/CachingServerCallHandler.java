@@ -0,0 +1,143 @@
+package com.xhk.grpc.spring.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.xhk.grpc.spring.server.WarmupRecorder;
+import io.grpc.ForwardingServerCall;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.Status;
+
+/**
+ * Handler bọc handler gốc, message giữ nguyên kiểu nên interceptor của controller và interceptor global
+ * vẫn thấy request/response như bình thường. Request được serialize để làm key; response được serialize một lần
+ * lúc miss và gửi bằng chính bytes đó (SerializedResponseMarshaller), cache hit gửi lại message và bytes đã lưu
+ * nên không gọi handler gốc, không parse và không encode.
+ */
+class CachingServerCallHandler<ReqT, RespT> implements ServerCallHandler<ReqT, RespT> {
+
+    private final MethodDescriptor<ReqT, RespT> method;
+    private final ServerCallHandler<ReqT, RespT> delegate;
+    private final SerializedResponseMarshaller<RespT> responseMarshaller;
+    private final Cache<CacheKey, CachedResponse<?>> cache;
+    private final Metadata.Key<String>[] keyHeaders;
+
+    CachingServerCallHandler(MethodDescriptor<ReqT, RespT> method, ServerCallHandler<ReqT, RespT> delegate,
+                             SerializedResponseMarshaller<RespT> responseMarshaller,
+                             Cache<CacheKey, CachedResponse<?>> cache, Metadata.Key<String>[] keyHeaders) {
+        this.method = method;
+        this.delegate = delegate;
+        this.responseMarshaller = responseMarshaller;
+        this.cache = cache;
+        this.keyHeaders = keyHeaders;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public ServerCall.Listener<ReqT> startCall(ServerCall<ReqT, RespT> call, Metadata headers) {
+        // Request mẫu của warm-up không được đọc hay ghi vào cache
+        if (WarmupRecorder.isWarmupCall(headers)) {
+            return delegate.startCall(call, headers);
+        }
+        call.request(2);
+        return new ServerCall.Listener<>() {
+            private ReqT request;
+            private ServerCall.Listener<ReqT> delegateListener;
+
+            @Override
+            public void onMessage(ReqT message) {
+                if (request != null) {
+                    call.close(Status.INTERNAL.withDescription("Too many requests for unary method"), new Metadata());
+                    return;
+                }
+                request = message;
+            }
+
+            @Override
+            public void onHalfClose() {
+                if (request == null) {
+                    call.close(Status.INTERNAL.withDescription("Half-closed without a request"), new Metadata());
+                    return;
+                }
+                CacheKey key = new CacheKey(ByteArrayMarshaller.toBytes(method.getRequestMarshaller(), request),
+                        headerValues(headers));
+                CachedResponse<?> cached = cache.getIfPresent(key);
+                if (cached != null) {
+                    call.sendHeaders(new Metadata());
+                    call.sendMessage((RespT) cached.message());
+                    call.close(Status.OK, new Metadata());
+                    return;
+                }
+
+                delegateListener = delegate.startCall(new RecordingServerCall(call, key), headers);
+                delegateListener.onMessage(request);
+                delegateListener.onHalfClose();
+            }
+
+            @Override
+            public void onCancel() {
+                if (delegateListener != null) {
+                    delegateListener.onCancel();
+                }
+            }
+
+            @Override
+            public void onComplete() {
+                if (delegateListener != null) {
+                    delegateListener.onComplete();
+                }
+            }
+
+            @Override
+            public void onReady() {
+                if (delegateListener != null) {
+                    delegateListener.onReady();
+                }
+            }
+        };
+    }
+
+    private String[] headerValues(Metadata headers) {
+        String[] values = new String[keyHeaders.length];
+        for (int i = 0; i < keyHeaders.length; i++) {
+            values[i] = headers.get(keyHeaders[i]);
+        }
+        return values;
+    }
+
+    /**
+     * Giữ response và bytes của nó để lưu cache khi call kết thúc OK với đúng một response
+     */
+    private final class RecordingServerCall extends ForwardingServerCall.SimpleForwardingServerCall<ReqT, RespT> {
+        private final CacheKey key;
+        private CachedResponse<RespT> response;
+        private int responseCount;
+
+        RecordingServerCall(ServerCall<ReqT, RespT> call, CacheKey key) {
+            super(call);
+            this.key = key;
+        }
+
+        @Override
+        public void request(int numMessages) {
+            // Request đã được đọc sẵn ở handler ngoài
+        }
+
+        @Override
+        public void sendMessage(RespT message) {
+            if (responseCount++ == 0) {
+                response = new CachedResponse<>(message, responseMarshaller.serialize(message));
+            }
+            super.sendMessage(message);
+        }
+
+        @Override
+        public void close(Status status, Metadata trailers) {
+            if (status.isOk() && responseCount == 1) {
+                cache.put(key, response);
+            }
+            super.close(status, trailers);
+        }
+    }
+}
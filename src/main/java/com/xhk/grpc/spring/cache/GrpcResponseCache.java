@@ -0,0 +1,144 @@
+package com.xhk.grpc.spring.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.google.protobuf.MessageLite;
+import com.xhk.grpc.spring.annotation.GrpcCacheable;
+import com.xhk.grpc.spring.config.GrpcProperties;
+import com.xhk.grpc.spring.server.ServiceDefinitions;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerMethodDefinition;
+import io.grpc.ServerServiceDefinition;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.util.ClassUtils;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache response đã serialize của các unary method được khai báo trong grpc.server.cache hoặc bằng @GrpcCacheable.
+ * Metrics hit/miss/eviction được đăng ký qua Micrometer với tag cache = full method name.
+ */
+public class GrpcResponseCache {
+    private static final Logger logger = LogManager.getLogger(GrpcResponseCache.class);
+
+    private final GrpcProperties.ResponseCache config;
+    private final MeterRegistry registry;
+    private final Map<String, Cache<CacheKey, CachedResponse<?>>> caches = new ConcurrentHashMap<>();
+
+    public GrpcResponseCache(GrpcProperties.ResponseCache config, MeterRegistry registry) {
+        this.config = config;
+        this.registry = registry;
+    }
+
+    /**
+     * Bọc handler của các method có cấu hình cache và đổi response marshaller để gửi thẳng bytes đã lưu,
+     * kiểu message giữ nguyên, các method khác không đổi
+     */
+    public ServerServiceDefinition wrap(Object bean, ServerServiceDefinition definition) {
+        Map<String, GrpcCacheable> annotations = findAnnotations(bean);
+        return ServiceDefinitions.rewrite(definition, method -> {
+            MethodDescriptor<?, ?> descriptor = method.getMethodDescriptor();
+            GrpcProperties.CacheRule rule = resolveRule(descriptor, annotations);
+            if (rule == null) {
+                return method;
+            }
+            if (descriptor.getType() != MethodDescriptor.MethodType.UNARY) {
+                logger.warn("Response cache is only supported for unary methods, ignoring {}", descriptor.getFullMethodName());
+                return method;
+            }
+            logger.info("Enabled response cache for {} (ttl={}s, maxSize={})",
+                    descriptor.getFullMethodName(), rule.getTtlSeconds(), rule.getMaxSize());
+            return cached(method, rule);
+        });
+    }
+
+    public void invalidateAll() {
+        caches.values().forEach(Cache::invalidateAll);
+    }
+
+    public void invalidate(String fullMethodName) {
+        Cache<CacheKey, CachedResponse<?>> cache = caches.get(fullMethodName);
+        if (cache != null) {
+            cache.invalidateAll();
+        }
+    }
+
+    /**
+     * Xoá các entry của request này (với mọi giá trị header trong key).
+     * Request được so sánh theo bytes nên cần serialize giống phía client (map field có thể khác thứ tự).
+     */
+    public void invalidate(String fullMethodName, MessageLite request) {
+        Cache<CacheKey, CachedResponse<?>> cache = caches.get(fullMethodName);
+        if (cache != null) {
+            byte[] bytes = request.toByteArray();
+            cache.asMap().keySet().removeIf(key -> key.hasRequest(bytes));
+        }
+    }
+
+    private <ReqT, RespT> ServerMethodDefinition<ReqT, RespT> cached(
+            ServerMethodDefinition<ReqT, RespT> method, GrpcProperties.CacheRule rule) {
+        MethodDescriptor<ReqT, RespT> descriptor = method.getMethodDescriptor();
+        Cache<CacheKey, CachedResponse<?>> cache = caches.computeIfAbsent(descriptor.getFullMethodName(), name -> {
+            Cache<CacheKey, CachedResponse<?>> created = Caffeine.newBuilder()
+                    .expireAfterWrite(Duration.ofSeconds(rule.getTtlSeconds()))
+                    .maximumSize(rule.getMaxSize())
+                    .recordStats()
+                    .build();
+            CaffeineCacheMetrics.monitor(registry, created, name);
+            return created;
+        });
+
+        @SuppressWarnings("unchecked")
+        Metadata.Key<String>[] keyHeaders = rule.getKeyHeaders().stream()
+                .map(header -> Metadata.Key.of(header, Metadata.ASCII_STRING_MARSHALLER))
+                .toArray(Metadata.Key[]::new);
+        SerializedResponseMarshaller<RespT> responseMarshaller =
+                new SerializedResponseMarshaller<>(descriptor.getResponseMarshaller());
+        MethodDescriptor<ReqT, RespT> cachedDescriptor = descriptor
+                .toBuilder(descriptor.getRequestMarshaller(), responseMarshaller)
+                .build();
+        return ServerMethodDefinition.create(cachedDescriptor,
+                new CachingServerCallHandler<>(cachedDescriptor, method.getServerCallHandler(), responseMarshaller, cache, keyHeaders));
+    }
+
+    // Cấu hình trong grpc.server.cache được ưu tiên hơn annotation để có thể chỉnh mà không build lại
+    private GrpcProperties.CacheRule resolveRule(MethodDescriptor<?, ?> descriptor, Map<String, GrpcCacheable> annotations) {
+        GrpcProperties.CacheRule rule = config.getMethods().get(descriptor.getFullMethodName());
+        if (rule != null) {
+            return rule;
+        }
+        String bareName = descriptor.getBareMethodName();
+        if (bareName == null || bareName.isEmpty()) {
+            return null;
+        }
+        GrpcCacheable annotation = annotations.get(Character.toLowerCase(bareName.charAt(0)) + bareName.substring(1));
+        if (annotation == null) {
+            return null;
+        }
+        rule = new GrpcProperties.CacheRule();
+        rule.setTtlSeconds(annotation.ttlSeconds());
+        rule.setMaxSize(annotation.maxSize());
+        rule.setKeyHeaders(Arrays.asList(annotation.keyHeaders()));
+        return rule;
+    }
+
+    private Map<String, GrpcCacheable> findAnnotations(Object bean) {
+        Map<String, GrpcCacheable> annotations = new HashMap<>();
+        for (Method method : ClassUtils.getUserClass(bean).getMethods()) {
+            GrpcCacheable annotation = method.getAnnotation(GrpcCacheable.class);
+            if (annotation != null) {
+                annotations.put(method.getName(), annotation);
+            }
+        }
+        return annotations;
+    }
+}
@@ -0,0 +1,53 @@
+package com.xhk.grpc.spring.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.grpc.MethodDescriptor;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+
+/**
+ * Response marshaller của method có cache: message đã được serialize (lúc miss) được gửi bằng chính bytes đó,
+ * nên cache hit không parse cũng không encode lại. Message được nhận diện theo identity (weakKeys),
+ * entry tự mất khi message không còn được tham chiếu.
+ */
+final class SerializedResponseMarshaller<T> implements MethodDescriptor.PrototypeMarshaller<T> {
+    private final MethodDescriptor.Marshaller<T> delegate;
+    private final Cache<Object, byte[]> serialized = Caffeine.newBuilder().weakKeys().build();
+
+    SerializedResponseMarshaller(MethodDescriptor.Marshaller<T> delegate) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * Serialize một lần, transport dùng lại bytes này khi gửi message
+     */
+    byte[] serialize(T message) {
+        byte[] bytes = ByteArrayMarshaller.toBytes(delegate, message);
+        serialized.put(message, bytes);
+        return bytes;
+    }
+
+    @Override
+    public InputStream stream(T value) {
+        byte[] bytes = serialized.getIfPresent(value);
+        return bytes != null ? new ByteArrayInputStream(bytes) : delegate.stream(value);
+    }
+
+    @Override
+    public T parse(InputStream stream) {
+        return delegate.parse(stream);
+    }
+
+    // Giữ thông tin prototype để các marshaller bọc ngoài (zero-copy) vẫn nhận ra message protobuf
+    @Override
+    public T getMessagePrototype() {
+        return delegate instanceof MethodDescriptor.PrototypeMarshaller<T> prototype ? prototype.getMessagePrototype() : null;
+    }
+
+    @Override
+    public Class<T> getMessageClass() {
+        return delegate instanceof MethodDescriptor.PrototypeMarshaller<T> prototype ? prototype.getMessageClass() : null;
+    }
+}
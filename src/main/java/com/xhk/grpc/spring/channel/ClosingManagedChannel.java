@@ -0,0 +1,102 @@
+package com.xhk.grpc.spring.channel;
+
+import io.grpc.CallOptions;
+import io.grpc.ClientCall;
+import io.grpc.ConnectivityState;
+import io.grpc.ManagedChannel;
+import io.grpc.MethodDescriptor;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Bọc channel của client để đóng các interceptor giữ tài nguyên riêng (stream dùng chung, scheduler)
+ * khi channel bị shutdown, vd: khi Spring destroy bean của client
+ */
+public class ClosingManagedChannel extends ManagedChannel {
+    private static final Logger logger = LogManager.getLogger(ClosingManagedChannel.class);
+
+    private final ManagedChannel delegate;
+    private final List<? extends AutoCloseable> resources;
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    public ClosingManagedChannel(ManagedChannel delegate, List<? extends AutoCloseable> resources) {
+        this.delegate = delegate;
+        this.resources = resources;
+    }
+
+    @Override
+    public <ReqT, RespT> ClientCall<ReqT, RespT> newCall(MethodDescriptor<ReqT, RespT> method, CallOptions callOptions) {
+        return delegate.newCall(method, callOptions);
+    }
+
+    @Override
+    public ManagedChannel shutdown() {
+        delegate.shutdown();
+        closeResources();
+        return this;
+    }
+
+    @Override
+    public ManagedChannel shutdownNow() {
+        closeResources();
+        delegate.shutdownNow();
+        return this;
+    }
+
+    private void closeResources() {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        for (AutoCloseable resource : resources) {
+            try {
+                resource.close();
+            } catch (Exception e) {
+                logger.warn("Failed to close {}", resource.getClass().getSimpleName(), e);
+            }
+        }
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return delegate.isShutdown();
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return delegate.isTerminated();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return delegate.awaitTermination(timeout, unit);
+    }
+
+    @Override
+    public ConnectivityState getState(boolean requestConnection) {
+        return delegate.getState(requestConnection);
+    }
+
+    @Override
+    public void notifyWhenStateChanged(ConnectivityState source, Runnable callback) {
+        delegate.notifyWhenStateChanged(source, callback);
+    }
+
+    @Override
+    public void resetConnectBackoff() {
+        delegate.resetConnectBackoff();
+    }
+
+    @Override
+    public void enterIdle() {
+        delegate.enterIdle();
+    }
+
+    @Override
+    public String authority() {
+        return delegate.authority();
+    }
+}
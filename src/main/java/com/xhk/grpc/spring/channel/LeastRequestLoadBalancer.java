@@ -0,0 +1,211 @@
+package com.xhk.grpc.spring.channel;
+
+import io.grpc.ClientStreamTracer;
+import io.grpc.ConnectivityState;
+import io.grpc.ConnectivityStateInfo;
+import io.grpc.EquivalentAddressGroup;
+import io.grpc.LoadBalancer;
+import io.grpc.Metadata;
+import io.grpc.Status;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Load balancer power-of-two-choices: mỗi lần pick chọn ngẫu nhiên 2 subchannel READY
+ * và dùng subchannel có ít request đang chạy hơn.
+ * Mọi callback (trừ picker) đều chạy trong SynchronizationContext của channel nên không cần lock.
+ */
+class LeastRequestLoadBalancer extends LoadBalancer {
+
+    private final Helper helper;
+    private final Map<EquivalentAddressGroup, TrackedSubchannel> subchannels = new HashMap<>();
+    private ConnectivityState currentState;
+
+    LeastRequestLoadBalancer(Helper helper) {
+        this.helper = helper;
+    }
+
+    @Override
+    public Status acceptResolvedAddresses(ResolvedAddresses resolvedAddresses) {
+        List<EquivalentAddressGroup> addresses = resolvedAddresses.getAddresses();
+        if (addresses.isEmpty()) {
+            Status status = Status.UNAVAILABLE.withDescription("Name resolver returned no addresses");
+            handleNameResolutionError(status);
+            return status;
+        }
+
+        Set<EquivalentAddressGroup> latest = new HashSet<>();
+        for (EquivalentAddressGroup group : addresses) {
+            EquivalentAddressGroup key = new EquivalentAddressGroup(group.getAddresses());
+            latest.add(key);
+            if (!subchannels.containsKey(key)) {
+                Subchannel subchannel = helper.createSubchannel(CreateSubchannelArgs.newBuilder()
+                        .setAddresses(group)
+                        .build());
+                TrackedSubchannel tracked = new TrackedSubchannel(subchannel);
+                subchannels.put(key, tracked);
+                subchannel.start(stateInfo -> processSubchannelState(tracked, stateInfo));
+                subchannel.requestConnection();
+            }
+        }
+
+        subchannels.entrySet().removeIf(entry -> {
+            if (!latest.contains(entry.getKey())) {
+                entry.getValue().removed = true;
+                entry.getValue().subchannel.shutdown();
+                return true;
+            }
+            return false;
+        });
+
+        updateBalancingState();
+        return Status.OK;
+    }
+
+    @Override
+    public void handleNameResolutionError(Status error) {
+        if (currentState != ConnectivityState.READY) {
+            updateState(ConnectivityState.TRANSIENT_FAILURE, new ErrorPicker(error));
+        }
+    }
+
+    private void processSubchannelState(TrackedSubchannel tracked, ConnectivityStateInfo stateInfo) {
+        if (tracked.removed) {
+            return;
+        }
+        if (stateInfo.getState() == ConnectivityState.TRANSIENT_FAILURE || stateInfo.getState() == ConnectivityState.IDLE) {
+            helper.refreshNameResolution();
+        }
+        if (stateInfo.getState() == ConnectivityState.IDLE) {
+            tracked.subchannel.requestConnection();
+        }
+        tracked.state = stateInfo;
+        updateBalancingState();
+    }
+
+    private void updateBalancingState() {
+        List<TrackedSubchannel> ready = new ArrayList<>();
+        boolean connecting = false;
+        Status lastError = Status.UNAVAILABLE.withDescription("No subchannel is ready");
+        for (TrackedSubchannel tracked : subchannels.values()) {
+            ConnectivityState state = tracked.state.getState();
+            if (state == ConnectivityState.READY) {
+                ready.add(tracked);
+            } else if (state == ConnectivityState.CONNECTING || state == ConnectivityState.IDLE) {
+                connecting = true;
+            } else if (state == ConnectivityState.TRANSIENT_FAILURE) {
+                lastError = tracked.state.getStatus();
+            }
+        }
+
+        if (!ready.isEmpty()) {
+            updateState(ConnectivityState.READY, new PowerOfTwoPicker(ready.toArray(new TrackedSubchannel[0])));
+        } else if (connecting) {
+            updateState(ConnectivityState.CONNECTING, new EmptyPicker());
+        } else {
+            updateState(ConnectivityState.TRANSIENT_FAILURE, new ErrorPicker(lastError));
+        }
+    }
+
+    private void updateState(ConnectivityState state, SubchannelPicker picker) {
+        currentState = state;
+        helper.updateBalancingState(state, picker);
+    }
+
+    @Override
+    public void shutdown() {
+        for (TrackedSubchannel tracked : subchannels.values()) {
+            tracked.removed = true;
+            tracked.subchannel.shutdown();
+        }
+        subchannels.clear();
+    }
+
+    // Tổng số stream đang chạy trên các subchannel, dùng cho test
+    int inFlight() {
+        int total = 0;
+        for (TrackedSubchannel tracked : subchannels.values()) {
+            total += tracked.inFlight.get();
+        }
+        return total;
+    }
+
+    private static final class TrackedSubchannel {
+        final Subchannel subchannel;
+        final AtomicInteger inFlight = new AtomicInteger();
+        // Một tracer dùng chung cho mọi stream của subchannel. Bộ đếm chỉ tăng khi stream thực sự được tạo
+        // trên subchannel (pick có thể bị bỏ khi transport chưa sẵn sàng hoặc call bị huỷ) và giảm khi stream đóng
+        final ClientStreamTracer.Factory tracerFactory;
+        ConnectivityStateInfo state = ConnectivityStateInfo.forNonError(ConnectivityState.IDLE);
+        boolean removed;
+
+        TrackedSubchannel(Subchannel subchannel) {
+            this.subchannel = subchannel;
+            ClientStreamTracer tracer = new ClientStreamTracer() {
+                @Override
+                public void streamClosed(Status status) {
+                    inFlight.decrementAndGet();
+                }
+            };
+            this.tracerFactory = new ClientStreamTracer.Factory() {
+                @Override
+                public ClientStreamTracer newClientStreamTracer(ClientStreamTracer.StreamInfo info, Metadata headers) {
+                    inFlight.incrementAndGet();
+                    return tracer;
+                }
+            };
+        }
+    }
+
+    private static final class PowerOfTwoPicker extends SubchannelPicker {
+        private final TrackedSubchannel[] ready;
+
+        PowerOfTwoPicker(TrackedSubchannel[] ready) {
+            this.ready = ready;
+        }
+
+        @Override
+        public PickResult pickSubchannel(PickSubchannelArgs args) {
+            TrackedSubchannel chosen;
+            if (ready.length == 1) {
+                chosen = ready[0];
+            } else {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                int first = random.nextInt(ready.length);
+                int second = random.nextInt(ready.length - 1);
+                if (second >= first) {
+                    second++;
+                }
+                chosen = ready[first].inFlight.get() <= ready[second].inFlight.get() ? ready[first] : ready[second];
+            }
+            return PickResult.withSubchannel(chosen.subchannel, chosen.tracerFactory);
+        }
+    }
+
+    private static final class EmptyPicker extends SubchannelPicker {
+        @Override
+        public PickResult pickSubchannel(PickSubchannelArgs args) {
+            return PickResult.withNoResult();
+        }
+    }
+
+    private static final class ErrorPicker extends SubchannelPicker {
+        private final Status error;
+
+        ErrorPicker(Status error) {
+            this.error = error;
+        }
+
+        @Override
+        public PickResult pickSubchannel(PickSubchannelArgs args) {
+            return PickResult.withError(error);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.xhk.grpc.spring.channel;
+
+import io.grpc.LoadBalancer;
+import io.grpc.LoadBalancerProvider;
+
+/**
+ * Đăng ký policy "least_request" (power-of-two-choices) qua META-INF/services
+ */
+public class LeastRequestLoadBalancerProvider extends LoadBalancerProvider {
+    public static final String POLICY_NAME = "least_request";
+
+    @Override
+    public boolean isAvailable() {
+        return true;
+    }
+
+    @Override
+    public int getPriority() {
+        return 5;
+    }
+
+    @Override
+    public String getPolicyName() {
+        return POLICY_NAME;
+    }
+
+    @Override
+    public LoadBalancer newLoadBalancer(LoadBalancer.Helper helper) {
+        return new LeastRequestLoadBalancer(helper);
+    }
+}
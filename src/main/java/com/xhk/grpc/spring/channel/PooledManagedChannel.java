@@ -0,0 +1,238 @@
+package com.xhk.grpc.spring.channel;
+
+import com.xhk.grpc.spring.config.GrpcProperties;
+import io.grpc.CallOptions;
+import io.grpc.ClientCall;
+import io.grpc.ConnectivityState;
+import io.grpc.ForwardingClientCall;
+import io.grpc.ForwardingClientCallListener;
+import io.grpc.ManagedChannel;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.Supplier;
+
+/**
+ * Một Channel gồm nhiều ManagedChannel con (mỗi channel con là một connection HTTP/2 riêng),
+ * giúp vượt qua giới hạn MAX_CONCURRENT_STREAMS của một connection.
+ * Channel con đang TRANSIENT_FAILURE hoặc SHUTDOWN sẽ bị bỏ qua khi chọn.
+ */
+public class PooledManagedChannel extends ManagedChannel {
+    private static final Logger logger = LogManager.getLogger(PooledManagedChannel.class);
+
+    private final String name;
+    private final ManagedChannel[] channels;
+    private final GrpcProperties.ChannelPoolStrategy strategy;
+    private final AtomicIntegerArray inFlight;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public PooledManagedChannel(String name, int size, GrpcProperties.ChannelPoolStrategy strategy,
+                                Supplier<ManagedChannel> channelFactory) {
+        this.name = name;
+        this.strategy = strategy;
+        this.channels = new ManagedChannel[size];
+        this.inFlight = new AtomicIntegerArray(size);
+        for (int i = 0; i < size; i++) {
+            channels[i] = channelFactory.get();
+            watchState(i, channels[i].getState(false));
+        }
+        logger.info("Created channel pool '{}' with {} channels ({})", name, size, strategy);
+    }
+
+    @Override
+    public <ReqT, RespT> ClientCall<ReqT, RespT> newCall(MethodDescriptor<ReqT, RespT> method, CallOptions callOptions) {
+        int index = pick();
+        inFlight.incrementAndGet(index);
+        ClientCall<ReqT, RespT> call;
+        try {
+            call = channels[index].newCall(method, callOptions);
+        } catch (RuntimeException e) {
+            inFlight.decrementAndGet(index);
+            throw e;
+        }
+        return new ForwardingClientCall.SimpleForwardingClientCall<>(call) {
+            // start() và cancel() có thể chạy trên các thread khác nhau: chỉ bên thắng CAS trả in-flight
+            private final AtomicBoolean released = new AtomicBoolean();
+
+            @Override
+            public void start(Listener<RespT> responseListener, Metadata headers) {
+                super.start(new ForwardingClientCallListener.SimpleForwardingClientCallListener<>(responseListener) {
+                    @Override
+                    public void onClose(Status status, Metadata trailers) {
+                        release();
+                        super.onClose(status, trailers);
+                    }
+                }, headers);
+            }
+
+            @Override
+            public void cancel(String message, Throwable cause) {
+                // Call bị cancel trước khi start sẽ không bao giờ nhận onClose
+                release();
+                super.cancel(message, cause);
+            }
+
+            private void release() {
+                if (released.compareAndSet(false, true)) {
+                    inFlight.decrementAndGet(index);
+                }
+            }
+        };
+    }
+
+    private int pick() {
+        int size = channels.length;
+        int start = Math.floorMod(next.getAndIncrement(), size);
+        if (strategy == GrpcProperties.ChannelPoolStrategy.ROUND_ROBIN) {
+            for (int i = 0; i < size; i++) {
+                int index = (start + i) % size;
+                if (isHealthy(index)) {
+                    return index;
+                }
+            }
+            return start;
+        }
+
+        int best = -1;
+        int bestLoad = Integer.MAX_VALUE;
+        for (int i = 0; i < size; i++) {
+            int index = (start + i) % size;
+            int load = inFlight.get(index);
+            if (load < bestLoad && isHealthy(index)) {
+                best = index;
+                bestLoad = load;
+            }
+        }
+        return best >= 0 ? best : start;
+    }
+
+    private boolean isHealthy(int index) {
+        ConnectivityState state = channels[index].getState(false);
+        return state != ConnectivityState.TRANSIENT_FAILURE && state != ConnectivityState.SHUTDOWN;
+    }
+
+    /**
+     * Theo dõi trạng thái từng channel con: channel TRANSIENT_FAILURE được gRPC tự reconnect theo backoff
+     * trong khi pool chuyển traffic sang channel khác. Channel về IDLE (idleTimeout, GOAWAY) không được kết nối lại
+     * ở đây mà để call tiếp theo được pick vào nó kết nối, tránh giữ connection cho pool không có traffic.
+     */
+    private void watchState(int index, ConnectivityState current) {
+        ManagedChannel channel = channels[index];
+        if (current == ConnectivityState.SHUTDOWN) {
+            return;
+        }
+        channel.notifyWhenStateChanged(current, () -> {
+            ConnectivityState state = channel.getState(false);
+            if (state == ConnectivityState.TRANSIENT_FAILURE) {
+                logger.warn("Channel {}[{}] is in TRANSIENT_FAILURE, routing calls to other channels", name, index);
+            }
+            watchState(index, state);
+        });
+    }
+
+    public int size() {
+        return channels.length;
+    }
+
+    public int getInFlight(int index) {
+        return inFlight.get(index);
+    }
+
+    @Override
+    public ConnectivityState getState(boolean requestConnection) {
+        boolean connecting = false;
+        boolean idle = false;
+        boolean failure = false;
+        for (ManagedChannel channel : channels) {
+            ConnectivityState state = channel.getState(requestConnection);
+            switch (state) {
+                case READY -> {
+                    return ConnectivityState.READY;
+                }
+                case CONNECTING -> connecting = true;
+                case IDLE -> idle = true;
+                case TRANSIENT_FAILURE -> failure = true;
+                default -> {
+                }
+            }
+        }
+        if (connecting) return ConnectivityState.CONNECTING;
+        if (idle) return ConnectivityState.IDLE;
+        if (failure) return ConnectivityState.TRANSIENT_FAILURE;
+        return ConnectivityState.SHUTDOWN;
+    }
+
+    @Override
+    public void resetConnectBackoff() {
+        for (ManagedChannel channel : channels) {
+            channel.resetConnectBackoff();
+        }
+    }
+
+    @Override
+    public void enterIdle() {
+        for (ManagedChannel channel : channels) {
+            channel.enterIdle();
+        }
+    }
+
+    @Override
+    public ManagedChannel shutdown() {
+        for (ManagedChannel channel : channels) {
+            channel.shutdown();
+        }
+        return this;
+    }
+
+    @Override
+    public ManagedChannel shutdownNow() {
+        for (ManagedChannel channel : channels) {
+            channel.shutdownNow();
+        }
+        return this;
+    }
+
+    @Override
+    public boolean isShutdown() {
+        for (ManagedChannel channel : channels) {
+            if (!channel.isShutdown()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        for (ManagedChannel channel : channels) {
+            if (!channel.isTerminated()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (ManagedChannel channel : channels) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0 || !channel.awaitTermination(remaining, TimeUnit.NANOSECONDS)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String authority() {
+        return channels[0].authority();
+    }
+}
@@ -0,0 +1,108 @@
+package com.xhk.grpc.spring.channel;
+
+import com.xhk.grpc.spring.config.GrpcProperties;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Chuyển methodPolicies và retryThrottling của client thành default service config của channel
+ * (định dạng JSON đã parse: Map, List, String, Double theo yêu cầu của gRPC)
+ */
+public final class ServiceConfigFactory {
+    public static final String ALL_METHODS = "*";
+
+    private ServiceConfigFactory() {
+    }
+
+    /**
+     * @return null nếu client không khai báo policy nào
+     */
+    public static Map<String, Object> create(GrpcProperties.Client clientConfig) {
+        if (clientConfig.getMethodPolicies().isEmpty()) {
+            return null;
+        }
+        List<Object> methodConfigs = new ArrayList<>();
+        clientConfig.getMethodPolicies().forEach((name, policy) -> methodConfigs.add(methodConfig(name, policy)));
+
+        Map<String, Object> serviceConfig = new LinkedHashMap<>();
+        serviceConfig.put("methodConfig", methodConfigs);
+        GrpcProperties.RetryThrottling throttling = clientConfig.getRetryThrottling();
+        if (throttling.getMaxTokens() > 0) {
+            serviceConfig.put("retryThrottling", Map.of(
+                    "maxTokens", (double) throttling.getMaxTokens(),
+                    "tokenRatio", throttling.getTokenRatio()));
+        }
+        return serviceConfig;
+    }
+
+    /**
+     * Policy áp dụng cho method: theo full method name, rồi service name, rồi "*"
+     */
+    public static GrpcProperties.CallPolicy resolve(Map<String, GrpcProperties.CallPolicy> policies, MethodDescriptor<?, ?> method) {
+        GrpcProperties.CallPolicy policy = policies.get(method.getFullMethodName());
+        if (policy == null) {
+            policy = policies.get(method.getServiceName());
+        }
+        return policy != null ? policy : policies.get(ALL_METHODS);
+    }
+
+    private static Map<String, Object> methodConfig(String name, GrpcProperties.CallPolicy policy) {
+        if (policy.getRetry() != null && policy.getHedging() != null) {
+            throw new IllegalStateException("Method policy " + name + " cannot declare both retry and hedging");
+        }
+        Map<String, Object> methodConfig = new LinkedHashMap<>();
+        methodConfig.put("name", List.of(methodName(name)));
+
+        if (policy.getRetry() != null) {
+            GrpcProperties.RetryPolicy retry = policy.getRetry();
+            methodConfig.put("retryPolicy", Map.of(
+                    "maxAttempts", (double) retry.getMaxAttempts(),
+                    "initialBackoff", duration(retry.getInitialBackoffMillis()),
+                    "maxBackoff", duration(retry.getMaxBackoffMillis()),
+                    "backoffMultiplier", retry.getBackoffMultiplier(),
+                    "retryableStatusCodes", statusCodes(name, retry.getRetryableStatusCodes())));
+        } else if (policy.getHedging() != null) {
+            GrpcProperties.HedgingPolicy hedging = policy.getHedging();
+            methodConfig.put("hedgingPolicy", Map.of(
+                    "maxAttempts", (double) hedging.getMaxAttempts(),
+                    "hedgingDelay", duration(hedging.getHedgingDelayMillis()),
+                    "nonFatalStatusCodes", statusCodes(name, hedging.getNonFatalStatusCodes())));
+        }
+        return methodConfig;
+    }
+
+    // "*" là method config mặc định, "pkg.Service" áp dụng cho cả service, "pkg.Service/Method" cho một method
+    private static Map<String, Object> methodName(String name) {
+        if (ALL_METHODS.equals(name)) {
+            return Map.of();
+        }
+        int slash = name.indexOf('/');
+        if (slash < 0) {
+            return Map.of("service", name);
+        }
+        return Map.of("service", name.substring(0, slash), "method", name.substring(slash + 1));
+    }
+
+    private static List<Object> statusCodes(String name, List<String> codes) {
+        List<Object> result = new ArrayList<>();
+        for (String code : codes) {
+            try {
+                result.add(Status.Code.valueOf(code.trim().toUpperCase(Locale.ROOT)).name());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalStateException("Invalid status code " + code + " in method policy " + name, e);
+            }
+        }
+        return result;
+    }
+
+    private static String duration(long millis) {
+        return BigDecimal.valueOf(millis, 3).toPlainString() + "s";
+    }
+}
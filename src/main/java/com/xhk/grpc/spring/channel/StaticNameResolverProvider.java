@@ -0,0 +1,134 @@
+package com.xhk.grpc.spring.channel;
+
+import io.grpc.EquivalentAddressGroup;
+import io.grpc.NameResolver;
+import io.grpc.NameResolverProvider;
+import io.grpc.Status;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * NameResolver cho danh sách địa chỉ tĩnh, target dạng {@code static:///host1:9090,host2:9090}.
+ * Mỗi địa chỉ là một EquivalentAddressGroup riêng để load balancer phân phối giữa các replica.
+ */
+public class StaticNameResolverProvider extends NameResolverProvider {
+    public static final String SCHEME = "static";
+
+    public static String toTarget(List<String> addresses) {
+        return SCHEME + ":///" + String.join(",", addresses);
+    }
+
+    @Override
+    protected boolean isAvailable() {
+        return true;
+    }
+
+    // Thấp hơn DNS (5) để target không có scheme vẫn được resolve bằng DNS như mặc định
+    @Override
+    protected int priority() {
+        return 4;
+    }
+
+    @Override
+    public String getDefaultScheme() {
+        return SCHEME;
+    }
+
+    @Override
+    public Collection<Class<? extends SocketAddress>> getProducedSocketAddressTypes() {
+        return List.of(InetSocketAddress.class);
+    }
+
+    @Override
+    public NameResolver newNameResolver(URI targetUri, NameResolver.Args args) {
+        if (!SCHEME.equals(targetUri.getScheme())) {
+            return null;
+        }
+        String path = targetUri.getPath();
+        if (path == null || path.length() <= 1) {
+            throw new IllegalArgumentException("No addresses in target: " + targetUri);
+        }
+        List<EquivalentAddressGroup> groups = new ArrayList<>();
+        for (String address : path.substring(1).split(",")) {
+            groups.add(new EquivalentAddressGroup(parse(address.trim())));
+        }
+        String authority = path.substring(1).split(",")[0].trim();
+        Executor executor = args.getOffloadExecutor() != null ? args.getOffloadExecutor() : Runnable::run;
+        return new StaticNameResolver(authority, groups, executor);
+    }
+
+    private static InetSocketAddress parse(String address) {
+        int separator = address.lastIndexOf(':');
+        if (separator <= 0) {
+            throw new IllegalArgumentException("Address must be host:port, got: " + address);
+        }
+        String host = address.substring(0, separator);
+        if (host.startsWith("[") && host.endsWith("]")) {
+            host = host.substring(1, host.length() - 1);
+        }
+        return InetSocketAddress.createUnresolved(host, Integer.parseInt(address.substring(separator + 1)));
+    }
+
+    private static class StaticNameResolver extends NameResolver {
+        private final String authority;
+        private final List<EquivalentAddressGroup> groups;
+        private final Executor executor;
+        private volatile Listener2 listener;
+
+        StaticNameResolver(String authority, List<EquivalentAddressGroup> groups, Executor executor) {
+            this.authority = authority;
+            this.groups = groups;
+            this.executor = executor;
+        }
+
+        @Override
+        public String getServiceAuthority() {
+            return authority;
+        }
+
+        @Override
+        public void start(Listener2 listener) {
+            this.listener = listener;
+            executor.execute(this::resolve);
+        }
+
+        @Override
+        public void refresh() {
+            if (listener != null) {
+                executor.execute(this::resolve);
+            }
+        }
+
+        // Resolve hostname có thể block nên chạy trên offload executor của channel
+        private void resolve() {
+            Listener2 listener = this.listener;
+            if (listener == null) {
+                return;
+            }
+            List<EquivalentAddressGroup> resolved = new ArrayList<>(groups.size());
+            for (EquivalentAddressGroup group : groups) {
+                InetSocketAddress address = (InetSocketAddress) group.getAddresses().get(0);
+                InetSocketAddress socketAddress = new InetSocketAddress(address.getHostString(), address.getPort());
+                if (!socketAddress.isUnresolved()) {
+                    resolved.add(new EquivalentAddressGroup(socketAddress));
+                }
+            }
+            if (resolved.isEmpty()) {
+                listener.onError(Status.UNAVAILABLE.withDescription("Cannot resolve any address of " + groups));
+                return;
+            }
+            listener.onResult(ResolutionResult.newBuilder().setAddresses(resolved).build());
+        }
+
+        @Override
+        public void shutdown() {
+            listener = null;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.xhk.grpc.spring.compression;
+
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.ForwardingClientCall;
+import io.grpc.MethodDescriptor;
+
+/**
+ * Nén request theo thuật toán của method, message nhỏ hơn minMessageSize được gửi không nén.
+ * Khi có CompressionMetrics, đếm thêm bytes trước/sau khi nén của mỗi call.
+ */
+public class ClientCompressionInterceptor implements ClientInterceptor {
+    private final CompressionPolicy policy;
+    private final CompressionMetrics metrics;
+
+    public ClientCompressionInterceptor(CompressionPolicy policy, CompressionMetrics metrics) {
+        this.policy = policy;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(
+            MethodDescriptor<ReqT, RespT> method, CallOptions callOptions, Channel next) {
+        CallOptions options = callOptions;
+        if (metrics != null) {
+            options = options.withStreamTracerFactory(metrics.clientTracerFactory(method.getFullMethodName()));
+        }
+        String algorithm = policy.algorithmFor(method);
+        if (algorithm == null) {
+            return next.newCall(method, options);
+        }
+        return new ForwardingClientCall.SimpleForwardingClientCall<>(next.newCall(method, options.withCompression(algorithm))) {
+            @Override
+            public void sendMessage(ReqT message) {
+                setMessageCompression(policy.shouldCompress(message));
+                super.sendMessage(message);
+            }
+        };
+    }
+}
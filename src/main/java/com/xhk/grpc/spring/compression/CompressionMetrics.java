@@ -0,0 +1,128 @@
+package com.xhk.grpc.spring.compression;
+
+import io.grpc.ClientStreamTracer;
+import io.grpc.Metadata;
+import io.grpc.ServerServiceDefinition;
+import io.grpc.ServerStreamTracer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Đếm bytes trước khi nén (uncompressed) và bytes thực tế trên đường truyền (wire) theo method và chiều gửi/nhận,
+ * số liệu lấy từ stream tracer của gRPC.
+ * Phía server, method name do client gửi lên nên chỉ method đã đăng ký (registerMethods) có tag riêng,
+ * các tên khác dùng chung tag method = unknown để số meter không tăng theo request lạ.
+ */
+public class CompressionMetrics {
+    private static final String UNKNOWN_METHOD = "unknown";
+
+    private final MeterRegistry registry;
+    private final String prefix;
+    private final Map<String, MethodCounters> counters = new ConcurrentHashMap<>();
+    private final Set<String> serverMethods = ConcurrentHashMap.newKeySet();
+
+    public CompressionMetrics(MeterRegistry registry, String prefix) {
+        this.registry = registry;
+        this.prefix = prefix;
+    }
+
+    public void registerMethods(ServerServiceDefinition definition) {
+        definition.getMethods().forEach(method -> serverMethods.add(method.getMethodDescriptor().getFullMethodName()));
+    }
+
+    public ServerStreamTracer.Factory serverTracerFactory() {
+        return new ServerStreamTracer.Factory() {
+            @Override
+            public ServerStreamTracer newServerStreamTracer(String fullMethodName, Metadata headers) {
+                MethodCounters methodCounters = countersFor(serverMethods.contains(fullMethodName) ? fullMethodName : UNKNOWN_METHOD);
+                return new ServerStreamTracer() {
+                    @Override
+                    public void outboundWireSize(long bytes) {
+                        methodCounters.sentWire.increment(bytes);
+                    }
+
+                    @Override
+                    public void outboundUncompressedSize(long bytes) {
+                        methodCounters.sentUncompressed.increment(bytes);
+                    }
+
+                    @Override
+                    public void inboundWireSize(long bytes) {
+                        methodCounters.receivedWire.increment(bytes);
+                    }
+
+                    @Override
+                    public void inboundUncompressedSize(long bytes) {
+                        methodCounters.receivedUncompressed.increment(bytes);
+                    }
+                };
+            }
+        };
+    }
+
+    public ClientStreamTracer.Factory clientTracerFactory(String fullMethodName) {
+        return countersFor(fullMethodName).clientTracerFactory;
+    }
+
+    private MethodCounters countersFor(String fullMethodName) {
+        MethodCounters methodCounters = counters.get(fullMethodName);
+        if (methodCounters == null) {
+            methodCounters = counters.computeIfAbsent(fullMethodName, MethodCounters::new);
+        }
+        return methodCounters;
+    }
+
+    private final class MethodCounters {
+        private final Counter sentWire;
+        private final Counter sentUncompressed;
+        private final Counter receivedWire;
+        private final Counter receivedUncompressed;
+        private final ClientStreamTracer.Factory clientTracerFactory;
+
+        MethodCounters(String methodName) {
+            this.sentWire = counter(methodName, "sent", "wire");
+            this.sentUncompressed = counter(methodName, "sent", "uncompressed");
+            this.receivedWire = counter(methodName, "received", "wire");
+            this.receivedUncompressed = counter(methodName, "received", "uncompressed");
+            this.clientTracerFactory = new ClientStreamTracer.Factory() {
+                @Override
+                public ClientStreamTracer newClientStreamTracer(ClientStreamTracer.StreamInfo info, Metadata headers) {
+                    return new ClientStreamTracer() {
+                        @Override
+                        public void outboundWireSize(long bytes) {
+                            sentWire.increment(bytes);
+                        }
+
+                        @Override
+                        public void outboundUncompressedSize(long bytes) {
+                            sentUncompressed.increment(bytes);
+                        }
+
+                        @Override
+                        public void inboundWireSize(long bytes) {
+                            receivedWire.increment(bytes);
+                        }
+
+                        @Override
+                        public void inboundUncompressedSize(long bytes) {
+                            receivedUncompressed.increment(bytes);
+                        }
+                    };
+                }
+            };
+        }
+
+        private Counter counter(String methodName, String direction, String size) {
+            return Counter.builder(prefix + ".compression.bytes")
+                    .baseUnit("bytes")
+                    .tag("method", methodName)
+                    .tag("direction", direction)
+                    .tag("size", size)
+                    .register(registry);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.xhk.grpc.spring.compression;
+
+import com.google.protobuf.MessageLite;
+import com.xhk.grpc.spring.config.GrpcProperties;
+import io.grpc.CompressorRegistry;
+import io.grpc.MethodDescriptor;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Quyết định thuật toán nén cho từng method và có nén từng message hay không theo ngưỡng kích thước
+ */
+public class CompressionPolicy {
+    private final GrpcProperties.MessageCompression config;
+    private final Map<String, Optional<String>> algorithmByMethod = new ConcurrentHashMap<>();
+
+    public CompressionPolicy(GrpcProperties.MessageCompression config) {
+        this.config = config;
+    }
+
+    /**
+     * Kiểm tra lúc khởi động để thuật toán chưa đăng ký không làm lỗi từng call
+     */
+    public void validate(CompressorRegistry registry) {
+        checkRegistered(registry, config.getAlgorithm());
+        config.getMethods().values().forEach(algorithm -> checkRegistered(registry, algorithm));
+    }
+
+    /**
+     * @return null nếu method không nén
+     */
+    public String algorithmFor(MethodDescriptor<?, ?> method) {
+        Optional<String> algorithm = algorithmByMethod.get(method.getFullMethodName());
+        if (algorithm == null) {
+            algorithm = algorithmByMethod.computeIfAbsent(method.getFullMethodName(), name -> {
+                String value = config.getMethods().get(name);
+                if (value == null) {
+                    value = config.getMethods().getOrDefault(method.getServiceName(), config.getAlgorithm());
+                }
+                return GrpcProperties.MessageCompression.IDENTITY.equals(value) ? Optional.empty() : Optional.of(value);
+            });
+        }
+        return algorithm.orElse(null);
+    }
+
+    // Message không biết trước kích thước thì vẫn nén
+    public boolean shouldCompress(Object message) {
+        int minSize = config.getMinMessageSize();
+        if (minSize <= 0) {
+            return true;
+        }
+        if (message instanceof MessageLite messageLite) {
+            return messageLite.getSerializedSize() >= minSize;
+        }
+        if (message instanceof byte[] bytes) {
+            return bytes.length >= minSize;
+        }
+        return true;
+    }
+
+    private static void checkRegistered(CompressorRegistry registry, String algorithm) {
+        if (registry.lookupCompressor(algorithm) == null) {
+            throw new IllegalStateException("Compressor '" + algorithm
+                    + "' is not registered, declare a io.grpc.Compressor bean with this message encoding");
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.xhk.grpc.spring.compression;
+
+import io.grpc.Codec;
+import io.grpc.Compressor;
+import io.grpc.CompressorRegistry;
+import io.grpc.Decompressor;
+import io.grpc.DecompressorRegistry;
+
+/**
+ * Registry riêng cho server/channel: gzip và identity có sẵn, cộng thêm các bean Compressor/Decompressor (vd: zstd, snappy)
+ */
+public final class CompressionRegistries {
+
+    private CompressionRegistries() {
+    }
+
+    public static CompressorRegistry compressors(Iterable<? extends Compressor> compressors) {
+        CompressorRegistry registry = CompressorRegistry.newEmptyInstance();
+        registry.register(new Codec.Gzip());
+        registry.register(Codec.Identity.NONE);
+        compressors.forEach(registry::register);
+        return registry;
+    }
+
+    // Decompressor được quảng bá trong grpc-accept-encoding để phía bên kia biết có thể nén bằng thuật toán nào
+    public static DecompressorRegistry decompressors(Iterable<? extends Decompressor> decompressors) {
+        DecompressorRegistry registry = DecompressorRegistry.getDefaultInstance();
+        for (Decompressor decompressor : decompressors) {
+            registry = registry.with(decompressor, true);
+        }
+        return registry;
+    }
+}
@@ -0,0 +1,37 @@
+package com.xhk.grpc.spring.compression;
+
+import io.grpc.ForwardingServerCall;
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+
+/**
+ * Nén response theo thuật toán của method; gRPC tự bỏ nén nếu client không khai báo thuật toán đó trong grpc-accept-encoding.
+ * Message nhỏ hơn minMessageSize được gửi không nén.
+ */
+public class ServerCompressionInterceptor implements ServerInterceptor {
+    private final CompressionPolicy policy;
+
+    public ServerCompressionInterceptor(CompressionPolicy policy) {
+        this.policy = policy;
+    }
+
+    @Override
+    public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(
+            ServerCall<ReqT, RespT> call, Metadata headers, ServerCallHandler<ReqT, RespT> next) {
+        String algorithm = policy.algorithmFor(call.getMethodDescriptor());
+        if (algorithm == null) {
+            return next.startCall(call, headers);
+        }
+        // Phải đặt trước khi gửi headers
+        call.setCompression(algorithm);
+        return next.startCall(new ForwardingServerCall.SimpleForwardingServerCall<>(call) {
+            @Override
+            public void sendMessage(RespT message) {
+                delegate().setMessageCompression(policy.shouldCompress(message));
+                super.sendMessage(message);
+            }
+        }, headers);
+    }
+}
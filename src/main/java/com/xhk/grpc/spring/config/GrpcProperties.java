@@ -1,5 +1,6 @@
 package com.xhk.grpc.spring.config;
 
+import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
@@ -7,7 +8,9 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.validation.annotation.Validated;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @Configuration
@@ -42,6 +45,35 @@ public class GrpcProperties {
         @Min(value = 65535, message = "Port must be less than 65536")
         private int port = 9090;
 
+        // Lắng nghe thêm trên Unix domain socket (cần epoll), null = chỉ TCP
+        private String unixSocketPath;
+
+        private ServerExecutor executor = new ServerExecutor();
+
+        private Netty netty = new Netty();
+
+        private ConcurrencyLimit concurrencyLimit = new ConcurrencyLimit();
+
+        private RateLimits rateLimits = new RateLimits();
+
+        private CallMetrics metrics = new CallMetrics();
+
+        private CallLogging logging = new CallLogging();
+
+        private ResponseCache cache = new ResponseCache();
+
+        private MessageCompression compression = new MessageCompression();
+
+        private ZeroCopy zeroCopy = new ZeroCopy();
+
+        private Warmup warmup = new Warmup();
+
+        private Shutdown shutdown = new Shutdown();
+
+        private Health health = new Health();
+
+        private InProcess inProcess = new InProcess();
+
         public int getPort() {
             return port;
         }
@@ -49,115 +81,1591 @@ public class GrpcProperties {
         public void setPort(int port) {
             this.port = port;
         }
+
+        public String getUnixSocketPath() {
+            return unixSocketPath;
+        }
+
+        public void setUnixSocketPath(String unixSocketPath) {
+            this.unixSocketPath = unixSocketPath;
+        }
+
+        public ServerExecutor getExecutor() {
+            return executor;
+        }
+
+        public void setExecutor(ServerExecutor executor) {
+            this.executor = executor;
+        }
+
+        public Netty getNetty() {
+            return netty;
+        }
+
+        public void setNetty(Netty netty) {
+            this.netty = netty;
+        }
+
+        public ConcurrencyLimit getConcurrencyLimit() {
+            return concurrencyLimit;
+        }
+
+        public void setConcurrencyLimit(ConcurrencyLimit concurrencyLimit) {
+            this.concurrencyLimit = concurrencyLimit;
+        }
+
+        public RateLimits getRateLimits() {
+            return rateLimits;
+        }
+
+        public void setRateLimits(RateLimits rateLimits) {
+            this.rateLimits = rateLimits;
+        }
+
+        public CallMetrics getMetrics() {
+            return metrics;
+        }
+
+        public void setMetrics(CallMetrics metrics) {
+            this.metrics = metrics;
+        }
+
+        public CallLogging getLogging() {
+            return logging;
+        }
+
+        public void setLogging(CallLogging logging) {
+            this.logging = logging;
+        }
+
+        public ResponseCache getCache() {
+            return cache;
+        }
+
+        public void setCache(ResponseCache cache) {
+            this.cache = cache;
+        }
+
+        public MessageCompression getCompression() {
+            return compression;
+        }
+
+        public void setCompression(MessageCompression compression) {
+            this.compression = compression;
+        }
+
+        public ZeroCopy getZeroCopy() {
+            return zeroCopy;
+        }
+
+        public void setZeroCopy(ZeroCopy zeroCopy) {
+            this.zeroCopy = zeroCopy;
+        }
+
+        public Warmup getWarmup() {
+            return warmup;
+        }
+
+        public void setWarmup(Warmup warmup) {
+            this.warmup = warmup;
+        }
+
+        public Shutdown getShutdown() {
+            return shutdown;
+        }
+
+        public void setShutdown(Shutdown shutdown) {
+            this.shutdown = shutdown;
+        }
+
+        public Health getHealth() {
+            return health;
+        }
+
+        public void setHealth(Health health) {
+            this.health = health;
+        }
+
+        public InProcess getInProcess() {
+            return inProcess;
+        }
+
+        public void setInProcess(InProcess inProcess) {
+            this.inProcess = inProcess;
+        }
     }
 
+    /**
+     * Giới hạn số call đồng thời theo từng method, limit tự điều chỉnh theo latency (gradient)
+     */
     @Validated
-    public static class Client {
-        @NotBlank(message = "Address cannot be blank")
-        private String address = "localhost";
+    public static class ConcurrencyLimit {
+        private boolean enabled = false;
 
-        @Min(value = 1, message = "Port must be greater than 0")
-        @Min(value = 65535, message = "Port must be less than 65536")
-        private int port = 9090;
+        @Min(value = 1, message = "Initial limit must be greater than 0")
+        private int initialLimit = 20;
 
-        private Map<String, Object> headers;
+        @Min(value = 1, message = "Min limit must be greater than 0")
+        private int minLimit = 1;
 
-        // Connection settings
-        private int keepAliveTimeMinutes = 1;
-        private int keepAliveTimeoutSeconds = 30;
-        private boolean keepAliveWithoutCalls = true;
-        private int idleTimeoutMinutes = 5;
-        private int maxRetryAttempts = 5;
-        private boolean usePlaintext = true;
-        private boolean enableDebug = false;
-        private boolean enableRetry = false;
+        private int maxLimit = 1000;
 
-        public String getAddress() {
-            return address;
+        // Hệ số làm mượt khi cập nhật limit (0..1)
+        private double smoothing = 0.2;
+
+        // Độ trễ được phép tăng bao nhiêu lần so với latency dài hạn trước khi giảm limit
+        private double tolerance = 1.5;
+
+        // Từ chối call có deadline còn lại ngắn hơn latency điển hình của method
+        private boolean rejectExpiredDeadlines = true;
+
+        private List<String> bypassServices = new ArrayList<>(List.of("Health", "grpc.health.v1.Health"));
+
+        public boolean isEnabled() {
+            return enabled;
         }
 
-        public void setAddress(String address) {
-            this.address = address;
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
         }
 
-        public int getPort() {
-            return port;
+        public int getInitialLimit() {
+            return initialLimit;
         }
 
-        public void setPort(int port) {
-            this.port = port;
+        public void setInitialLimit(int initialLimit) {
+            this.initialLimit = initialLimit;
         }
 
-        public Map<String, Object> getHeaders() {
-            return headers;
+        public int getMinLimit() {
+            return minLimit;
         }
 
-        public void setHeaders(Map<String, Object> headers) {
-            this.headers = headers;
+        public void setMinLimit(int minLimit) {
+            this.minLimit = minLimit;
         }
 
-        public int getKeepAliveTimeMinutes() {
-            return keepAliveTimeMinutes;
+        public int getMaxLimit() {
+            return maxLimit;
         }
 
-        public void setKeepAliveTimeMinutes(int keepAliveTimeMinutes) {
-            this.keepAliveTimeMinutes = keepAliveTimeMinutes;
+        public void setMaxLimit(int maxLimit) {
+            this.maxLimit = maxLimit;
         }
 
-        public int getKeepAliveTimeoutSeconds() {
-            return keepAliveTimeoutSeconds;
+        public double getSmoothing() {
+            return smoothing;
         }
 
-        public void setKeepAliveTimeoutSeconds(int keepAliveTimeoutSeconds) {
-            this.keepAliveTimeoutSeconds = keepAliveTimeoutSeconds;
+        public void setSmoothing(double smoothing) {
+            this.smoothing = smoothing;
         }
 
-        public boolean isKeepAliveWithoutCalls() {
-            return keepAliveWithoutCalls;
+        public double getTolerance() {
+            return tolerance;
         }
 
-        public void setKeepAliveWithoutCalls(boolean keepAliveWithoutCalls) {
-            this.keepAliveWithoutCalls = keepAliveWithoutCalls;
+        public void setTolerance(double tolerance) {
+            this.tolerance = tolerance;
         }
 
-        public int getIdleTimeoutMinutes() {
-            return idleTimeoutMinutes;
+        public boolean isRejectExpiredDeadlines() {
+            return rejectExpiredDeadlines;
         }
 
-        public void setIdleTimeoutMinutes(int idleTimeoutMinutes) {
-            this.idleTimeoutMinutes = idleTimeoutMinutes;
+        public void setRejectExpiredDeadlines(boolean rejectExpiredDeadlines) {
+            this.rejectExpiredDeadlines = rejectExpiredDeadlines;
         }
 
-        public int getMaxRetryAttempts() {
-            return maxRetryAttempts;
+        public List<String> getBypassServices() {
+            return bypassServices;
         }
 
-        public void setMaxRetryAttempts(int maxRetryAttempts) {
-            this.maxRetryAttempts = maxRetryAttempts;
+        public void setBypassServices(List<String> bypassServices) {
+            this.bypassServices = bypassServices;
         }
+    }
 
-        public boolean isUsePlaintext() {
-            return usePlaintext;
+    public enum RateLimitKey {
+        /**
+         * Một bucket chung cho method
+         */
+        NONE,
+        /**
+         * Mỗi giá trị của header (vd: api-key) một bucket
+         */
+        HEADER,
+        /**
+         * Mỗi địa chỉ IP của client một bucket
+         */
+        PEER
+    }
+
+    @Validated
+    public static class RateLimitRule {
+        @DecimalMin(value = "0.0", inclusive = false, message = "Permits per second must be greater than 0")
+        private double permitsPerSecond = 100;
+
+        // Số request tối đa được phép dồn một lúc
+        @Min(value = 1, message = "Burst must be greater than 0")
+        private int burst = 100;
+
+        private RateLimitKey keyBy = RateLimitKey.NONE;
+
+        // Tên header khi keyBy = HEADER
+        private String header = "api-key";
+
+        public double getPermitsPerSecond() {
+            return permitsPerSecond;
         }
 
-        public void setUsePlaintext(boolean usePlaintext) {
-            this.usePlaintext = usePlaintext;
+        public void setPermitsPerSecond(double permitsPerSecond) {
+            this.permitsPerSecond = permitsPerSecond;
         }
 
-        public boolean isEnableDebug() {
-            return enableDebug;
+        public int getBurst() {
+            return burst;
         }
 
-        public void setEnableDebug(boolean enableDebug) {
-            this.enableDebug = enableDebug;
+        public void setBurst(int burst) {
+            this.burst = burst;
         }
 
-        public boolean isEnableRetry() {
-            return enableRetry;
+        public RateLimitKey getKeyBy() {
+            return keyBy;
         }
 
-        public void setEnableRetry(boolean enableRetry) {
-            this.enableRetry = enableRetry;
+        public void setKeyBy(RateLimitKey keyBy) {
+            this.keyBy = keyBy;
+        }
+
+        public String getHeader() {
+            return header;
+        }
+
+        public void setHeader(String header) {
+            this.header = header;
+        }
+    }
+
+    /**
+     * Rate limit theo method và theo caller (token bucket)
+     */
+    @Validated
+    public static class RateLimits {
+        // Áp dụng cho mọi service, nếu false thì chỉ dùng qua @GrpcController(interceptors = RateLimitInterceptor.class)
+        private boolean global = false;
+
+        // Bucket không dùng quá thời gian này sẽ bị xoá
+        private long idleEvictionSeconds = 60;
+
+        // Vượt quá số bucket này, các key mới dùng chung một bucket overflow
+        private int maxBucketsPerRule = 100000;
+
+        // Key là full method name (service/Method) hoặc service name
+        private Map<String, RateLimitRule> rules = new HashMap<>();
+
+        public boolean isGlobal() {
+            return global;
+        }
+
+        public void setGlobal(boolean global) {
+            this.global = global;
+        }
+
+        public long getIdleEvictionSeconds() {
+            return idleEvictionSeconds;
+        }
+
+        public void setIdleEvictionSeconds(long idleEvictionSeconds) {
+            this.idleEvictionSeconds = idleEvictionSeconds;
+        }
+
+        public int getMaxBucketsPerRule() {
+            return maxBucketsPerRule;
+        }
+
+        public void setMaxBucketsPerRule(int maxBucketsPerRule) {
+            this.maxBucketsPerRule = maxBucketsPerRule;
+        }
+
+        public Map<String, RateLimitRule> getRules() {
+            return rules;
+        }
+
+        public void setRules(Map<String, RateLimitRule> rules) {
+            this.rules = rules;
+        }
+    }
+
+    /**
+     * Metrics theo method qua Micrometer
+     */
+    @Validated
+    public static class CallMetrics {
+        private boolean enabled = false;
+
+        // Publish percentile histogram cho timer (tốn thêm bộ nhớ cho mỗi method/status)
+        private boolean histogram = false;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public boolean isHistogram() {
+            return histogram;
+        }
+
+        public void setHistogram(boolean histogram) {
+            this.histogram = histogram;
+        }
+    }
+
+    /**
+     * Cấu hình log request/response cho ServerLoggingInterceptor và ClientLoggingInterceptor
+     */
+    @Validated
+    public static class CallLogging {
+        // Tỉ lệ call được log (0..1)
+        private double sampleRate = 1.0;
+
+        // Chỉ log call chậm hơn slowThresholdMs hoặc lỗi, một dòng khi call kết thúc
+        private boolean onlySlowOrFailed = false;
+
+        private long slowThresholdMs = 1000;
+
+        private boolean logPayloads = true;
+
+        // Cắt payload dài hơn số ký tự này, 0 = không giới hạn
+        private int maxPayloadLength = 0;
+
+        private boolean logHeaders = true;
+
+        // Header không nằm trong danh sách sẽ bị che giá trị, rỗng = log tất cả
+        private List<String> headerAllowList = new ArrayList<>();
+
+        public double getSampleRate() {
+            return sampleRate;
+        }
+
+        public void setSampleRate(double sampleRate) {
+            this.sampleRate = sampleRate;
+        }
+
+        public boolean isOnlySlowOrFailed() {
+            return onlySlowOrFailed;
+        }
+
+        public void setOnlySlowOrFailed(boolean onlySlowOrFailed) {
+            this.onlySlowOrFailed = onlySlowOrFailed;
+        }
+
+        public long getSlowThresholdMs() {
+            return slowThresholdMs;
+        }
+
+        public void setSlowThresholdMs(long slowThresholdMs) {
+            this.slowThresholdMs = slowThresholdMs;
+        }
+
+        public boolean isLogPayloads() {
+            return logPayloads;
+        }
+
+        public void setLogPayloads(boolean logPayloads) {
+            this.logPayloads = logPayloads;
+        }
+
+        public int getMaxPayloadLength() {
+            return maxPayloadLength;
+        }
+
+        public void setMaxPayloadLength(int maxPayloadLength) {
+            this.maxPayloadLength = maxPayloadLength;
+        }
+
+        public boolean isLogHeaders() {
+            return logHeaders;
+        }
+
+        public void setLogHeaders(boolean logHeaders) {
+            this.logHeaders = logHeaders;
+        }
+
+        public List<String> getHeaderAllowList() {
+            return headerAllowList;
+        }
+
+        public void setHeaderAllowList(List<String> headerAllowList) {
+            this.headerAllowList = headerAllowList;
+        }
+    }
+
+    @Validated
+    public static class CacheRule {
+        @Min(value = 1, message = "TTL must be greater than 0")
+        private long ttlSeconds = 60;
+
+        // Số entry tối đa, eviction theo W-TinyLFU
+        @Min(value = 1, message = "Max size must be greater than 0")
+        private long maxSize = 10000;
+
+        // Header được đưa vào cache key (vd: accept-language)
+        private List<String> keyHeaders = new ArrayList<>();
+
+        public long getTtlSeconds() {
+            return ttlSeconds;
+        }
+
+        public void setTtlSeconds(long ttlSeconds) {
+            this.ttlSeconds = ttlSeconds;
+        }
+
+        public long getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(long maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        public List<String> getKeyHeaders() {
+            return keyHeaders;
+        }
+
+        public void setKeyHeaders(List<String> keyHeaders) {
+            this.keyHeaders = keyHeaders;
+        }
+    }
+
+    /**
+     * Cache response của unary method, có thể khai báo thêm bằng @GrpcCacheable
+     */
+    @Validated
+    public static class ResponseCache {
+        // Key là full method name (service/Method), chỉ áp dụng cho unary method
+        private Map<String, CacheRule> methods = new HashMap<>();
+
+        public Map<String, CacheRule> getMethods() {
+            return methods;
+        }
+
+        public void setMethods(Map<String, CacheRule> methods) {
+            this.methods = methods;
+        }
+    }
+
+    public enum ExecutorMode {
+        /**
+         * Executor mặc định của gRPC (cached thread pool, không giới hạn)
+         */
+        DEFAULT,
+        /**
+         * Mỗi call một virtual thread (Java 21+), fallback sang FIXED trên Java 17
+         */
+        VIRTUAL,
+        /**
+         * Thread pool cố định với hàng đợi giới hạn
+         */
+        FIXED,
+        /**
+         * Chạy trực tiếp trên event loop, chỉ dùng cho controller hoàn toàn non-blocking
+         */
+        DIRECT
+    }
+
+    public enum NettyTransport {
+        /**
+         * Dùng epoll nếu native library khả dụng, ngược lại dùng NIO
+         */
+        AUTO,
+        EPOLL,
+        NIO
+    }
+
+    @Validated
+    public static class Netty {
+        private NettyTransport transport = NettyTransport.AUTO;
+
+        @Min(value = 1, message = "Boss threads must be greater than 0")
+        private int bossThreads = 1;
+
+        // 0 = mặc định của Netty (2 * số CPU)
+        @Min(value = 0, message = "Worker threads must not be negative")
+        private int workerThreads = 0;
+
+        // Số socket cùng bind vào port, chỉ có tác dụng khi reusePort = true (epoll)
+        @Min(value = 1, message = "Acceptors must be greater than 0")
+        private int acceptors = 1;
+
+        private boolean reusePort = false;
+        private boolean tcpNoDelay = true;
+
+        // 0 = mặc định của hệ điều hành
+        private int sendBufferSize = 0;
+        private int receiveBufferSize = 0;
+
+        // 0 = mặc định của gRPC (1MiB, có BDP auto-tuning)
+        private int flowControlWindow = 0;
+        private boolean autoFlowControl = true;
+
+        // 0 = không giới hạn
+        private int maxConcurrentCallsPerConnection = 0;
+
+        public NettyTransport getTransport() {
+            return transport;
+        }
+
+        public void setTransport(NettyTransport transport) {
+            this.transport = transport;
+        }
+
+        public int getBossThreads() {
+            return bossThreads;
+        }
+
+        public void setBossThreads(int bossThreads) {
+            this.bossThreads = bossThreads;
+        }
+
+        public int getWorkerThreads() {
+            return workerThreads;
+        }
+
+        public void setWorkerThreads(int workerThreads) {
+            this.workerThreads = workerThreads;
+        }
+
+        public int getAcceptors() {
+            return acceptors;
+        }
+
+        public void setAcceptors(int acceptors) {
+            this.acceptors = acceptors;
+        }
+
+        public boolean isReusePort() {
+            return reusePort;
+        }
+
+        public void setReusePort(boolean reusePort) {
+            this.reusePort = reusePort;
+        }
+
+        public boolean isTcpNoDelay() {
+            return tcpNoDelay;
+        }
+
+        public void setTcpNoDelay(boolean tcpNoDelay) {
+            this.tcpNoDelay = tcpNoDelay;
+        }
+
+        public int getSendBufferSize() {
+            return sendBufferSize;
+        }
+
+        public void setSendBufferSize(int sendBufferSize) {
+            this.sendBufferSize = sendBufferSize;
+        }
+
+        public int getReceiveBufferSize() {
+            return receiveBufferSize;
+        }
+
+        public void setReceiveBufferSize(int receiveBufferSize) {
+            this.receiveBufferSize = receiveBufferSize;
+        }
+
+        public int getFlowControlWindow() {
+            return flowControlWindow;
+        }
+
+        public void setFlowControlWindow(int flowControlWindow) {
+            this.flowControlWindow = flowControlWindow;
+        }
+
+        public boolean isAutoFlowControl() {
+            return autoFlowControl;
+        }
+
+        public void setAutoFlowControl(boolean autoFlowControl) {
+            this.autoFlowControl = autoFlowControl;
+        }
+
+        public int getMaxConcurrentCallsPerConnection() {
+            return maxConcurrentCallsPerConnection;
+        }
+
+        public void setMaxConcurrentCallsPerConnection(int maxConcurrentCallsPerConnection) {
+            this.maxConcurrentCallsPerConnection = maxConcurrentCallsPerConnection;
+        }
+    }
+
+    @Validated
+    public static class ServerExecutor {
+        private ExecutorMode mode = ExecutorMode.DEFAULT;
+
+        @Min(value = 1, message = "Threads must be greater than 0")
+        private int threads = Runtime.getRuntime().availableProcessors() * 2;
+
+        @Min(value = 1, message = "Queue capacity must be greater than 0")
+        private int queueCapacity = 1000;
+
+        private String threadNamePrefix = "grpc-server-";
+
+        public ExecutorMode getMode() {
+            return mode;
+        }
+
+        public void setMode(ExecutorMode mode) {
+            this.mode = mode;
+        }
+
+        public int getThreads() {
+            return threads;
+        }
+
+        public void setThreads(int threads) {
+            this.threads = threads;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public String getThreadNamePrefix() {
+            return threadNamePrefix;
+        }
+
+        public void setThreadNamePrefix(String threadNamePrefix) {
+            this.threadNamePrefix = threadNamePrefix;
+        }
+    }
+
+    @Validated
+    public static class Client {
+        @NotBlank(message = "Address cannot be blank")
+        private String address = "localhost";
+
+        @Min(value = 1, message = "Port must be greater than 0")
+        @Min(value = 65535, message = "Port must be less than 65536")
+        private int port = 9090;
+
+        // Danh sách host:port của các replica, ưu tiên hơn address/port
+        private List<String> addresses = new ArrayList<>();
+
+        // Target đầy đủ của gRPC (vd: dns:///user-service:9090), ưu tiên hơn addresses.
+        // "in-process" gọi thẳng server trong cùng JVM, "in-process:<name>" cho server in-process có tên khác,
+        // "unix:///path/to/grpc.sock" qua Unix domain socket (cần epoll)
+        private String target;
+
+        private LoadBalancingPolicy loadBalancingPolicy = LoadBalancingPolicy.PICK_FIRST;
+
+        private Map<String, Object> headers;
+
+        // Connection settings
+        private int keepAliveTimeMinutes = 1;
+        private int keepAliveTimeoutSeconds = 30;
+        private boolean keepAliveWithoutCalls = true;
+        private int idleTimeoutMinutes = 5;
+        private int maxRetryAttempts = 5;
+        private boolean usePlaintext = true;
+        private boolean enableDebug = false;
+        private boolean enableRetry = false;
+
+        // Channel pool: số connection con phía sau một Channel
+        @Min(value = 1, message = "Pool size must be greater than 0")
+        private int poolSize = 1;
+        private ChannelPoolStrategy poolStrategy = ChannelPoolStrategy.ROUND_ROBIN;
+
+        private CallMetrics metrics = new CallMetrics();
+
+        private CallLogging logging = new CallLogging();
+
+        private RequestCoalescing coalescing = new RequestCoalescing();
+
+        // Retry/hedging theo full method name (service/Method), service name hoặc "*" cho mọi method
+        private Map<String, CallPolicy> methodPolicies = new HashMap<>();
+
+        private RetryThrottling retryThrottling = new RetryThrottling();
+
+        private CallDeadlines deadlines = new CallDeadlines();
+
+        private MessageCompression compression = new MessageCompression();
+
+        private ZeroCopy zeroCopy = new ZeroCopy();
+
+        // Batch unary call theo full method name (service/Method) qua một stream hai chiều
+        private Map<String, BatchRule> batching = new HashMap<>();
+
+        public String getAddress() {
+            return address;
+        }
+
+        public void setAddress(String address) {
+            this.address = address;
+        }
+
+        public int getPort() {
+            return port;
+        }
+
+        public void setPort(int port) {
+            this.port = port;
+        }
+
+        public List<String> getAddresses() {
+            return addresses;
+        }
+
+        public void setAddresses(List<String> addresses) {
+            this.addresses = addresses;
+        }
+
+        public String getTarget() {
+            return target;
+        }
+
+        public void setTarget(String target) {
+            this.target = target;
+        }
+
+        /**
+         * @return tên server in-process mà target trỏ tới, null nếu target không phải in-process
+         */
+        public String resolveInProcessName(String defaultName) {
+            if (target == null || !target.startsWith(InProcess.TARGET_SCHEME)) {
+                return null;
+            }
+            String name = target.substring(InProcess.TARGET_SCHEME.length());
+            if (name.isEmpty()) {
+                return defaultName;
+            }
+            return name.startsWith(":") && name.length() > 1 ? name.substring(1) : null;
+        }
+
+        public LoadBalancingPolicy getLoadBalancingPolicy() {
+            return loadBalancingPolicy;
+        }
+
+        public void setLoadBalancingPolicy(LoadBalancingPolicy loadBalancingPolicy) {
+            this.loadBalancingPolicy = loadBalancingPolicy;
+        }
+
+        public Map<String, Object> getHeaders() {
+            return headers;
+        }
+
+        public void setHeaders(Map<String, Object> headers) {
+            this.headers = headers;
+        }
+
+        public int getKeepAliveTimeMinutes() {
+            return keepAliveTimeMinutes;
+        }
+
+        public void setKeepAliveTimeMinutes(int keepAliveTimeMinutes) {
+            this.keepAliveTimeMinutes = keepAliveTimeMinutes;
+        }
+
+        public int getKeepAliveTimeoutSeconds() {
+            return keepAliveTimeoutSeconds;
+        }
+
+        public void setKeepAliveTimeoutSeconds(int keepAliveTimeoutSeconds) {
+            this.keepAliveTimeoutSeconds = keepAliveTimeoutSeconds;
+        }
+
+        public boolean isKeepAliveWithoutCalls() {
+            return keepAliveWithoutCalls;
+        }
+
+        public void setKeepAliveWithoutCalls(boolean keepAliveWithoutCalls) {
+            this.keepAliveWithoutCalls = keepAliveWithoutCalls;
+        }
+
+        public int getIdleTimeoutMinutes() {
+            return idleTimeoutMinutes;
+        }
+
+        public void setIdleTimeoutMinutes(int idleTimeoutMinutes) {
+            this.idleTimeoutMinutes = idleTimeoutMinutes;
+        }
+
+        public int getMaxRetryAttempts() {
+            return maxRetryAttempts;
+        }
+
+        public void setMaxRetryAttempts(int maxRetryAttempts) {
+            this.maxRetryAttempts = maxRetryAttempts;
+        }
+
+        public boolean isUsePlaintext() {
+            return usePlaintext;
+        }
+
+        public void setUsePlaintext(boolean usePlaintext) {
+            this.usePlaintext = usePlaintext;
+        }
+
+        public boolean isEnableDebug() {
+            return enableDebug;
+        }
+
+        public void setEnableDebug(boolean enableDebug) {
+            this.enableDebug = enableDebug;
+        }
+
+        public boolean isEnableRetry() {
+            return enableRetry;
+        }
+
+        public void setEnableRetry(boolean enableRetry) {
+            this.enableRetry = enableRetry;
+        }
+
+        public int getPoolSize() {
+            return poolSize;
+        }
+
+        public void setPoolSize(int poolSize) {
+            this.poolSize = poolSize;
+        }
+
+        public ChannelPoolStrategy getPoolStrategy() {
+            return poolStrategy;
+        }
+
+        public void setPoolStrategy(ChannelPoolStrategy poolStrategy) {
+            this.poolStrategy = poolStrategy;
+        }
+
+        public CallMetrics getMetrics() {
+            return metrics;
+        }
+
+        public void setMetrics(CallMetrics metrics) {
+            this.metrics = metrics;
+        }
+
+        public CallLogging getLogging() {
+            return logging;
+        }
+
+        public void setLogging(CallLogging logging) {
+            this.logging = logging;
+        }
+
+        public RequestCoalescing getCoalescing() {
+            return coalescing;
+        }
+
+        public void setCoalescing(RequestCoalescing coalescing) {
+            this.coalescing = coalescing;
+        }
+
+        public Map<String, CallPolicy> getMethodPolicies() {
+            return methodPolicies;
+        }
+
+        public void setMethodPolicies(Map<String, CallPolicy> methodPolicies) {
+            this.methodPolicies = methodPolicies;
+        }
+
+        public RetryThrottling getRetryThrottling() {
+            return retryThrottling;
+        }
+
+        public void setRetryThrottling(RetryThrottling retryThrottling) {
+            this.retryThrottling = retryThrottling;
+        }
+
+        public CallDeadlines getDeadlines() {
+            return deadlines;
+        }
+
+        public void setDeadlines(CallDeadlines deadlines) {
+            this.deadlines = deadlines;
+        }
+
+        public MessageCompression getCompression() {
+            return compression;
+        }
+
+        public void setCompression(MessageCompression compression) {
+            this.compression = compression;
+        }
+
+        public ZeroCopy getZeroCopy() {
+            return zeroCopy;
+        }
+
+        public void setZeroCopy(ZeroCopy zeroCopy) {
+            this.zeroCopy = zeroCopy;
+        }
+
+        public Map<String, BatchRule> getBatching() {
+            return batching;
+        }
+
+        public void setBatching(Map<String, BatchRule> batching) {
+            this.batching = batching;
+        }
+    }
+
+    /**
+     * Gom các unary call của một method trong một khoảng ngắn rồi gửi qua stream hai chiều streamMethod,
+     * stream này nhận cùng kiểu request/response và trả response theo đúng thứ tự request (xem GrpcBatchHandler)
+     */
+    @Validated
+    public static class BatchRule {
+        // Full method name của rpc stream hai chiều dùng để gửi batch (vd: shop.ProductService/GetProductStream)
+        @NotBlank(message = "Stream method cannot be blank")
+        private String streamMethod;
+
+        @Min(value = 1, message = "Max batch size must be greater than 0")
+        private int maxBatchSize = 64;
+
+        // Thời gian tối đa một request chờ để được gom vào batch
+        @Min(value = 0, message = "Max delay must not be negative")
+        private long maxDelayMicros = 1000;
+
+        // Header được gửi trên stream (vd: authorization, x-tenant-id), mỗi bộ giá trị dùng một stream riêng.
+        // Header khác của caller không được gửi đi
+        private List<String> keyHeaders = new ArrayList<>();
+
+        public String getStreamMethod() {
+            return streamMethod;
+        }
+
+        public void setStreamMethod(String streamMethod) {
+            this.streamMethod = streamMethod;
+        }
+
+        public int getMaxBatchSize() {
+            return maxBatchSize;
+        }
+
+        public void setMaxBatchSize(int maxBatchSize) {
+            this.maxBatchSize = maxBatchSize;
+        }
+
+        public long getMaxDelayMicros() {
+            return maxDelayMicros;
+        }
+
+        public void setMaxDelayMicros(long maxDelayMicros) {
+            this.maxDelayMicros = maxDelayMicros;
+        }
+
+        public List<String> getKeyHeaders() {
+            return keyHeaders;
+        }
+
+        public void setKeyHeaders(List<String> keyHeaders) {
+            this.keyHeaders = keyHeaders;
+        }
+    }
+
+    /**
+     * Nén message gửi đi: thuật toán (gzip có sẵn, thuật toán khác đăng ký bằng bean Compressor/Decompressor),
+     * ngưỡng kích thước tối thiểu và thuật toán riêng theo method/service
+     */
+    @Validated
+    public static class MessageCompression {
+        public static final String IDENTITY = "identity";
+
+        // identity = không nén
+        private String algorithm = IDENTITY;
+
+        // Message nhỏ hơn ngưỡng này (bytes) được gửi không nén
+        @Min(value = 0, message = "Min message size must not be negative")
+        private int minMessageSize = 1024;
+
+        // Thuật toán theo full method name (service/Method) hoặc service name, ưu tiên hơn algorithm
+        private Map<String, String> methods = new HashMap<>();
+
+        public boolean isConfigured() {
+            return !IDENTITY.equals(algorithm) || !methods.isEmpty();
+        }
+
+        public String getAlgorithm() {
+            return algorithm;
+        }
+
+        public void setAlgorithm(String algorithm) {
+            this.algorithm = algorithm;
+        }
+
+        public int getMinMessageSize() {
+            return minMessageSize;
+        }
+
+        public void setMinMessageSize(int minMessageSize) {
+            this.minMessageSize = minMessageSize;
+        }
+
+        public Map<String, String> getMethods() {
+            return methods;
+        }
+
+        public void setMethods(Map<String, String> methods) {
+            this.methods = methods;
+        }
+    }
+
+    /**
+     * Deadline mặc định cho call không tự đặt deadline và truyền deadline của call server đang xử lý sang call đi
+     */
+    @Validated
+    public static class CallDeadlines {
+        // 0 = không có deadline mặc định
+        @Min(value = 0, message = "Default deadline must not be negative")
+        private long defaultMillis = 0;
+
+        // Deadline theo full method name (service/Method) hoặc service name, ưu tiên hơn defaultMillis
+        private Map<String, Long> methods = new HashMap<>();
+
+        // Dùng deadline còn lại của call server hiện tại (trừ marginMillis) nếu ngắn hơn deadline mặc định
+        private boolean propagate = true;
+
+        // Thời gian chừa lại cho server xử lý kết quả trước khi deadline của chính nó hết
+        @Min(value = 0, message = "Deadline margin must not be negative")
+        private long marginMillis = 10;
+
+        public long getDefaultMillis() {
+            return defaultMillis;
+        }
+
+        public void setDefaultMillis(long defaultMillis) {
+            this.defaultMillis = defaultMillis;
+        }
+
+        public Map<String, Long> getMethods() {
+            return methods;
+        }
+
+        public void setMethods(Map<String, Long> methods) {
+            this.methods = methods;
+        }
+
+        public boolean isPropagate() {
+            return propagate;
+        }
+
+        public void setPropagate(boolean propagate) {
+            this.propagate = propagate;
+        }
+
+        public long getMarginMillis() {
+            return marginMillis;
+        }
+
+        public void setMarginMillis(long marginMillis) {
+            this.marginMillis = marginMillis;
+        }
+    }
+
+    /**
+     * Policy của một method/service, chỉ được khai báo một trong hai: retry hoặc hedging
+     */
+    @Validated
+    public static class CallPolicy {
+        private RetryPolicy retry;
+
+        private HedgingPolicy hedging;
+
+        public RetryPolicy getRetry() {
+            return retry;
+        }
+
+        public void setRetry(RetryPolicy retry) {
+            this.retry = retry;
+        }
+
+        public HedgingPolicy getHedging() {
+            return hedging;
+        }
+
+        public void setHedging(HedgingPolicy hedging) {
+            this.hedging = hedging;
+        }
+    }
+
+    @Validated
+    public static class RetryPolicy {
+        // Tính cả lần gọi đầu, bị giới hạn bởi maxRetryAttempts của client
+        @Min(value = 2, message = "Max attempts must be at least 2")
+        private int maxAttempts = 3;
+
+        @Min(value = 1, message = "Initial backoff must be greater than 0")
+        private long initialBackoffMillis = 100;
+
+        @Min(value = 1, message = "Max backoff must be greater than 0")
+        private long maxBackoffMillis = 1000;
+
+        @DecimalMin(value = "1.0", inclusive = false, message = "Backoff multiplier must be greater than 1")
+        private double backoffMultiplier = 2.0;
+
+        // Tên Status.Code (vd: UNAVAILABLE, RESOURCE_EXHAUSTED)
+        private List<String> retryableStatusCodes = new ArrayList<>(List.of("UNAVAILABLE"));
+
+        public int getMaxAttempts() {
+            return maxAttempts;
+        }
+
+        public void setMaxAttempts(int maxAttempts) {
+            this.maxAttempts = maxAttempts;
+        }
+
+        public long getInitialBackoffMillis() {
+            return initialBackoffMillis;
+        }
+
+        public void setInitialBackoffMillis(long initialBackoffMillis) {
+            this.initialBackoffMillis = initialBackoffMillis;
+        }
+
+        public long getMaxBackoffMillis() {
+            return maxBackoffMillis;
+        }
+
+        public void setMaxBackoffMillis(long maxBackoffMillis) {
+            this.maxBackoffMillis = maxBackoffMillis;
+        }
+
+        public double getBackoffMultiplier() {
+            return backoffMultiplier;
+        }
+
+        public void setBackoffMultiplier(double backoffMultiplier) {
+            this.backoffMultiplier = backoffMultiplier;
+        }
+
+        public List<String> getRetryableStatusCodes() {
+            return retryableStatusCodes;
+        }
+
+        public void setRetryableStatusCodes(List<String> retryableStatusCodes) {
+            this.retryableStatusCodes = retryableStatusCodes;
+        }
+    }
+
+    @Validated
+    public static class HedgingPolicy {
+        // Số bản sao tối đa của call (tính cả bản đầu), bị giới hạn bởi maxRetryAttempts của client
+        @Min(value = 2, message = "Max attempts must be at least 2")
+        private int maxAttempts = 2;
+
+        // Thời gian chờ trước khi gửi bản sao tiếp theo, nên đặt gần p95 latency của method
+        @Min(value = 0, message = "Hedging delay must not be negative")
+        private long hedgingDelayMillis = 50;
+
+        // Status không làm dừng các bản sao còn lại
+        private List<String> nonFatalStatusCodes = new ArrayList<>(List.of("UNAVAILABLE"));
+
+        public int getMaxAttempts() {
+            return maxAttempts;
+        }
+
+        public void setMaxAttempts(int maxAttempts) {
+            this.maxAttempts = maxAttempts;
+        }
+
+        public long getHedgingDelayMillis() {
+            return hedgingDelayMillis;
+        }
+
+        public void setHedgingDelayMillis(long hedgingDelayMillis) {
+            this.hedgingDelayMillis = hedgingDelayMillis;
+        }
+
+        public List<String> getNonFatalStatusCodes() {
+            return nonFatalStatusCodes;
+        }
+
+        public void setNonFatalStatusCodes(List<String> nonFatalStatusCodes) {
+            this.nonFatalStatusCodes = nonFatalStatusCodes;
+        }
+    }
+
+    /**
+     * Retry throttling theo gRPC service config: retry/hedge bị chặn khi số token còn lại không quá maxTokens / 2
+     */
+    @Validated
+    public static class RetryThrottling {
+        // 0 = tắt throttling
+        @Min(value = 0, message = "Max tokens must not be negative")
+        private int maxTokens = 0;
+
+        @DecimalMin(value = "0.0", inclusive = false, message = "Token ratio must be greater than 0")
+        private double tokenRatio = 0.1;
+
+        public int getMaxTokens() {
+            return maxTokens;
+        }
+
+        public void setMaxTokens(int maxTokens) {
+            this.maxTokens = maxTokens;
+        }
+
+        public double getTokenRatio() {
+            return tokenRatio;
+        }
+
+        public void setTokenRatio(double tokenRatio) {
+            this.tokenRatio = tokenRatio;
+        }
+    }
+
+    /**
+     * Gộp các unary call giống nhau đang chạy thành một call mạng, tuỳ chọn giữ kết quả trong cache TTL ngắn
+     */
+    @Validated
+    public static class RequestCoalescing {
+        private boolean enabled = false;
+
+        // Full method name được gộp, rỗng = mọi unary method của client
+        private List<String> methods = new ArrayList<>();
+
+        // Header được đưa vào key ngoài method và bytes của request. authorization luôn có trong key,
+        // header xác thực khác (vd: x-api-key, cookie) phải được khai báo ở đây
+        private List<String> keyHeaders = new ArrayList<>();
+
+        // 0 = chỉ gộp call đang chạy, không cache kết quả
+        @Min(value = 0, message = "Cache TTL must not be negative")
+        private long cacheTtlMillis = 0;
+
+        @Min(value = 1, message = "Cache max size must be greater than 0")
+        private long cacheMaxSize = 1000;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public List<String> getMethods() {
+            return methods;
+        }
+
+        public void setMethods(List<String> methods) {
+            this.methods = methods;
+        }
+
+        public List<String> getKeyHeaders() {
+            return keyHeaders;
+        }
+
+        public void setKeyHeaders(List<String> keyHeaders) {
+            this.keyHeaders = keyHeaders;
+        }
+
+        public long getCacheTtlMillis() {
+            return cacheTtlMillis;
+        }
+
+        public void setCacheTtlMillis(long cacheTtlMillis) {
+            this.cacheTtlMillis = cacheTtlMillis;
+        }
+
+        public long getCacheMaxSize() {
+            return cacheMaxSize;
+        }
+
+        public void setCacheMaxSize(long cacheMaxSize) {
+            this.cacheMaxSize = cacheMaxSize;
+        }
+    }
+
+    /**
+     * Parse protobuf trực tiếp trên buffer của Netty, field bytes trỏ vào buffer thay vì copy ra heap
+     */
+    @Validated
+    public static class ZeroCopy {
+        private boolean enabled = false;
+
+        // Message nhỏ hơn ngưỡng này (bytes) được parse theo cách thông thường
+        @Min(value = 0, message = "Min message size must not be negative")
+        private int minMessageSize = 64 * 1024;
+
+        // Full method name (service/Method) hoặc service name, rỗng = mọi method
+        private List<String> methods = new ArrayList<>();
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMinMessageSize() {
+            return minMessageSize;
+        }
+
+        public void setMinMessageSize(int minMessageSize) {
+            this.minMessageSize = minMessageSize;
+        }
+
+        public List<String> getMethods() {
+            return methods;
+        }
+
+        public void setMethods(List<String> methods) {
+            this.methods = methods;
+        }
+    }
+
+    /**
+     * Trình tự dừng server: readiness NOT_SERVING, chờ drainDelayMillis để load balancer cập nhật,
+     * gửi GOAWAY (server.shutdown) rồi chờ các call đang chạy kết thúc trong timeoutSeconds
+     */
+    @Validated
+    public static class Shutdown {
+        // Thời gian chờ sau khi readiness chuyển NOT_SERVING, trước khi ngừng nhận call mới
+        @Min(value = 0, message = "Drain delay must not be negative")
+        private long drainDelayMillis = 0;
+
+        // Hết thời gian này mà vẫn còn call đang chạy thì shutdownNow
+        @Min(value = 0, message = "Shutdown timeout must not be negative")
+        private long timeoutSeconds = 30;
+
+        @Min(value = 100, message = "Progress log interval must be at least 100ms")
+        private long progressLogIntervalMillis = 1000;
+
+        public long getDrainDelayMillis() {
+            return drainDelayMillis;
+        }
+
+        public void setDrainDelayMillis(long drainDelayMillis) {
+            this.drainDelayMillis = drainDelayMillis;
+        }
+
+        public long getTimeoutSeconds() {
+            return timeoutSeconds;
+        }
+
+        public void setTimeoutSeconds(long timeoutSeconds) {
+            this.timeoutSeconds = timeoutSeconds;
+        }
+
+        public long getProgressLogIntervalMillis() {
+            return progressLogIntervalMillis;
+        }
+
+        public void setProgressLogIntervalMillis(long progressLogIntervalMillis) {
+            this.progressLogIntervalMillis = progressLogIntervalMillis;
+        }
+    }
+
+    /**
+     * Server in-process chạy song song với server Netty, cùng service và interceptor.
+     * Client có target "in-process" gọi qua đây: không serialize message protobuf, không qua HTTP/2 và socket.
+     */
+    public static class InProcess {
+        public static final String TARGET_SCHEME = "in-process";
+
+        // Server cũng tự bật khi có client trỏ tới tên này
+        private boolean enabled = false;
+
+        @NotBlank(message = "In-process server name cannot be blank")
+        private String name = "grpc-server";
+
+        // Chạy handler trên thread của caller, chỉ dùng khi handler không block
+        private boolean directExecutor = false;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public boolean isDirectExecutor() {
+            return directExecutor;
+        }
+
+        public void setDirectExecutor(boolean directExecutor) {
+            this.directExecutor = directExecutor;
+        }
+    }
+
+    /**
+     * Health check chạy nền theo chu kỳ, probe và Watch chỉ đọc kết quả gần nhất
+     */
+    public static class Health {
+        @Min(value = 100, message = "Health check interval must be at least 100ms")
+        private long checkIntervalMillis = 5000;
+
+        // Check chạy quá thời gian này được coi là thất bại
+        @Min(value = 1, message = "Health check timeout must be positive")
+        private long checkTimeoutMillis = 2000;
+
+        public long getCheckIntervalMillis() {
+            return checkIntervalMillis;
+        }
+
+        public void setCheckIntervalMillis(long checkIntervalMillis) {
+            this.checkIntervalMillis = checkIntervalMillis;
+        }
+
+        public long getCheckTimeoutMillis() {
+            return checkTimeoutMillis;
+        }
+
+        public void setCheckTimeoutMillis(long checkTimeoutMillis) {
+            this.checkTimeoutMillis = checkTimeoutMillis;
+        }
+    }
+
+    /**
+     * Warm-up sau khi server start: connect trước các channel client, gửi lại các request mẫu vào chính server
+     * và chạy các bean GrpcWarmup. Readiness trả NOT_SERVING cho đến khi warm-up xong.
+     */
+    @Validated
+    public static class Warmup {
+        private boolean enabled = false;
+
+        // Gọi getState(true) cho mọi channel trong grpc.clients và chờ READY
+        private boolean connectChannels = true;
+
+        @Min(value = 0, message = "Channel timeout must not be negative")
+        private long channelTimeoutMillis = 5000;
+
+        // Số lần gửi lại mỗi request mẫu
+        @Min(value = 0, message = "Iterations must not be negative")
+        private int iterations = 200;
+
+        // Quá thời gian này thì coi như warm-up xong để không giữ NOT_SERVING mãi
+        @Min(value = 1, message = "Warm-up timeout must be positive")
+        private long timeoutMillis = 60000;
+
+        // File chứa request mẫu (ghi lại từ traffic thật khi record = true), null = không dùng
+        private String requestsFile;
+
+        // Ghi lại vài request unary đầu tiên của các method trong methods vào requestsFile khi server dừng
+        private boolean record = false;
+
+        // Full method name được phép ghi lại, chỉ nên khai báo method chỉ đọc vì request sẽ được gửi lại khi start
+        private List<String> methods = new ArrayList<>();
+
+        @Min(value = 1, message = "Max recorded requests per method must be positive")
+        private int maxRecordedPerMethod = 5;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public boolean isConnectChannels() {
+            return connectChannels;
+        }
+
+        public void setConnectChannels(boolean connectChannels) {
+            this.connectChannels = connectChannels;
+        }
+
+        public long getChannelTimeoutMillis() {
+            return channelTimeoutMillis;
+        }
+
+        public void setChannelTimeoutMillis(long channelTimeoutMillis) {
+            this.channelTimeoutMillis = channelTimeoutMillis;
+        }
+
+        public int getIterations() {
+            return iterations;
+        }
+
+        public void setIterations(int iterations) {
+            this.iterations = iterations;
+        }
+
+        public long getTimeoutMillis() {
+            return timeoutMillis;
+        }
+
+        public void setTimeoutMillis(long timeoutMillis) {
+            this.timeoutMillis = timeoutMillis;
+        }
+
+        public String getRequestsFile() {
+            return requestsFile;
+        }
+
+        public void setRequestsFile(String requestsFile) {
+            this.requestsFile = requestsFile;
+        }
+
+        public boolean isRecord() {
+            return record;
+        }
+
+        public void setRecord(boolean record) {
+            this.record = record;
+        }
+
+        public List<String> getMethods() {
+            return methods;
+        }
+
+        public void setMethods(List<String> methods) {
+            this.methods = methods;
+        }
+
+        public int getMaxRecordedPerMethod() {
+            return maxRecordedPerMethod;
+        }
+
+        public void setMaxRecordedPerMethod(int maxRecordedPerMethod) {
+            this.maxRecordedPerMethod = maxRecordedPerMethod;
+        }
+    }
+
+    public enum ChannelPoolStrategy {
+        ROUND_ROBIN,
+        LEAST_IN_FLIGHT
+    }
+
+    public enum LoadBalancingPolicy {
+        PICK_FIRST("pick_first"),
+        ROUND_ROBIN("round_robin"),
+        /**
+         * Power-of-two-choices theo số request đang chạy
+         */
+        LEAST_REQUEST("least_request");
+
+        private final String policyName;
+
+        LoadBalancingPolicy(String policyName) {
+            this.policyName = policyName;
+        }
+
+        public String getPolicyName() {
+            return policyName;
         }
     }
 }
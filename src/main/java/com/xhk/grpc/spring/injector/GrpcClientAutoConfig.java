@@ -1,10 +1,38 @@
 package com.xhk.grpc.spring.injector;
 
+import com.xhk.grpc.spring.channel.ClosingManagedChannel;
+import com.xhk.grpc.spring.channel.PooledManagedChannel;
+import com.xhk.grpc.spring.channel.ServiceConfigFactory;
+import com.xhk.grpc.spring.channel.StaticNameResolverProvider;
+import com.xhk.grpc.spring.batch.BatchingClientInterceptor;
+import com.xhk.grpc.spring.compression.ClientCompressionInterceptor;
+import com.xhk.grpc.spring.compression.CompressionMetrics;
+import com.xhk.grpc.spring.compression.CompressionPolicy;
+import com.xhk.grpc.spring.compression.CompressionRegistries;
 import com.xhk.grpc.spring.config.GrpcProperties;
 import com.xhk.grpc.spring.interceptor.ClientLoggingInterceptor;
+import com.xhk.grpc.spring.interceptor.ClientMetricsInterceptor;
+import com.xhk.grpc.spring.interceptor.DeadlineClientInterceptor;
 import com.xhk.grpc.spring.interceptor.GrpcUtils;
+import com.xhk.grpc.spring.interceptor.RequestCoalescingInterceptor;
+import com.xhk.grpc.spring.interceptor.RetryMetricsInterceptor;
+import com.xhk.grpc.spring.marshaller.ZeroCopyMarshalling;
+import io.grpc.ClientInterceptor;
+import io.grpc.Compressor;
+import io.grpc.CompressorRegistry;
+import io.grpc.Decompressor;
 import io.grpc.ManagedChannel;
 import io.grpc.ManagedChannelBuilder;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.netty.shaded.io.grpc.netty.NettyChannelBuilder;
+import io.grpc.netty.shaded.io.netty.channel.EventLoopGroup;
+import io.grpc.netty.shaded.io.netty.channel.epoll.Epoll;
+import io.grpc.netty.shaded.io.netty.channel.epoll.EpollDomainSocketChannel;
+import io.grpc.netty.shaded.io.netty.channel.epoll.EpollEventLoopGroup;
+import io.grpc.netty.shaded.io.netty.channel.unix.DomainSocketAddress;
+import io.grpc.netty.shaded.io.netty.util.concurrent.DefaultThreadFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
 import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
 import org.springframework.beans.factory.support.BeanDefinitionBuilder;
 import org.springframework.beans.factory.support.BeanDefinitionRegistry;
@@ -14,12 +42,17 @@ import org.springframework.context.EnvironmentAware;
 import org.springframework.core.env.Environment;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 @Component
 public class GrpcClientAutoConfig implements BeanDefinitionRegistryPostProcessor, EnvironmentAware {
+    private static final String UNIX_SCHEME = "unix:";
 
     private GrpcProperties properties;
+    private ConfigurableListableBeanFactory beanFactory;
 
     @Override
     public void setEnvironment(Environment environment) {
@@ -34,31 +67,141 @@ public class GrpcClientAutoConfig implements BeanDefinitionRegistryPostProcessor
             if (!registry.containsBeanDefinition(name)) {
                 registry.registerBeanDefinition(name,
                         BeanDefinitionBuilder.genericBeanDefinition(ManagedChannel.class, () -> {
-                            ManagedChannelBuilder<?> builder = ManagedChannelBuilder
-                                    .forAddress(clientConfig.getAddress(), clientConfig.getPort())
-                                    .keepAliveTime(clientConfig.getKeepAliveTimeMinutes(), TimeUnit.MINUTES)
-                                    .keepAliveTimeout(clientConfig.getKeepAliveTimeoutSeconds(), TimeUnit.SECONDS)
-                                    .keepAliveWithoutCalls(clientConfig.isKeepAliveWithoutCalls())
-                                    .idleTimeout(clientConfig.getIdleTimeoutMinutes(), TimeUnit.MINUTES);
-
-                            if (clientConfig.isEnableRetry()) {
-                                builder.enableRetry().maxRetryAttempts(clientConfig.getMaxRetryAttempts());
-                            }
-                            if (clientConfig.isUsePlaintext()) {
-                                builder.usePlaintext();
-                            }
-                            if (clientConfig.isEnableDebug()) {
-                                builder.intercept(GrpcUtils.convert(new ClientLoggingInterceptor()));
-                            }
-
-                            return builder.build();
-                        }).getBeanDefinition()
+                            // Interceptor dùng chung cho mọi channel con trong pool
+                            List<ClientInterceptor> interceptors = clientInterceptors(name, clientConfig);
+                            ManagedChannel channel = clientConfig.getPoolSize() > 1
+                                    ? new PooledManagedChannel(name, clientConfig.getPoolSize(),
+                                            clientConfig.getPoolStrategy(), () -> createChannel(clientConfig, interceptors))
+                                    : createChannel(clientConfig, interceptors);
+                            // Interceptor giữ stream hoặc thread riêng được đóng cùng channel khi bean bị destroy
+                            List<AutoCloseable> resources = interceptors.stream()
+                                    .filter(AutoCloseable.class::isInstance)
+                                    .map(AutoCloseable.class::cast)
+                                    .toList();
+                            return resources.isEmpty() ? channel : new ClosingManagedChannel(channel, resources);
+                        }).setDestroyMethodName("shutdown").getBeanDefinition()
                 );
             }
         });
     }
 
+    private List<ClientInterceptor> clientInterceptors(String name, GrpcProperties.Client clientConfig) {
+        // Interceptor thêm sau sẽ chạy trước
+        List<ClientInterceptor> interceptors = new ArrayList<>();
+        // Batch các request đã qua coalescing, mỗi request trùng chỉ chiếm một chỗ trong batch
+        if (!clientConfig.getBatching().isEmpty()) {
+            interceptors.add(new BatchingClientInterceptor(name, clientConfig.getBatching(), meterRegistry()));
+        }
+        // Gần network nhất để logging/metrics vẫn thấy từng call của caller, kể cả call được gộp
+        if (clientConfig.getCoalescing().isEnabled()) {
+            interceptors.add(new RequestCoalescingInterceptor(name, clientConfig.getCoalescing(), meterRegistry()));
+        }
+        // Thay marshaller trước khi tới coalescing để response dùng chung cũng được parse zero-copy
+        if (clientConfig.getZeroCopy().isEnabled()) {
+            interceptors.add(new ZeroCopyMarshalling(clientConfig.getZeroCopy()));
+        }
+        if (clientConfig.isEnableDebug()) {
+            interceptors.add(GrpcUtils.convert(new ClientLoggingInterceptor(clientConfig.getLogging())));
+        }
+        if (clientConfig.getCompression().isConfigured()) {
+            CompressionPolicy policy = new CompressionPolicy(clientConfig.getCompression());
+            policy.validate(compressorRegistry());
+            CompressionMetrics compressionMetrics = clientConfig.getMetrics().isEnabled()
+                    ? new CompressionMetrics(meterRegistry(), "grpc.client")
+                    : null;
+            interceptors.add(new ClientCompressionInterceptor(policy, compressionMetrics));
+        }
+        if (clientConfig.getMetrics().isEnabled()) {
+            if (!clientConfig.getMethodPolicies().isEmpty()) {
+                interceptors.add(new RetryMetricsInterceptor(name, clientConfig, meterRegistry()));
+            }
+            interceptors.add(new ClientMetricsInterceptor(meterRegistry(), clientConfig.getMetrics().isHistogram()));
+        }
+        // Chạy đầu tiên để các interceptor phía sau (coalescing, metrics) thấy deadline đã được đặt
+        GrpcProperties.CallDeadlines deadlines = clientConfig.getDeadlines();
+        if (deadlines.isPropagate() || deadlines.getDefaultMillis() > 0 || !deadlines.getMethods().isEmpty()) {
+            interceptors.add(new DeadlineClientInterceptor(deadlines));
+        }
+        return interceptors;
+    }
+
+    private CompressorRegistry compressorRegistry() {
+        return CompressionRegistries.compressors(beanFactory.getBeanProvider(Compressor.class).orderedStream().toList());
+    }
+
+    private MeterRegistry meterRegistry() {
+        return beanFactory.getBeanProvider(MeterRegistry.class).getIfAvailable(() -> Metrics.globalRegistry);
+    }
+
+    private ManagedChannel createChannel(GrpcProperties.Client clientConfig, List<ClientInterceptor> interceptors) {
+        String inProcessName = clientConfig.resolveInProcessName(properties.getServer().getInProcess().getName());
+        ManagedChannelBuilder<?> builder;
+        if (inProcessName != null) {
+            // Không có connection thật nên bỏ qua keepalive và plaintext
+            builder = InProcessChannelBuilder.forName(inProcessName);
+        } else {
+            builder = channelBuilder(clientConfig)
+                    .keepAliveTime(clientConfig.getKeepAliveTimeMinutes(), TimeUnit.MINUTES)
+                    .keepAliveTimeout(clientConfig.getKeepAliveTimeoutSeconds(), TimeUnit.SECONDS)
+                    .keepAliveWithoutCalls(clientConfig.isKeepAliveWithoutCalls());
+            if (clientConfig.isUsePlaintext()) {
+                builder.usePlaintext();
+            }
+        }
+        builder.idleTimeout(clientConfig.getIdleTimeoutMinutes(), TimeUnit.MINUTES)
+                .compressorRegistry(compressorRegistry())
+                .decompressorRegistry(CompressionRegistries.decompressors(
+                        beanFactory.getBeanProvider(Decompressor.class).orderedStream().toList()));
+
+        // Không có service config thì gRPC không retry, nên policy được sinh từ methodPolicies của client
+        Map<String, Object> serviceConfig = ServiceConfigFactory.create(clientConfig);
+        if (serviceConfig != null) {
+            builder.defaultServiceConfig(serviceConfig)
+                    .enableRetry()
+                    .maxRetryAttempts(clientConfig.getMaxRetryAttempts())
+                    .maxHedgedAttempts(clientConfig.getMaxRetryAttempts());
+        } else if (clientConfig.isEnableRetry()) {
+            builder.enableRetry().maxRetryAttempts(clientConfig.getMaxRetryAttempts());
+        }
+        builder.intercept(interceptors);
+
+        return builder.build();
+    }
+
+    private ManagedChannelBuilder<?> channelBuilder(GrpcProperties.Client clientConfig) {
+        if (clientConfig.getTarget() != null && !clientConfig.getTarget().isBlank()) {
+            if (clientConfig.getTarget().startsWith(UNIX_SCHEME)) {
+                return domainSocketChannelBuilder(clientConfig.getTarget());
+            }
+            return ManagedChannelBuilder.forTarget(clientConfig.getTarget())
+                    .defaultLoadBalancingPolicy(clientConfig.getLoadBalancingPolicy().getPolicyName());
+        }
+        if (!clientConfig.getAddresses().isEmpty()) {
+            return ManagedChannelBuilder.forTarget(StaticNameResolverProvider.toTarget(clientConfig.getAddresses()))
+                    .defaultLoadBalancingPolicy(clientConfig.getLoadBalancingPolicy().getPolicyName());
+        }
+        return ManagedChannelBuilder.forAddress(clientConfig.getAddress(), clientConfig.getPort());
+    }
+
+    // ManagedChannelBuilder.forTarget chọn provider TCP cho target unix: nên phải tự chỉ định channel type
+    private ManagedChannelBuilder<?> domainSocketChannelBuilder(String target) {
+        if (!Epoll.isAvailable()) {
+            throw new IllegalStateException("Target " + target + " requires Netty epoll transport", Epoll.unavailabilityCause());
+        }
+        return NettyChannelBuilder.forTarget(target)
+                .channelType(EpollDomainSocketChannel.class, DomainSocketAddress.class)
+                .eventLoopGroup(DomainSocketEventLoop.GROUP);
+    }
+
+    /**
+     * Event loop dùng chung cho mọi channel Unix domain socket, chỉ tạo khi có client dùng target unix:
+     */
+    private static final class DomainSocketEventLoop {
+        static final EventLoopGroup GROUP = new EpollEventLoopGroup(0, new DefaultThreadFactory("grpc-uds-client", true));
+    }
+
     @Override
     public void postProcessBeanFactory(ConfigurableListableBeanFactory beanFactory) {
+        this.beanFactory = beanFactory;
     }
 }
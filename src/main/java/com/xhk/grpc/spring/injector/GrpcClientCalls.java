@@ -0,0 +1,86 @@
+package com.xhk.grpc.spring.injector;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.MethodDescriptor;
+import io.grpc.stub.ClientCalls;
+import io.grpc.stub.StreamObserver;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Các lời gọi mà class sinh bởi {@link GrpcClientProxyFactory} dùng cho kiểu method không gọi thẳng được ClientCalls
+ */
+public final class GrpcClientCalls {
+
+    private GrpcClientCalls() {
+    }
+
+    public static <ReqT, RespT> CompletableFuture<RespT> completableUnary(
+            Channel channel, MethodDescriptor<ReqT, RespT> method, CallOptions options, ReqT request) {
+        ClientCall<ReqT, RespT> call = channel.newCall(method, options);
+        CallFuture<RespT> future = new CallFuture<>(call);
+        ClientCalls.asyncUnaryCall(call, request, future);
+        return future;
+    }
+
+    public static <ReqT, RespT> ListenableFuture<RespT> futureUnary(
+            Channel channel, MethodDescriptor<ReqT, RespT> method, CallOptions options, ReqT request) {
+        return ClientCalls.futureUnaryCall(channel.newCall(method, options), request);
+    }
+
+    public static <ReqT, RespT> void asyncUnary(Channel channel, MethodDescriptor<ReqT, RespT> method, CallOptions options,
+                                                ReqT request, StreamObserver<RespT> responseObserver) {
+        ClientCalls.asyncUnaryCall(channel.newCall(method, options), request, responseObserver);
+    }
+
+    public static <ReqT, RespT> void asyncServerStreaming(Channel channel, MethodDescriptor<ReqT, RespT> method, CallOptions options,
+                                                          ReqT request, StreamObserver<RespT> responseObserver) {
+        ClientCalls.asyncServerStreamingCall(channel.newCall(method, options), request, responseObserver);
+    }
+
+    public static <ReqT, RespT> StreamObserver<ReqT> asyncClientStreaming(
+            Channel channel, MethodDescriptor<ReqT, RespT> method, CallOptions options, StreamObserver<RespT> responseObserver) {
+        return ClientCalls.asyncClientStreamingCall(channel.newCall(method, options), responseObserver);
+    }
+
+    public static <ReqT, RespT> StreamObserver<ReqT> asyncBidiStreaming(
+            Channel channel, MethodDescriptor<ReqT, RespT> method, CallOptions options, StreamObserver<RespT> responseObserver) {
+        return ClientCalls.asyncBidiStreamingCall(channel.newCall(method, options), responseObserver);
+    }
+
+    /**
+     * Huỷ future thì huỷ luôn call đang chạy
+     */
+    private static final class CallFuture<RespT> extends CompletableFuture<RespT> implements StreamObserver<RespT> {
+        private final ClientCall<?, RespT> call;
+        private RespT value;
+
+        CallFuture(ClientCall<?, RespT> call) {
+            this.call = call;
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            call.cancel("Future cancelled", null);
+            return super.cancel(mayInterruptIfRunning);
+        }
+
+        @Override
+        public void onNext(RespT response) {
+            value = response;
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            completeExceptionally(t);
+        }
+
+        @Override
+        public void onCompleted() {
+            complete(value);
+        }
+    }
+}
@@ -7,9 +7,13 @@ import org.apache.logging.log4j.Logger;
 import org.springframework.beans.BeansException;
 import org.springframework.beans.factory.config.BeanPostProcessor;
 import org.springframework.context.ApplicationContext;
+import org.springframework.core.annotation.AnnotationUtils;
 import org.springframework.stereotype.Component;
+import org.springframework.util.ReflectionUtils;
 
 import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -17,6 +21,13 @@ import java.util.concurrent.ConcurrentHashMap;
 public class GrpcClientInjector implements BeanPostProcessor {
     private static final Logger logger = LogManager.getLogger(GrpcClientInjector.class);
     private final ApplicationContext ctx;
+    // Lưu trên chính Class nên không giữ class (và classloader) của context đã đóng như một static map
+    private static final ClassValue<List<Field>> INJECTION_METADATA = new ClassValue<>() {
+        @Override
+        protected List<Field> computeValue(Class<?> type) {
+            return findGrpcClientFields(type);
+        }
+    };
     private final Map<StubKey, Object> stubCache = new ConcurrentHashMap<>();
 
     public GrpcClientInjector(ApplicationContext ctx) {
@@ -25,22 +36,37 @@ public class GrpcClientInjector implements BeanPostProcessor {
 
     @Override
     public Object postProcessBeforeInitialization(Object bean, String beanName) throws BeansException {
-        Class<?> beanClass = bean.getClass();
-
-        for (Field field : beanClass.getDeclaredFields()) {
-            GrpcClient annotation = field.getAnnotation(GrpcClient.class);
-            if (annotation != null) {
-                try {
-                    injectGrpcClient(bean, field, annotation);
-                } catch (Exception e) {
-                    logger.error("Failed to inject gRPC client for field {} in bean {}", field.getName(), beanName, e);
-                    throw new GrpcClientInjectionException("Failed to inject gRPC client for field " + field.getName() + " in bean " + beanName, e);
-                }
+        for (Field field : injectionMetadata(bean.getClass())) {
+            try {
+                injectGrpcClient(bean, field, field.getAnnotation(GrpcClient.class));
+            } catch (Exception e) {
+                logger.error("Failed to inject gRPC client for field {} in bean {}", field.getName(), beanName, e);
+                throw new GrpcClientInjectionException("Failed to inject gRPC client for field " + field.getName() + " in bean " + beanName, e);
             }
         }
         return bean;
     }
 
+    /**
+     * Các field @GrpcClient của class, kể cả field kế thừa từ class cha. Kết quả được cache theo class,
+     * class không thể có annotation (vd: java.*) được bỏ qua mà không cần duyệt field.
+     */
+    public static List<Field> injectionMetadata(Class<?> beanClass) {
+        return INJECTION_METADATA.get(beanClass);
+    }
+
+    private static List<Field> findGrpcClientFields(Class<?> beanClass) {
+        if (!AnnotationUtils.isCandidateClass(beanClass, GrpcClient.class)) {
+            return List.of();
+        }
+        List<Field> fields = new ArrayList<>();
+        ReflectionUtils.doWithFields(beanClass, field -> {
+            ReflectionUtils.makeAccessible(field);
+            fields.add(field);
+        }, field -> field.isAnnotationPresent(GrpcClient.class));
+        return fields.isEmpty() ? List.of() : List.copyOf(fields);
+    }
+
     private void injectGrpcClient(Object bean, Field field, GrpcClient annotation) throws Exception {
         Class<?> stubType = field.getType();
         String serviceName = annotation.service();
@@ -54,7 +80,6 @@ public class GrpcClientInjector implements BeanPostProcessor {
         // Nếu đã có trong cache thì dùng lại
         if (stubCache.containsKey(key)) {
             Object cachedStub = stubCache.get(key);
-            field.setAccessible(true);
             field.set(bean, cachedStub);
             logger.debug("Reused cached gRPC client for field {} with type {} and service {}", field.getName(), stubType.getName(), serviceName);
             return;
@@ -79,7 +104,6 @@ public class GrpcClientInjector implements BeanPostProcessor {
         // Cache stub
         stubCache.put(key, stub);
 
-        field.setAccessible(true);
         field.set(bean, stub);
         logger.debug("Created and injected gRPC client for field {} with service {}", field.getName(), serviceName);
     }
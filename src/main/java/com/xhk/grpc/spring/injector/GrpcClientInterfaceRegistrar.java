@@ -0,0 +1,105 @@
+package com.xhk.grpc.spring.injector;
+
+import com.xhk.grpc.spring.annotation.EnableGrpcClients;
+import com.xhk.grpc.spring.annotation.GrpcClientInterface;
+import io.grpc.ManagedChannel;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.BeanClassLoaderAware;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.support.AbstractBeanDefinition;
+import org.springframework.beans.factory.support.BeanDefinitionBuilder;
+import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.context.ResourceLoaderAware;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
+import org.springframework.context.annotation.ImportBeanDefinitionRegistrar;
+import org.springframework.core.env.Environment;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.core.type.filter.AnnotationTypeFilter;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.StringUtils;
+
+import java.util.Map;
+
+/**
+ * Scan các interface @GrpcClientInterface trong basePackages của @EnableGrpcClients và đăng ký mỗi interface thành bean,
+ * implementation được sinh bởi {@link GrpcClientProxyFactory} trên ManagedChannel của client tương ứng
+ */
+public class GrpcClientInterfaceRegistrar implements ImportBeanDefinitionRegistrar, EnvironmentAware,
+        ResourceLoaderAware, BeanFactoryAware, BeanClassLoaderAware {
+    private static final Logger logger = LogManager.getLogger(GrpcClientInterfaceRegistrar.class);
+
+    private Environment environment;
+    private ResourceLoader resourceLoader;
+    private BeanFactory beanFactory;
+    private ClassLoader classLoader;
+
+    @Override
+    public void setEnvironment(Environment environment) {
+        this.environment = environment;
+    }
+
+    @Override
+    public void setResourceLoader(ResourceLoader resourceLoader) {
+        this.resourceLoader = resourceLoader;
+    }
+
+    @Override
+    public void setBeanFactory(BeanFactory beanFactory) {
+        this.beanFactory = beanFactory;
+    }
+
+    @Override
+    public void setBeanClassLoader(ClassLoader classLoader) {
+        this.classLoader = classLoader;
+    }
+
+    @Override
+    public void registerBeanDefinitions(AnnotationMetadata metadata, BeanDefinitionRegistry registry) {
+        Map<String, Object> attributes = metadata.getAnnotationAttributes(EnableGrpcClients.class.getName());
+        String[] basePackages = attributes != null ? (String[]) attributes.get("basePackages") : new String[0];
+        if (basePackages.length == 0) {
+            basePackages = new String[]{ClassUtils.getPackageName(metadata.getClassName())};
+        }
+
+        ClassPathScanningCandidateComponentProvider scanner = new ClassPathScanningCandidateComponentProvider(false, environment) {
+            @Override
+            protected boolean isCandidateComponent(AnnotatedBeanDefinition beanDefinition) {
+                return beanDefinition.getMetadata().isInterface() && beanDefinition.getMetadata().isIndependent();
+            }
+        };
+        scanner.setResourceLoader(resourceLoader);
+        scanner.addIncludeFilter(new AnnotationTypeFilter(GrpcClientInterface.class));
+
+        for (String basePackage : basePackages) {
+            for (BeanDefinition candidate : scanner.findCandidateComponents(basePackage)) {
+                register(registry, ClassUtils.resolveClassName(candidate.getBeanClassName(), classLoader));
+            }
+        }
+    }
+
+    private <T> void register(BeanDefinitionRegistry registry, Class<T> clientInterface) {
+        String beanName = StringUtils.uncapitalize(clientInterface.getSimpleName());
+        if (registry.containsBeanDefinition(beanName)) {
+            logger.warn("Bean {} already exists, skipping gRPC client interface {}", beanName, clientInterface.getName());
+            return;
+        }
+        String service = clientInterface.getAnnotation(GrpcClientInterface.class).service();
+        AbstractBeanDefinition definition = BeanDefinitionBuilder
+                .genericBeanDefinition(clientInterface, () -> {
+                    if (!beanFactory.containsBean(service)) {
+                        throw new GrpcClientInjector.GrpcClientInjectionException(
+                                "ManagedChannel bean with name '" + service + "' not found for " + clientInterface.getName());
+                    }
+                    return GrpcClientProxyFactory.create(clientInterface, beanFactory.getBean(service, ManagedChannel.class));
+                })
+                .getBeanDefinition();
+        registry.registerBeanDefinition(beanName, definition);
+        logger.debug("Registered gRPC client interface {} on channel {}", clientInterface.getName(), service);
+    }
+}
@@ -0,0 +1,294 @@
+package com.xhk.grpc.spring.injector;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.xhk.grpc.spring.annotation.GrpcClientInterface;
+import com.xhk.grpc.spring.annotation.GrpcMethod;
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServiceDescriptor;
+import io.grpc.stub.ClientCalls;
+import io.grpc.stub.StreamObserver;
+import org.springframework.asm.ClassWriter;
+import org.springframework.asm.MethodVisitor;
+import org.springframework.asm.Opcodes;
+import org.springframework.asm.Type;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Tạo implementation cho interface @GrpcClientInterface. Mỗi method được gắn với MethodDescriptor một lần,
+ * rồi sinh thành bytecode gọi thẳng ClientCalls/{@link GrpcClientCalls} (class cùng package với interface),
+ * không qua java.lang.reflect.Proxy hay reflection khi gọi.
+ */
+public final class GrpcClientProxyFactory {
+    private static final String SUFFIX = "$$GrpcClient";
+    private static final String ASYNC_SUFFIX = "Async";
+    private static final String CHANNEL = Type.getInternalName(Channel.class);
+    private static final String DESCRIPTORS = Type.getDescriptor(MethodDescriptor[].class);
+    private static final String OPTIONS = Type.getInternalName(CallOptions.class);
+
+    private static final ClassValue<GeneratedClient> GENERATED = new ClassValue<>() {
+        @Override
+        protected GeneratedClient computeValue(Class<?> type) {
+            return generate(type);
+        }
+    };
+
+    private GrpcClientProxyFactory() {
+    }
+
+    public static <T> T create(Class<T> clientInterface, Channel channel) {
+        return create(clientInterface, channel, CallOptions.DEFAULT);
+    }
+
+    public static <T> T create(Class<T> clientInterface, Channel channel, CallOptions callOptions) {
+        GrpcClientInterface annotation = clientInterface.getAnnotation(GrpcClientInterface.class);
+        if (!clientInterface.isInterface() || annotation == null) {
+            throw new IllegalStateException(clientInterface.getName() + " must be an interface annotated with @GrpcClientInterface");
+        }
+        GeneratedClient generated = GENERATED.get(clientInterface);
+        try {
+            return clientInterface.cast(generated.constructor().invoke(channel, generated.descriptors(), callOptions));
+        } catch (Throwable e) {
+            throw new IllegalStateException("Failed to create gRPC client for " + clientInterface.getName(), e);
+        }
+    }
+
+    // Class chỉ được sinh một lần cho mỗi interface, mỗi channel chỉ tạo thêm instance
+    private static GeneratedClient generate(Class<?> clientInterface) {
+        GrpcClientInterface annotation = clientInterface.getAnnotation(GrpcClientInterface.class);
+        List<Binding> bindings = bind(clientInterface, serviceDescriptor(annotation.grpc()));
+        MethodDescriptor<?, ?>[] descriptors = bindings.stream().map(Binding::descriptor).toArray(MethodDescriptor[]::new);
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(clientInterface, MethodHandles.lookup());
+            Class<?> implementation = lookup.defineClass(generate(clientInterface, bindings));
+            MethodHandle constructor = lookup.findConstructor(implementation,
+                    MethodType.methodType(void.class, Channel.class, MethodDescriptor[].class, CallOptions.class));
+            return new GeneratedClient(constructor, descriptors);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Failed to generate gRPC client for " + clientInterface.getName(), e);
+        }
+    }
+
+    private static ServiceDescriptor serviceDescriptor(Class<?> grpcClass) {
+        try {
+            return (ServiceDescriptor) grpcClass.getMethod("getServiceDescriptor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(grpcClass.getName() + " is not a class generated by protoc-gen-grpc-java", e);
+        }
+    }
+
+    // Gắn mỗi method abstract của interface với một MethodDescriptor và cách gọi phù hợp
+    private static List<Binding> bind(Class<?> clientInterface, ServiceDescriptor service) {
+        Map<String, MethodDescriptor<?, ?>> byName = new HashMap<>();
+        for (MethodDescriptor<?, ?> descriptor : service.getMethods()) {
+            byName.put(descriptor.getBareMethodName(), descriptor);
+        }
+        List<Binding> bindings = new ArrayList<>();
+        for (Method method : clientInterface.getMethods()) {
+            if (!Modifier.isAbstract(method.getModifiers())) {
+                continue;
+            }
+            MethodDescriptor<?, ?> descriptor = byName.get(protoName(method));
+            if (descriptor == null) {
+                throw new IllegalStateException("No method " + protoName(method) + " in " + service.getName()
+                        + " for " + clientInterface.getName() + "." + method.getName() + ", available: " + byName.keySet());
+            }
+            bindings.add(new Binding(method, descriptor, CallKind.of(method, descriptor)));
+        }
+        return bindings;
+    }
+
+    private static String protoName(Method method) {
+        GrpcMethod annotation = method.getAnnotation(GrpcMethod.class);
+        if (annotation != null) {
+            return annotation.value();
+        }
+        String name = method.getName();
+        // getUserAsync trả CompletableFuture vẫn gọi GetUser
+        if (name.endsWith(ASYNC_SUFFIX) && name.length() > ASYNC_SUFFIX.length()) {
+            name = name.substring(0, name.length() - ASYNC_SUFFIX.length());
+        }
+        return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    }
+
+    /**
+     * Class sinh ra có dạng:
+     * <pre>
+     * final class UserClient$$GrpcClient implements UserClient {
+     *     public User getUser(GetUserRequest request) {
+     *         return (User) ClientCalls.blockingUnaryCall(channel, methods[0], options, request);
+     *     }
+     * }
+     * </pre>
+     */
+    private static byte[] generate(Class<?> clientInterface, List<Binding> bindings) {
+        String owner = Type.getInternalName(clientInterface) + SUFFIX;
+        ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        writer.visit(Opcodes.V17, Opcodes.ACC_PUBLIC | Opcodes.ACC_FINAL | Opcodes.ACC_SUPER | Opcodes.ACC_SYNTHETIC, owner, null, "java/lang/Object",
+                new String[]{Type.getInternalName(clientInterface)});
+        writer.visitField(Opcodes.ACC_PRIVATE | Opcodes.ACC_FINAL, "channel", "L" + CHANNEL + ";", null, null).visitEnd();
+        writer.visitField(Opcodes.ACC_PRIVATE | Opcodes.ACC_FINAL, "methods", DESCRIPTORS, null, null).visitEnd();
+        writer.visitField(Opcodes.ACC_PRIVATE | Opcodes.ACC_FINAL, "options", "L" + OPTIONS + ";", null, null).visitEnd();
+
+        MethodVisitor constructor = writer.visitMethod(Opcodes.ACC_PUBLIC, "<init>",
+                "(L" + CHANNEL + ";" + DESCRIPTORS + "L" + OPTIONS + ";)V", null, null);
+        constructor.visitCode();
+        constructor.visitVarInsn(Opcodes.ALOAD, 0);
+        constructor.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false);
+        constructor.visitVarInsn(Opcodes.ALOAD, 0);
+        constructor.visitVarInsn(Opcodes.ALOAD, 1);
+        constructor.visitFieldInsn(Opcodes.PUTFIELD, owner, "channel", "L" + CHANNEL + ";");
+        constructor.visitVarInsn(Opcodes.ALOAD, 0);
+        constructor.visitVarInsn(Opcodes.ALOAD, 2);
+        constructor.visitFieldInsn(Opcodes.PUTFIELD, owner, "methods", DESCRIPTORS);
+        constructor.visitVarInsn(Opcodes.ALOAD, 0);
+        constructor.visitVarInsn(Opcodes.ALOAD, 3);
+        constructor.visitFieldInsn(Opcodes.PUTFIELD, owner, "options", "L" + OPTIONS + ";");
+        constructor.visitInsn(Opcodes.RETURN);
+        constructor.visitMaxs(0, 0);
+        constructor.visitEnd();
+
+        for (int i = 0; i < bindings.size(); i++) {
+            Method method = bindings.get(i).method();
+            Method target = bindings.get(i).kind().target;
+            MethodVisitor mv = writer.visitMethod(Opcodes.ACC_PUBLIC, method.getName(), Type.getMethodDescriptor(method), null, null);
+            mv.visitCode();
+            mv.visitVarInsn(Opcodes.ALOAD, 0);
+            mv.visitFieldInsn(Opcodes.GETFIELD, owner, "channel", "L" + CHANNEL + ";");
+            mv.visitVarInsn(Opcodes.ALOAD, 0);
+            mv.visitFieldInsn(Opcodes.GETFIELD, owner, "methods", DESCRIPTORS);
+            mv.visitLdcInsn(i);
+            mv.visitInsn(Opcodes.AALOAD);
+            mv.visitVarInsn(Opcodes.ALOAD, 0);
+            mv.visitFieldInsn(Opcodes.GETFIELD, owner, "options", "L" + OPTIONS + ";");
+            for (int slot = 1; slot <= method.getParameterCount(); slot++) {
+                mv.visitVarInsn(Opcodes.ALOAD, slot);
+            }
+            mv.visitMethodInsn(Opcodes.INVOKESTATIC, Type.getInternalName(target.getDeclaringClass()),
+                    target.getName(), Type.getMethodDescriptor(target), false);
+            if (method.getReturnType() == void.class) {
+                mv.visitInsn(Opcodes.RETURN);
+            } else {
+                mv.visitTypeInsn(Opcodes.CHECKCAST, Type.getInternalName(method.getReturnType()));
+                mv.visitInsn(Opcodes.ARETURN);
+            }
+            mv.visitMaxs(0, 0);
+            mv.visitEnd();
+        }
+        writer.visitEnd();
+        return writer.toByteArray();
+    }
+
+    private record GeneratedClient(MethodHandle constructor, MethodDescriptor<?, ?>[] descriptors) {
+    }
+
+    private record Binding(Method method, MethodDescriptor<?, ?> descriptor, CallKind kind) {
+    }
+
+    /**
+     * Cách gọi theo kiểu rpc và chữ ký method Java
+     */
+    private enum CallKind {
+        BLOCKING_UNARY(ClientCalls.class, "blockingUnaryCall", Channel.class, MethodDescriptor.class, CallOptions.class, Object.class),
+        COMPLETABLE_UNARY(GrpcClientCalls.class, "completableUnary", Channel.class, MethodDescriptor.class, CallOptions.class, Object.class),
+        FUTURE_UNARY(GrpcClientCalls.class, "futureUnary", Channel.class, MethodDescriptor.class, CallOptions.class, Object.class),
+        ASYNC_UNARY(GrpcClientCalls.class, "asyncUnary", Channel.class, MethodDescriptor.class, CallOptions.class, Object.class, StreamObserver.class),
+        BLOCKING_SERVER_STREAMING(ClientCalls.class, "blockingServerStreamingCall", Channel.class, MethodDescriptor.class, CallOptions.class, Object.class),
+        ASYNC_SERVER_STREAMING(GrpcClientCalls.class, "asyncServerStreaming", Channel.class, MethodDescriptor.class, CallOptions.class, Object.class, StreamObserver.class),
+        CLIENT_STREAMING(GrpcClientCalls.class, "asyncClientStreaming", Channel.class, MethodDescriptor.class, CallOptions.class, StreamObserver.class),
+        BIDI_STREAMING(GrpcClientCalls.class, "asyncBidiStreaming", Channel.class, MethodDescriptor.class, CallOptions.class, StreamObserver.class);
+
+        private final Method target;
+
+        CallKind(Class<?> owner, String name, Class<?>... parameterTypes) {
+            try {
+                this.target = owner.getMethod(name, parameterTypes);
+            } catch (NoSuchMethodException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        static CallKind of(Method method, MethodDescriptor<?, ?> descriptor) {
+            Class<?>[] params = method.getParameterTypes();
+            Class<?> returnType = method.getReturnType();
+            boolean oneRequest = params.length == 1 && !StreamObserver.class.isAssignableFrom(params[0]);
+            boolean requestAndObserver = params.length == 2 && !StreamObserver.class.isAssignableFrom(params[0])
+                    && params[1] == StreamObserver.class && returnType == void.class;
+            boolean observerOnly = params.length == 1 && params[0] == StreamObserver.class && returnType == StreamObserver.class;
+
+            CallKind kind = switch (descriptor.getType()) {
+                case UNARY -> {
+                    if (requestAndObserver) {
+                        yield ASYNC_UNARY;
+                    } else if (oneRequest && (returnType == CompletableFuture.class || returnType == CompletionStage.class)) {
+                        yield COMPLETABLE_UNARY;
+                    } else if (oneRequest && returnType == ListenableFuture.class) {
+                        yield FUTURE_UNARY;
+                    } else if (oneRequest && returnType != void.class && !returnType.isPrimitive()) {
+                        yield BLOCKING_UNARY;
+                    }
+                    yield null;
+                }
+                case SERVER_STREAMING -> {
+                    if (requestAndObserver) {
+                        yield ASYNC_SERVER_STREAMING;
+                    } else if (oneRequest && returnType == Iterator.class) {
+                        yield BLOCKING_SERVER_STREAMING;
+                    }
+                    yield null;
+                }
+                case CLIENT_STREAMING -> observerOnly ? CLIENT_STREAMING : null;
+                case BIDI_STREAMING -> observerOnly ? BIDI_STREAMING : null;
+                default -> null;
+            };
+            if (kind == null) {
+                throw new IllegalStateException("Unsupported signature " + method + " for "
+                        + descriptor.getType() + " method " + descriptor.getFullMethodName());
+            }
+            checkTypes(method, descriptor, kind);
+            return kind;
+        }
+
+        // Kiểm tra kiểu request/response với prototype của marshaller (nếu có) để báo lỗi ngay lúc khởi động
+        private static void checkTypes(Method method, MethodDescriptor<?, ?> descriptor, CallKind kind) {
+            Class<?> requestType = messageType(descriptor.getRequestMarshaller());
+            Class<?> responseType = messageType(descriptor.getResponseMarshaller());
+            if (requestType != null && kind != CLIENT_STREAMING && kind != BIDI_STREAMING
+                    && !method.getParameterTypes()[0].isAssignableFrom(requestType)) {
+                throw new IllegalStateException(method + " must accept " + requestType.getName());
+            }
+            java.lang.reflect.Type declared = kind == BLOCKING_UNARY ? method.getReturnType()
+                    : kind == ASYNC_UNARY || kind == ASYNC_SERVER_STREAMING ? typeArgument(method.getGenericParameterTypes()[1])
+                    : kind == CLIENT_STREAMING || kind == BIDI_STREAMING ? typeArgument(method.getGenericParameterTypes()[0])
+                    : typeArgument(method.getGenericReturnType());
+            if (responseType != null && declared instanceof Class<?> declaredClass && !declaredClass.isAssignableFrom(responseType)) {
+                throw new IllegalStateException(method + " must use response type " + responseType.getName());
+            }
+        }
+
+        private static Class<?> messageType(MethodDescriptor.Marshaller<?> marshaller) {
+            if (marshaller instanceof MethodDescriptor.PrototypeMarshaller<?> prototype && prototype.getMessagePrototype() != null) {
+                return prototype.getMessagePrototype().getClass();
+            }
+            return null;
+        }
+
+        private static java.lang.reflect.Type typeArgument(java.lang.reflect.Type type) {
+            return type instanceof ParameterizedType parameterized ? parameterized.getActualTypeArguments()[0] : null;
+        }
+    }
+}
@@ -2,19 +2,41 @@ package com.xhk.grpc.spring.injector;
 
 import io.grpc.Channel;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
 
 public class GrpcStubCreator {
+    private static final MethodType FACTORY_TYPE = MethodType.methodType(Object.class, Channel.class);
+
+    // Method factory của mỗi class stub chỉ được tìm một lần
+    private static final ClassValue<MethodHandle> FACTORIES = new ClassValue<>() {
+        @Override
+        protected MethodHandle computeValue(Class<?> stubType) {
+            try {
+                return MethodHandles.publicLookup().unreflect(getMethod(stubType)).asType(FACTORY_TYPE);
+            } catch (Exception e) {
+                throw new IllegalStateException("No stub factory method for " + stubType.getName(), e);
+            }
+        }
+    };
+
     /**
      * Tạo instance stub từ class stub và channel
      *
-     * @param stubType class stub (BlockingStub, FutureStub...)
+     * @param stubType class stub (BlockingStub, FutureStub, ReactorStub...)
      * @param channel  ManagedChannel
      * @return instance stub
      */
     public static Object create(Class<?> stubType, Channel channel) throws Exception {
-        Method factory = getMethod(stubType);
-        return factory.invoke(null, channel);
+        try {
+            return (Object) FACTORIES.get(stubType).invokeExact(channel);
+        } catch (Exception | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
     }
 
     /**
@@ -29,6 +51,9 @@ public class GrpcStubCreator {
             factory = outerClass.getMethod("newBlockingStub", Channel.class);
         } else if (stubName.contains("FutureStub")) {
             factory = outerClass.getMethod("newFutureStub", Channel.class);
+        } else if (stubName.startsWith("Reactor") && stubName.endsWith("Stub")) {
+            // Stub sinh bởi reactor-grpc (ReactorXxxGrpc.ReactorXxxStub)
+            factory = outerClass.getMethod("newReactorStub", Channel.class);
         } else {
             factory = outerClass.getMethod("newStub", Channel.class);
         }
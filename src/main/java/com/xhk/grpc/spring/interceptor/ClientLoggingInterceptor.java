@@ -1,19 +1,58 @@
 package com.xhk.grpc.spring.interceptor;
 
+import com.xhk.grpc.spring.config.GrpcProperties;
 import io.grpc.Metadata;
+import io.grpc.Status;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.util.concurrent.TimeUnit;
+
 public class ClientLoggingInterceptor implements GrpcMiddleware {
     private static final Logger logger = LogManager.getLogger(ClientLoggingInterceptor.class);
 
+    private final LogFormatter formatter;
+
+    public ClientLoggingInterceptor() {
+        this(new GrpcProperties.CallLogging());
+    }
+
+    public ClientLoggingInterceptor(GrpcProperties.CallLogging config) {
+        this.formatter = new LogFormatter(config);
+    }
+
     @Override
     public void beforeRequest(String methodName, Metadata headers, Object request) {
-        logger.info("[gRPC] IN: method={}, headers={}, request={}", methodName, headers, request);
+        if (shouldLogMessages(headers)) {
+            logger.info("[gRPC] IN: method={}, headers={}, request={}", methodName, formatter.headers(headers), formatter.payload(request));
+        }
     }
 
     @Override
     public void afterResponse(String methodName, Metadata headers, Object response) {
-        logger.info("[gRPC] OUT: method={}, headers={}, response={}", methodName, headers, response);
+        if (shouldLogMessages(headers)) {
+            logger.info("[gRPC] OUT: method={}, headers={}, response={}", methodName, formatter.headers(headers), formatter.payload(response));
+        }
+    }
+
+    @Override
+    public void onClose(String methodName, Metadata headers, Object request, Status status, long durationNanos) {
+        if (!formatter.getConfig().isOnlySlowOrFailed() || !logger.isWarnEnabled() || !formatter.sample(headers)
+                || !formatter.isSlowOrFailed(status, durationNanos)) {
+            return;
+        }
+        double durationMs = TimeUnit.NANOSECONDS.toMicros(durationNanos) / 1000.0;
+        if (status.isOk()) {
+            logger.warn("[gRPC] SLOW: method={}, duration={}ms, headers={}, request={}",
+                    methodName, durationMs, formatter.headers(headers), formatter.payload(request));
+        } else {
+            logger.error("[gRPC] ERROR: method={}, status={}, duration={}ms, headers={}, request={}",
+                    methodName, status, durationMs, formatter.headers(headers), formatter.payload(request));
+        }
+    }
+
+    // Headers của request là object dùng chung cho cả call nên request và response có cùng quyết định sampling
+    private boolean shouldLogMessages(Metadata headers) {
+        return logger.isInfoEnabled() && !formatter.getConfig().isOnlySlowOrFailed() && formatter.sample(headers);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,72 @@
+package com.xhk.grpc.spring.interceptor;
+
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.ForwardingClientCall;
+import io.grpc.ForwardingClientCallListener;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Ghi latency (nanosecond) theo method và status code, số call đang chạy, số lượng và kích thước message phía client
+ */
+public class ClientMetricsInterceptor implements ClientInterceptor {
+
+    private final MeterRegistry registry;
+    private final boolean histogram;
+    private final Map<String, MethodMetrics> metrics = new ConcurrentHashMap<>();
+
+    public ClientMetricsInterceptor(MeterRegistry registry, boolean histogram) {
+        this.registry = registry;
+        this.histogram = histogram;
+    }
+
+    @Override
+    public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(
+            MethodDescriptor<ReqT, RespT> method, CallOptions callOptions, Channel next) {
+        MethodMetrics methodMetrics = metricsFor(method);
+
+        return new ForwardingClientCall.SimpleForwardingClientCall<>(next.newCall(method, callOptions)) {
+            @Override
+            public void start(Listener<RespT> responseListener, Metadata headers) {
+                long startTime = System.nanoTime();
+                methodMetrics.callStarted();
+                super.start(new ForwardingClientCallListener.SimpleForwardingClientCallListener<>(responseListener) {
+                    @Override
+                    public void onMessage(RespT message) {
+                        methodMetrics.messageReceived(message);
+                        super.onMessage(message);
+                    }
+
+                    @Override
+                    public void onClose(Status status, Metadata trailers) {
+                        methodMetrics.callClosed(status.getCode(), System.nanoTime() - startTime);
+                        super.onClose(status, trailers);
+                    }
+                }, headers);
+            }
+
+            @Override
+            public void sendMessage(ReqT message) {
+                methodMetrics.messageSent(message);
+                super.sendMessage(message);
+            }
+        };
+    }
+
+    private MethodMetrics metricsFor(MethodDescriptor<?, ?> method) {
+        MethodMetrics methodMetrics = metrics.get(method.getFullMethodName());
+        if (methodMetrics == null) {
+            methodMetrics = metrics.computeIfAbsent(method.getFullMethodName(),
+                    name -> new MethodMetrics(registry, "grpc.client", name, histogram));
+        }
+        return methodMetrics;
+    }
+}
@@ -0,0 +1,216 @@
+package com.xhk.grpc.spring.interceptor;
+
+import com.xhk.grpc.spring.config.GrpcProperties;
+import com.xhk.grpc.spring.server.WarmupRecorder;
+import io.grpc.Context;
+import io.grpc.Deadline;
+import io.grpc.ForwardingServerCall;
+import io.grpc.ForwardingServerCallListener;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.Status;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Load shedding theo từng method: giới hạn số call đồng thời, limit tự điều chỉnh theo latency
+ * (gradient: limit giảm khi latency ngắn hạn vượt quá tolerance * latency dài hạn).
+ * Call vượt limit bị từ chối ngay với RESOURCE_EXHAUSTED thay vì xếp hàng.
+ */
+public class ConcurrencyLimitInterceptor implements ServerInterceptor {
+
+    private final GrpcProperties.ConcurrencyLimit config;
+    private final Set<String> bypassServices;
+    private final MeterRegistry registry;
+    private final Map<String, MethodLimiter> limiters = new ConcurrentHashMap<>();
+
+    public ConcurrencyLimitInterceptor(GrpcProperties.ConcurrencyLimit config, MeterRegistry registry) {
+        this.config = config;
+        this.bypassServices = new HashSet<>(config.getBypassServices());
+        this.registry = registry;
+    }
+
+    @Override
+    public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(
+            ServerCall<ReqT, RespT> call, Metadata headers, ServerCallHandler<ReqT, RespT> next) {
+        MethodDescriptor<ReqT, RespT> method = call.getMethodDescriptor();
+        if (bypassServices.contains(method.getServiceName()) || WarmupRecorder.isWarmupCall(headers)) {
+            return next.startCall(call, headers);
+        }
+
+        MethodLimiter limiter = limiters.computeIfAbsent(method.getFullMethodName(), MethodLimiter::new);
+
+        if (config.isRejectExpiredDeadlines()) {
+            Deadline deadline = Context.current().getDeadline();
+            long typicalLatency = limiter.longRttNanos;
+            if (deadline != null && typicalLatency > 0 && deadline.timeRemaining(TimeUnit.NANOSECONDS) < typicalLatency) {
+                limiter.deadlineRejected.increment();
+                call.close(Status.DEADLINE_EXCEEDED.withDescription(
+                        "Remaining deadline is shorter than typical latency of " + method.getFullMethodName()), new Metadata());
+                return new ServerCall.Listener<>() {
+                };
+            }
+        }
+
+        if (!limiter.tryAcquire()) {
+            limiter.limitRejected.increment();
+            call.close(Status.RESOURCE_EXHAUSTED.withDescription(
+                    "Concurrency limit exceeded for " + method.getFullMethodName()), new Metadata());
+            return new ServerCall.Listener<>() {
+            };
+        }
+
+        long startTime = System.nanoTime();
+        AtomicBoolean released = new AtomicBoolean();
+        ServerCall<ReqT, RespT> limitedCall = new ForwardingServerCall.SimpleForwardingServerCall<>(call) {
+            @Override
+            public void close(Status status, Metadata trailers) {
+                if (released.compareAndSet(false, true)) {
+                    // Chỉ call thành công mới phản ánh đúng latency của method
+                    limiter.release(status.isOk() ? System.nanoTime() - startTime : -1);
+                }
+                super.close(status, trailers);
+            }
+        };
+
+        ServerCall.Listener<ReqT> listener;
+        try {
+            listener = next.startCall(limitedCall, headers);
+        } catch (RuntimeException e) {
+            if (released.compareAndSet(false, true)) {
+                limiter.release(-1);
+            }
+            throw e;
+        }
+        // Handler ném exception thì gRPC reset stream mà không đi qua close(), call kết thúc bằng onComplete/onCancel
+        return new ForwardingServerCallListener.SimpleForwardingServerCallListener<>(listener) {
+            private void releaseFailed() {
+                if (released.compareAndSet(false, true)) {
+                    limiter.release(-1);
+                }
+            }
+
+            @Override
+            public void onMessage(ReqT message) {
+                try {
+                    super.onMessage(message);
+                } catch (RuntimeException e) {
+                    releaseFailed();
+                    throw e;
+                }
+            }
+
+            @Override
+            public void onHalfClose() {
+                try {
+                    super.onHalfClose();
+                } catch (RuntimeException e) {
+                    releaseFailed();
+                    throw e;
+                }
+            }
+
+            @Override
+            public void onCancel() {
+                releaseFailed();
+                super.onCancel();
+            }
+
+            @Override
+            public void onComplete() {
+                releaseFailed();
+                super.onComplete();
+            }
+        };
+    }
+
+    public int getLimit(String fullMethodName) {
+        MethodLimiter limiter = limiters.get(fullMethodName);
+        return limiter != null ? (int) limiter.limit : config.getInitialLimit();
+    }
+
+    private final class MethodLimiter {
+        // Số sample để tính latency dài hạn (EWMA)
+        private static final double LONG_WINDOW = 600;
+
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicBoolean updating = new AtomicBoolean();
+        private final Counter limitRejected;
+        private final Counter deadlineRejected;
+        private volatile double limit = config.getInitialLimit();
+        private volatile long longRttNanos;
+
+        MethodLimiter(String methodName) {
+            this.limitRejected = Counter.builder("grpc.server.limiter.rejected")
+                    .tag("method", methodName).tag("reason", "limit").register(registry);
+            this.deadlineRejected = Counter.builder("grpc.server.limiter.rejected")
+                    .tag("method", methodName).tag("reason", "deadline").register(registry);
+            Gauge.builder("grpc.server.limiter.limit", this, l -> l.limit).tag("method", methodName).register(registry);
+            Gauge.builder("grpc.server.limiter.inflight", inFlight, AtomicInteger::get).tag("method", methodName).register(registry);
+        }
+
+        boolean tryAcquire() {
+            while (true) {
+                int current = inFlight.get();
+                if (current >= (int) limit) {
+                    return false;
+                }
+                if (inFlight.compareAndSet(current, current + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        void release(long rttNanos) {
+            int current = inFlight.getAndDecrement();
+            if (rttNanos <= 0) {
+                return;
+            }
+            // Chỉ một thread cập nhật limit tại một thời điểm, các sample trùng lúc bị bỏ qua thay vì chờ lock
+            if (!updating.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                update(rttNanos, current);
+            } finally {
+                updating.set(false);
+            }
+        }
+
+        private void update(long shortRtt, int inFlightAtCompletion) {
+            long longRtt = longRttNanos;
+            if (longRtt == 0) {
+                longRttNanos = shortRtt;
+                return;
+            }
+            longRtt = (long) (longRtt + (shortRtt - longRtt) / LONG_WINDOW);
+            // Latency tăng kéo dài (ví dụ sau một đợt quá tải) thì hạ dần baseline để limit có thể tăng lại
+            if (longRtt / 2 > shortRtt) {
+                longRtt = (long) (longRtt * 0.95);
+            }
+            longRttNanos = longRtt;
+
+            double currentLimit = limit;
+            // Ứng dụng chưa dùng hết limit thì không có tín hiệu để tăng limit
+            if (inFlightAtCompletion < currentLimit / 2) {
+                return;
+            }
+            double gradient = Math.max(0.5, Math.min(1.0, config.getTolerance() * longRtt / shortRtt));
+            double newLimit = currentLimit * gradient + Math.sqrt(currentLimit);
+            newLimit = currentLimit * (1 - config.getSmoothing()) + newLimit * config.getSmoothing();
+            limit = Math.max(config.getMinLimit(), Math.min(config.getMaxLimit(), newLimit));
+        }
+    }
+}
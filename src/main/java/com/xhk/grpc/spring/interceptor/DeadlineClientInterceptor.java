@@ -0,0 +1,68 @@
+package com.xhk.grpc.spring.interceptor;
+
+import com.xhk.grpc.spring.config.GrpcProperties;
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.Context;
+import io.grpc.Deadline;
+import io.grpc.MethodDescriptor;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Đặt deadline cho call chưa có deadline: lấy giá trị nhỏ hơn giữa deadline mặc định của method/client
+ * và deadline còn lại của call server hiện tại (Context) trừ đi margin.
+ * Call tạo trong Context của call server cũng tự bị huỷ khi call server bị huỷ.
+ */
+public class DeadlineClientInterceptor implements ClientInterceptor {
+    private static final long NO_DEADLINE = 0;
+
+    private final GrpcProperties.CallDeadlines config;
+    private final Map<String, Long> timeoutByMethod = new ConcurrentHashMap<>();
+
+    public DeadlineClientInterceptor(GrpcProperties.CallDeadlines config) {
+        this.config = config;
+    }
+
+    @Override
+    public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(
+            MethodDescriptor<ReqT, RespT> method, CallOptions callOptions, Channel next) {
+        // Caller đã tự đặt deadline (vd: stub.withDeadlineAfter) thì giữ nguyên
+        if (callOptions.getDeadline() != null) {
+            return next.newCall(method, callOptions);
+        }
+
+        Deadline deadline = null;
+        long timeoutMillis = timeoutFor(method);
+        if (timeoutMillis > NO_DEADLINE) {
+            deadline = Deadline.after(timeoutMillis, TimeUnit.MILLISECONDS);
+        }
+        if (config.isPropagate()) {
+            Deadline incoming = Context.current().getDeadline();
+            if (incoming != null) {
+                Deadline propagated = incoming.offset(-config.getMarginMillis(), TimeUnit.MILLISECONDS);
+                deadline = deadline == null ? propagated : deadline.minimum(propagated);
+            }
+        }
+        return next.newCall(method, deadline != null ? callOptions.withDeadline(deadline) : callOptions);
+    }
+
+    // Deadline theo method được ưu tiên hơn theo service, rồi đến defaultMillis
+    private long timeoutFor(MethodDescriptor<?, ?> method) {
+        Long timeout = timeoutByMethod.get(method.getFullMethodName());
+        if (timeout == null) {
+            timeout = timeoutByMethod.computeIfAbsent(method.getFullMethodName(), name -> {
+                Long value = config.getMethods().get(name);
+                if (value == null) {
+                    value = config.getMethods().get(method.getServiceName());
+                }
+                return value != null ? value : config.getDefaultMillis();
+            });
+        }
+        return timeout;
+    }
+}
@@ -0,0 +1,115 @@
+package com.xhk.grpc.spring.interceptor;
+
+import io.grpc.CallOptions;
+import io.grpc.ClientCall;
+import io.grpc.Metadata;
+import io.grpc.Status;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Unary ClientCall giữ request đến halfClose rồi giao cho cơ chế gửi riêng (gộp request, batch),
+ * kết quả được trả cho listener đúng một lần trên executor của caller
+ */
+public abstract class DeferredUnaryCall<ReqT, RespT> extends ClientCall<ReqT, RespT> {
+    private final Executor executor;
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private Listener<RespT> listener;
+    private Metadata headers;
+    private ReqT request;
+
+    protected DeferredUnaryCall(CallOptions callOptions) {
+        this.executor = callOptions.getExecutor();
+    }
+
+    /**
+     * Gọi khi caller đã gửi xong request
+     */
+    protected abstract void dispatch(ReqT request, Metadata headers);
+
+    /**
+     * Gọi khi caller huỷ call, trước khi listener nhận CANCELLED
+     */
+    protected void onCancel() {
+    }
+
+    /**
+     * Gọi một lần khi call kết thúc, dù bằng kết quả, lỗi hay huỷ
+     */
+    protected void onClosed() {
+    }
+
+    @Override
+    public void start(Listener<RespT> responseListener, Metadata headers) {
+        this.listener = responseListener;
+        this.headers = headers;
+    }
+
+    @Override
+    public void request(int numMessages) {
+        // Unary: response được đẩy cho caller qua deliver
+    }
+
+    @Override
+    public void sendMessage(ReqT message) {
+        if (request != null) {
+            cancel("Too many requests for unary method", null);
+            return;
+        }
+        request = message;
+    }
+
+    @Override
+    public void halfClose() {
+        if (closed.get()) {
+            return;
+        }
+        if (request == null) {
+            deliver(null, null, Status.INTERNAL.withDescription("Half-closed without a request"), new Metadata());
+            return;
+        }
+        dispatch(request, headers);
+    }
+
+    @Override
+    public void cancel(String message, Throwable cause) {
+        onCancel();
+        deliver(null, null, Status.CANCELLED.withDescription(message != null ? message : "Call cancelled")
+                .withCause(cause), new Metadata());
+    }
+
+    @Override
+    public boolean isReady() {
+        return !closed.get();
+    }
+
+    public boolean isClosed() {
+        return closed.get();
+    }
+
+    public void deliver(Metadata responseHeaders, RespT message, Status status, Metadata trailers) {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        onClosed();
+        if (listener == null) {
+            return;
+        }
+        Runnable callback = () -> {
+            if (responseHeaders != null) {
+                listener.onHeaders(responseHeaders);
+            }
+            if (message != null) {
+                listener.onMessage(message);
+            }
+            listener.onClose(status, trailers);
+        };
+        // Callback phải chạy trên executor của chính caller (vd: blocking stub chờ trên executor riêng)
+        if (executor != null) {
+            executor.execute(callback);
+        } else {
+            callback.run();
+        }
+    }
+}
@@ -1,8 +1,18 @@
 package com.xhk.grpc.spring.interceptor;
 
 import io.grpc.Metadata;
+import io.grpc.Status;
 
 public interface GrpcMiddleware {
     void beforeRequest(String methodName, Metadata headers, Object request);
     void afterResponse(String methodName, Metadata headers, Object response);
-}
\ No newline at end of file
+
+    /**
+     * Gọi khi call kết thúc
+     *
+     * @param request       request cuối cùng đã gửi (null nếu chưa gửi)
+     * @param durationNanos thời gian từ lúc start call
+     */
+    default void onClose(String methodName, Metadata headers, Object request, Status status, long durationNanos) {
+    }
+}
@@ -11,21 +11,31 @@ public class GrpcUtils {
 
                 return new ForwardingClientCall.SimpleForwardingClientCall<>(next.newCall(method, callOptions)) {
                     private Metadata requestHeaders;
+                    private ReqT lastRequest;
 
                     @Override
                     public void start(Listener<RespT> responseListener, Metadata headers) {
                         this.requestHeaders = headers;
+                        long startTime = System.nanoTime();
                         super.start(new ForwardingClientCallListener.SimpleForwardingClientCallListener<RespT>(responseListener) {
                             @Override
                             public void onMessage(RespT message) {
                                 middleware.afterResponse(method.getFullMethodName(), requestHeaders, message);
                                 super.onMessage(message);
                             }
+
+                            @Override
+                            public void onClose(Status status, Metadata trailers) {
+                                middleware.onClose(method.getFullMethodName(), requestHeaders, lastRequest, status,
+                                        System.nanoTime() - startTime);
+                                super.onClose(status, trailers);
+                            }
                         }, headers);
                     }
 
                     @Override
                     public void sendMessage(ReqT message) {
+                        this.lastRequest = message;
                         middleware.beforeRequest(method.getFullMethodName(), requestHeaders, message);
                         super.sendMessage(message);
                     }
@@ -0,0 +1,71 @@
+package com.xhk.grpc.spring.interceptor;
+
+import io.grpc.ForwardingServerCall;
+import io.grpc.ForwardingServerCallListener;
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.Status;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Đếm số call server đang chạy, dùng khi dừng server để biết còn bao nhiêu call phải chờ.
+ * Call được tính là xong khi server close hoặc client huỷ, mỗi call chỉ bị trừ một lần.
+ */
+public class InFlightCallTracker implements ServerInterceptor {
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    @Override
+    public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(
+            ServerCall<ReqT, RespT> call, Metadata headers, ServerCallHandler<ReqT, RespT> next) {
+        inFlight.incrementAndGet();
+        AtomicBoolean done = new AtomicBoolean();
+        Runnable finish = () -> {
+            if (done.compareAndSet(false, true)) {
+                inFlight.decrementAndGet();
+            }
+        };
+        ServerCall.Listener<ReqT> listener;
+        try {
+            listener = next.startCall(new ForwardingServerCall.SimpleForwardingServerCall<>(call) {
+                @Override
+                public void close(Status status, Metadata trailers) {
+                    try {
+                        super.close(status, trailers);
+                    } finally {
+                        finish.run();
+                    }
+                }
+            }, headers);
+        } catch (RuntimeException e) {
+            finish.run();
+            throw e;
+        }
+        return new ForwardingServerCallListener.SimpleForwardingServerCallListener<>(listener) {
+            @Override
+            public void onCancel() {
+                try {
+                    super.onCancel();
+                } finally {
+                    finish.run();
+                }
+            }
+
+            @Override
+            public void onComplete() {
+                try {
+                    super.onComplete();
+                } finally {
+                    finish.run();
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,111 @@
+package com.xhk.grpc.spring.interceptor;
+
+import com.google.protobuf.MessageLite;
+import com.xhk.grpc.spring.config.GrpcProperties;
+import io.grpc.Metadata;
+import io.grpc.Status;
+
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Quyết định có log call hay không (sampling, slow/failed) và định dạng payload/header một cách lazy:
+ * các object trả về chỉ build chuỗi khi log4j thực sự ghi log (toString()).
+ */
+public class LogFormatter {
+    private static final String REDACTED = "***";
+
+    private final GrpcProperties.CallLogging config;
+    private final Set<String> headerAllowList = new HashSet<>();
+    private final long slowThresholdNanos;
+    private final int sampleThreshold;
+
+    public LogFormatter(GrpcProperties.CallLogging config) {
+        this.config = config;
+        for (String header : config.getHeaderAllowList()) {
+            headerAllowList.add(header.toLowerCase(Locale.ROOT));
+        }
+        this.slowThresholdNanos = TimeUnit.MILLISECONDS.toNanos(config.getSlowThresholdMs());
+        this.sampleThreshold = (int) (Math.max(0, Math.min(1, config.getSampleRate())) * (1 << 24));
+    }
+
+    public GrpcProperties.CallLogging getConfig() {
+        return config;
+    }
+
+    public boolean sample() {
+        return config.getSampleRate() >= 1.0 || ThreadLocalRandom.current().nextInt(1 << 24) < sampleThreshold;
+    }
+
+    /**
+     * Sampling ổn định theo một object gắn với call (vd: Metadata của request),
+     * để request và response của cùng một call có cùng quyết định
+     */
+    public boolean sample(Object callIdentity) {
+        if (config.getSampleRate() >= 1.0) {
+            return true;
+        }
+        int hash = System.identityHashCode(callIdentity) * 0x9E3779B9;
+        return (hash >>> 8) < sampleThreshold;
+    }
+
+    public boolean isSlowOrFailed(Status status, long durationNanos) {
+        return !status.isOk() || durationNanos >= slowThresholdNanos;
+    }
+
+    public Object payload(Object message) {
+        if (!config.isLogPayloads()) {
+            return "<omitted>";
+        }
+        return new LazyPayload(message, config.getMaxPayloadLength());
+    }
+
+    public Object headers(Metadata headers) {
+        if (!config.isLogHeaders() || headers == null) {
+            return "<omitted>";
+        }
+        return new LazyHeaders(headers, headerAllowList);
+    }
+
+    private record LazyPayload(Object message, int maxLength) {
+        @Override
+        public String toString() {
+            if (message == null) {
+                return "null";
+            }
+            // Message quá lớn thì không gọi toString() (tốn CPU và bộ nhớ) mà chỉ in kích thước
+            if (maxLength > 0 && message instanceof MessageLite messageLite && messageLite.getSerializedSize() > maxLength) {
+                return message.getClass().getSimpleName() + "<" + messageLite.getSerializedSize() + " bytes>";
+            }
+            String text = message.toString();
+            if (maxLength > 0 && text.length() > maxLength) {
+                return text.substring(0, maxLength) + "...(" + text.length() + " chars)";
+            }
+            return text;
+        }
+    }
+
+    private record LazyHeaders(Metadata headers, Set<String> allowList) {
+        @Override
+        public String toString() {
+            StringBuilder builder = new StringBuilder("{");
+            for (String key : headers.keys()) {
+                if (builder.length() > 1) {
+                    builder.append(", ");
+                }
+                builder.append(key).append('=');
+                if (!allowList.isEmpty() && !allowList.contains(key)) {
+                    builder.append(REDACTED);
+                } else if (key.endsWith(Metadata.BINARY_HEADER_SUFFIX)) {
+                    builder.append("<binary>");
+                } else {
+                    builder.append(headers.get(Metadata.Key.of(key, Metadata.ASCII_STRING_MARSHALLER)));
+                }
+            }
+            return builder.append('}').toString();
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.xhk.grpc.spring.interceptor;
+
+import com.google.protobuf.MessageLite;
+import io.grpc.Status;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Meter handle tính sẵn cho một method, để đường ghi metrics của mỗi call không phải tạo tag/chuỗi mới.
+ * Timer theo status code được tạo lần đầu khi gặp code đó.
+ */
+public class MethodMetrics {
+    private static final Status.Code[] CODES = Status.Code.values();
+
+    private final MeterRegistry registry;
+    private final String prefix;
+    private final String methodName;
+    private final boolean histogram;
+    private final AtomicReferenceArray<Timer> timers = new AtomicReferenceArray<>(CODES.length);
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Counter messagesSent;
+    private final Counter messagesReceived;
+    private final DistributionSummary bytesSent;
+    private final DistributionSummary bytesReceived;
+
+    public MethodMetrics(MeterRegistry registry, String prefix, String methodName, boolean histogram) {
+        this.registry = registry;
+        this.prefix = prefix;
+        this.methodName = methodName;
+        this.histogram = histogram;
+        Gauge.builder(prefix + ".calls.active", inFlight, AtomicInteger::get)
+                .tag("method", methodName)
+                .register(registry);
+        this.messagesSent = Counter.builder(prefix + ".messages.sent").tag("method", methodName).register(registry);
+        this.messagesReceived = Counter.builder(prefix + ".messages.received").tag("method", methodName).register(registry);
+        this.bytesSent = DistributionSummary.builder(prefix + ".message.size")
+                .baseUnit("bytes").tag("method", methodName).tag("direction", "sent").register(registry);
+        this.bytesReceived = DistributionSummary.builder(prefix + ".message.size")
+                .baseUnit("bytes").tag("method", methodName).tag("direction", "received").register(registry);
+    }
+
+    public void callStarted() {
+        inFlight.incrementAndGet();
+    }
+
+    public void callClosed(Status.Code code, long durationNanos) {
+        inFlight.decrementAndGet();
+        timer(code).record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void messageSent(Object message) {
+        messagesSent.increment();
+        if (message instanceof MessageLite messageLite) {
+            // getSerializedSize() được protobuf memoize nên không tốn thêm khi marshal
+            bytesSent.record(messageLite.getSerializedSize());
+        }
+    }
+
+    public void messageReceived(Object message) {
+        messagesReceived.increment();
+        if (message instanceof MessageLite messageLite) {
+            bytesReceived.record(messageLite.getSerializedSize());
+        }
+    }
+
+    private Timer timer(Status.Code code) {
+        Timer timer = timers.get(code.ordinal());
+        if (timer == null) {
+            timer = Timer.builder(prefix + ".calls")
+                    .tag("method", methodName)
+                    .tag("status", code.name())
+                    .publishPercentileHistogram(histogram)
+                    .register(registry);
+            timers.compareAndSet(code.ordinal(), null, timer);
+        }
+        return timer;
+    }
+}
@@ -0,0 +1,148 @@
+package com.xhk.grpc.spring.interceptor;
+
+import com.xhk.grpc.spring.config.GrpcProperties;
+import com.xhk.grpc.spring.server.WarmupRecorder;
+import io.grpc.Grpc;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.Status;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rate limit theo method (hoặc service) và tuỳ chọn theo header/địa chỉ của caller.
+ * Dùng được như interceptor global (grpc.server.rateLimits.global) hoặc qua @GrpcController(interceptors = ...).
+ */
+public class RateLimitInterceptor implements ServerInterceptor, AutoCloseable {
+    private static final Logger logger = LogManager.getLogger(RateLimitInterceptor.class);
+
+    private final GrpcProperties.RateLimits config;
+    private final MeterRegistry registry;
+    private final Map<String, Optional<RuleState>> rulesByMethod = new ConcurrentHashMap<>();
+    private final Map<String, RuleState> rules = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService evictor;
+
+    public RateLimitInterceptor(GrpcProperties.RateLimits config, MeterRegistry registry) {
+        this.config = config;
+        this.registry = registry;
+        this.evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "grpc-rate-limit-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1, config.getIdleEvictionSeconds());
+        evictor.scheduleWithFixedDelay(this::evictIdleBuckets, period, period, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(
+            ServerCall<ReqT, RespT> call, Metadata headers, ServerCallHandler<ReqT, RespT> next) {
+        MethodDescriptor<ReqT, RespT> method = call.getMethodDescriptor();
+        Optional<RuleState> rule = rulesByMethod.computeIfAbsent(method.getFullMethodName(),
+                name -> Optional.ofNullable(resolveRule(name, method.getServiceName())));
+        if (rule.isEmpty() || WarmupRecorder.isWarmupCall(headers)) {
+            return next.startCall(call, headers);
+        }
+
+        RuleState state = rule.get();
+        if (!state.tryAcquire(state.keyOf(call, headers), System.nanoTime())) {
+            state.rejected.increment();
+            call.close(Status.RESOURCE_EXHAUSTED.withDescription("Rate limit exceeded for " + method.getFullMethodName()),
+                    new Metadata());
+            return new ServerCall.Listener<>() {
+            };
+        }
+        return next.startCall(call, headers);
+    }
+
+    // Rule theo method được ưu tiên hơn rule theo service
+    private RuleState resolveRule(String fullMethodName, String serviceName) {
+        String ruleName = config.getRules().containsKey(fullMethodName) ? fullMethodName : serviceName;
+        GrpcProperties.RateLimitRule rule = config.getRules().get(ruleName);
+        if (rule == null) {
+            return null;
+        }
+        return rules.computeIfAbsent(ruleName, name -> new RuleState(name, rule));
+    }
+
+    private void evictIdleBuckets() {
+        long now = System.nanoTime();
+        long idleNanos = TimeUnit.SECONDS.toNanos(config.getIdleEvictionSeconds());
+        for (RuleState state : rules.values()) {
+            int before = state.buckets.size();
+            state.buckets.entrySet().removeIf(entry -> entry.getValue().isIdle(now, idleNanos));
+            int evicted = before - state.buckets.size();
+            if (evicted > 0) {
+                logger.debug("Evicted {} idle rate limit buckets for {}", evicted, state.name);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        evictor.shutdownNow();
+    }
+
+    private final class RuleState {
+        private final String name;
+        private final GrpcProperties.RateLimitRule rule;
+        private final Metadata.Key<String> headerKey;
+        private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+        private final TokenBucket overflow;
+        private final Counter rejected;
+
+        RuleState(String name, GrpcProperties.RateLimitRule rule) {
+            this.name = name;
+            this.rule = rule;
+            this.headerKey = rule.getKeyBy() == GrpcProperties.RateLimitKey.HEADER
+                    ? Metadata.Key.of(rule.getHeader(), Metadata.ASCII_STRING_MARSHALLER)
+                    : null;
+            this.overflow = new TokenBucket(rule.getPermitsPerSecond(), rule.getBurst(), System.nanoTime());
+            this.rejected = Counter.builder("grpc.server.ratelimit.rejected").tag("rule", name).register(registry);
+        }
+
+        String keyOf(ServerCall<?, ?> call, Metadata headers) {
+            return switch (rule.getKeyBy()) {
+                case NONE -> "";
+                case HEADER -> {
+                    String value = headers.get(headerKey);
+                    yield value != null ? value : "";
+                }
+                case PEER -> {
+                    SocketAddress address = call.getAttributes().get(Grpc.TRANSPORT_ATTR_REMOTE_ADDR);
+                    if (address instanceof InetSocketAddress inet && inet.getAddress() != null) {
+                        yield inet.getAddress().getHostAddress();
+                    }
+                    yield address != null ? address.toString() : "";
+                }
+            };
+        }
+
+        boolean tryAcquire(String key, long now) {
+            TokenBucket bucket = buckets.get(key);
+            if (bucket == null) {
+                if (buckets.size() >= config.getMaxBucketsPerRule()) {
+                    bucket = overflow;
+                } else {
+                    bucket = buckets.computeIfAbsent(key,
+                            k -> new TokenBucket(rule.getPermitsPerSecond(), rule.getBurst(), now));
+                }
+            }
+            return bucket.tryAcquire(now);
+        }
+    }
+}
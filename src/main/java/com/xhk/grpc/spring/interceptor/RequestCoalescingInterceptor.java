@@ -0,0 +1,339 @@
+package com.xhk.grpc.spring.interceptor;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.xhk.grpc.spring.cache.ByteArrayMarshaller;
+import com.xhk.grpc.spring.config.GrpcProperties;
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.Context;
+import io.grpc.Deadline;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gộp các unary call giống nhau (cùng method, cùng bytes request và các header trong keyHeaders) đang chạy
+ * thành một call mạng duy nhất, kết quả được trả cho mọi caller đang chờ. Tuỳ chọn giữ response trong cache TTL ngắn.
+ * Call mạng dùng deadline của caller đầu tiên và không bị huỷ khi caller đó huỷ nếu vẫn còn caller khác chờ.
+ * Mỗi caller vẫn tự áp deadline và Context cancellation của mình: hết hạn hoặc bị huỷ thì rời flight ngay.
+ * Header authorization luôn nằm trong key để caller khác danh tính không nhận response của nhau (kể cả từ cache TTL);
+ * header xác thực khác phải được khai báo trong keyHeaders. Call có CallCredentials hoặc authority riêng không được gộp.
+ */
+public class RequestCoalescingInterceptor implements ClientInterceptor {
+
+    private static final String AUTHORIZATION = "authorization";
+
+    private final Set<String> methods;
+    private final List<Metadata.Key<String>> keyHeaders = new ArrayList<>();
+    private final Map<FlightKey, Flight<?>> flights = new ConcurrentHashMap<>();
+    private final Map<MethodDescriptor<?, ?>, MethodDescriptor<byte[], ?>> rawMethods = new ConcurrentHashMap<>();
+    private final Cache<FlightKey, Object> cache;
+    private final Counter leaders;
+    private final Counter joined;
+    private final Counter cacheHits;
+    private final ScheduledExecutorService scheduler;
+
+    public RequestCoalescingInterceptor(String clientName, GrpcProperties.RequestCoalescing config, MeterRegistry registry) {
+        this.methods = new HashSet<>(config.getMethods());
+        Set<String> headerNames = new LinkedHashSet<>();
+        for (String header : config.getKeyHeaders()) {
+            headerNames.add(header.toLowerCase(Locale.ROOT));
+        }
+        headerNames.add(AUTHORIZATION);
+        for (String header : headerNames) {
+            keyHeaders.add(Metadata.Key.of(header, Metadata.ASCII_STRING_MARSHALLER));
+        }
+        this.cache = config.getCacheTtlMillis() > 0
+                ? Caffeine.newBuilder()
+                        .expireAfterWrite(Duration.ofMillis(config.getCacheTtlMillis()))
+                        .maximumSize(config.getCacheMaxSize())
+                        .build()
+                : null;
+        this.leaders = counter(registry, clientName, "leader");
+        this.joined = counter(registry, clientName, "joined");
+        this.cacheHits = counter(registry, clientName, "cache_hit");
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "grpc-coalescing-" + clientName);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private static Counter counter(MeterRegistry registry, String clientName, String result) {
+        return Counter.builder("grpc.client.coalescing.calls")
+                .tag("client", clientName)
+                .tag("result", result)
+                .register(registry);
+    }
+
+    @Override
+    public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(
+            MethodDescriptor<ReqT, RespT> method, CallOptions callOptions, Channel next) {
+        // Credentials được áp riêng cho từng call mạng nên không có trong key, call có authority riêng cũng vậy
+        if (method.getType() != MethodDescriptor.MethodType.UNARY
+                || (!methods.isEmpty() && !methods.contains(method.getFullMethodName()))
+                || callOptions.getCredentials() != null || callOptions.getAuthority() != null) {
+            return next.newCall(method, callOptions);
+        }
+        return new CoalescedCall<>(method, callOptions, next);
+    }
+
+    /**
+     * Descriptor gửi thẳng bytes đã serialize để tính key, không marshal request lần hai.
+     * Được cache để interceptor phía trong (vd: batching) thấy cùng một descriptor cho mỗi method.
+     */
+    @SuppressWarnings("unchecked")
+    private <ReqT, RespT> MethodDescriptor<byte[], RespT> rawMethod(MethodDescriptor<ReqT, RespT> method) {
+        return (MethodDescriptor<byte[], RespT>) rawMethods.computeIfAbsent(method,
+                m -> method.toBuilder(ByteArrayMarshaller.INSTANCE, method.getResponseMarshaller()).build());
+    }
+
+    private static Deadline deadline(CallOptions callOptions, Context context) {
+        Deadline deadline = callOptions.getDeadline();
+        Deadline contextDeadline = context.getDeadline();
+        if (contextDeadline != null && (deadline == null || contextDeadline.isBefore(deadline))) {
+            deadline = contextDeadline;
+        }
+        return deadline;
+    }
+
+    private static Metadata copy(Metadata source) {
+        Metadata copy = new Metadata();
+        if (source != null) {
+            copy.merge(source);
+        }
+        return copy;
+    }
+
+    /**
+     * ClientCall phía caller: khi có request thì gắn vào flight đang chạy hoặc tạo flight mới
+     */
+    private final class CoalescedCall<ReqT, RespT> extends DeferredUnaryCall<ReqT, RespT> {
+        private final MethodDescriptor<ReqT, RespT> method;
+        private final CallOptions callOptions;
+        private final Channel next;
+        private final Context context = Context.current();
+        private final Context.CancellationListener cancellationListener = ctx -> cancel("Context cancelled", ctx.cancellationCause());
+        private volatile Flight<RespT> flight;
+        private volatile ScheduledFuture<?> deadlineTimer;
+
+        CoalescedCall(MethodDescriptor<ReqT, RespT> method, CallOptions callOptions, Channel next) {
+            super(callOptions);
+            this.method = method;
+            this.callOptions = callOptions;
+            this.next = next;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        protected void dispatch(ReqT request, Metadata headers) {
+            Deadline deadline = deadline(callOptions, context);
+            if (deadline != null && deadline.isExpired()) {
+                deliver(null, null, Status.DEADLINE_EXCEEDED.withDescription("Deadline exceeded before coalescing"), new Metadata());
+                return;
+            }
+            byte[] bytes = ByteArrayMarshaller.toBytes(method.getRequestMarshaller(), request);
+            FlightKey key = new FlightKey(method.getFullMethodName(), bytes, headerValues(headers));
+
+            if (cache != null) {
+                Object cached = cache.getIfPresent(key);
+                if (cached != null) {
+                    cacheHits.increment();
+                    deliver(new Metadata(), (RespT) cached, Status.OK, new Metadata());
+                    return;
+                }
+            }
+
+            boolean[] created = new boolean[1];
+            Flight<RespT> joinedFlight = (Flight<RespT>) flights.compute(key, (k, existing) -> {
+                if (existing != null && ((Flight<RespT>) existing).join(this)) {
+                    return existing;
+                }
+                Flight<RespT> newFlight = new Flight<>(k);
+                newFlight.join(this);
+                created[0] = true;
+                return newFlight;
+            });
+            flight = joinedFlight;
+            // Gắn timer và listener sau khi đã join để onCancel luôn thấy flight
+            if (deadline != null) {
+                deadlineTimer = scheduler.schedule(this::deadlineExceeded,
+                        deadline.timeRemaining(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+            }
+            context.addListener(cancellationListener, Runnable::run);
+            if (created[0]) {
+                leaders.increment();
+                joinedFlight.start(rawMethod(method), bytes, callOptions, headers, next);
+            } else {
+                joined.increment();
+            }
+        }
+
+        private void deadlineExceeded() {
+            onCancel();
+            deliver(null, null, Status.DEADLINE_EXCEEDED.withDescription("Deadline exceeded while waiting for coalesced call"),
+                    new Metadata());
+        }
+
+        @Override
+        protected void onCancel() {
+            Flight<RespT> current = flight;
+            if (current != null) {
+                current.leave(this);
+            }
+        }
+
+        @Override
+        protected void onClosed() {
+            ScheduledFuture<?> timer = deadlineTimer;
+            if (timer != null) {
+                timer.cancel(false);
+            }
+            context.removeListener(cancellationListener);
+        }
+
+        private String[] headerValues(Metadata headers) {
+            String[] values = new String[keyHeaders.size()];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = headers.get(keyHeaders.get(i));
+            }
+            return values;
+        }
+    }
+
+    /**
+     * Một call mạng đang chạy cùng danh sách caller đang chờ kết quả của nó
+     */
+    private final class Flight<RespT> extends ClientCall.Listener<RespT> {
+        private final FlightKey key;
+        private final List<CoalescedCall<?, RespT>> waiters = new ArrayList<>();
+        private boolean done;
+        private volatile ClientCall<byte[], RespT> call;
+        private volatile Metadata responseHeaders;
+        private volatile RespT response;
+
+        Flight(FlightKey key) {
+            this.key = key;
+        }
+
+        synchronized boolean join(CoalescedCall<?, RespT> waiter) {
+            if (done) {
+                return false;
+            }
+            waiters.add(waiter);
+            return true;
+        }
+
+        void leave(CoalescedCall<?, RespT> waiter) {
+            boolean cancel;
+            synchronized (this) {
+                waiters.remove(waiter);
+                cancel = waiters.isEmpty() && !done;
+                if (cancel) {
+                    done = true;
+                }
+            }
+            if (cancel) {
+                flights.remove(key, this);
+                ClientCall<byte[], RespT> current = call;
+                if (current != null) {
+                    current.cancel("All coalesced callers cancelled", null);
+                }
+            }
+        }
+
+        void start(MethodDescriptor<byte[], RespT> rawMethod, byte[] request, CallOptions callOptions, Metadata headers, Channel next) {
+            Deadline deadline = deadline(callOptions, Context.current());
+            // Tách khỏi Context và executor của caller đầu tiên để call không chết theo caller đó
+            CallOptions options = callOptions.withExecutor(null).withDeadline(deadline);
+            Context previous = Context.ROOT.attach();
+            try {
+                ClientCall<byte[], RespT> newCall = next.newCall(rawMethod, options);
+                call = newCall;
+                newCall.start(this, headers);
+                newCall.request(1);
+                newCall.sendMessage(request);
+                newCall.halfClose();
+            } catch (RuntimeException e) {
+                onClose(Status.fromThrowable(e), new Metadata());
+            } finally {
+                Context.ROOT.detach(previous);
+            }
+        }
+
+        @Override
+        public void onHeaders(Metadata headers) {
+            responseHeaders = headers;
+        }
+
+        @Override
+        public void onMessage(RespT message) {
+            response = message;
+        }
+
+        @Override
+        public void onClose(Status status, Metadata trailers) {
+            List<CoalescedCall<?, RespT>> snapshot;
+            RespT message = response;
+            if (cache != null && status.isOk() && message != null) {
+                cache.put(key, message);
+            }
+            synchronized (this) {
+                done = true;
+                snapshot = new ArrayList<>(waiters);
+                waiters.clear();
+            }
+            flights.remove(key, this);
+            for (CoalescedCall<?, RespT> waiter : snapshot) {
+                waiter.deliver(responseHeaders != null ? copy(responseHeaders) : null, message, status, copy(trailers));
+            }
+        }
+    }
+
+    private static final class FlightKey {
+        private final String method;
+        private final byte[] request;
+        private final String[] headerValues;
+        private final int hash;
+
+        FlightKey(String method, byte[] request, String[] headerValues) {
+            this.method = method;
+            this.request = request;
+            this.headerValues = headerValues;
+            this.hash = 31 * (31 * method.hashCode() + Arrays.hashCode(request)) + Arrays.hashCode(headerValues);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof FlightKey that)) return false;
+            return hash == that.hash && method.equals(that.method)
+                    && Arrays.equals(request, that.request) && Arrays.equals(headerValues, that.headerValues);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.xhk.grpc.spring.interceptor;
+
+import com.xhk.grpc.spring.channel.ServiceConfigFactory;
+import com.xhk.grpc.spring.config.GrpcProperties;
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.ClientStreamTracer;
+import io.grpc.ForwardingClientCall;
+import io.grpc.ForwardingClientCallListener;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Đếm số attempt của các method có retry/hedging policy: grpc.client.attempts (type = initial | retry | hedge | transparent)
+ * và grpc.client.retries.throttled. Số retry bị throttle là ước lượng, tính bằng một bản sao của thuật toán token
+ * trong service config vì gRPC không công bố trạng thái throttle của channel.
+ */
+public class RetryMetricsInterceptor implements ClientInterceptor {
+
+    private final String clientName;
+    private final Map<String, GrpcProperties.CallPolicy> policies;
+    private final MeterRegistry registry;
+    private final Throttle throttle;
+    private final Map<String, AttemptMetrics> metrics = new ConcurrentHashMap<>();
+
+    public RetryMetricsInterceptor(String clientName, GrpcProperties.Client clientConfig, MeterRegistry registry) {
+        this.clientName = clientName;
+        this.policies = clientConfig.getMethodPolicies();
+        this.registry = registry;
+        GrpcProperties.RetryThrottling throttling = clientConfig.getRetryThrottling();
+        this.throttle = throttling.getMaxTokens() > 0
+                ? new Throttle(throttling.getMaxTokens(), throttling.getTokenRatio())
+                : null;
+    }
+
+    @Override
+    public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(
+            MethodDescriptor<ReqT, RespT> method, CallOptions callOptions, Channel next) {
+        AttemptMetrics methodMetrics = metricsFor(method);
+        if (methodMetrics == null) {
+            return next.newCall(method, callOptions);
+        }
+
+        AtomicInteger attempts = new AtomicInteger();
+        ClientStreamTracer.Factory tracerFactory = new ClientStreamTracer.Factory() {
+            @Override
+            public ClientStreamTracer newClientStreamTracer(ClientStreamTracer.StreamInfo info, Metadata headers) {
+                if (info.isTransparentRetry()) {
+                    methodMetrics.transparent.increment();
+                } else {
+                    attempts.incrementAndGet();
+                    if (info.getPreviousAttempts() == 0) {
+                        methodMetrics.initial.increment();
+                    } else {
+                        methodMetrics.repeated.increment();
+                    }
+                }
+                return new ClientStreamTracer() {
+                    @Override
+                    public void streamClosed(Status status) {
+                        if (throttle != null) {
+                            throttle.record(status, methodMetrics.qualifiedCodes);
+                        }
+                    }
+                };
+            }
+        };
+
+        ClientCall<ReqT, RespT> call = next.newCall(method, callOptions.withStreamTracerFactory(tracerFactory));
+        return new ForwardingClientCall.SimpleForwardingClientCall<>(call) {
+            @Override
+            public void start(Listener<RespT> responseListener, Metadata headers) {
+                super.start(new ForwardingClientCallListener.SimpleForwardingClientCallListener<>(responseListener) {
+                    @Override
+                    public void onClose(Status status, Metadata trailers) {
+                        // Lỗi còn retry được, chưa hết attempt mà token đã dưới ngưỡng: retry bị throttle chặn
+                        if (throttle != null && methodMetrics.qualifiedCodes.contains(status.getCode())
+                                && attempts.get() < methodMetrics.maxAttempts && !throttle.isAboveThreshold()) {
+                            methodMetrics.throttled.increment();
+                        }
+                        super.onClose(status, trailers);
+                    }
+                }, headers);
+            }
+        };
+    }
+
+    private AttemptMetrics metricsFor(MethodDescriptor<?, ?> method) {
+        AttemptMetrics methodMetrics = metrics.get(method.getFullMethodName());
+        if (methodMetrics == null) {
+            GrpcProperties.CallPolicy policy = ServiceConfigFactory.resolve(policies, method);
+            if (policy == null || (policy.getRetry() == null && policy.getHedging() == null)) {
+                return null;
+            }
+            methodMetrics = metrics.computeIfAbsent(method.getFullMethodName(), name -> new AttemptMetrics(name, policy));
+        }
+        return methodMetrics;
+    }
+
+    private final class AttemptMetrics {
+        private final Counter initial;
+        private final Counter repeated;
+        private final Counter transparent;
+        private final Counter throttled;
+        private final Set<Status.Code> qualifiedCodes = EnumSet.noneOf(Status.Code.class);
+        private final int maxAttempts;
+
+        AttemptMetrics(String methodName, GrpcProperties.CallPolicy policy) {
+            boolean hedging = policy.getHedging() != null;
+            this.initial = attempts(methodName, "initial");
+            this.repeated = attempts(methodName, hedging ? "hedge" : "retry");
+            this.transparent = attempts(methodName, "transparent");
+            this.throttled = Counter.builder("grpc.client.retries.throttled")
+                    .tag("client", clientName)
+                    .tag("method", methodName)
+                    .register(registry);
+            if (hedging) {
+                this.maxAttempts = policy.getHedging().getMaxAttempts();
+                policy.getHedging().getNonFatalStatusCodes().forEach(code -> qualifiedCodes.add(code(code)));
+            } else {
+                this.maxAttempts = policy.getRetry().getMaxAttempts();
+                policy.getRetry().getRetryableStatusCodes().forEach(code -> qualifiedCodes.add(code(code)));
+            }
+        }
+
+        private Counter attempts(String methodName, String type) {
+            return Counter.builder("grpc.client.attempts")
+                    .tag("client", clientName)
+                    .tag("method", methodName)
+                    .tag("type", type)
+                    .register(registry);
+        }
+
+        private Status.Code code(String name) {
+            return Status.Code.valueOf(name.trim().toUpperCase(Locale.ROOT));
+        }
+    }
+
+    /**
+     * Bản sao thuật toán retryThrottling của gRPC: lỗi retry được trừ 1 token, call thành công cộng tokenRatio,
+     * retry chỉ được phép khi số token lớn hơn maxTokens / 2. Token được lưu theo phần nghìn như trong gRPC.
+     */
+    private static final class Throttle {
+        private static final int THREE_DECIMAL_PLACES_SCALE_UP = 1000;
+
+        private final long maxTokens;
+        private final long threshold;
+        private final long tokenRatio;
+        private final AtomicLong tokens;
+
+        Throttle(int maxTokens, double tokenRatio) {
+            this.maxTokens = (long) maxTokens * THREE_DECIMAL_PLACES_SCALE_UP;
+            this.threshold = this.maxTokens / 2;
+            this.tokenRatio = (long) (tokenRatio * THREE_DECIMAL_PLACES_SCALE_UP);
+            this.tokens = new AtomicLong(this.maxTokens);
+        }
+
+        void record(Status status, Set<Status.Code> qualifiedCodes) {
+            if (status.isOk()) {
+                tokens.updateAndGet(current -> Math.min(maxTokens, current + tokenRatio));
+            } else if (qualifiedCodes.contains(status.getCode())) {
+                tokens.updateAndGet(current -> Math.max(0, current - THREE_DECIMAL_PLACES_SCALE_UP));
+            }
+        }
+
+        boolean isAboveThreshold() {
+            return tokens.get() > threshold;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.xhk.grpc.spring.interceptor;
 
+import com.xhk.grpc.spring.config.GrpcProperties;
 import io.grpc.ForwardingServerCall;
 import io.grpc.ForwardingServerCallListener;
 import io.grpc.Metadata;
@@ -10,37 +11,60 @@ import io.grpc.Status;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 
 public class ServerLoggingInterceptor implements ServerInterceptor {
     private static final Logger logger = LogManager.getLogger(ServerLoggingInterceptor.class);
     private static final AtomicLong requestCounter = new AtomicLong(0);
 
+    private final LogFormatter formatter;
+
+    public ServerLoggingInterceptor() {
+        this(new GrpcProperties.CallLogging());
+    }
+
+    public ServerLoggingInterceptor(GrpcProperties.CallLogging config) {
+        this.formatter = new LogFormatter(config);
+    }
+
     @Override
     public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(
             ServerCall<ReqT, RespT> call, Metadata headers, ServerCallHandler<ReqT, RespT> next) {
-        
+
+        // Call không được sample hoặc level không cho phép log thì bỏ qua toàn bộ, không tạo wrapper
+        if (!logger.isWarnEnabled() || !formatter.sample()) {
+            return next.startCall(call, headers);
+        }
+        if (formatter.getConfig().isOnlySlowOrFailed()) {
+            return interceptSlowOrFailed(call, headers, next);
+        }
+
         long requestId = requestCounter.incrementAndGet();
         String methodName = call.getMethodDescriptor().getFullMethodName();
-        long startTime = System.currentTimeMillis();
-        
-        logger.info("gRPC IN [{}]: method={}, headers={}", requestId, methodName, headers);
+        long startTime = System.nanoTime();
+
+        if (logger.isInfoEnabled()) {
+            logger.info("gRPC IN [{}]: method={}, headers={}", requestId, methodName, formatter.headers(headers));
+        }
 
         // Wrap ServerCall để log response và performance
         ServerCall<ReqT, RespT> loggingCall = new ForwardingServerCall.SimpleForwardingServerCall<>(call) {
             @Override
             public void sendMessage(RespT message) {
-                logger.info("gRPC Response [{}]: {}", requestId, message);
+                if (logger.isInfoEnabled()) {
+                    logger.info("gRPC Response [{}]: {}", requestId, formatter.payload(message));
+                }
                 super.sendMessage(message);
             }
 
             @Override
             public void close(Status status, Metadata trailers) {
-                long duration = System.currentTimeMillis() - startTime;
+                double duration = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startTime) / 1000.0;
                 if (status.isOk()) {
                     logger.info("gRPC OUT [{}]: method={}, duration={}ms", requestId, methodName, duration);
                 } else {
-                    logger.error("gRPC ERROR [{}]: method={}, status={}, duration={}ms", 
+                    logger.error("gRPC ERROR [{}]: method={}, status={}, duration={}ms",
                                requestId, methodName, status, duration);
                 }
                 super.close(status, trailers);
@@ -52,7 +76,9 @@ public class ServerLoggingInterceptor implements ServerInterceptor {
         return new ForwardingServerCallListener.SimpleForwardingServerCallListener<>(listener) {
             @Override
             public void onMessage(ReqT message) {
-                logger.info("gRPC Request [{}]: {}", requestId, message);
+                if (logger.isInfoEnabled()) {
+                    logger.info("gRPC Request [{}]: {}", requestId, formatter.payload(message));
+                }
                 super.onMessage(message);
             }
 
@@ -75,4 +101,47 @@ public class ServerLoggingInterceptor implements ServerInterceptor {
             }
         };
     }
-} 
\ No newline at end of file
+
+    /**
+     * Chỉ giữ tham chiếu tới request/response cuối cùng, log một dòng khi call chậm hoặc lỗi
+     */
+    private <ReqT, RespT> ServerCall.Listener<ReqT> interceptSlowOrFailed(
+            ServerCall<ReqT, RespT> call, Metadata headers, ServerCallHandler<ReqT, RespT> next) {
+        long startTime = System.nanoTime();
+        Object[] lastMessages = new Object[2];
+
+        ServerCall<ReqT, RespT> loggingCall = new ForwardingServerCall.SimpleForwardingServerCall<>(call) {
+            @Override
+            public void sendMessage(RespT message) {
+                lastMessages[1] = message;
+                super.sendMessage(message);
+            }
+
+            @Override
+            public void close(Status status, Metadata trailers) {
+                long duration = System.nanoTime() - startTime;
+                if (formatter.isSlowOrFailed(status, duration)) {
+                    String methodName = call.getMethodDescriptor().getFullMethodName();
+                    double durationMs = TimeUnit.NANOSECONDS.toMicros(duration) / 1000.0;
+                    if (status.isOk()) {
+                        logger.warn("gRPC SLOW: method={}, duration={}ms, headers={}, request={}, response={}",
+                                methodName, durationMs, formatter.headers(headers),
+                                formatter.payload(lastMessages[0]), formatter.payload(lastMessages[1]));
+                    } else {
+                        logger.error("gRPC ERROR: method={}, status={}, duration={}ms, headers={}, request={}",
+                                methodName, status, durationMs, formatter.headers(headers), formatter.payload(lastMessages[0]));
+                    }
+                }
+                super.close(status, trailers);
+            }
+        };
+
+        return new ForwardingServerCallListener.SimpleForwardingServerCallListener<>(next.startCall(loggingCall, headers)) {
+            @Override
+            public void onMessage(ReqT message) {
+                lastMessages[0] = message;
+                super.onMessage(message);
+            }
+        };
+    }
+}
@@ -0,0 +1,126 @@
+package com.xhk.grpc.spring.interceptor;
+
+import com.xhk.grpc.spring.server.WarmupRecorder;
+import io.grpc.ForwardingServerCall;
+import io.grpc.ForwardingServerCallListener;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.Status;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * Ghi latency (nanosecond) theo method và status code, số call đang chạy, số lượng và kích thước message phía server
+ */
+public class ServerMetricsInterceptor implements ServerInterceptor {
+
+    private final MeterRegistry registry;
+    private final boolean histogram;
+    private final Map<String, MethodMetrics> metrics = new ConcurrentHashMap<>();
+
+    public ServerMetricsInterceptor(MeterRegistry registry, boolean histogram) {
+        this.registry = registry;
+        this.histogram = histogram;
+    }
+
+    @Override
+    public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(
+            ServerCall<ReqT, RespT> call, Metadata headers, ServerCallHandler<ReqT, RespT> next) {
+        if (WarmupRecorder.isWarmupCall(headers)) {
+            return next.startCall(call, headers);
+        }
+        MethodMetrics methodMetrics = metricsFor(call.getMethodDescriptor());
+        MetricsServerCall<ReqT, RespT> metricsCall = new MetricsServerCall<>(call, methodMetrics);
+
+        ServerCall.Listener<ReqT> listener;
+        try {
+            listener = next.startCall(metricsCall, headers);
+        } catch (RuntimeException e) {
+            metricsCall.record(Status.Code.UNKNOWN);
+            throw e;
+        }
+        return new ForwardingServerCallListener.SimpleForwardingServerCallListener<>(listener) {
+            // Exception của handler được gRPC chuyển thành UNKNOWN bằng cách reset stream, không đi qua close()
+            // và không phải transport nào cũng gọi onCancel sau đó
+            @Override
+            public void onMessage(ReqT message) {
+                methodMetrics.messageReceived(message);
+                try {
+                    super.onMessage(message);
+                } catch (RuntimeException e) {
+                    metricsCall.record(Status.Code.UNKNOWN);
+                    throw e;
+                }
+            }
+
+            @Override
+            public void onHalfClose() {
+                try {
+                    super.onHalfClose();
+                } catch (RuntimeException e) {
+                    metricsCall.record(Status.Code.UNKNOWN);
+                    throw e;
+                }
+            }
+
+            @Override
+            public void onCancel() {
+                metricsCall.record(Status.Code.CANCELLED);
+                super.onCancel();
+            }
+        };
+    }
+
+    private MethodMetrics metricsFor(MethodDescriptor<?, ?> method) {
+        MethodMetrics methodMetrics = metrics.get(method.getFullMethodName());
+        if (methodMetrics == null) {
+            methodMetrics = metrics.computeIfAbsent(method.getFullMethodName(),
+                    name -> new MethodMetrics(registry, "grpc.server", name, histogram));
+        }
+        return methodMetrics;
+    }
+
+    /**
+     * Giữ thời điểm bắt đầu và cờ đã ghi ngay trên call để không cấp phát thêm object cho mỗi call.
+     * Call bị client huỷ không đi qua close(), còn handler có thể vẫn close() sau khi bị huỷ: chỉ ghi một lần
+     */
+    private static final class MetricsServerCall<ReqT, RespT>
+            extends ForwardingServerCall.SimpleForwardingServerCall<ReqT, RespT> {
+        private static final AtomicIntegerFieldUpdater<MetricsServerCall> RECORDED =
+                AtomicIntegerFieldUpdater.newUpdater(MetricsServerCall.class, "recorded");
+
+        private final MethodMetrics methodMetrics;
+        private final long startTime = System.nanoTime();
+        private volatile int recorded;
+
+        MetricsServerCall(ServerCall<ReqT, RespT> delegate, MethodMetrics methodMetrics) {
+            super(delegate);
+            this.methodMetrics = methodMetrics;
+            methodMetrics.callStarted();
+        }
+
+        void record(Status.Code code) {
+            if (RECORDED.compareAndSet(this, 0, 1)) {
+                methodMetrics.callClosed(code, System.nanoTime() - startTime);
+            }
+        }
+
+        @Override
+        public void sendMessage(RespT message) {
+            methodMetrics.messageSent(message);
+            super.sendMessage(message);
+        }
+
+        @Override
+        public void close(Status status, Metadata trailers) {
+            record(status.getCode());
+            super.close(status, trailers);
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.xhk.grpc.spring.marshaller;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.ExtensionRegistryLite;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.MessageLite;
+import com.google.protobuf.Parser;
+import com.google.protobuf.UnsafeByteOperations;
+import io.grpc.Detachable;
+import io.grpc.HasByteBuffer;
+import io.grpc.KnownLength;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.Cleaner;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Marshaller protobuf parse trực tiếp trên direct buffer (pooled) của Netty: stream được detach khỏi gRPC,
+ * field bytes của message trỏ thẳng vào buffer (ByteString aliasing) thay vì copy sang byte[] trên heap.
+ * Buffer được trả lại pool khi call phía server kết thúc (xem ZeroCopyMarshalling), hoặc khi client gọi release(message);
+ * Cleaner chỉ là phương án dự phòng khi message không còn được tham chiếu. Vì vậy không được giữ field bytes
+ * lâu hơn call hoặc sau khi release; cần giữ lâu hơn thì copy ra (ByteString.copyFrom(field.asReadOnlyByteBuffer())).
+ * Serialize dùng lại marshaller gốc: stream của nó là Drainable nên đã ghi thẳng vào buffer pooled của transport.
+ */
+public class ZeroCopyMarshaller<T> implements MethodDescriptor.PrototypeMarshaller<T> {
+    private static final Cleaner CLEANER = Cleaner.create();
+    // Release của các message đang alias buffer, weak key so sánh theo identity nên không giữ message lại
+    private static final Cache<Object, Runnable> RELEASES = Caffeine.newBuilder().weakKeys().build();
+
+    private final MethodDescriptor.PrototypeMarshaller<T> delegate;
+    private final Parser<T> parser;
+    private final int minMessageSize;
+
+    @SuppressWarnings("unchecked")
+    public ZeroCopyMarshaller(MethodDescriptor.PrototypeMarshaller<T> delegate, int minMessageSize) {
+        this.delegate = delegate;
+        this.parser = (Parser<T>) ((MessageLite) delegate.getMessagePrototype()).getParserForType();
+        this.minMessageSize = minMessageSize;
+    }
+
+    /**
+     * Chỉ áp dụng được cho marshaller protobuf (ProtoUtils/ProtoLiteUtils)
+     */
+    public static boolean supports(MethodDescriptor.Marshaller<?> marshaller) {
+        return marshaller instanceof MethodDescriptor.PrototypeMarshaller<?> prototypeMarshaller
+                && !(marshaller instanceof ZeroCopyMarshaller<?>)
+                && prototypeMarshaller.getMessagePrototype() instanceof MessageLite;
+    }
+
+    /**
+     * Trả ngay buffer mà message đang alias về pool. Sau khi gọi không được đọc field bytes của message nữa.
+     *
+     * @return false nếu message không alias buffer nào hoặc đã được release
+     */
+    public static boolean release(Object message) {
+        Runnable release = take(message);
+        if (release == null) {
+            return false;
+        }
+        release.run();
+        return true;
+    }
+
+    /**
+     * Lấy quyền release buffer của message (để release khi call kết thúc), null nếu message không alias buffer
+     */
+    static Runnable take(Object message) {
+        return message != null ? RELEASES.asMap().remove(message) : null;
+    }
+
+    @Override
+    public T getMessagePrototype() {
+        return delegate.getMessagePrototype();
+    }
+
+    @Override
+    public Class<T> getMessageClass() {
+        return delegate.getMessageClass();
+    }
+
+    @Override
+    public InputStream stream(T value) {
+        return delegate.stream(value);
+    }
+
+    @Override
+    public T parse(InputStream stream) {
+        // Stream đã giải nén hoặc không lấy được ByteBuffer thì parse như bình thường
+        try {
+            if (stream instanceof Detachable detachable && stream instanceof HasByteBuffer hasByteBuffer
+                    && stream instanceof KnownLength && hasByteBuffer.byteBufferSupported() && stream.markSupported()
+                    && stream.available() >= minMessageSize) {
+                return parseAliased(detachable.detach());
+            }
+        } catch (IOException e) {
+            throw Status.INTERNAL.withDescription("Failed to read message").withCause(e).asRuntimeException();
+        }
+        return delegate.parse(stream);
+    }
+
+    private T parseAliased(InputStream detached) throws IOException {
+        BufferRelease release = new BufferRelease(detached);
+        try {
+            ByteString bytes = ByteString.EMPTY;
+            boolean direct = true;
+            // mark để các buffer đã đọc qua không bị release ngay, reset lại để stream giữ chúng đến khi close
+            detached.mark(Integer.MAX_VALUE);
+            while (detached.available() > 0) {
+                ByteBuffer buffer = ((HasByteBuffer) detached).getByteBuffer();
+                direct &= buffer.isDirect();
+                bytes = bytes.concat(UnsafeByteOperations.unsafeWrap(buffer));
+                detached.skip(buffer.remaining());
+            }
+            detached.reset();
+            if (!direct) {
+                // Buffer heap có thể bị ghi đè khi quay lại pool, không alias được
+                T message = parser.parseFrom(bytes.newCodedInput(), ExtensionRegistryLite.getEmptyRegistry());
+                release.run();
+                return message;
+            }
+
+            CodedInputStream input = bytes.newCodedInput();
+            input.enableAliasing(true);
+            input.setSizeLimit(Integer.MAX_VALUE);
+            T message = parser.parseFrom(input, ExtensionRegistryLite.getEmptyRegistry());
+            RELEASES.put(message, release);
+            CLEANER.register(message, release);
+            return message;
+        } catch (InvalidProtocolBufferException e) {
+            release.run();
+            throw Status.INTERNAL.withDescription("Invalid protobuf byte sequence").withCause(e).asRuntimeException();
+        } catch (IOException | RuntimeException e) {
+            release.run();
+            throw e;
+        }
+    }
+
+    /**
+     * Đóng stream đã detach để trả buffer về pool của Netty, chỉ chạy một lần
+     */
+    private static final class BufferRelease implements Runnable {
+        private final InputStream detached;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        BufferRelease(InputStream detached) {
+            this.detached = detached;
+        }
+
+        @Override
+        public void run() {
+            if (released.compareAndSet(false, true)) {
+                try {
+                    detached.close();
+                } catch (IOException ignored) {
+                    // Không có gì để làm thêm, buffer đã được release hoặc stream đã đóng
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.xhk.grpc.spring.marshaller;
+
+import com.xhk.grpc.spring.config.GrpcProperties;
+import com.xhk.grpc.spring.server.ServiceDefinitions;
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.ForwardingServerCallListener;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerMethodDefinition;
+import io.grpc.ServerServiceDefinition;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Thay marshaller protobuf của các method được cấu hình bằng ZeroCopyMarshaller:
+ * phía server khi đăng ký service, phía client qua interceptor của channel.
+ * Phía server, buffer của request được trả về pool ngay khi call kết thúc (onComplete/onCancel).
+ */
+public class ZeroCopyMarshalling implements ClientInterceptor {
+    private final GrpcProperties.ZeroCopy config;
+    private final Set<String> methods;
+    private final Map<MethodDescriptor<?, ?>, MethodDescriptor<?, ?>> descriptors = new ConcurrentHashMap<>();
+
+    public ZeroCopyMarshalling(GrpcProperties.ZeroCopy config) {
+        this.config = config;
+        this.methods = new HashSet<>(config.getMethods());
+    }
+
+    public ServerServiceDefinition apply(ServerServiceDefinition definition) {
+        return ServiceDefinitions.rewrite(definition, this::rewrite);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(
+            MethodDescriptor<ReqT, RespT> method, CallOptions callOptions, Channel next) {
+        MethodDescriptor<ReqT, RespT> descriptor = (MethodDescriptor<ReqT, RespT>) descriptors.get(method);
+        if (descriptor == null) {
+            descriptor = (MethodDescriptor<ReqT, RespT>) descriptors.computeIfAbsent(method, this::rewrite);
+        }
+        return next.newCall(descriptor, callOptions);
+    }
+
+    private <ReqT, RespT> ServerMethodDefinition<ReqT, RespT> rewrite(ServerMethodDefinition<ReqT, RespT> method) {
+        MethodDescriptor<ReqT, RespT> descriptor = rewrite(method.getMethodDescriptor());
+        if (descriptor == method.getMethodDescriptor()) {
+            return method;
+        }
+        ServerCallHandler<ReqT, RespT> handler = method.getServerCallHandler();
+        return ServerMethodDefinition.create(descriptor,
+                (call, headers) -> new ReleasingListener<>(handler.startCall(call, headers)));
+    }
+
+    @SuppressWarnings("unchecked")
+    private <ReqT, RespT> MethodDescriptor<ReqT, RespT> rewrite(MethodDescriptor<ReqT, RespT> descriptor) {
+        if (!applies(descriptor)
+                || !ZeroCopyMarshaller.supports(descriptor.getRequestMarshaller())
+                || !ZeroCopyMarshaller.supports(descriptor.getResponseMarshaller())) {
+            return descriptor;
+        }
+        return descriptor.toBuilder(
+                        new ZeroCopyMarshaller<>((MethodDescriptor.PrototypeMarshaller<ReqT>) descriptor.getRequestMarshaller(),
+                                config.getMinMessageSize()),
+                        new ZeroCopyMarshaller<>((MethodDescriptor.PrototypeMarshaller<RespT>) descriptor.getResponseMarshaller(),
+                                config.getMinMessageSize()))
+                .build();
+    }
+
+    private boolean applies(MethodDescriptor<?, ?> descriptor) {
+        return methods.isEmpty()
+                || methods.contains(descriptor.getFullMethodName())
+                || methods.contains(descriptor.getServiceName());
+    }
+
+    /**
+     * Giữ release của các request alias buffer và chạy chúng khi call kết thúc.
+     * Callback của listener được gọi tuần tự nên không cần đồng bộ.
+     */
+    private static final class ReleasingListener<ReqT> extends ForwardingServerCallListener.SimpleForwardingServerCallListener<ReqT> {
+        private List<Runnable> releases;
+
+        ReleasingListener(ServerCall.Listener<ReqT> delegate) {
+            super(delegate);
+        }
+
+        @Override
+        public void onMessage(ReqT message) {
+            Runnable release = ZeroCopyMarshaller.take(message);
+            if (release != null) {
+                if (releases == null) {
+                    releases = new ArrayList<>(1);
+                }
+                releases.add(release);
+            }
+            super.onMessage(message);
+        }
+
+        @Override
+        public void onComplete() {
+            try {
+                super.onComplete();
+            } finally {
+                release();
+            }
+        }
+
+        @Override
+        public void onCancel() {
+            try {
+                super.onCancel();
+            } finally {
+                release();
+            }
+        }
+
+        private void release() {
+            if (releases != null) {
+                releases.forEach(Runnable::run);
+                releases = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.xhk.grpc.spring.reactive;
+
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+
+/**
+ * Chuyển request stream phía server thành Flux, demand của subscriber được chuyển thành call.request(n)
+ */
+final class InboundObserver<ReqT> implements StreamObserver<ReqT> {
+    private final ServerCallStreamObserver<?> call;
+    private FluxSink<ReqT> sink;
+    private boolean completed;
+    private Throwable error;
+
+    InboundObserver(ServerCallStreamObserver<?> call) {
+        this.call = call;
+        call.disableAutoRequest();
+    }
+
+    Flux<ReqT> flux() {
+        return Flux.create(this::attach);
+    }
+
+    private void attach(FluxSink<ReqT> sink) {
+        synchronized (this) {
+            if (this.sink != null) {
+                sink.error(new IllegalStateException("Request stream can only be subscribed once"));
+                return;
+            }
+            this.sink = sink;
+            // Client đã half-close trước khi handler subscribe
+            if (error != null) {
+                sink.error(error);
+                return;
+            }
+            if (completed) {
+                sink.complete();
+                return;
+            }
+        }
+        sink.onRequest(n -> call.request((int) Math.min(n, Integer.MAX_VALUE)));
+    }
+
+    @Override
+    public void onNext(ReqT value) {
+        // Chỉ có message sau khi subscriber đã request nên sink luôn có
+        sink.next(value);
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        FluxSink<ReqT> current;
+        synchronized (this) {
+            error = t;
+            current = sink;
+        }
+        if (current != null) {
+            current.error(t);
+        }
+    }
+
+    @Override
+    public void onCompleted() {
+        FluxSink<ReqT> current;
+        synchronized (this) {
+            completed = true;
+            current = sink;
+        }
+        if (current != null) {
+            current.complete();
+        }
+    }
+}
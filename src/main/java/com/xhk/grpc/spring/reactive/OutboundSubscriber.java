@@ -0,0 +1,56 @@
+package com.xhk.grpc.spring.reactive;
+
+import io.grpc.stub.CallStreamObserver;
+import org.reactivestreams.Subscription;
+import reactor.core.publisher.BaseSubscriber;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Chuyển Publisher thành message gửi đi trên một CallStreamObserver: chỉ request phần tử tiếp theo khi transport ready,
+ * nên publisher chậm hay nhanh thì gRPC cũng không phải buffer quá một message
+ */
+final class OutboundSubscriber<T> extends BaseSubscriber<T> implements Runnable {
+    private final CallStreamObserver<T> observer;
+    private final AtomicBoolean outstanding = new AtomicBoolean();
+
+    OutboundSubscriber(CallStreamObserver<T> observer) {
+        this.observer = observer;
+    }
+
+    /**
+     * onReady handler của stream
+     */
+    @Override
+    public void run() {
+        if (isDisposed() || !observer.isReady()) {
+            return;
+        }
+        // Chỉ giữ tối đa một request chưa được đáp ứng
+        if (outstanding.compareAndSet(false, true)) {
+            request(1);
+        }
+    }
+
+    @Override
+    protected void hookOnSubscribe(Subscription subscription) {
+        run();
+    }
+
+    @Override
+    protected void hookOnNext(T value) {
+        observer.onNext(value);
+        outstanding.set(false);
+        run();
+    }
+
+    @Override
+    protected void hookOnComplete() {
+        observer.onCompleted();
+    }
+
+    @Override
+    protected void hookOnError(Throwable throwable) {
+        observer.onError(throwable);
+    }
+}
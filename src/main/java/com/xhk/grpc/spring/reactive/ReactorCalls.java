@@ -0,0 +1,213 @@
+package com.xhk.grpc.spring.reactive;
+
+import io.grpc.stub.ClientCallStreamObserver;
+import io.grpc.stub.ClientResponseObserver;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Cầu nối giữa async stub/StreamObserver của gRPC và Reactor, dùng khi không sinh code bằng reactor-grpc.
+ * Demand của subscriber được chuyển thành request(n) của gRPC, phía gửi chỉ lấy phần tử mới khi transport ready.
+ *
+ * <pre>
+ * Mono&lt;User&gt; user = ReactorCalls.unary(observer -&gt; userStub.getUser(request, observer));
+ * Flux&lt;Order&gt; orders = ReactorCalls.serverStreaming(observer -&gt; orderStub.listOrders(request, observer));
+ * </pre>
+ */
+public final class ReactorCalls {
+
+    private ReactorCalls() {
+    }
+
+    /**
+     * Unary hoặc client streaming trả một response: call được thực hiện lại mỗi lần subscribe
+     */
+    public static <RespT> Mono<RespT> unary(Consumer<StreamObserver<RespT>> call) {
+        return Mono.create(sink -> call.accept(new MonoObserver<>(sink)));
+    }
+
+    /**
+     * Server streaming: gRPC chỉ đọc thêm response khi subscriber request
+     */
+    public static <RespT> Flux<RespT> serverStreaming(Consumer<StreamObserver<RespT>> call) {
+        return Flux.create(sink -> {
+            FluxObserver<Object, RespT> observer = new FluxObserver<>(sink, null);
+            call.accept(observer);
+            observer.bindDemand();
+        });
+    }
+
+    /**
+     * Client streaming: requests được gửi theo tốc độ của transport, trả về response duy nhất
+     */
+    public static <ReqT, RespT> Mono<RespT> clientStreaming(
+            Publisher<ReqT> requests, Function<StreamObserver<RespT>, StreamObserver<ReqT>> call) {
+        return Mono.create(sink -> {
+            MonoObserver<ReqT, RespT> observer = new MonoObserver<>(sink, requests);
+            call.apply(observer);
+            observer.subscribeRequests();
+        });
+    }
+
+    /**
+     * Bidi streaming: cả hai chiều đều theo flow control của gRPC
+     */
+    public static <ReqT, RespT> Flux<RespT> bidiStreaming(
+            Publisher<ReqT> requests, Function<StreamObserver<RespT>, StreamObserver<ReqT>> call) {
+        return Flux.create(sink -> {
+            FluxObserver<ReqT, RespT> observer = new FluxObserver<>(sink, requests);
+            call.apply(observer);
+            observer.subscribeRequests();
+            observer.bindDemand();
+        });
+    }
+
+    /**
+     * Phía server: gửi Mono/Flux về client, chỉ lấy phần tử tiếp theo khi client đọc kịp.
+     * Phải gọi trước khi handler của rpc trả về.
+     */
+    public static <RespT> void respond(Publisher<RespT> responses, StreamObserver<RespT> responseObserver) {
+        ServerCallStreamObserver<RespT> call = (ServerCallStreamObserver<RespT>) responseObserver;
+        OutboundSubscriber<RespT> subscriber = new OutboundSubscriber<>(call);
+        call.setOnReadyHandler(subscriber);
+        call.setOnCancelHandler(subscriber::dispose);
+        responses.subscribe(subscriber);
+    }
+
+    /**
+     * Phía server cho client/bidi streaming: handler nhận Flux request và trả Publisher response
+     *
+     * <pre>
+     * public StreamObserver&lt;Order&gt; importOrders(StreamObserver&lt;ImportResult&gt; responseObserver) {
+     *     return ReactorCalls.handle(responseObserver, orders -&gt; orders.flatMap(repository::save).then(Mono.just(result)));
+     * }
+     * </pre>
+     */
+    public static <ReqT, RespT> StreamObserver<ReqT> handle(
+            StreamObserver<RespT> responseObserver, Function<Flux<ReqT>, ? extends Publisher<RespT>> handler) {
+        ServerCallStreamObserver<RespT> call = (ServerCallStreamObserver<RespT>) responseObserver;
+        InboundObserver<ReqT> inbound = new InboundObserver<>(call);
+        respond(handler.apply(inbound.flux()), call);
+        return inbound;
+    }
+
+    private static final class MonoObserver<ReqT, RespT> implements ClientResponseObserver<ReqT, RespT> {
+        private final MonoSink<RespT> sink;
+        private final Publisher<ReqT> requests;
+        private OutboundSubscriber<ReqT> outbound;
+        private RespT value;
+
+        MonoObserver(MonoSink<RespT> sink) {
+            this(sink, null);
+        }
+
+        MonoObserver(MonoSink<RespT> sink, Publisher<ReqT> requests) {
+            this.sink = sink;
+            this.requests = requests;
+        }
+
+        @Override
+        public void beforeStart(ClientCallStreamObserver<ReqT> requestStream) {
+            if (requests != null) {
+                outbound = new OutboundSubscriber<>(requestStream);
+                requestStream.setOnReadyHandler(outbound);
+            }
+            sink.onCancel(() -> {
+                if (outbound != null) {
+                    outbound.dispose();
+                }
+                requestStream.cancel("Subscriber cancelled", null);
+            });
+        }
+
+        void subscribeRequests() {
+            requests.subscribe(outbound);
+        }
+
+        @Override
+        public void onNext(RespT response) {
+            value = response;
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            if (outbound != null) {
+                outbound.dispose();
+            }
+            sink.error(t);
+        }
+
+        @Override
+        public void onCompleted() {
+            if (value != null) {
+                sink.success(value);
+            } else {
+                sink.success();
+            }
+        }
+    }
+
+    private static final class FluxObserver<ReqT, RespT> implements ClientResponseObserver<ReqT, RespT> {
+        private final FluxSink<RespT> sink;
+        private final Publisher<ReqT> requests;
+        private ClientCallStreamObserver<ReqT> requestStream;
+        private OutboundSubscriber<ReqT> outbound;
+
+        FluxObserver(FluxSink<RespT> sink, Publisher<ReqT> requests) {
+            this.sink = sink;
+            this.requests = requests;
+        }
+
+        @Override
+        public void beforeStart(ClientCallStreamObserver<ReqT> requestStream) {
+            this.requestStream = requestStream;
+            // Không tự request response, chờ demand của subscriber
+            requestStream.disableAutoRequestWithInitial(0);
+            if (requests != null) {
+                outbound = new OutboundSubscriber<>(requestStream);
+                requestStream.setOnReadyHandler(outbound);
+            }
+        }
+
+        void subscribeRequests() {
+            requests.subscribe(outbound);
+        }
+
+        // request(n) chỉ gọi được sau khi call đã start
+        void bindDemand() {
+            sink.onRequest(n -> requestStream.request((int) Math.min(n, Integer.MAX_VALUE)));
+            sink.onCancel(() -> {
+                if (outbound != null) {
+                    outbound.dispose();
+                }
+                requestStream.cancel("Subscriber cancelled", null);
+            });
+        }
+
+        @Override
+        public void onNext(RespT response) {
+            sink.next(response);
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            if (outbound != null) {
+                outbound.dispose();
+            }
+            sink.error(t);
+        }
+
+        @Override
+        public void onCompleted() {
+            sink.complete();
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.xhk.grpc.spring.server;
+
+import com.xhk.grpc.spring.cache.GrpcResponseCache;
+import com.xhk.grpc.spring.config.GrpcProperties;
+import com.xhk.grpc.spring.interceptor.RateLimitInterceptor;
+import com.xhk.grpc.spring.interceptor.ServerLoggingInterceptor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Các interceptor có sẵn của framework, khai báo thành bean để dùng được trong @GrpcController(interceptors = ...)
+ */
+@Configuration
+public class GrpcServerConfiguration {
+
+    @Bean(destroyMethod = "close")
+    public RateLimitInterceptor rateLimitInterceptor(GrpcProperties properties, ObjectProvider<MeterRegistry> meterRegistry) {
+        return new RateLimitInterceptor(properties.getServer().getRateLimits(),
+                meterRegistry.getIfAvailable(() -> Metrics.globalRegistry));
+    }
+
+    @Bean
+    public ServerLoggingInterceptor serverLoggingInterceptor(GrpcProperties properties) {
+        return new ServerLoggingInterceptor(properties.getServer().getLogging());
+    }
+
+    @Bean
+    public GrpcResponseCache grpcResponseCache(GrpcProperties properties, ObjectProvider<MeterRegistry> meterRegistry) {
+        return new GrpcResponseCache(properties.getServer().getCache(),
+                meterRegistry.getIfAvailable(() -> Metrics.globalRegistry));
+    }
+}
@@ -1,11 +1,29 @@
 package com.xhk.grpc.spring.server;
 
 import com.xhk.grpc.spring.annotation.GrpcController;
+import com.xhk.grpc.spring.batch.GrpcBatchHandler;
+import com.xhk.grpc.spring.cache.GrpcResponseCache;
+import com.xhk.grpc.spring.compression.CompressionMetrics;
+import com.xhk.grpc.spring.compression.CompressionPolicy;
+import com.xhk.grpc.spring.compression.CompressionRegistries;
+import com.xhk.grpc.spring.compression.ServerCompressionInterceptor;
 import com.xhk.grpc.spring.config.GrpcProperties;
+import com.xhk.grpc.spring.interceptor.ConcurrencyLimitInterceptor;
+import com.xhk.grpc.spring.interceptor.InFlightCallTracker;
+import com.xhk.grpc.spring.interceptor.RateLimitInterceptor;
+import com.xhk.grpc.spring.interceptor.ServerMetricsInterceptor;
+import com.xhk.grpc.spring.marshaller.ZeroCopyMarshalling;
+import com.xhk.grpc.spring.service.HealthService;
 import com.xhk.grpc.spring.service.HealthServiceDefault;
 import com.xhk.grpc.spring.service.HealthServiceType;
+import com.xhk.grpc.spring.service.StandardHealthService;
 import io.grpc.*;
+import io.grpc.inprocess.InProcessServerBuilder;
 import io.grpc.netty.shaded.io.grpc.netty.NettyServerBuilder;
+import io.grpc.netty.shaded.io.netty.channel.unix.DomainSocketAddress;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.context.ApplicationContext;
@@ -13,18 +31,34 @@ import org.springframework.context.SmartLifecycle;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
 @Component
 public class GrpcServerRunner implements SmartLifecycle {
 
     private static final Logger logger = LogManager.getLogger(GrpcServerRunner.class);
-    private static final int GRACEFUL_SHUTDOWN_TIMEOUT_SECONDS = 30;
+    private static final int FORCED_SHUTDOWN_TIMEOUT_SECONDS = 5;
 
     private final ApplicationContext context;
     private final GrpcProperties grpcProperties;
     private Server server;
+    // Server in-process và Unix domain socket, cùng service và interceptor với server TCP
+    private final List<Server> additionalServers = new ArrayList<>();
+    private InstrumentedExecutor executor;
+    private NettyServerConfigurer nettyConfigurer;
+    private WarmupRecorder warmupRecorder;
+    private CompressionMetrics compressionMetrics;
+    private GrpcWarmupRunner warmupRunner;
+    private final List<HealthService> healthServices = new ArrayList<>();
+    private StandardHealthService standardHealth;
+    private final InFlightCallTracker inFlightCalls = new InFlightCallTracker();
+    private volatile boolean draining = false;
     private boolean running = false;
 
     public GrpcServerRunner(ApplicationContext context, GrpcProperties grpcProperties) {
@@ -37,23 +71,55 @@ public class GrpcServerRunner implements SmartLifecycle {
         try {
             int port = grpcProperties.getServer().getPort();
             NettyServerBuilder builder = NettyServerBuilder.forPort(port);
+            nettyConfigurer = new NettyServerConfigurer(grpcProperties.getServer().getNetty());
+            nettyConfigurer.configure(builder, port);
+            // Server in-process dùng chung service, interceptor và executor với server Netty
+            List<ServerBuilder<?>> builders = new ArrayList<>(List.of(builder));
+            InProcessServerBuilder inProcessBuilder = isInProcessEnabled()
+                    ? InProcessServerBuilder.forName(grpcProperties.getServer().getInProcess().getName())
+                    : null;
+            if (inProcessBuilder != null) {
+                builders.add(inProcessBuilder);
+            }
+            NettyServerBuilder domainSocketBuilder = domainSocketServerBuilder();
+            if (domainSocketBuilder != null) {
+                builders.add(domainSocketBuilder);
+            }
+            configureExecutor(builders, inProcessBuilder);
+            configureCompression(builders);
+            configureWarmupRecorder(builders);
+            registerGlobalInterceptors(builders);
 
             // Scan các bean có @GrpcController
             Map<String, Object> grpcControllerBeans = context.getBeansWithAnnotation(GrpcController.class);
+            GrpcResponseCache responseCache = context.getBeanProvider(GrpcResponseCache.class)
+                    .getIfAvailable(() -> new GrpcResponseCache(grpcProperties.getServer().getCache(), meterRegistry()));
+            ZeroCopyMarshalling zeroCopy = grpcProperties.getServer().getZeroCopy().isEnabled()
+                    ? new ZeroCopyMarshalling(grpcProperties.getServer().getZeroCopy())
+                    : null;
             int registeredServices = 0;
+            boolean customStandardHealth = false;
 
             for (Object bean : grpcControllerBeans.values()) {
                 if (bean instanceof BindableService service) {
                     GrpcController annotation = bean.getClass().getAnnotation(GrpcController.class);
                     ServerInterceptor[] interceptors = resolveInterceptors(annotation.interceptors());
+                    ServerServiceDefinition bound = service.bindService();
+                    customStandardHealth |= StandardHealthService.SERVICE_NAME.equals(bound.getServiceDescriptor().getName());
+                    // Cache nằm sau interceptor của controller để cache hit vẫn đi qua auth/rate limit
+                    ServerServiceDefinition definition = responseCache.wrap(bean, bound);
+                    definition = GrpcBatchHandler.wrap(bean, definition);
+                    if (zeroCopy != null) {
+                        definition = zeroCopy.apply(definition);
+                    }
 
                     if (interceptors.length > 0) {
-                        builder.addService(ServerInterceptors.intercept(service, interceptors));
+                        addService(builders, ServerInterceptors.intercept(definition, interceptors));
                         logger.info("Registered gRPC service with interceptors: {} -> {}",
                                 bean.getClass().getSimpleName(),
                                 annotation.interceptors());
                     } else {
-                        builder.addService(service);
+                        addService(builders, definition);
                         logger.info("Registered gRPC service: {}", bean.getClass().getSimpleName());
                     }
 
@@ -65,21 +131,44 @@ public class GrpcServerRunner implements SmartLifecycle {
             }
 
             // Default health service nếu không có
+            healthServices.addAll(context.getBeansOfType(HealthService.class).values());
             if (context.getBeansOfType(HealthServiceType.class).isEmpty()) {
-                builder.addService(new HealthServiceDefault(this));
+                HealthServiceDefault healthService = new HealthServiceDefault(this);
+                addService(builders, healthService.bindService());
+                healthServices.add(healthService);
                 logger.info("Registered default HealthService");
             }
+            // grpc.health.v1.Health cho Kubernetes/load balancer, trừ khi ứng dụng tự implement
+            if (!customStandardHealth && !healthServices.isEmpty()) {
+                standardHealth = new StandardHealthService();
+                addService(builders, standardHealth.bindService());
+                logger.info("Registered standard {} service", StandardHealthService.SERVICE_NAME);
+            }
 
             if (registeredServices == 0) {
                 logger.warn("No gRPC services found with @GrpcController annotation.");
             }
 
             server = builder.build().start();
+            if (inProcessBuilder != null) {
+                additionalServers.add(inProcessBuilder.build().start());
+                logger.info("gRPC in-process server started with name {}", grpcProperties.getServer().getInProcess().getName());
+            }
+            if (domainSocketBuilder != null) {
+                additionalServers.add(domainSocketBuilder.build().start());
+                logger.info("gRPC server listening on unix socket {}", grpcProperties.getServer().getUnixSocketPath());
+            }
             running = true;
 
             logger.info("gRPC server started on port {}", port);
 
             printRegisteredServices();
+            healthServices.forEach(HealthService::start);
+
+            if (grpcProperties.getServer().getWarmup().isEnabled()) {
+                warmupRunner = new GrpcWarmupRunner(context, grpcProperties);
+                warmupRunner.start(server.getPort());
+            }
 
             // Giữ server sống bằng luồng riêng (non-daemon)
             Thread awaitThread = new Thread(() -> {
@@ -106,29 +195,88 @@ public class GrpcServerRunner implements SmartLifecycle {
     public void stop() {
         if (server != null && !server.isShutdown()) {
             try {
-                logger.info("Initiating graceful shutdown of gRPC server");
-                server.shutdown();
-
-                // Wait for graceful shutdown
-                if (!server.awaitTermination(GRACEFUL_SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
-                    logger.warn("gRPC server did not terminate gracefully within {} seconds, forcing shutdown",
-                            GRACEFUL_SHUTDOWN_TIMEOUT_SECONDS);
-                    server.shutdownNow();
-
-                    if (!server.awaitTermination(5, TimeUnit.SECONDS)) {
-                        logger.error("gRPC server did not terminate");
-                    }
-                }
-                logger.info("gRPC server shutdown completed");
+                drain();
             } catch (InterruptedException e) {
                 Thread.currentThread().interrupt();
                 logger.error("Interrupted during gRPC server shutdown", e);
                 server.shutdownNow();
+                additionalServers.forEach(Server::shutdownNow);
             }
         }
+        saveWarmupRequests();
+        shutdownExecutor();
+        if (nettyConfigurer != null) {
+            nettyConfigurer.shutdown();
+            nettyConfigurer = null;
+        }
         running = false;
     }
 
+    /**
+     * Readiness NOT_SERVING, chờ load balancer cập nhật, gửi GOAWAY (server.shutdown) rồi chờ các call đang chạy
+     * kết thúc đến hết timeoutSeconds, sau đó mới shutdownNow
+     */
+    private void drain() throws InterruptedException {
+        GrpcProperties.Shutdown config = grpcProperties.getServer().getShutdown();
+        draining = true;
+        healthServices.forEach(HealthService::refresh);
+        logger.info("Draining gRPC server: readiness is NOT_SERVING, {} calls in flight", inFlightCalls.getInFlight());
+        if (config.getDrainDelayMillis() > 0) {
+            Thread.sleep(config.getDrainDelayMillis());
+        }
+        // Stream Watch không tự kết thúc, phải đóng trước khi chờ các call đang chạy
+        healthServices.forEach(HealthService::stop);
+        if (standardHealth != null) {
+            standardHealth.stop();
+        }
+
+        server.shutdown();
+        additionalServers.forEach(Server::shutdown);
+        logger.info("gRPC server stopped accepting new calls, waiting up to {}s for {} in-flight calls",
+                config.getTimeoutSeconds(), inFlightCalls.getInFlight());
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(config.getTimeoutSeconds());
+        while (!isTerminated()) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                break;
+            }
+            long wait = Math.min(remaining, TimeUnit.MILLISECONDS.toNanos(config.getProgressLogIntervalMillis()));
+            if (!awaitTermination(wait)) {
+                logger.info("Waiting for {} in-flight gRPC calls ({}s left)",
+                        inFlightCalls.getInFlight(), TimeUnit.NANOSECONDS.toSeconds(Math.max(0, deadline - System.nanoTime())));
+            }
+        }
+
+        if (!isTerminated()) {
+            logger.warn("gRPC server did not terminate within {} seconds, cancelling {} in-flight calls",
+                    config.getTimeoutSeconds(), inFlightCalls.getInFlight());
+            server.shutdownNow();
+            additionalServers.forEach(Server::shutdownNow);
+            if (!awaitTermination(TimeUnit.SECONDS.toNanos(FORCED_SHUTDOWN_TIMEOUT_SECONDS))) {
+                logger.error("gRPC server did not terminate");
+            }
+        }
+        logger.info("gRPC server shutdown completed");
+    }
+
+    private boolean isTerminated() {
+        return server.isTerminated() && additionalServers.stream().allMatch(Server::isTerminated);
+    }
+
+    // Các server dùng chung một khoảng thời gian chờ
+    private boolean awaitTermination(long timeoutNanos) throws InterruptedException {
+        long deadline = System.nanoTime() + timeoutNanos;
+        if (!server.awaitTermination(timeoutNanos, TimeUnit.NANOSECONDS)) {
+            return false;
+        }
+        for (Server additional : additionalServers) {
+            if (!additional.awaitTermination(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     @Override
     public boolean isRunning() {
         return running;
@@ -148,12 +296,173 @@ public class GrpcServerRunner implements SmartLifecycle {
         this.stop();
     }
 
+    public GrpcProperties getGrpcProperties() {
+        return grpcProperties;
+    }
+
+    public StandardHealthService getStandardHealth() {
+        return standardHealth;
+    }
+
     public boolean isServerRunning() {
         return server != null && !server.isShutdown();
     }
 
     public boolean isServerReady() {
-        return server != null && !server.isShutdown() && !server.isTerminated();
+        return server != null && !draining && !server.isShutdown() && !server.isTerminated() && isWarmedUp();
+    }
+
+    public boolean isDraining() {
+        return draining;
+    }
+
+    public int getInFlightCalls() {
+        return inFlightCalls.getInFlight();
+    }
+
+    /**
+     * true khi không bật warm-up hoặc warm-up đã xong (hoặc quá timeout)
+     */
+    public boolean isWarmedUp() {
+        return warmupRunner == null || warmupRunner.isComplete();
+    }
+
+    /**
+     * Bật khi grpc.server.inProcess.enabled hoặc có client trỏ tới server in-process của ứng dụng
+     */
+    private boolean isInProcessEnabled() {
+        GrpcProperties.InProcess inProcess = grpcProperties.getServer().getInProcess();
+        return inProcess.isEnabled() || grpcProperties.getClients().values().stream()
+                .anyMatch(client -> inProcess.getName().equals(client.resolveInProcessName(inProcess.getName())));
+    }
+
+    private NettyServerBuilder domainSocketServerBuilder() throws IOException {
+        String path = grpcProperties.getServer().getUnixSocketPath();
+        if (path == null || path.isBlank()) {
+            return null;
+        }
+        NettyServerBuilder builder = NettyServerBuilder.forAddress(new DomainSocketAddress(path));
+        if (!nettyConfigurer.configureDomainSocket(builder)) {
+            return null;
+        }
+        // File socket còn lại từ lần chạy trước làm bind thất bại
+        Path socketFile = Path.of(path);
+        if (Files.exists(socketFile) && !Files.isRegularFile(socketFile) && !Files.isDirectory(socketFile)) {
+            Files.delete(socketFile);
+        }
+        return builder;
+    }
+
+    private void addService(List<ServerBuilder<?>> builders, ServerServiceDefinition definition) {
+        builders.forEach(builder -> builder.addService(definition));
+        if (compressionMetrics != null) {
+            compressionMetrics.registerMethods(definition);
+        }
+    }
+
+    private static void intercept(List<ServerBuilder<?>> builders, ServerInterceptor interceptor) {
+        builders.forEach(builder -> builder.intercept(interceptor));
+    }
+
+    private void configureExecutor(List<ServerBuilder<?>> builders, InProcessServerBuilder inProcessBuilder) {
+        executor = ServerExecutorFactory.create(grpcProperties.getServer().getExecutor());
+        boolean direct = grpcProperties.getServer().getExecutor().getMode() == GrpcProperties.ExecutorMode.DIRECT;
+        boolean inProcessDirect = grpcProperties.getServer().getInProcess().isDirectExecutor();
+        for (ServerBuilder<?> builder : builders) {
+            executor.configure(builder, direct || (builder == inProcessBuilder && inProcessDirect));
+        }
+        executor.bindTo(meterRegistry());
+        logger.info("gRPC server uses {} executor", executor.getMode());
+    }
+
+    private void configureCompression(List<ServerBuilder<?>> builders) {
+        GrpcProperties.Server serverConfig = grpcProperties.getServer();
+        CompressorRegistry compressors = CompressionRegistries.compressors(
+                context.getBeanProvider(Compressor.class).orderedStream().toList());
+        DecompressorRegistry decompressors = CompressionRegistries.decompressors(
+                context.getBeanProvider(Decompressor.class).orderedStream().toList());
+        builders.forEach(builder -> builder.compressorRegistry(compressors).decompressorRegistry(decompressors));
+        if (!serverConfig.getCompression().isConfigured()) {
+            return;
+        }
+        CompressionPolicy policy = new CompressionPolicy(serverConfig.getCompression());
+        policy.validate(compressors);
+        intercept(builders, new ServerCompressionInterceptor(policy));
+        if (serverConfig.getMetrics().isEnabled()) {
+            compressionMetrics = new CompressionMetrics(meterRegistry(), "grpc.server");
+            ServerStreamTracer.Factory tracerFactory = compressionMetrics.serverTracerFactory();
+            builders.forEach(builder -> builder.addStreamTracerFactory(tracerFactory));
+        }
+        logger.info("gRPC server compresses responses with {} (min size {} bytes)",
+                serverConfig.getCompression().getAlgorithm(), serverConfig.getCompression().getMinMessageSize());
+    }
+
+    private void configureWarmupRecorder(List<ServerBuilder<?>> builders) {
+        GrpcProperties.Warmup warmup = grpcProperties.getServer().getWarmup();
+        if (!warmup.isEnabled() || !warmup.isRecord()) {
+            return;
+        }
+        if (warmup.getRequestsFile() == null || warmup.getMethods().isEmpty()) {
+            logger.warn("grpc.server.warmup.record requires requestsFile and methods, recording disabled");
+            return;
+        }
+        warmupRecorder = new WarmupRecorder(Set.copyOf(warmup.getMethods()), warmup.getMaxRecordedPerMethod());
+        intercept(builders, warmupRecorder);
+        logger.info("Recording warm-up requests for {} into {}", warmup.getMethods(), warmup.getRequestsFile());
+    }
+
+    private void saveWarmupRequests() {
+        if (warmupRecorder == null) {
+            return;
+        }
+        try {
+            warmupRecorder.save(Path.of(grpcProperties.getServer().getWarmup().getRequestsFile()));
+        } catch (IOException e) {
+            logger.warn("Failed to save warm-up requests", e);
+        }
+        warmupRecorder = null;
+    }
+
+    /**
+     * Interceptor áp dụng cho mọi service, bật/tắt qua cấu hình grpc.server
+     */
+    private void registerGlobalInterceptors(List<ServerBuilder<?>> builders) {
+        GrpcProperties.Server serverConfig = grpcProperties.getServer();
+        if (serverConfig.getConcurrencyLimit().isEnabled()) {
+            intercept(builders, new ConcurrencyLimitInterceptor(serverConfig.getConcurrencyLimit(), meterRegistry()));
+            logger.info("Registered global ConcurrencyLimitInterceptor");
+        }
+        if (serverConfig.getRateLimits().isGlobal()) {
+            intercept(builders, context.getBeanProvider(RateLimitInterceptor.class)
+                    .getIfAvailable(() -> new RateLimitInterceptor(serverConfig.getRateLimits(), meterRegistry())));
+            logger.info("Registered global RateLimitInterceptor with rules {}", serverConfig.getRateLimits().getRules().keySet());
+        }
+        // Đăng ký sau cùng để chạy đầu tiên, ghi nhận cả các call bị limiter từ chối
+        if (serverConfig.getMetrics().isEnabled()) {
+            intercept(builders, new ServerMetricsInterceptor(meterRegistry(), serverConfig.getMetrics().isHistogram()));
+            logger.info("Registered global ServerMetricsInterceptor");
+            Gauge.builder("grpc.server.calls.in_flight", inFlightCalls, InFlightCallTracker::getInFlight)
+                    .register(meterRegistry());
+        }
+        // Ngoài cùng để đếm mọi call, kể cả call bị từ chối
+        intercept(builders, inFlightCalls);
+    }
+
+    private void shutdownExecutor() {
+        if (executor == null) {
+            return;
+        }
+        try {
+            executor.shutdown(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.error("Interrupted during gRPC executor shutdown", e);
+        }
+        executor = null;
+    }
+
+    private MeterRegistry meterRegistry() {
+        return context.getBeanProvider(MeterRegistry.class).getIfAvailable(() -> Metrics.globalRegistry);
     }
 
     private ServerInterceptor[] resolveInterceptors(Class<? extends ServerInterceptor>[] classes) {
@@ -0,0 +1,15 @@
+package com.xhk.grpc.spring.server;
+
+import io.grpc.Channel;
+
+/**
+ * Bean warm-up do ứng dụng tự viết, được gọi sau khi server start khi bật grpc.server.warmup.
+ * Readiness trả NOT_SERVING cho đến khi mọi GrpcWarmup chạy xong.
+ */
+@FunctionalInterface
+public interface GrpcWarmup {
+    /**
+     * @param channel channel loopback tới chính server, mọi call mang header x-grpc-warmup
+     */
+    void warmup(Channel channel) throws Exception;
+}
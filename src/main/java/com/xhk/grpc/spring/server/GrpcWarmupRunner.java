@@ -0,0 +1,147 @@
+package com.xhk.grpc.spring.server;
+
+import com.xhk.grpc.spring.cache.ByteArrayMarshaller;
+import com.xhk.grpc.spring.config.GrpcProperties;
+import io.grpc.CallOptions;
+import io.grpc.ConnectivityState;
+import io.grpc.ManagedChannel;
+import io.grpc.ManagedChannelBuilder;
+import io.grpc.MethodDescriptor;
+import io.grpc.StatusRuntimeException;
+import io.grpc.stub.ClientCalls;
+import io.grpc.stub.MetadataUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.context.ApplicationContext;
+
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chạy warm-up trên thread riêng sau khi server start: connect các channel client, gửi lại request mẫu
+ * qua channel loopback để JIT và class loading diễn ra trước traffic thật, rồi chạy các bean GrpcWarmup
+ */
+class GrpcWarmupRunner {
+    private static final Logger logger = LogManager.getLogger(GrpcWarmupRunner.class);
+    private static final long CONNECT_POLL_MILLIS = 50;
+
+    private final ApplicationContext context;
+    private final GrpcProperties properties;
+    private final GrpcProperties.Warmup config;
+    private volatile boolean complete;
+    private volatile long deadlineNanos;
+
+    GrpcWarmupRunner(ApplicationContext context, GrpcProperties properties) {
+        this.context = context;
+        this.properties = properties;
+        this.config = properties.getServer().getWarmup();
+    }
+
+    void start(int port) {
+        deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(config.getTimeoutMillis());
+        Thread thread = new Thread(() -> run(port), "grpc-warmup");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Xong khi đã chạy hết các bước hoặc đã quá timeoutMillis
+     */
+    boolean isComplete() {
+        return complete || (deadlineNanos != 0 && System.nanoTime() - deadlineNanos > 0);
+    }
+
+    private void run(int port) {
+        long start = System.nanoTime();
+        logger.info("gRPC warm-up started");
+        try {
+            if (config.isConnectChannels()) {
+                connectChannels();
+            }
+            ManagedChannel loopback = ManagedChannelBuilder.forAddress("localhost", port)
+                    .usePlaintext()
+                    .intercept(MetadataUtils.newAttachHeadersInterceptor(WarmupRecorder.warmupHeaders()))
+                    .build();
+            try {
+                replayRecordedRequests(loopback);
+                for (GrpcWarmup warmup : context.getBeanProvider(GrpcWarmup.class).orderedStream().toList()) {
+                    warmup.warmup(loopback);
+                }
+            } finally {
+                loopback.shutdownNow();
+            }
+        } catch (Exception e) {
+            logger.warn("gRPC warm-up failed, continuing startup", e);
+        } finally {
+            complete = true;
+            logger.info("gRPC warm-up finished in {} ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        }
+    }
+
+    // Chờ mọi channel READY song song, channel không kịp READY chỉ bị log warn
+    private void connectChannels() throws InterruptedException {
+        Map<String, ManagedChannel> channels = new LinkedHashMap<>();
+        for (String name : properties.getClients().keySet()) {
+            if (context.containsBean(name)) {
+                ManagedChannel channel = context.getBean(name, ManagedChannel.class);
+                channel.getState(true);
+                channels.put(name, channel);
+            }
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(config.getChannelTimeoutMillis());
+        while (!channels.isEmpty() && System.nanoTime() - deadline < 0) {
+            channels.entrySet().removeIf(entry -> {
+                boolean ready = entry.getValue().getState(true) == ConnectivityState.READY;
+                if (ready) {
+                    logger.info("gRPC channel {} is READY", entry.getKey());
+                }
+                return ready;
+            });
+            if (!channels.isEmpty()) {
+                Thread.sleep(CONNECT_POLL_MILLIS);
+            }
+        }
+        channels.forEach((name, channel) -> logger.warn("gRPC channel {} not READY after {} ms (state {})",
+                name, config.getChannelTimeoutMillis(), channel.getState(false)));
+    }
+
+    private void replayRecordedRequests(ManagedChannel loopback) throws Exception {
+        if (config.getRequestsFile() == null || config.getIterations() == 0) {
+            return;
+        }
+        Map<String, List<byte[]>> requests = WarmupRecorder.load(Path.of(config.getRequestsFile()));
+        int calls = 0;
+        int failures = 0;
+        for (int i = 0; i < config.getIterations() && !isComplete(); i++) {
+            for (Map.Entry<String, List<byte[]>> entry : requests.entrySet()) {
+                MethodDescriptor<byte[], byte[]> method = rawMethod(entry.getKey());
+                for (byte[] request : entry.getValue()) {
+                    try {
+                        ClientCalls.blockingUnaryCall(loopback, method,
+                                CallOptions.DEFAULT.withDeadlineAfter(remainingNanos(), TimeUnit.NANOSECONDS), request);
+                    } catch (StatusRuntimeException e) {
+                        failures++;
+                    }
+                    calls++;
+                }
+            }
+        }
+        logger.info("gRPC warm-up replayed {} calls for {} methods ({} failed)", calls, requests.size(), failures);
+    }
+
+    private long remainingNanos() {
+        return Math.max(1, deadlineNanos - System.nanoTime());
+    }
+
+    private static MethodDescriptor<byte[], byte[]> rawMethod(String fullMethodName) {
+        return MethodDescriptor.<byte[], byte[]>newBuilder()
+                .setType(MethodDescriptor.MethodType.UNARY)
+                .setFullMethodName(fullMethodName)
+                .setRequestMarshaller(ByteArrayMarshaller.INSTANCE)
+                .setResponseMarshaller(ByteArrayMarshaller.INSTANCE)
+                .build();
+    }
+}
@@ -0,0 +1,183 @@
+package com.xhk.grpc.spring.server;
+
+import io.grpc.Context;
+import io.grpc.Metadata;
+import io.grpc.ServerBuilder;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallExecutorSupplier;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.ServerStreamTracer;
+import io.grpc.Status;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * Đếm số call đang chờ thread và đang chạy trên executor của server (export qua Micrometer gauge).
+ * Call được nhận hoặc từ chối ngay trên thread của transport khi stream được tạo, trước khi có task nào vào hàng đợi:
+ * khi số call đang chờ đạt maxQueued, call mới được đóng với RESOURCE_EXHAUSTED ngay trên thread đó
+ * thay vì xếp hàng sau các call khác chỉ để bị từ chối. Task của call đã được nhận không bao giờ bị executor từ chối.
+ */
+public class InstrumentedExecutor extends ServerStreamTracer.Factory implements ServerCallExecutorSupplier, ServerInterceptor {
+
+    private static final Context.Key<CallTracer> CALL = Context.key("grpc-executor-call");
+    private static final Executor DIRECT = Runnable::run;
+
+    private final Executor delegate;
+    private final String mode;
+    private final int maxQueued;
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger active = new AtomicInteger();
+    private Counter rejected;
+
+    public InstrumentedExecutor(Executor delegate, String mode) {
+        this(delegate, mode, Integer.MAX_VALUE);
+    }
+
+    public InstrumentedExecutor(Executor delegate, String mode, int maxQueued) {
+        this.delegate = delegate;
+        this.mode = mode;
+        this.maxQueued = maxQueued;
+    }
+
+    /**
+     * Gắn executor vào server builder. Với directExecutor, handler chạy ngay trên thread của transport
+     * (hoặc của caller với in-process) và executor chỉ đếm call đang chạy.
+     */
+    public void configure(ServerBuilder<?> builder, boolean directExecutor) {
+        builder.addStreamTracerFactory(this);
+        builder.intercept(this);
+        // Lookup method chạy trên thread của transport, call chỉ vào hàng đợi của executor sau khi được nhận
+        builder.directExecutor();
+        if (!directExecutor) {
+            builder.callExecutor(this);
+        }
+    }
+
+    /**
+     * Chạy trên thread của transport khi stream được tạo, trước khi call vào hàng đợi
+     */
+    @Override
+    public ServerStreamTracer newServerStreamTracer(String fullMethodName, Metadata headers) {
+        CallTracer tracer = new CallTracer();
+        if (queued.incrementAndGet() > maxQueued) {
+            queued.decrementAndGet();
+            tracer.state = CallTracer.REJECTED;
+            if (rejected != null) {
+                rejected.increment();
+            }
+        }
+        return tracer;
+    }
+
+    /**
+     * Call bị từ chối được xử lý ngay trên thread của transport, không chiếm chỗ trong hàng đợi
+     */
+    @Override
+    public <ReqT, RespT> Executor getExecutor(ServerCall<ReqT, RespT> call, Metadata headers) {
+        CallTracer tracer = CALL.get();
+        return tracer != null && tracer.state == CallTracer.REJECTED ? DIRECT : delegate;
+    }
+
+    /**
+     * Chạy khi call bắt đầu trên executor: đóng call đã bị từ chối, chuyển call được nhận từ đang chờ sang đang chạy
+     */
+    @Override
+    public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(
+            ServerCall<ReqT, RespT> call, Metadata headers, ServerCallHandler<ReqT, RespT> next) {
+        CallTracer tracer = CALL.get();
+        if (tracer != null && tracer.state == CallTracer.REJECTED) {
+            call.close(Status.RESOURCE_EXHAUSTED.withDescription("Server executor queue is full"), new Metadata());
+            return new ServerCall.Listener<>() {
+            };
+        }
+        if (tracer != null) {
+            tracer.started();
+        }
+        return next.startCall(call, headers);
+    }
+
+    public boolean isBounded() {
+        return maxQueued != Integer.MAX_VALUE;
+    }
+
+    public int getQueued() {
+        return queued.get();
+    }
+
+    public int getActive() {
+        return active.get();
+    }
+
+    public String getMode() {
+        return mode;
+    }
+
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("grpc.server.executor.queued", this, InstrumentedExecutor::getQueued)
+                .description("Number of gRPC calls waiting for an executor thread")
+                .tag("mode", mode)
+                .register(registry);
+        Gauge.builder("grpc.server.executor.active", this, InstrumentedExecutor::getActive)
+                .description("Number of gRPC calls started on the executor and not yet closed")
+                .tag("mode", mode)
+                .register(registry);
+        rejected = Counter.builder("grpc.server.executor.rejected")
+                .description("Number of gRPC calls rejected because the executor queue was full")
+                .tag("mode", mode)
+                .register(registry);
+    }
+
+    public void shutdown(long timeout, TimeUnit unit) throws InterruptedException {
+        if (delegate instanceof ExecutorService executorService) {
+            executorService.shutdown();
+            if (!executorService.awaitTermination(timeout, unit)) {
+                executorService.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * Trạng thái của một call, gắn vào Context của call để supplier và interceptor đọc lại.
+     * streamClosed luôn được gọi đúng một lần, kể cả khi call bị huỷ lúc còn trong hàng đợi hoặc handler ném exception.
+     */
+    private final class CallTracer extends ServerStreamTracer {
+        private static final int QUEUED = 0;
+        private static final int ACTIVE = 1;
+        private static final int REJECTED = 2;
+        private static final int CLOSED = 3;
+        private static final AtomicIntegerFieldUpdater<CallTracer> STATE =
+                AtomicIntegerFieldUpdater.newUpdater(CallTracer.class, "state");
+
+        private volatile int state = QUEUED;
+
+        @Override
+        public Context filterContext(Context context) {
+            return context.withValue(CALL, this);
+        }
+
+        void started() {
+            if (STATE.compareAndSet(this, QUEUED, ACTIVE)) {
+                queued.decrementAndGet();
+                active.incrementAndGet();
+            }
+        }
+
+        @Override
+        public void streamClosed(Status status) {
+            int previous = STATE.getAndSet(this, CLOSED);
+            if (previous == QUEUED) {
+                queued.decrementAndGet();
+            } else if (previous == ACTIVE) {
+                active.decrementAndGet();
+            }
+        }
+    }
+}
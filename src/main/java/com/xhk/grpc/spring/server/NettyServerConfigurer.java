@@ -0,0 +1,149 @@
+package com.xhk.grpc.spring.server;
+
+import com.xhk.grpc.spring.config.GrpcProperties;
+import io.grpc.netty.shaded.io.grpc.netty.NettyServerBuilder;
+import io.grpc.netty.shaded.io.netty.channel.ChannelOption;
+import io.grpc.netty.shaded.io.netty.channel.EventLoopGroup;
+import io.grpc.netty.shaded.io.netty.channel.epoll.Epoll;
+import io.grpc.netty.shaded.io.netty.channel.epoll.EpollChannelOption;
+import io.grpc.netty.shaded.io.netty.channel.epoll.EpollEventLoopGroup;
+import io.grpc.netty.shaded.io.netty.channel.epoll.EpollServerDomainSocketChannel;
+import io.grpc.netty.shaded.io.netty.channel.epoll.EpollServerSocketChannel;
+import io.grpc.netty.shaded.io.netty.channel.nio.NioEventLoopGroup;
+import io.grpc.netty.shaded.io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.grpc.netty.shaded.io.netty.util.concurrent.DefaultThreadFactory;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cấu hình transport Netty (epoll/NIO), event loop và các socket option cho gRPC server
+ */
+public class NettyServerConfigurer {
+    private static final Logger logger = LogManager.getLogger(NettyServerConfigurer.class);
+
+    private final GrpcProperties.Netty config;
+    private final boolean epoll;
+    private EventLoopGroup bossGroup;
+    private EventLoopGroup workerGroup;
+    private EventLoopGroup domainSocketGroup;
+
+    public NettyServerConfigurer(GrpcProperties.Netty config) {
+        this.config = config;
+        this.epoll = resolveEpoll(config.getTransport());
+    }
+
+    public boolean isEpoll() {
+        return epoll;
+    }
+
+    public void configure(NettyServerBuilder builder, int port) {
+        if (epoll) {
+            bossGroup = new EpollEventLoopGroup(config.getBossThreads(), new DefaultThreadFactory("grpc-boss", true));
+            workerGroup = new EpollEventLoopGroup(config.getWorkerThreads(), new DefaultThreadFactory("grpc-worker", true));
+            builder.channelType(EpollServerSocketChannel.class);
+        } else {
+            bossGroup = new NioEventLoopGroup(config.getBossThreads(), new DefaultThreadFactory("grpc-boss", true));
+            workerGroup = new NioEventLoopGroup(config.getWorkerThreads(), new DefaultThreadFactory("grpc-worker", true));
+            builder.channelType(NioServerSocketChannel.class);
+        }
+        builder.bossEventLoopGroup(bossGroup).workerEventLoopGroup(workerGroup);
+
+        if (config.isReusePort()) {
+            if (epoll) {
+                builder.withOption(EpollChannelOption.SO_REUSEPORT, true);
+                // Mỗi listen address là một socket riêng, kernel sẽ chia connection giữa các socket
+                for (int i = 1; i < config.getAcceptors(); i++) {
+                    builder.addListenAddress(new InetSocketAddress(port));
+                }
+            } else {
+                logger.warn("SO_REUSEPORT requires epoll transport, ignoring reusePort and acceptors settings");
+            }
+        }
+
+        builder.withChildOption(ChannelOption.TCP_NODELAY, config.isTcpNoDelay());
+        configureConnections(builder);
+
+        logger.info("gRPC server uses {} transport (boss={}, worker={}, acceptors={})",
+                epoll ? "epoll" : "nio", config.getBossThreads(),
+                config.getWorkerThreads() > 0 ? config.getWorkerThreads() : "default",
+                epoll && config.isReusePort() ? config.getAcceptors() : 1);
+    }
+
+    /**
+     * Cấu hình server lắng nghe trên Unix domain socket, cần epoll.
+     * Dùng chung event loop với server TCP khi server TCP cũng chạy epoll.
+     *
+     * @return false nếu epoll không khả dụng
+     */
+    public boolean configureDomainSocket(NettyServerBuilder builder) {
+        if (!Epoll.isAvailable()) {
+            logger.warn("Unix domain socket requires epoll transport, ignoring unixSocketPath", Epoll.unavailabilityCause());
+            return false;
+        }
+        if (epoll) {
+            builder.bossEventLoopGroup(bossGroup).workerEventLoopGroup(workerGroup);
+        } else {
+            domainSocketGroup = new EpollEventLoopGroup(config.getBossThreads(), new DefaultThreadFactory("grpc-uds", true));
+            builder.bossEventLoopGroup(domainSocketGroup).workerEventLoopGroup(domainSocketGroup);
+        }
+        builder.channelType(EpollServerDomainSocketChannel.class);
+        configureConnections(builder);
+        return true;
+    }
+
+    // Các option không phụ thuộc loại socket
+    private void configureConnections(NettyServerBuilder builder) {
+        if (config.getSendBufferSize() > 0) {
+            builder.withChildOption(ChannelOption.SO_SNDBUF, config.getSendBufferSize());
+        }
+        if (config.getReceiveBufferSize() > 0) {
+            builder.withChildOption(ChannelOption.SO_RCVBUF, config.getReceiveBufferSize());
+        }
+
+        if (config.getFlowControlWindow() > 0) {
+            if (config.isAutoFlowControl()) {
+                builder.initialFlowControlWindow(config.getFlowControlWindow());
+            } else {
+                builder.flowControlWindow(config.getFlowControlWindow());
+            }
+        }
+        if (config.getMaxConcurrentCallsPerConnection() > 0) {
+            builder.maxConcurrentCallsPerConnection(config.getMaxConcurrentCallsPerConnection());
+        }
+    }
+
+    /**
+     * Đóng các event loop group sau khi server đã terminate
+     */
+    public void shutdown() {
+        if (bossGroup != null) {
+            bossGroup.shutdownGracefully(0, 5, TimeUnit.SECONDS);
+        }
+        if (workerGroup != null) {
+            workerGroup.shutdownGracefully(0, 5, TimeUnit.SECONDS);
+        }
+        if (domainSocketGroup != null) {
+            domainSocketGroup.shutdownGracefully(0, 5, TimeUnit.SECONDS);
+        }
+        bossGroup = null;
+        workerGroup = null;
+        domainSocketGroup = null;
+    }
+
+    private static boolean resolveEpoll(GrpcProperties.NettyTransport transport) {
+        return switch (transport) {
+            case NIO -> false;
+            case AUTO -> Epoll.isAvailable();
+            case EPOLL -> {
+                if (!Epoll.isAvailable()) {
+                    logger.warn("Epoll transport is not available, falling back to NIO", Epoll.unavailabilityCause());
+                    yield false;
+                }
+                yield true;
+            }
+        };
+    }
+}
@@ -0,0 +1,88 @@
+package com.xhk.grpc.spring.server;
+
+import com.xhk.grpc.spring.config.GrpcProperties;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ServerExecutorFactory {
+    private static final Logger logger = LogManager.getLogger(ServerExecutorFactory.class);
+
+    private ServerExecutorFactory() {
+    }
+
+    /**
+     * Tạo executor cho gRPC server theo cấu hình
+     *
+     * @param config cấu hình grpc.server.executor
+     * @return executor đã instrument cho mọi mode. Mode direct chỉ đếm call, handler chạy trên thread của transport
+     * (được cấu hình bằng ServerBuilder.directExecutor() để gRPC bỏ qua SerializingExecutor)
+     */
+    public static InstrumentedExecutor create(GrpcProperties.ServerExecutor config) {
+        return switch (config.getMode()) {
+            case DEFAULT -> new InstrumentedExecutor(newCachedPool(), "default");
+            case DIRECT -> new InstrumentedExecutor(Runnable::run, "direct");
+            case FIXED -> new InstrumentedExecutor(newFixedPool(config), "fixed", config.getQueueCapacity());
+            case VIRTUAL -> {
+                ExecutorService virtual = newVirtualThreadPerTaskExecutor();
+                if (virtual != null) {
+                    yield new InstrumentedExecutor(virtual, "virtual");
+                }
+                logger.warn("Virtual threads require Java 21+, running on Java {}. Falling back to fixed pool with {} threads",
+                        Runtime.version().feature(), config.getThreads());
+                yield new InstrumentedExecutor(newFixedPool(config), "fixed", config.getQueueCapacity());
+            }
+        };
+    }
+
+    /**
+     * Tương đương executor mặc định của gRPC (cached thread pool, thread daemon), tạo riêng để đếm được call
+     */
+    private static ExecutorService newCachedPool() {
+        return Executors.newCachedThreadPool(namedThreadFactory("grpc-default-executor-"));
+    }
+
+    /**
+     * Queue không giới hạn: gRPC không xử lý được task bị từ chối (stream bị reset INTERNAL hoặc call bị treo),
+     * queueCapacity được áp theo số call khi stream được tạo bằng InstrumentedExecutor (RESOURCE_EXHAUSTED)
+     */
+    private static ExecutorService newFixedPool(GrpcProperties.ServerExecutor config) {
+        return new ThreadPoolExecutor(
+                config.getThreads(),
+                config.getThreads(),
+                60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                namedThreadFactory(config.getThreadNamePrefix()));
+    }
+
+    private static ThreadFactory namedThreadFactory(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Executors.newVirtualThreadPerTaskExecutor() chỉ có từ Java 21, gọi qua reflection để vẫn build với Java 17
+     */
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        if (Runtime.version().feature() < 21) {
+            return null;
+        }
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            logger.warn("Cannot create virtual thread executor", e);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.xhk.grpc.spring.server;
+
+import io.grpc.ServerMethodDefinition;
+import io.grpc.ServerServiceDefinition;
+import io.grpc.ServiceDescriptor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Dựng lại ServerServiceDefinition khi thay descriptor/handler của một số method
+ * (gRPC yêu cầu method trong ServiceDescriptor và method được bind phải là cùng một instance)
+ */
+public final class ServiceDefinitions {
+
+    private ServiceDefinitions() {
+    }
+
+    /**
+     * @param rewriter trả về chính method truyền vào nếu không thay đổi
+     */
+    public static ServerServiceDefinition rewrite(ServerServiceDefinition definition,
+                                                  Function<ServerMethodDefinition<?, ?>, ServerMethodDefinition<?, ?>> rewriter) {
+        List<ServerMethodDefinition<?, ?>> methods = new ArrayList<>();
+        boolean changed = false;
+        for (ServerMethodDefinition<?, ?> method : definition.getMethods()) {
+            ServerMethodDefinition<?, ?> rewritten = rewriter.apply(method);
+            changed |= rewritten != method;
+            methods.add(rewritten);
+        }
+        if (!changed) {
+            return definition;
+        }
+
+        ServiceDescriptor serviceDescriptor = definition.getServiceDescriptor();
+        ServiceDescriptor.Builder serviceBuilder = ServiceDescriptor.newBuilder(serviceDescriptor.getName())
+                .setSchemaDescriptor(serviceDescriptor.getSchemaDescriptor());
+        methods.forEach(method -> serviceBuilder.addMethod(method.getMethodDescriptor()));
+        ServerServiceDefinition.Builder builder = ServerServiceDefinition.builder(serviceBuilder.build());
+        methods.forEach(builder::addMethod);
+        return builder.build();
+    }
+}
@@ -0,0 +1,121 @@
+package com.xhk.grpc.spring.server;
+
+import com.xhk.grpc.spring.cache.ByteArrayMarshaller;
+import io.grpc.ForwardingServerCallListener;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Ghi lại vài request unary thật của các method trong grpc.server.warmup.methods để dùng làm request warm-up
+ * ở lần start sau. File gồm mỗi dòng một request: full method name, tab, bytes request dạng base64.
+ */
+public class WarmupRecorder implements ServerInterceptor {
+    public static final Metadata.Key<String> WARMUP_HEADER = Metadata.Key.of("x-grpc-warmup", Metadata.ASCII_STRING_MARSHALLER);
+    // Sinh mỗi lần chạy để client bên ngoài không dùng header warm-up để vượt limiter hay rate limit
+    private static final String WARMUP_TOKEN = UUID.randomUUID().toString();
+
+    private final Set<String> methods;
+    private final int maxPerMethod;
+    private final Map<String, List<byte[]>> recorded = new ConcurrentHashMap<>();
+
+    public WarmupRecorder(Set<String> methods, int maxPerMethod) {
+        this.methods = methods;
+        this.maxPerMethod = maxPerMethod;
+    }
+
+    @Override
+    public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(
+            ServerCall<ReqT, RespT> call, Metadata headers, ServerCallHandler<ReqT, RespT> next) {
+        MethodDescriptor<ReqT, RespT> method = call.getMethodDescriptor();
+        if (method.getType() != MethodDescriptor.MethodType.UNARY || isWarmupCall(headers)
+                || !methods.contains(method.getFullMethodName()) || isFull(method.getFullMethodName())) {
+            return next.startCall(call, headers);
+        }
+        return new ForwardingServerCallListener.SimpleForwardingServerCallListener<>(next.startCall(call, headers)) {
+            @Override
+            public void onMessage(ReqT message) {
+                record(method, message);
+                super.onMessage(message);
+            }
+        };
+    }
+
+    /**
+     * Call do warm-up gửi qua channel loopback. Limiter, rate limit, response cache và metrics bỏ qua các call này
+     * để warm-up không chiếm quota, không làm lệch limit hay latency và không điền cache bằng request mẫu
+     */
+    public static boolean isWarmupCall(Metadata headers) {
+        return WARMUP_TOKEN.equals(headers.get(WARMUP_HEADER));
+    }
+
+    // Header gắn vào channel loopback của warm-up
+    public static Metadata warmupHeaders() {
+        Metadata headers = new Metadata();
+        headers.put(WARMUP_HEADER, WARMUP_TOKEN);
+        return headers;
+    }
+
+    public void save(Path file) throws IOException {
+        if (recorded.isEmpty()) {
+            return;
+        }
+        List<String> lines = new ArrayList<>();
+        recorded.forEach((method, requests) -> {
+            synchronized (requests) {
+                requests.forEach(bytes -> lines.add(method + "\t" + Base64.getEncoder().encodeToString(bytes)));
+            }
+        });
+        Files.write(file, lines, StandardCharsets.UTF_8);
+    }
+
+    public static Map<String, List<byte[]>> load(Path file) throws IOException {
+        Map<String, List<byte[]>> requests = new LinkedHashMap<>();
+        if (!Files.exists(file)) {
+            return requests;
+        }
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            int tab = line.indexOf('\t');
+            if (tab <= 0) {
+                continue;
+            }
+            requests.computeIfAbsent(line.substring(0, tab), k -> new ArrayList<>())
+                    .add(Base64.getDecoder().decode(line.substring(tab + 1).trim()));
+        }
+        return requests;
+    }
+
+    private boolean isFull(String method) {
+        List<byte[]> requests = recorded.get(method);
+        if (requests == null) {
+            return false;
+        }
+        synchronized (requests) {
+            return requests.size() >= maxPerMethod;
+        }
+    }
+
+    private <ReqT> void record(MethodDescriptor<ReqT, ?> method, ReqT message) {
+        List<byte[]> requests = recorded.computeIfAbsent(method.getFullMethodName(), k -> new ArrayList<>());
+        synchronized (requests) {
+            if (requests.size() < maxPerMethod) {
+                requests.add(ByteArrayMarshaller.toBytes(method.getRequestMarshaller(), message));
+            }
+        }
+    }
+}
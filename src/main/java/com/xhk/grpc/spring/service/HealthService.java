@@ -1,17 +1,49 @@
 package com.xhk.grpc.spring.service;
 
 
+import com.xhk.grpc.spring.config.GrpcProperties;
 import com.xhk.grpc.spring.proto.proto.HealthCheckRequest;
 import com.xhk.grpc.spring.proto.proto.HealthCheckResponse;
 import com.xhk.grpc.spring.proto.proto.HealthGrpc;
 import com.xhk.grpc.spring.server.GrpcServerRunner;
+import io.grpc.Status;
+import io.grpc.stub.ServerCallStreamObserver;
 import io.grpc.stub.StreamObserver;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+
+/**
+ * livenessCheck và connectionCheck chạy nền theo chu kỳ grpc.server.health.checkIntervalMillis,
+ * probe chỉ đọc kết quả gần nhất. Watch gửi trạng thái mỗi khi trạng thái thay đổi thay vì phải poll.
+ * Cùng kết quả đó được đưa sang grpc.health.v1.Health chuẩn (StandardHealthService).
+ */
 public abstract class HealthService extends HealthGrpc.HealthImplBase implements HealthServiceType {
+    public static final String READINESS = "readiness";
+    public static final String LIVENESS = "liveness";
+
     protected final Logger logger = LogManager.getLogger(this.getClass());
     private final GrpcServerRunner grpcServerRunner;
+    private final AtomicReference<CheckResult> lastResult = new AtomicReference<>(CheckResult.PENDING);
+    private final Set<Watcher> watchers = ConcurrentHashMap.newKeySet();
+    private final Object lifecycleLock = new Object();
+    private volatile ScheduledExecutorService scheduler;
+    private ExecutorService checkExecutor;
+    private volatile boolean stopped;
+    private HealthCheckResponse.ServingStatus lastLiveness;
+    private HealthCheckResponse.ServingStatus lastReadiness;
 
     public HealthService(GrpcServerRunner grpcServerRunner) {
         this.grpcServerRunner = grpcServerRunner;
@@ -19,16 +51,10 @@ public abstract class HealthService extends HealthGrpc.HealthImplBase implements
 
     @Override
     public void liveness(HealthCheckRequest request, StreamObserver<HealthCheckResponse> responseObserver) {
-        logger.info("Received liveness check request");
-        boolean isChecked = livenessCheck();
-        HealthCheckResponse.ServingStatus status = grpcServerRunner.isServerRunning() && isChecked ?
-                HealthCheckResponse.ServingStatus.SERVING :
-                HealthCheckResponse.ServingStatus.NOT_SERVING;
-        HealthCheckResponse response = HealthCheckResponse.newBuilder()
-                .setStatus(status)
-                .build();
-        logger.info("Liveness check result: {} (customCheck={})", status, isChecked);
-        responseObserver.onNext(response);
+        start();
+        HealthCheckResponse.ServingStatus status = status(LIVENESS);
+        logger.debug("Liveness check result: {}", status);
+        responseObserver.onNext(HealthCheckResponse.newBuilder().setStatus(status).build());
         responseObserver.onCompleted();
     }
 
@@ -36,21 +62,41 @@ public abstract class HealthService extends HealthGrpc.HealthImplBase implements
 
     @Override
     public void readiness(HealthCheckRequest request, StreamObserver<HealthCheckResponse> responseObserver) {
-        logger.info("Received readiness check request");
-        boolean dbReady = connectionCheck();
-        HealthCheckResponse.ServingStatus status = grpcServerRunner.isServerReady() && dbReady ?
-                HealthCheckResponse.ServingStatus.SERVING :
-                HealthCheckResponse.ServingStatus.NOT_SERVING;
-        HealthCheckResponse response = HealthCheckResponse.newBuilder()
-                .setStatus(status)
-                .build();
-        logger.info("Readiness check result: {} (connectionCheck={})", status, dbReady);
-        responseObserver.onNext(response);
+        start();
+        HealthCheckResponse.ServingStatus status = status(READINESS);
+        logger.debug("Readiness check result: {}", status);
+        responseObserver.onNext(HealthCheckResponse.newBuilder().setStatus(status).build());
         responseObserver.onCompleted();
     }
 
     protected abstract boolean connectionCheck();
 
+    @Override
+    public void watch(HealthCheckRequest request, StreamObserver<HealthCheckResponse> responseObserver) {
+        String target = request.getService().isEmpty() ? READINESS : request.getService();
+        if (!READINESS.equals(target) && !LIVENESS.equals(target)) {
+            responseObserver.onError(Status.NOT_FOUND
+                    .withDescription("Unknown health target: " + request.getService())
+                    .asRuntimeException());
+            return;
+        }
+        start();
+        ServerCallStreamObserver<HealthCheckResponse> observer = (ServerCallStreamObserver<HealthCheckResponse>) responseObserver;
+        Watcher watcher = new Watcher(target, observer);
+        observer.setOnCancelHandler(() -> {
+            watchers.remove(watcher);
+            watcher.closed = true;
+        });
+        watchers.add(watcher);
+        watcher.send(status(target));
+        // stop() có thể đã chạy trong lúc đăng ký
+        if (stopped) {
+            watchers.remove(watcher);
+            watcher.send(HealthCheckResponse.ServingStatus.NOT_SERVING);
+            watcher.complete();
+        }
+    }
+
     @Override
     public void terminate(HealthCheckRequest request, StreamObserver<HealthCheckResponse> responseObserver) {
         logger.warn("Received terminate request, shutting down server");
@@ -69,4 +115,157 @@ public abstract class HealthService extends HealthGrpc.HealthImplBase implements
 
     protected abstract void shutdownGraceful();
 
-}
\ No newline at end of file
+    /**
+     * Bắt đầu chạy check nền. Được GrpcServerRunner gọi khi server start, probe đầu tiên cũng tự gọi nếu chưa chạy.
+     */
+    public void start() {
+        if (scheduler != null || stopped) {
+            return;
+        }
+        synchronized (lifecycleLock) {
+            if (scheduler != null || stopped) {
+                return;
+            }
+            GrpcProperties.Health config = grpcServerRunner.getGrpcProperties().getServer().getHealth();
+            AtomicInteger checkThreads = new AtomicInteger();
+            // Hai thread để liveness và connection check chạy song song, check bị treo không chặn check kia
+            checkExecutor = Executors.newFixedThreadPool(2, runnable -> {
+                Thread thread = new Thread(runnable, "grpc-health-check-" + checkThreads.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            ScheduledExecutorService created = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "grpc-health");
+                thread.setDaemon(true);
+                return thread;
+            });
+            created.scheduleWithFixedDelay(() -> runChecks(config.getCheckTimeoutMillis()),
+                    0, config.getCheckIntervalMillis(), TimeUnit.MILLISECONDS);
+            scheduler = created;
+        }
+    }
+
+    /**
+     * Tính lại trạng thái từ kết quả check gần nhất và trạng thái server, gửi cho Watch nếu có thay đổi.
+     * Dùng khi trạng thái server đổi (vd: bắt đầu drain) mà không muốn chờ đến chu kỳ check kế tiếp.
+     */
+    public void refresh() {
+        ScheduledExecutorService current = scheduler;
+        if (current != null && !stopped) {
+            current.execute(this::publish);
+        }
+    }
+
+    /**
+     * Dừng check nền, gửi NOT_SERVING và đóng mọi stream Watch để server có thể shutdown
+     */
+    public void stop() {
+        synchronized (lifecycleLock) {
+            if (stopped) {
+                return;
+            }
+            stopped = true;
+            if (scheduler != null) {
+                scheduler.shutdownNow();
+                checkExecutor.shutdownNow();
+            }
+        }
+        for (Watcher watcher : watchers) {
+            watchers.remove(watcher);
+            watcher.send(HealthCheckResponse.ServingStatus.NOT_SERVING);
+            watcher.complete();
+        }
+    }
+
+    private HealthCheckResponse.ServingStatus status(String target) {
+        CheckResult result = lastResult.get();
+        boolean serving = LIVENESS.equals(target)
+                ? grpcServerRunner.isServerRunning() && result.alive
+                : grpcServerRunner.isServerReady() && result.connected;
+        return serving ? HealthCheckResponse.ServingStatus.SERVING : HealthCheckResponse.ServingStatus.NOT_SERVING;
+    }
+
+    private void runChecks(long timeoutMillis) {
+        Future<Boolean> alive = checkExecutor.submit(() -> livenessCheck());
+        Future<Boolean> connected = checkExecutor.submit(() -> connectionCheck());
+        lastResult.set(new CheckResult(
+                await(alive, "liveness", timeoutMillis),
+                await(connected, "connection", timeoutMillis)));
+        publish();
+    }
+
+    private boolean await(Future<Boolean> check, String name, long timeoutMillis) {
+        try {
+            return check.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            check.cancel(true);
+            logger.warn("Health {} check timed out after {}ms", name, timeoutMillis);
+        } catch (ExecutionException e) {
+            logger.warn("Health {} check failed: {}", name, e.getCause().getMessage(), e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return false;
+    }
+
+    // Chỉ chạy trên thread grpc-health nên không cần đồng bộ lastLiveness/lastReadiness
+    private void publish() {
+        HealthCheckResponse.ServingStatus liveness = status(LIVENESS);
+        HealthCheckResponse.ServingStatus readiness = status(READINESS);
+        if (liveness != lastLiveness || readiness != lastReadiness) {
+            logger.info("Health status changed: liveness={}, readiness={}", liveness, readiness);
+            lastLiveness = liveness;
+            lastReadiness = readiness;
+            StandardHealthService standardHealth = grpcServerRunner.getStandardHealth();
+            if (standardHealth != null) {
+                standardHealth.update(liveness, readiness);
+            }
+        }
+        for (Watcher watcher : watchers) {
+            watcher.send(LIVENESS.equals(watcher.target) ? liveness : readiness);
+        }
+    }
+
+    private static final class CheckResult {
+        // Chưa có kết quả: coi là còn sống để không bị restart, nhưng chưa sẵn sàng nhận traffic
+        static final CheckResult PENDING = new CheckResult(true, false);
+
+        final boolean alive;
+        final boolean connected;
+
+        CheckResult(boolean alive, boolean connected) {
+            this.alive = alive;
+            this.connected = connected;
+        }
+    }
+
+    /**
+     * Một stream Watch, chỉ gửi khi trạng thái khác lần gửi trước
+     */
+    private static final class Watcher {
+        final String target;
+        final ServerCallStreamObserver<HealthCheckResponse> observer;
+        volatile boolean closed;
+        private HealthCheckResponse.ServingStatus last;
+
+        Watcher(String target, ServerCallStreamObserver<HealthCheckResponse> observer) {
+            this.target = target;
+            this.observer = observer;
+        }
+
+        synchronized void send(HealthCheckResponse.ServingStatus status) {
+            if (closed || status == last) {
+                return;
+            }
+            last = status;
+            observer.onNext(HealthCheckResponse.newBuilder().setStatus(status).build());
+        }
+
+        synchronized void complete() {
+            if (!closed) {
+                closed = true;
+                observer.onCompleted();
+            }
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.xhk.grpc.spring.service;
+
+import com.xhk.grpc.spring.proto.proto.HealthCheckResponse;
+import io.grpc.ForwardingServerCall;
+import io.grpc.ForwardingServerCallListener;
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.ServerInterceptors;
+import io.grpc.ServerServiceDefinition;
+import io.grpc.Status;
+import io.grpc.health.v1.HealthGrpc;
+import io.grpc.protobuf.services.HealthStatusManager;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * grpc.health.v1.Health chuẩn (HealthStatusManager của grpc-services) cho Kubernetes gRPC probe, grpc_health_probe
+ * và client-side health checking. Trạng thái được HealthService.publish() cập nhật từ cùng kết quả check nền:
+ * service rỗng và "readiness" theo readiness, "liveness" theo liveness.
+ */
+public class StandardHealthService implements ServerInterceptor {
+    public static final String SERVICE_NAME = HealthGrpc.SERVICE_NAME;
+
+    private final HealthStatusManager manager = new HealthStatusManager();
+    private final Set<ServerCall<?, ?>> watches = ConcurrentHashMap.newKeySet();
+
+    public StandardHealthService() {
+        // HealthStatusManager mặc định SERVING cho service rỗng, chưa có kết quả check thì chưa sẵn sàng
+        update(HealthCheckResponse.ServingStatus.NOT_SERVING, HealthCheckResponse.ServingStatus.NOT_SERVING);
+    }
+
+    public ServerServiceDefinition bindService() {
+        return ServerInterceptors.intercept(manager.getHealthService(), this);
+    }
+
+    void update(HealthCheckResponse.ServingStatus liveness, HealthCheckResponse.ServingStatus readiness) {
+        manager.setStatus(HealthStatusManager.SERVICE_NAME_ALL_SERVICES, toStandard(readiness));
+        manager.setStatus(HealthService.READINESS, toStandard(readiness));
+        manager.setStatus(HealthService.LIVENESS, toStandard(liveness));
+    }
+
+    /**
+     * Mọi service chuyển NOT_SERVING và không đổi nữa, các stream Watch được đóng để server có thể shutdown
+     */
+    public void stop() {
+        manager.enterTerminalState();
+        for (ServerCall<?, ?> call : watches) {
+            watches.remove(call);
+            call.close(Status.OK, new Metadata());
+        }
+    }
+
+    private static io.grpc.health.v1.HealthCheckResponse.ServingStatus toStandard(HealthCheckResponse.ServingStatus status) {
+        return status == HealthCheckResponse.ServingStatus.SERVING
+                ? io.grpc.health.v1.HealthCheckResponse.ServingStatus.SERVING
+                : io.grpc.health.v1.HealthCheckResponse.ServingStatus.NOT_SERVING;
+    }
+
+    // Ghi nhận các stream Watch đang mở, HealthStatusManager không tự đóng chúng
+    @Override
+    public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(
+            ServerCall<ReqT, RespT> call, Metadata headers, ServerCallHandler<ReqT, RespT> next) {
+        if (!HealthGrpc.getWatchMethod().getFullMethodName().equals(call.getMethodDescriptor().getFullMethodName())) {
+            return next.startCall(call, headers);
+        }
+        ServerCall<ReqT, RespT> tracked = new ForwardingServerCall.SimpleForwardingServerCall<>(call) {
+            @Override
+            public void close(Status status, Metadata trailers) {
+                watches.remove(this);
+                super.close(status, trailers);
+            }
+        };
+        watches.add(tracked);
+        return new ForwardingServerCallListener.SimpleForwardingServerCallListener<>(next.startCall(tracked, headers)) {
+            @Override
+            public void onCancel() {
+                watches.remove(tracked);
+                super.onCancel();
+            }
+        };
+    }
+}
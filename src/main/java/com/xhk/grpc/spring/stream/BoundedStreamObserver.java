@@ -0,0 +1,186 @@
+package com.xhk.grpc.spring.stream;
+
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * StreamObserver cho producer kiểu push (callback, event, thread riêng): message được giữ trong buffer
+ * tối đa capacity phần tử và chỉ gửi xuống transport khi isReady, phần vượt quá xử lý theo {@link OverflowStrategy}.
+ * Có thể gọi onNext/onError/onCompleted từ nhiều thread.
+ */
+public final class BoundedStreamObserver<T> implements StreamObserver<T> {
+    private final ServerCallStreamObserver<T> delegate;
+    private final int capacity;
+    private final OverflowStrategy strategy;
+    private final ArrayDeque<T> buffer = new ArrayDeque<>();
+    private final AtomicInteger wip = new AtomicInteger();
+    private final AtomicLong dropped = new AtomicLong();
+    private boolean completed;
+    private Throwable error;
+    private boolean terminated;
+    private volatile boolean cancelled;
+
+    BoundedStreamObserver(ServerCallStreamObserver<T> delegate, int capacity, OverflowStrategy strategy) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.delegate = delegate;
+        this.capacity = capacity;
+        this.strategy = strategy;
+        delegate.setOnReadyHandler(this::drain);
+        delegate.setOnCancelHandler(() -> {
+            cancelled = true;
+            synchronized (this) {
+                buffer.clear();
+                notifyAll();
+            }
+        });
+    }
+
+    @Override
+    public void onNext(T value) {
+        StatusRuntimeException overflow = null;
+        synchronized (this) {
+            if (completed || cancelled) {
+                return;
+            }
+            while (overflow == null && buffer.size() >= capacity) {
+                switch (strategy) {
+                    case DROP_NEWEST:
+                        dropped.incrementAndGet();
+                        return;
+                    case DROP_OLDEST:
+                        buffer.poll();
+                        dropped.incrementAndGet();
+                        break;
+                    case FAIL:
+                        overflow = Status.RESOURCE_EXHAUSTED
+                                .withDescription("Outbound buffer overflow (capacity " + capacity + ")")
+                                .asRuntimeException();
+                        buffer.clear();
+                        completed = true;
+                        error = overflow;
+                        break;
+                    case BLOCK:
+                        awaitSpace();
+                        if (completed || cancelled) {
+                            return;
+                        }
+                        break;
+                }
+            }
+            if (overflow == null) {
+                buffer.add(value);
+            }
+        }
+        drain();
+        if (overflow != null) {
+            throw overflow;
+        }
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        synchronized (this) {
+            if (completed) {
+                return;
+            }
+            completed = true;
+            error = t;
+            // Lỗi được gửi ngay, không chờ gửi hết buffer
+            buffer.clear();
+            notifyAll();
+        }
+        drain();
+    }
+
+    @Override
+    public void onCompleted() {
+        synchronized (this) {
+            if (completed) {
+                return;
+            }
+            completed = true;
+        }
+        drain();
+    }
+
+    /**
+     * Số message đã bị bỏ do buffer đầy
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public synchronized int getBufferedCount() {
+        return buffer.size();
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    private void awaitSpace() {
+        try {
+            wait();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw Status.CANCELLED.withDescription("Interrupted while waiting for buffer space")
+                    .withCause(e).asRuntimeException();
+        }
+    }
+
+    // Chỉ một thread gửi xuống delegate tại một thời điểm, các lần gọi trùng được gộp vào vòng lặp đang chạy
+    private void drain() {
+        if (wip.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        do {
+            drainBuffer();
+            missed = wip.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private void drainBuffer() {
+        while (!cancelled) {
+            T next;
+            Throwable failure;
+            synchronized (this) {
+                if (terminated) {
+                    return;
+                }
+                if (buffer.isEmpty()) {
+                    if (!completed) {
+                        return;
+                    }
+                    terminated = true;
+                    failure = error;
+                    next = null;
+                } else {
+                    if (!delegate.isReady()) {
+                        return;
+                    }
+                    next = buffer.poll();
+                    failure = null;
+                    notifyAll();
+                }
+            }
+            if (next != null) {
+                delegate.onNext(next);
+            } else if (failure != null) {
+                delegate.onError(failure);
+                return;
+            } else {
+                delegate.onCompleted();
+                return;
+            }
+        }
+    }
+}
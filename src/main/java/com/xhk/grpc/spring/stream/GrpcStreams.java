@@ -0,0 +1,82 @@
+package com.xhk.grpc.spring.stream;
+
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Helper cho các method streaming của @GrpcController có tính tới flow control của gRPC:
+ * chỉ gửi khi transport ready và chỉ nhận thêm request khi đã xử lý xong, để bộ nhớ không tăng theo độ chậm của client.
+ * Các method phải được gọi trong handler của rpc (trước khi handler trả về).
+ */
+public final class GrpcStreams {
+    public static final int DEFAULT_WINDOW = 16;
+    public static final int DEFAULT_BUFFER_SIZE = 256;
+
+    private GrpcStreams() {
+    }
+
+    /**
+     * Server streaming kiểu pull: lấy phần tử tiếp theo từ source chỉ khi client đọc kịp, rồi onCompleted khi hết.
+     * Source là AutoCloseable sẽ được đóng khi stream kết thúc hoặc bị huỷ.
+     */
+    public static <T> void produce(StreamObserver<T> responseObserver, Iterator<? extends T> source) {
+        new PullProducer<>(serverObserver(responseObserver), source).start();
+    }
+
+    public static <T> void produce(StreamObserver<T> responseObserver, Stream<? extends T> source) {
+        Iterator<? extends T> iterator = source.iterator();
+        produce(responseObserver, new CloseableIterator<>(iterator, source));
+    }
+
+    /**
+     * Client/bidi streaming: giữ tối đa window request chưa xử lý, gRPC chỉ đọc thêm từ network khi handler xử lý xong
+     */
+    public static <ReqT> StreamObserver<ReqT> inbound(StreamObserver<?> responseObserver, StreamObserver<ReqT> handler) {
+        return inbound(responseObserver, DEFAULT_WINDOW, handler);
+    }
+
+    public static <ReqT> StreamObserver<ReqT> inbound(StreamObserver<?> responseObserver, int window, StreamObserver<ReqT> handler) {
+        if (window < 1) {
+            throw new IllegalArgumentException("window must be positive");
+        }
+        return new WindowedStreamObserver<>(serverObserver(responseObserver), handler, window);
+    }
+
+    /**
+     * Server/bidi streaming kiểu push: bọc responseObserver bằng buffer giới hạn, an toàn khi gọi từ nhiều thread
+     */
+    public static <T> BoundedStreamObserver<T> bounded(StreamObserver<T> responseObserver) {
+        return bounded(responseObserver, DEFAULT_BUFFER_SIZE, OverflowStrategy.FAIL);
+    }
+
+    public static <T> BoundedStreamObserver<T> bounded(StreamObserver<T> responseObserver, int capacity, OverflowStrategy strategy) {
+        return new BoundedStreamObserver<>(serverObserver(responseObserver), capacity, strategy);
+    }
+
+    private static <T> ServerCallStreamObserver<T> serverObserver(StreamObserver<T> responseObserver) {
+        if (!(responseObserver instanceof ServerCallStreamObserver<T> serverObserver)) {
+            throw new IllegalArgumentException("Flow control requires the ServerCallStreamObserver passed to the rpc handler");
+        }
+        return serverObserver;
+    }
+
+    private record CloseableIterator<T>(Iterator<T> iterator, AutoCloseable resource) implements Iterator<T>, AutoCloseable {
+        @Override
+        public boolean hasNext() {
+            return iterator.hasNext();
+        }
+
+        @Override
+        public T next() {
+            return iterator.next();
+        }
+
+        @Override
+        public void close() throws Exception {
+            resource.close();
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.xhk.grpc.spring.stream;
+
+/**
+ * Cách xử lý khi buffer gửi của {@link BoundedStreamObserver} đã đầy
+ */
+public enum OverflowStrategy {
+    /**
+     * Bỏ message mới
+     */
+    DROP_NEWEST,
+    /**
+     * Bỏ message cũ nhất trong buffer để nhận message mới
+     */
+    DROP_OLDEST,
+    /**
+     * Đóng stream với RESOURCE_EXHAUSTED và ném lỗi cho producer
+     */
+    FAIL,
+    /**
+     * Chặn thread của producer đến khi buffer có chỗ, không dùng trên thread của gRPC
+     */
+    BLOCK
+}
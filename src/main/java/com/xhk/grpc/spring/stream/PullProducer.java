@@ -0,0 +1,80 @@
+package com.xhk.grpc.spring.stream;
+
+import io.grpc.stub.ServerCallStreamObserver;
+
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Lấy message từ source chỉ khi transport còn ready, dừng lại và chờ onReady khi client đọc chậm
+ */
+final class PullProducer<T> implements Runnable {
+    private final ServerCallStreamObserver<T> observer;
+    private final Iterator<? extends T> source;
+    private final AtomicInteger wip = new AtomicInteger();
+    private volatile boolean cancelled;
+    private boolean done;
+
+    PullProducer(ServerCallStreamObserver<T> observer, Iterator<? extends T> source) {
+        this.observer = observer;
+        this.source = source;
+    }
+
+    void start() {
+        observer.setOnCancelHandler(() -> {
+            cancelled = true;
+            run();
+        });
+        observer.setOnReadyHandler(this);
+        run();
+    }
+
+    // onReady, onCancel và lần gọi đầu có thể chạy đồng thời, chỉ một thread drain tại một thời điểm
+    @Override
+    public void run() {
+        if (wip.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        do {
+            drain();
+            missed = wip.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private void drain() {
+        if (done) {
+            return;
+        }
+        if (cancelled) {
+            finish();
+            return;
+        }
+        try {
+            while (observer.isReady() && !cancelled) {
+                if (!source.hasNext()) {
+                    finish();
+                    observer.onCompleted();
+                    return;
+                }
+                observer.onNext(source.next());
+            }
+        } catch (RuntimeException e) {
+            finish();
+            if (!cancelled) {
+                observer.onError(e);
+            }
+        }
+    }
+
+    private void finish() {
+        done = true;
+        if (source instanceof AutoCloseable closeable) {
+            try {
+                closeable.close();
+            } catch (Exception ignored) {
+                // Source đã xong, lỗi khi đóng không ảnh hưởng tới stream
+            }
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.xhk.grpc.spring.stream;
+
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+
+/**
+ * Nhận tối đa window message chưa xử lý, xin thêm theo từng nửa window sau khi handler xử lý xong
+ */
+final class WindowedStreamObserver<ReqT> implements StreamObserver<ReqT> {
+    private final ServerCallStreamObserver<?> call;
+    private final StreamObserver<ReqT> handler;
+    private final int refill;
+    private int consumed;
+
+    WindowedStreamObserver(ServerCallStreamObserver<?> call, StreamObserver<ReqT> handler, int window) {
+        this.call = call;
+        this.handler = handler;
+        this.refill = Math.max(1, window / 2);
+        call.disableAutoRequest();
+        call.request(window);
+    }
+
+    @Override
+    public void onNext(ReqT value) {
+        handler.onNext(value);
+        // gRPC gọi onNext tuần tự nên không cần đồng bộ
+        if (++consumed >= refill) {
+            call.request(consumed);
+            consumed = 0;
+        }
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        handler.onError(t);
+    }
+
+    @Override
+    public void onCompleted() {
+        handler.onCompleted();
+    }
+}
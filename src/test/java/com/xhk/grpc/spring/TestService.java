@@ -0,0 +1,136 @@
+package com.xhk.grpc.spring;
+
+import com.xhk.grpc.spring.proto.proto.HealthCheckRequest;
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerServiceDefinition;
+import io.grpc.Status;
+import io.grpc.protobuf.ProtoUtils;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.ServerCalls;
+import io.grpc.stub.StreamObserver;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Service dùng chung cho các test in-process. Hành vi của mỗi request được chọn theo field service:
+ * HANG không trả lời cho đến khi call bị huỷ hoặc hết deadline, FAIL trả NOT_FOUND, THROW ném exception trong handler,
+ * giá trị khác được trả lại nguyên request. Message là HealthCheckRequest để không cần thêm file proto.
+ */
+public class TestService {
+    public static final String SERVICE_NAME = "test.Service";
+    public static final MethodDescriptor<HealthCheckRequest, HealthCheckRequest> CALL =
+            method("Call", MethodDescriptor.MethodType.UNARY);
+
+    public static final String HANG = "hang";
+    public static final String FAIL = "fail";
+    public static final String THROW = "throw";
+
+    private final AtomicInteger handled = new AtomicInteger();
+    private final AtomicInteger cancelled = new AtomicInteger();
+    private volatile boolean closeAfterCancel;
+
+    public ServerServiceDefinition definition() {
+        return ServerServiceDefinition.builder(SERVICE_NAME)
+                .addMethod(CALL, ServerCalls.asyncUnaryCall(this::handle))
+                .build();
+    }
+
+    /**
+     * Handler đóng call với UNAVAILABLE sau khi call HANG bị huỷ, như handler không kiểm tra isCancelled()
+     */
+    public TestService closeAfterCancel() {
+        closeAfterCancel = true;
+        return this;
+    }
+
+    public void handle(HealthCheckRequest request, StreamObserver<HealthCheckRequest> responseObserver) {
+        handled.incrementAndGet();
+        switch (request.getService()) {
+            case HANG -> {
+                // Trong batch stream, observer của từng request không phải ServerCallStreamObserver
+                if (responseObserver instanceof ServerCallStreamObserver<HealthCheckRequest> observer) {
+                    observer.setOnCancelHandler(() -> {
+                        if (closeAfterCancel) {
+                            observer.onError(Status.UNAVAILABLE.asRuntimeException());
+                        }
+                        cancelled.incrementAndGet();
+                    });
+                }
+            }
+            case FAIL -> responseObserver.onError(Status.NOT_FOUND.withDescription("missing").asRuntimeException());
+            case THROW -> throw new IllegalStateException("handler failed");
+            default -> {
+                responseObserver.onNext(request);
+                responseObserver.onCompleted();
+            }
+        }
+    }
+
+    // Số request handler đã nhận, kể cả request lỗi
+    public int handled() {
+        return handled.get();
+    }
+
+    public int cancelled() {
+        return cancelled.get();
+    }
+
+    public static HealthCheckRequest request(String behavior) {
+        return HealthCheckRequest.newBuilder().setService(behavior).build();
+    }
+
+    public static MethodDescriptor<HealthCheckRequest, HealthCheckRequest> method(String name, MethodDescriptor.MethodType type) {
+        return MethodDescriptor.<HealthCheckRequest, HealthCheckRequest>newBuilder()
+                .setType(type)
+                .setFullMethodName(MethodDescriptor.generateFullMethodName(SERVICE_NAME, name))
+                .setRequestMarshaller(ProtoUtils.marshaller(HealthCheckRequest.getDefaultInstance()))
+                .setResponseMarshaller(ProtoUtils.marshaller(HealthCheckRequest.getDefaultInstance()))
+                .build();
+    }
+
+    /**
+     * Gọi unary CALL không chặn, future nhận status khi call kết thúc
+     */
+    public static CompletableFuture<Status> call(Channel channel, CallOptions callOptions, String behavior) {
+        return start(channel.newCall(CALL, callOptions), behavior);
+    }
+
+    public static CompletableFuture<Status> start(ClientCall<HealthCheckRequest, HealthCheckRequest> call, String behavior) {
+        CompletableFuture<Status> result = new CompletableFuture<>();
+        call.start(new ClientCall.Listener<>() {
+            @Override
+            public void onClose(Status status, Metadata trailers) {
+                result.complete(status);
+            }
+        }, new Metadata());
+        call.sendMessage(request(behavior));
+        call.halfClose();
+        call.request(1);
+        return result;
+    }
+
+    public static String uniqueName(String prefix) {
+        return prefix + "-" + System.nanoTime();
+    }
+
+    /**
+     * Chờ điều kiện đúng, dùng cho trạng thái được cập nhật bất đồng bộ sau khi client đã nhận kết quả
+     */
+    public static void awaitUntil(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("Condition not met within 5 seconds");
+            }
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+    }
+}
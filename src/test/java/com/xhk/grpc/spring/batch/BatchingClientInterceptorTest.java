@@ -0,0 +1,249 @@
+package com.xhk.grpc.spring.batch;
+
+import com.xhk.grpc.spring.TestService;
+import com.xhk.grpc.spring.annotation.GrpcBatchStream;
+import com.xhk.grpc.spring.config.GrpcProperties;
+import com.xhk.grpc.spring.proto.proto.HealthCheckRequest;
+import io.grpc.CallOptions;
+import io.grpc.ClientCall;
+import io.grpc.Context;
+import io.grpc.ManagedChannel;
+import io.grpc.MethodDescriptor;
+import io.grpc.Server;
+import io.grpc.ServerServiceDefinition;
+import io.grpc.Status;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.ServerCalls;
+import io.grpc.stub.StreamObserver;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.xhk.grpc.spring.TestService.CALL;
+import static com.xhk.grpc.spring.TestService.awaitUntil;
+import static com.xhk.grpc.spring.TestService.call;
+import static com.xhk.grpc.spring.TestService.start;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Batching đầu cuối qua server in-process: lỗi từng request trả trong stream, caller huỷ hoặc hết deadline khi đang
+ * chờ trong batch, stream bị đóng khi còn request chưa có kết quả, stream chưa sẵn sàng và đóng interceptor.
+ * CallStreamOne chỉ nhận một request mỗi lần (maxInFlight = 1) nên stream không sẵn sàng khi request "hold" chưa được trả lời.
+ */
+class BatchingClientInterceptorTest {
+    private static final MethodDescriptor<HealthCheckRequest, HealthCheckRequest> CALL_STREAM =
+            TestService.method("CallStream", MethodDescriptor.MethodType.BIDI_STREAMING);
+    private static final MethodDescriptor<HealthCheckRequest, HealthCheckRequest> CALL_STREAM_ONE =
+            TestService.method("CallStreamOne", MethodDescriptor.MethodType.BIDI_STREAMING);
+    private static final String HOLD = "hold";
+
+    private final TestService service = new TestService();
+    private final List<StreamObserver<HealthCheckRequest>> streams = new CopyOnWriteArrayList<>();
+    private final List<ManagedChannel> channels = new ArrayList<>();
+    private final List<String> received = new CopyOnWriteArrayList<>();
+    private final List<StreamObserver<HealthCheckRequest>> held = new CopyOnWriteArrayList<>();
+    private final AtomicInteger completedStreams = new AtomicInteger();
+    private BatchingClientInterceptor interceptor;
+    private Server server;
+    private String serverName;
+
+    public static class BatchController {
+        @GrpcBatchStream
+        public void callStream() {
+        }
+
+        @GrpcBatchStream
+        public void callStreamOne() {
+        }
+    }
+
+    @BeforeEach
+    void setUp() throws Exception {
+        serverName = TestService.uniqueName("batch");
+        server = InProcessServerBuilder.forName(serverName)
+                .addService(GrpcBatchHandler.wrap(new BatchController(), definition()))
+                .build()
+                .start();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        for (ManagedChannel channel : channels) {
+            channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        }
+        server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void itemErrorIsReturnedInBandAndStreamIsReused() throws Exception {
+        ManagedChannel channel = channel(20_000);
+        CompletableFuture<Status> first = call(channel, CallOptions.DEFAULT, "a");
+        CompletableFuture<Status> failed = call(channel, CallOptions.DEFAULT, TestService.FAIL);
+        CompletableFuture<Status> last = call(channel, CallOptions.DEFAULT, "c");
+
+        assertEquals(Status.Code.OK, first.get(5, TimeUnit.SECONDS).getCode());
+        Status error = failed.get(5, TimeUnit.SECONDS);
+        assertEquals(Status.Code.NOT_FOUND, error.getCode());
+        assertEquals("missing", error.getDescription());
+        assertEquals(Status.Code.OK, last.get(5, TimeUnit.SECONDS).getCode());
+
+        assertEquals(Status.Code.OK, call(channel, CallOptions.DEFAULT, "d").get(5, TimeUnit.SECONDS).getCode());
+        assertEquals(1, streams.size());
+    }
+
+    @Test
+    void callCancelledWhileWaitingInBatchIsNotSent() throws Exception {
+        ManagedChannel channel = channel(200_000);
+        ClientCall<HealthCheckRequest, HealthCheckRequest> cancelled = channel.newCall(CALL, CallOptions.DEFAULT);
+        CompletableFuture<Status> cancelledResult = start(cancelled, "count");
+        CompletableFuture<Status> other = call(channel, CallOptions.DEFAULT, "count");
+
+        cancelled.cancel("caller gave up", null);
+        assertEquals(Status.Code.CANCELLED, cancelledResult.get(1, TimeUnit.SECONDS).getCode());
+        assertEquals(Status.Code.OK, other.get(5, TimeUnit.SECONDS).getCode());
+        assertEquals(1, service.handled());
+    }
+
+    @Test
+    void deadlineExpiresWhileWaitingInBatch() throws Exception {
+        ManagedChannel channel = channel(2_000_000);
+        CompletableFuture<Status> result = call(channel,
+                CallOptions.DEFAULT.withDeadlineAfter(50, TimeUnit.MILLISECONDS), "count");
+
+        assertEquals(Status.Code.DEADLINE_EXCEEDED, result.get(1, TimeUnit.SECONDS).getCode());
+        assertEquals(0, service.handled());
+    }
+
+    @Test
+    void contextCancellationCancelsWaitingCall() throws Exception {
+        ManagedChannel channel = channel(2_000_000);
+        Context.CancellableContext context = Context.current().withCancellation();
+        CompletableFuture<Status> result = context.call(() -> call(channel, CallOptions.DEFAULT, "count"));
+
+        context.cancel(null);
+        assertEquals(Status.Code.CANCELLED, result.get(1, TimeUnit.SECONDS).getCode());
+    }
+
+    @Test
+    void streamErrorFailsUnansweredCallsWithoutResending() throws Exception {
+        ManagedChannel channel = channel(0);
+        CompletableFuture<Status> result = call(channel, CallOptions.DEFAULT, TestService.HANG);
+        awaitUntil(() -> service.handled() == 1);
+
+        streams.get(0).onError(Status.ABORTED.withDescription("stream reset").asRuntimeException());
+        assertEquals(Status.Code.ABORTED, result.get(5, TimeUnit.SECONDS).getCode());
+        assertEquals(1, service.handled());
+
+        // Stream mới được mở cho call tiếp theo
+        assertEquals(Status.Code.OK, call(channel, CallOptions.DEFAULT, "a").get(5, TimeUnit.SECONDS).getCode());
+        assertEquals(2, streams.size());
+    }
+
+    @Test
+    void streamCompletedBeforeRespondingResendsOnce() throws Exception {
+        ManagedChannel channel = channel(0);
+        CompletableFuture<Status> result = call(channel, CallOptions.DEFAULT, TestService.HANG);
+        awaitUntil(() -> service.handled() == 1);
+
+        streams.get(0).onCompleted();
+        awaitUntil(() -> service.handled() == 2);
+        streams.get(1).onCompleted();
+
+        assertEquals(Status.Code.UNAVAILABLE, result.get(5, TimeUnit.SECONDS).getCode());
+        assertEquals(2, service.handled());
+    }
+
+    @Test
+    void requestsWaitForReadyStreamInsteadOfBuffering() throws Exception {
+        ManagedChannel channel = channel(CALL_STREAM_ONE, 0);
+        CompletableFuture<Status> holding = call(channel, CallOptions.DEFAULT, HOLD);
+        awaitUntil(() -> held.size() == 1);
+
+        // Server chưa xin thêm request: call này nằm trong batcher, không bị ghi vào stream
+        ClientCall<HealthCheckRequest, HealthCheckRequest> cancelled = channel.newCall(CALL, CallOptions.DEFAULT);
+        CompletableFuture<Status> cancelledResult = start(cancelled, "a");
+        cancelled.cancel("caller gave up", null);
+        assertEquals(Status.Code.CANCELLED, cancelledResult.get(5, TimeUnit.SECONDS).getCode());
+
+        release();
+        assertEquals(Status.Code.OK, holding.get(5, TimeUnit.SECONDS).getCode());
+        assertEquals(Status.Code.OK, call(channel, CallOptions.DEFAULT, "b").get(5, TimeUnit.SECONDS).getCode());
+        assertEquals(List.of(HOLD, "b"), received);
+    }
+
+    @Test
+    void closeFailsUnsentCallsAndHalfClosesStream() throws Exception {
+        ManagedChannel channel = channel(CALL_STREAM_ONE, 0);
+        CompletableFuture<Status> holding = call(channel, CallOptions.DEFAULT, HOLD);
+        awaitUntil(() -> held.size() == 1);
+        CompletableFuture<Status> unsent = call(channel, CallOptions.DEFAULT, "a");
+
+        interceptor.close();
+        Status closed = unsent.get(5, TimeUnit.SECONDS);
+        assertEquals(Status.Code.UNAVAILABLE, closed.getCode());
+        assertEquals("Batching client is closed", closed.getDescription());
+        assertEquals(Status.Code.UNAVAILABLE, call(channel, CallOptions.DEFAULT, "b").get(5, TimeUnit.SECONDS).getCode());
+
+        // Request đã gửi vẫn nhận kết quả, server kết thúc stream đã half-close sau khi trả lời
+        release();
+        assertEquals(Status.Code.OK, holding.get(5, TimeUnit.SECONDS).getCode());
+        awaitUntil(() -> completedStreams.get() == 1);
+        assertEquals(List.of(HOLD), received);
+    }
+
+    private void release() {
+        for (StreamObserver<HealthCheckRequest> observer : held) {
+            observer.onNext(TestService.request(HOLD));
+            observer.onCompleted();
+        }
+        held.clear();
+    }
+
+    private ManagedChannel channel(long maxDelayMicros) {
+        return channel(CALL_STREAM, maxDelayMicros);
+    }
+
+    private ManagedChannel channel(MethodDescriptor<?, ?> streamMethod, long maxDelayMicros) {
+        GrpcProperties.BatchRule rule = new GrpcProperties.BatchRule();
+        rule.setStreamMethod(streamMethod.getFullMethodName());
+        rule.setMaxDelayMicros(maxDelayMicros);
+        interceptor = new BatchingClientInterceptor("test", Map.of(CALL.getFullMethodName(), rule), new SimpleMeterRegistry());
+        ManagedChannel channel = InProcessChannelBuilder.forName(serverName)
+                .intercept(interceptor)
+                .build();
+        channels.add(channel);
+        return channel;
+    }
+
+    private ServerServiceDefinition definition() {
+        return ServerServiceDefinition.builder(TestService.SERVICE_NAME)
+                .addMethod(CALL, ServerCalls.asyncUnaryCall(service::handle))
+                .addMethod(CALL_STREAM, ServerCalls.asyncBidiStreamingCall(responseObserver -> {
+                    streams.add(responseObserver);
+                    return GrpcBatchHandler.forUnary(responseObserver, service::handle);
+                }))
+                .addMethod(CALL_STREAM_ONE, ServerCalls.asyncBidiStreamingCall(responseObserver -> {
+                    ((ServerCallStreamObserver<HealthCheckRequest>) responseObserver).setOnCloseHandler(completedStreams::incrementAndGet);
+                    return GrpcBatchHandler.<HealthCheckRequest, HealthCheckRequest>forUnary(responseObserver, (request, item) -> {
+                        received.add(request.getService());
+                        if (HOLD.equals(request.getService())) {
+                            held.add(item);
+                        } else {
+                            service.handle(request, item);
+                        }
+                    }, Runnable::run, 1);
+                }))
+                .build();
+    }
+}
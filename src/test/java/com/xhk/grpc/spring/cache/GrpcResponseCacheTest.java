@@ -0,0 +1,175 @@
+package com.xhk.grpc.spring.cache;
+
+import com.xhk.grpc.spring.TestService;
+import com.xhk.grpc.spring.config.GrpcProperties;
+import com.xhk.grpc.spring.proto.proto.HealthCheckRequest;
+import com.xhk.grpc.spring.server.WarmupRecorder;
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientInterceptors;
+import io.grpc.ManagedChannel;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Server;
+import io.grpc.ServerServiceDefinition;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.ClientCalls;
+import io.grpc.stub.MetadataUtils;
+import io.grpc.stub.ServerCalls;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.xhk.grpc.spring.TestService.CALL;
+import static com.xhk.grpc.spring.TestService.request;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Cache hit không gọi handler và không marshal lại response, miss chỉ serialize response một lần
+ */
+class GrpcResponseCacheTest {
+    private static final Metadata.Key<String> LANGUAGE = Metadata.Key.of("accept-language", Metadata.ASCII_STRING_MARSHALLER);
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final TestService service = new TestService();
+    private final CountingMarshaller responseMarshaller = new CountingMarshaller(CALL.getResponseMarshaller());
+    private GrpcResponseCache responseCache;
+    private Server server;
+    private ManagedChannel channel;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        GrpcProperties.CacheRule rule = new GrpcProperties.CacheRule();
+        rule.setKeyHeaders(List.of(LANGUAGE.name()));
+        GrpcProperties.ResponseCache config = new GrpcProperties.ResponseCache();
+        config.getMethods().put(CALL.getFullMethodName(), rule);
+        responseCache = new GrpcResponseCache(config, registry);
+
+        // Response marshaller đếm số lần encode/parse của phía server
+        MethodDescriptor<HealthCheckRequest, HealthCheckRequest> counted =
+                CALL.toBuilder(CALL.getRequestMarshaller(), responseMarshaller).build();
+        ServerServiceDefinition definition = ServerServiceDefinition.builder(TestService.SERVICE_NAME)
+                .addMethod(counted, ServerCalls.asyncUnaryCall(service::handle))
+                .build();
+        String name = TestService.uniqueName("cache");
+        server = InProcessServerBuilder.forName(name)
+                .addService(responseCache.wrap(new Object(), definition))
+                .build()
+                .start();
+        channel = InProcessChannelBuilder.forName(name).build();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void hitSkipsHandlerParsingAndEncoding() {
+        assertEquals(request("a"), get(channel, "a"));
+        assertEquals(1, responseMarshaller.streamed.get());
+
+        assertEquals(request("a"), get(channel, "a"));
+        assertEquals(request("a"), get(channel, "a"));
+
+        assertEquals(1, service.handled());
+        assertEquals(1, responseMarshaller.streamed.get());
+        assertEquals(0, responseMarshaller.parsed.get());
+        assertEquals(2, gets("hit"));
+        assertEquals(1, gets("miss"));
+    }
+
+    @Test
+    void keyIncludesRequestBytesAndKeyHeaders() {
+        get(channel, "a");
+        get(channel, "b");
+        get(withLanguage("vi"), "a");
+        get(withLanguage("en"), "a");
+        get(withLanguage("vi"), "a");
+
+        assertEquals(4, service.handled());
+    }
+
+    @Test
+    void errorsAreNotCached() {
+        for (int i = 0; i < 2; i++) {
+            StatusRuntimeException error = assertThrows(StatusRuntimeException.class, () -> get(channel, TestService.FAIL));
+            assertEquals(Status.Code.NOT_FOUND, error.getStatus().getCode());
+        }
+        assertEquals(2, service.handled());
+    }
+
+    @Test
+    void invalidatedRequestIsFetchedAgain() {
+        get(channel, "a");
+        get(channel, "b");
+
+        responseCache.invalidate(CALL.getFullMethodName(), request("a"));
+        get(channel, "a");
+        get(channel, "b");
+        assertEquals(3, service.handled());
+
+        responseCache.invalidate(CALL.getFullMethodName());
+        get(channel, "b");
+        assertEquals(4, service.handled());
+    }
+
+    @Test
+    void warmupCallsSkipCache() {
+        Channel warmup = ClientInterceptors.intercept(channel, MetadataUtils.newAttachHeadersInterceptor(WarmupRecorder.warmupHeaders()));
+        get(warmup, "a");
+        get(channel, "a");
+        get(warmup, "a");
+
+        assertEquals(3, service.handled());
+        assertEquals(1, gets("miss"));
+        assertEquals(0, gets("hit"));
+    }
+
+    private static HealthCheckRequest get(Channel channel, String behavior) {
+        return ClientCalls.blockingUnaryCall(channel, CALL, CallOptions.DEFAULT, request(behavior));
+    }
+
+    private Channel withLanguage(String language) {
+        Metadata headers = new Metadata();
+        headers.put(LANGUAGE, language);
+        return ClientInterceptors.intercept(channel, MetadataUtils.newAttachHeadersInterceptor(headers));
+    }
+
+    private double gets(String result) {
+        return registry.get("cache.gets").tag("cache", CALL.getFullMethodName()).tag("result", result).functionCounter().count();
+    }
+
+    private static final class CountingMarshaller implements MethodDescriptor.Marshaller<HealthCheckRequest> {
+        private final MethodDescriptor.Marshaller<HealthCheckRequest> delegate;
+        private final AtomicInteger streamed = new AtomicInteger();
+        private final AtomicInteger parsed = new AtomicInteger();
+
+        CountingMarshaller(MethodDescriptor.Marshaller<HealthCheckRequest> delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public InputStream stream(HealthCheckRequest value) {
+            streamed.incrementAndGet();
+            return delegate.stream(value);
+        }
+
+        @Override
+        public HealthCheckRequest parse(InputStream stream) {
+            parsed.incrementAndGet();
+            return delegate.parse(stream);
+        }
+    }
+}
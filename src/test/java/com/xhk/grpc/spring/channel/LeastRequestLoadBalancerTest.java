@@ -0,0 +1,215 @@
+package com.xhk.grpc.spring.channel;
+
+import com.xhk.grpc.spring.TestService;
+import io.grpc.CallOptions;
+import io.grpc.EquivalentAddressGroup;
+import io.grpc.LoadBalancer;
+import io.grpc.LoadBalancerProvider;
+import io.grpc.LoadBalancerRegistry;
+import io.grpc.ManagedChannel;
+import io.grpc.NameResolver;
+import io.grpc.NameResolverProvider;
+import io.grpc.NameResolverRegistry;
+import io.grpc.Server;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.inprocess.InProcessSocketAddress;
+import io.grpc.stub.ClientCalls;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.SocketAddress;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static com.xhk.grpc.spring.TestService.CALL;
+import static com.xhk.grpc.spring.TestService.awaitUntil;
+import static com.xhk.grpc.spring.TestService.request;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Bộ đếm in-flight của least_request phải về 0 khi call bị huỷ, hết deadline hoặc lỗi,
+ * nếu không subchannel từng có call lỗi sẽ bị tránh mãi
+ */
+class LeastRequestLoadBalancerTest {
+    private static final String SCHEME = "least-request-test";
+    private static final String POLICY_NAME = "least_request_test";
+
+    private static final TestNameResolverProvider nameResolverProvider = new TestNameResolverProvider();
+    private static final CapturingLoadBalancerProvider loadBalancerProvider = new CapturingLoadBalancerProvider();
+
+    private final TestService service = new TestService();
+    private final List<Server> servers = new ArrayList<>();
+    private ManagedChannel channel;
+
+    @BeforeAll
+    static void register() {
+        NameResolverRegistry.getDefaultRegistry().register(nameResolverProvider);
+        LoadBalancerRegistry.getDefaultRegistry().register(loadBalancerProvider);
+    }
+
+    @AfterAll
+    static void deregister() {
+        NameResolverRegistry.getDefaultRegistry().deregister(nameResolverProvider);
+        LoadBalancerRegistry.getDefaultRegistry().deregister(loadBalancerProvider);
+    }
+
+    @BeforeEach
+    void setUp() throws Exception {
+        List<SocketAddress> addresses = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            String name = TestService.uniqueName("balancer-" + i);
+            servers.add(InProcessServerBuilder.forName(name).addService(service.definition()).build().start());
+            addresses.add(new InProcessSocketAddress(name));
+        }
+        nameResolverProvider.addresses = addresses;
+        channel = InProcessChannelBuilder.forTarget(SCHEME + ":///servers")
+                .defaultLoadBalancingPolicy(POLICY_NAME)
+                .build();
+        // Đảm bảo balancer đã được tạo và có subchannel READY
+        ClientCalls.blockingUnaryCall(channel, CALL, CallOptions.DEFAULT, request("ok"));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        for (Server server : servers) {
+            server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    void cancelledCallsReleaseInFlight() {
+        List<Future<?>> calls = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            calls.add(ClientCalls.futureUnaryCall(channel.newCall(CALL, CallOptions.DEFAULT), request(TestService.HANG)));
+        }
+        awaitUntil(() -> balancer().inFlight() == 4);
+
+        calls.forEach(call -> call.cancel(true));
+        awaitUntil(() -> balancer().inFlight() == 0);
+    }
+
+    @Test
+    void failedCallsReleaseInFlight() {
+        for (int i = 0; i < 4; i++) {
+            StatusRuntimeException error = assertThrows(StatusRuntimeException.class,
+                    () -> ClientCalls.blockingUnaryCall(channel, CALL, CallOptions.DEFAULT, request(TestService.FAIL)));
+            assertEquals(Status.Code.NOT_FOUND, error.getStatus().getCode());
+        }
+        awaitUntil(() -> balancer().inFlight() == 0);
+    }
+
+    @Test
+    void deadlineExceededCallsReleaseInFlight() {
+        for (int i = 0; i < 4; i++) {
+            StatusRuntimeException error = assertThrows(StatusRuntimeException.class,
+                    () -> ClientCalls.blockingUnaryCall(channel, CALL,
+                            CallOptions.DEFAULT.withDeadlineAfter(50, TimeUnit.MILLISECONDS), request(TestService.HANG)));
+            assertEquals(Status.Code.DEADLINE_EXCEEDED, error.getStatus().getCode());
+        }
+        awaitUntil(() -> balancer().inFlight() == 0);
+    }
+
+    @Test
+    void callsWithoutStreamAreNotCounted() {
+        // Deadline đã hết thì call kết thúc trước khi có stream trên subchannel
+        StatusRuntimeException error = assertThrows(StatusRuntimeException.class,
+                () -> ClientCalls.blockingUnaryCall(channel, CALL,
+                        CallOptions.DEFAULT.withDeadlineAfter(-1, TimeUnit.MILLISECONDS), request("ok")));
+        assertEquals(Status.Code.DEADLINE_EXCEEDED, error.getStatus().getCode());
+        assertEquals(0, balancer().inFlight());
+    }
+
+    private static LeastRequestLoadBalancer balancer() {
+        return loadBalancerProvider.balancer;
+    }
+
+    /**
+     * Resolve target của test thành địa chỉ các server in-process, mỗi server một EquivalentAddressGroup
+     */
+    private static final class TestNameResolverProvider extends NameResolverProvider {
+        private volatile List<SocketAddress> addresses = List.of();
+
+        @Override
+        protected boolean isAvailable() {
+            return true;
+        }
+
+        @Override
+        protected int priority() {
+            return 5;
+        }
+
+        @Override
+        public String getDefaultScheme() {
+            return SCHEME;
+        }
+
+        @Override
+        public Collection<Class<? extends SocketAddress>> getProducedSocketAddressTypes() {
+            return List.of(InProcessSocketAddress.class);
+        }
+
+        @Override
+        public NameResolver newNameResolver(URI targetUri, NameResolver.Args args) {
+            if (!SCHEME.equals(targetUri.getScheme())) {
+                return null;
+            }
+            List<EquivalentAddressGroup> groups = addresses.stream().map(EquivalentAddressGroup::new).toList();
+            return new NameResolver() {
+                @Override
+                public String getServiceAuthority() {
+                    return "servers";
+                }
+
+                @Override
+                public void start(Listener2 listener) {
+                    listener.onResult(ResolutionResult.newBuilder().setAddresses(groups).build());
+                }
+
+                @Override
+                public void shutdown() {
+                }
+            };
+        }
+    }
+
+    /**
+     * Tạo LeastRequestLoadBalancer như provider thật và giữ lại instance mới nhất để test đọc bộ đếm
+     */
+    private static final class CapturingLoadBalancerProvider extends LoadBalancerProvider {
+        private volatile LeastRequestLoadBalancer balancer;
+
+        @Override
+        public boolean isAvailable() {
+            return true;
+        }
+
+        @Override
+        public int getPriority() {
+            return 5;
+        }
+
+        @Override
+        public String getPolicyName() {
+            return POLICY_NAME;
+        }
+
+        @Override
+        public LoadBalancer newLoadBalancer(LoadBalancer.Helper helper) {
+            balancer = new LeastRequestLoadBalancer(helper);
+            return balancer;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.xhk.grpc.spring.channel;
+
+import com.xhk.grpc.spring.TestService;
+import com.xhk.grpc.spring.config.GrpcProperties;
+import com.xhk.grpc.spring.proto.proto.HealthCheckRequest;
+import io.grpc.CallOptions;
+import io.grpc.ClientCall;
+import io.grpc.ConnectivityState;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.Status;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static com.xhk.grpc.spring.TestService.CALL;
+import static com.xhk.grpc.spring.TestService.awaitUntil;
+import static com.xhk.grpc.spring.TestService.call;
+import static com.xhk.grpc.spring.TestService.start;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Mỗi channel con trỏ tới một server in-process riêng để biết call được pick vào channel nào
+ */
+class PooledManagedChannelTest {
+    private final List<TestService> services = new ArrayList<>();
+    private final List<Server> servers = new ArrayList<>();
+    private final List<String> targets = new ArrayList<>();
+    private final List<ManagedChannel> channels = new ArrayList<>();
+    private PooledManagedChannel pool;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            TestService service = new TestService();
+            String name = TestService.uniqueName("pool-" + i);
+            services.add(service);
+            servers.add(InProcessServerBuilder.forName(name).addService(service.definition()).build().start());
+            targets.add(name);
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        pool.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        for (Server server : servers) {
+            server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    void roundRobinSpreadsCallsOverChannels() throws Exception {
+        pool = pool(GrpcProperties.ChannelPoolStrategy.ROUND_ROBIN, targets);
+        for (int i = 0; i < 6; i++) {
+            assertEquals(Status.Code.OK, call(pool, CallOptions.DEFAULT, "a").get(5, TimeUnit.SECONDS).getCode());
+        }
+        for (TestService service : services) {
+            assertEquals(2, service.handled());
+        }
+    }
+
+    @Test
+    void unhealthyChannelsAreSkipped() throws Exception {
+        List<String> withMissing = List.of(targets.get(0), TestService.uniqueName("missing"), targets.get(1));
+        for (GrpcProperties.ChannelPoolStrategy strategy : GrpcProperties.ChannelPoolStrategy.values()) {
+            pool = pool(strategy, withMissing);
+            pool.getState(true);
+            awaitUntil(() -> channels.get(1).getState(false) == ConnectivityState.TRANSIENT_FAILURE);
+
+            for (int i = 0; i < 6; i++) {
+                assertEquals(Status.Code.OK, call(pool, CallOptions.DEFAULT, "a").get(5, TimeUnit.SECONDS).getCode(),
+                        strategy.name());
+            }
+            pool.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        }
+        assertEquals(12, services.get(0).handled() + services.get(1).handled());
+    }
+
+    @Test
+    void leastInFlightPicksIdleChannelAndReleasesOnClose() throws Exception {
+        pool = pool(GrpcProperties.ChannelPoolStrategy.LEAST_IN_FLIGHT, targets);
+        List<CompletableFuture<Status>> hanging = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            hanging.add(call(pool, CallOptions.DEFAULT.withDeadlineAfter(300, TimeUnit.MILLISECONDS), TestService.HANG));
+        }
+        for (int i = 0; i < pool.size(); i++) {
+            assertEquals(2, pool.getInFlight(i));
+        }
+
+        for (CompletableFuture<Status> result : hanging) {
+            assertEquals(Status.Code.DEADLINE_EXCEEDED, result.get(5, TimeUnit.SECONDS).getCode());
+        }
+        awaitUntil(() -> totalInFlight() == 0);
+        for (TestService service : services) {
+            assertEquals(2, service.handled());
+        }
+    }
+
+    @Test
+    void cancelledCallsAreReleasedExactlyOnce() throws Exception {
+        pool = pool(GrpcProperties.ChannelPoolStrategy.LEAST_IN_FLIGHT, targets);
+
+        // Huỷ trước start: không bao giờ có onClose
+        pool.newCall(CALL, CallOptions.DEFAULT).cancel("not started", null);
+        assertEquals(0, totalInFlight());
+
+        // Huỷ sau start: cancel và onClose cùng trả in-flight nhưng chỉ một lần
+        List<ClientCall<HealthCheckRequest, HealthCheckRequest>> calls = new ArrayList<>();
+        List<CompletableFuture<Status>> results = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            ClientCall<HealthCheckRequest, HealthCheckRequest> call = pool.newCall(CALL, CallOptions.DEFAULT);
+            calls.add(call);
+            results.add(start(call, TestService.HANG));
+        }
+        assertEquals(3, totalInFlight());
+        Iterator<CompletableFuture<Status>> result = results.iterator();
+        for (ClientCall<HealthCheckRequest, HealthCheckRequest> call : calls) {
+            call.cancel("gave up", null);
+            call.cancel("gave up again", null);
+            assertEquals(Status.Code.CANCELLED, result.next().get(5, TimeUnit.SECONDS).getCode());
+        }
+        assertEquals(0, totalInFlight());
+    }
+
+    private PooledManagedChannel pool(GrpcProperties.ChannelPoolStrategy strategy, List<String> names) {
+        channels.clear();
+        Iterator<String> name = names.iterator();
+        return new PooledManagedChannel("test", names.size(), strategy, () -> {
+            ManagedChannel channel = InProcessChannelBuilder.forName(name.next()).build();
+            channels.add(channel);
+            return channel;
+        });
+    }
+
+    private int totalInFlight() {
+        int total = 0;
+        for (int i = 0; i < pool.size(); i++) {
+            total += pool.getInFlight(i);
+        }
+        return total;
+    }
+}
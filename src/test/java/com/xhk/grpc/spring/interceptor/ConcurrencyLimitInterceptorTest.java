@@ -0,0 +1,132 @@
+package com.xhk.grpc.spring.interceptor;
+
+import com.xhk.grpc.spring.TestService;
+import com.xhk.grpc.spring.config.GrpcProperties;
+import com.xhk.grpc.spring.server.WarmupRecorder;
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientInterceptors;
+import io.grpc.ManagedChannel;
+import io.grpc.Metadata;
+import io.grpc.Server;
+import io.grpc.ServerInterceptors;
+import io.grpc.Status;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.MetadataUtils;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static com.xhk.grpc.spring.TestService.CALL;
+import static com.xhk.grpc.spring.TestService.awaitUntil;
+import static com.xhk.grpc.spring.TestService.call;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Permit của limiter phải được trả lại dù call kết thúc bằng cách nào, nếu không method bị khoá vĩnh viễn
+ * với RESOURCE_EXHAUSTED. Limit cố định ở 2 để kết quả không phụ thuộc latency.
+ */
+class ConcurrencyLimitInterceptorTest {
+    private static final int LIMIT = 2;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final TestService service = new TestService();
+    private ConcurrencyLimitInterceptor limiter;
+    private Server server;
+    private ManagedChannel channel;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        GrpcProperties.ConcurrencyLimit config = new GrpcProperties.ConcurrencyLimit();
+        config.setInitialLimit(LIMIT);
+        config.setMinLimit(LIMIT);
+        config.setMaxLimit(LIMIT);
+        limiter = new ConcurrencyLimitInterceptor(config, registry);
+        String name = TestService.uniqueName("limiter");
+        server = InProcessServerBuilder.forName(name)
+                .addService(ServerInterceptors.intercept(service.definition(), limiter))
+                .build()
+                .start();
+        channel = InProcessChannelBuilder.forName(name).build();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void handlerExceptionsReturnPermits() throws Exception {
+        for (int i = 0; i < LIMIT * 2; i++) {
+            assertEquals(Status.Code.UNKNOWN, status(TestService.THROW));
+        }
+        awaitUntil(() -> inFlight() == 0);
+
+        assertEquals(LIMIT, limiter.getLimit(CALL.getFullMethodName()));
+        assertEquals(Status.Code.OK, status("ok"));
+    }
+
+    @Test
+    void failedCallsReturnPermits() throws Exception {
+        for (int i = 0; i < LIMIT * 2; i++) {
+            assertEquals(Status.Code.NOT_FOUND, status(TestService.FAIL));
+        }
+        awaitUntil(() -> inFlight() == 0);
+        assertEquals(Status.Code.OK, status("ok"));
+    }
+
+    @Test
+    void callsBeyondLimitAreRejectedUntilPermitsAreReturned() throws Exception {
+        List<CompletableFuture<Status>> hanging = List.of(
+                call(channel, CallOptions.DEFAULT.withDeadlineAfter(200, TimeUnit.MILLISECONDS), TestService.HANG),
+                call(channel, CallOptions.DEFAULT.withDeadlineAfter(200, TimeUnit.MILLISECONDS), TestService.HANG));
+        awaitUntil(() -> inFlight() == LIMIT);
+
+        assertEquals(Status.Code.RESOURCE_EXHAUSTED, status("ok"));
+
+        for (CompletableFuture<Status> call : hanging) {
+            assertEquals(Status.Code.DEADLINE_EXCEEDED, call.get(5, TimeUnit.SECONDS).getCode());
+        }
+        awaitUntil(() -> inFlight() == 0);
+        assertEquals(Status.Code.OK, status("ok"));
+        assertEquals(1, registry.get("grpc.server.limiter.rejected").tag("reason", "limit").counter().count());
+    }
+
+    @Test
+    void warmupCallsBypassLimiter() throws Exception {
+        List<CompletableFuture<Status>> hanging = List.of(
+                call(channel, CallOptions.DEFAULT.withDeadlineAfter(200, TimeUnit.MILLISECONDS), TestService.HANG),
+                call(channel, CallOptions.DEFAULT.withDeadlineAfter(200, TimeUnit.MILLISECONDS), TestService.HANG));
+        awaitUntil(() -> inFlight() == LIMIT);
+
+        Channel warmup = ClientInterceptors.intercept(channel, MetadataUtils.newAttachHeadersInterceptor(WarmupRecorder.warmupHeaders()));
+        assertEquals(Status.Code.OK, call(warmup, CallOptions.DEFAULT, "ok").get(5, TimeUnit.SECONDS).getCode());
+
+        // Header không mang đúng token vẫn bị giới hạn
+        Metadata forged = new Metadata();
+        forged.put(WarmupRecorder.WARMUP_HEADER, "true");
+        Channel forgedChannel = ClientInterceptors.intercept(channel, MetadataUtils.newAttachHeadersInterceptor(forged));
+        assertEquals(Status.Code.RESOURCE_EXHAUSTED, call(forgedChannel, CallOptions.DEFAULT, "ok").get(5, TimeUnit.SECONDS).getCode());
+
+        for (CompletableFuture<Status> call : hanging) {
+            assertEquals(Status.Code.DEADLINE_EXCEEDED, call.get(5, TimeUnit.SECONDS).getCode());
+        }
+    }
+
+    private Status.Code status(String behavior) throws Exception {
+        return call(channel, CallOptions.DEFAULT, behavior).get(5, TimeUnit.SECONDS).getCode();
+    }
+
+    private double inFlight() {
+        Gauge gauge = registry.find("grpc.server.limiter.inflight").tag("method", CALL.getFullMethodName()).gauge();
+        return gauge != null ? gauge.value() : 0;
+    }
+}
@@ -0,0 +1,131 @@
+package com.xhk.grpc.spring.interceptor;
+
+import com.xhk.grpc.spring.TestService;
+import com.xhk.grpc.spring.config.GrpcProperties;
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientInterceptors;
+import io.grpc.ManagedChannel;
+import io.grpc.Metadata;
+import io.grpc.Server;
+import io.grpc.ServerInterceptors;
+import io.grpc.Status;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.MetadataUtils;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static com.xhk.grpc.spring.TestService.CALL;
+import static com.xhk.grpc.spring.TestService.call;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Rate gần 0 để bucket không kịp đầy lại trong lúc test chạy, chỉ còn burst quyết định số call được nhận
+ */
+class RateLimitInterceptorTest {
+    private static final Metadata.Key<String> API_KEY = Metadata.Key.of("api-key", Metadata.ASCII_STRING_MARSHALLER);
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final TestService service = new TestService();
+    private RateLimitInterceptor interceptor;
+    private Server server;
+    private ManagedChannel channel;
+
+    @AfterEach
+    void tearDown() throws Exception {
+        channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        interceptor.close();
+    }
+
+    @Test
+    void callsBeyondBurstAreRejected() throws Exception {
+        start(TestService.SERVICE_NAME, rule(GrpcProperties.RateLimitKey.NONE), 100);
+        assertEquals(Status.Code.OK, status(channel));
+        assertEquals(Status.Code.OK, status(channel));
+
+        assertEquals(Status.Code.RESOURCE_EXHAUSTED, status(channel));
+        assertEquals(2, service.handled());
+        assertEquals(1, registry.get("grpc.server.ratelimit.rejected").tag("rule", TestService.SERVICE_NAME).counter().count());
+    }
+
+    @Test
+    void methodRuleTakesPrecedenceOverServiceRule() throws Exception {
+        GrpcProperties.RateLimitRule methodRule = rule(GrpcProperties.RateLimitKey.NONE);
+        methodRule.setBurst(1);
+        GrpcProperties.RateLimits config = new GrpcProperties.RateLimits();
+        config.setRules(Map.of(TestService.SERVICE_NAME, rule(GrpcProperties.RateLimitKey.NONE),
+                CALL.getFullMethodName(), methodRule));
+        start(config);
+        assertEquals(Status.Code.OK, status(channel));
+        assertEquals(Status.Code.RESOURCE_EXHAUSTED, status(channel));
+        assertEquals(1, registry.get("grpc.server.ratelimit.rejected").tag("rule", CALL.getFullMethodName()).counter().count());
+    }
+
+    @Test
+    void headerKeyGivesEachCallerOwnBucket() throws Exception {
+        start(TestService.SERVICE_NAME, rule(GrpcProperties.RateLimitKey.HEADER), 100);
+        Channel alice = withApiKey("alice");
+        Channel bob = withApiKey("bob");
+        assertEquals(Status.Code.OK, status(alice));
+        assertEquals(Status.Code.OK, status(alice));
+        assertEquals(Status.Code.RESOURCE_EXHAUSTED, status(alice));
+
+        assertEquals(Status.Code.OK, status(bob));
+        assertEquals(Status.Code.OK, status(bob));
+        assertEquals(Status.Code.RESOURCE_EXHAUSTED, status(bob));
+    }
+
+    @Test
+    void keysBeyondMaxBucketsShareOverflowBucket() throws Exception {
+        start(TestService.SERVICE_NAME, rule(GrpcProperties.RateLimitKey.HEADER), 1);
+        assertEquals(Status.Code.OK, status(withApiKey("alice")));
+
+        // alice giữ bucket riêng duy nhất, mọi key khác dùng chung bucket overflow
+        assertEquals(Status.Code.OK, status(withApiKey("bob")));
+        assertEquals(Status.Code.OK, status(withApiKey("carol")));
+        assertEquals(Status.Code.RESOURCE_EXHAUSTED, status(withApiKey("dave")));
+        assertEquals(Status.Code.OK, status(withApiKey("alice")));
+    }
+
+    private static GrpcProperties.RateLimitRule rule(GrpcProperties.RateLimitKey keyBy) {
+        GrpcProperties.RateLimitRule rule = new GrpcProperties.RateLimitRule();
+        rule.setPermitsPerSecond(0.001);
+        rule.setBurst(2);
+        rule.setKeyBy(keyBy);
+        rule.setHeader(API_KEY.name());
+        return rule;
+    }
+
+    private void start(String ruleName, GrpcProperties.RateLimitRule rule, int maxBuckets) throws Exception {
+        GrpcProperties.RateLimits config = new GrpcProperties.RateLimits();
+        config.setMaxBucketsPerRule(maxBuckets);
+        config.setRules(Map.of(ruleName, rule));
+        start(config);
+    }
+
+    private void start(GrpcProperties.RateLimits config) throws Exception {
+        interceptor = new RateLimitInterceptor(config, registry);
+        String name = TestService.uniqueName("ratelimit");
+        server = InProcessServerBuilder.forName(name)
+                .addService(ServerInterceptors.intercept(service.definition(), interceptor))
+                .build()
+                .start();
+        channel = InProcessChannelBuilder.forName(name).build();
+    }
+
+    private Channel withApiKey(String value) {
+        Metadata headers = new Metadata();
+        headers.put(API_KEY, value);
+        return ClientInterceptors.intercept(channel, MetadataUtils.newAttachHeadersInterceptor(headers));
+    }
+
+    private static Status.Code status(Channel channel) throws Exception {
+        return call(channel, CallOptions.DEFAULT, "ok").get(5, TimeUnit.SECONDS).getCode();
+    }
+}
@@ -0,0 +1,188 @@
+package com.xhk.grpc.spring.interceptor;
+
+import com.xhk.grpc.spring.TestService;
+import com.xhk.grpc.spring.config.GrpcProperties;
+import com.xhk.grpc.spring.proto.proto.HealthCheckRequest;
+import io.grpc.CallCredentials;
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptors;
+import io.grpc.ManagedChannel;
+import io.grpc.Metadata;
+import io.grpc.Server;
+import io.grpc.ServerServiceDefinition;
+import io.grpc.Status;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.MetadataUtils;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.ServerCalls;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.xhk.grpc.spring.TestService.CALL;
+import static com.xhk.grpc.spring.TestService.awaitUntil;
+import static com.xhk.grpc.spring.TestService.call;
+import static com.xhk.grpc.spring.TestService.start;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Call giống nhau đang chạy chỉ tạo một call tới server; caller khác danh tính, có credentials hoặc authority riêng
+ * thì không được gộp. Server giữ response cho đến khi test gọi respond() để các call chắc chắn chạy đồng thời.
+ */
+class RequestCoalescingInterceptorTest {
+    private static final Metadata.Key<String> AUTHORIZATION = Metadata.Key.of("authorization", Metadata.ASCII_STRING_MARSHALLER);
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final AtomicInteger handled = new AtomicInteger();
+    private final AtomicInteger cancelled = new AtomicInteger();
+    private final List<Runnable> pending = new CopyOnWriteArrayList<>();
+    private Server server;
+    private ManagedChannel channel;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ServerServiceDefinition definition = ServerServiceDefinition.builder(TestService.SERVICE_NAME)
+                .addMethod(CALL, ServerCalls.<HealthCheckRequest, HealthCheckRequest>asyncUnaryCall((request, observer) -> {
+                    ((ServerCallStreamObserver<HealthCheckRequest>) observer).setOnCancelHandler(cancelled::incrementAndGet);
+                    pending.add(() -> {
+                        observer.onNext(request);
+                        observer.onCompleted();
+                    });
+                    handled.incrementAndGet();
+                }))
+                .build();
+        String name = TestService.uniqueName("coalescing");
+        server = InProcessServerBuilder.forName(name).addService(definition).build().start();
+
+        GrpcProperties.RequestCoalescing config = new GrpcProperties.RequestCoalescing();
+        config.setEnabled(true);
+        config.setCacheTtlMillis(60_000);
+        channel = InProcessChannelBuilder.forName(name)
+                .intercept(new RequestCoalescingInterceptor("test", config, registry))
+                .build();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void identicalConcurrentCallsShareOneServerCall() throws Exception {
+        CompletableFuture<Status> first = call(channel, CallOptions.DEFAULT, "a");
+        CompletableFuture<Status> second = call(channel, CallOptions.DEFAULT, "a");
+        CompletableFuture<Status> other = call(channel, CallOptions.DEFAULT, "b");
+        awaitUntil(() -> handled.get() == 2);
+
+        respond();
+        assertEquals(Status.Code.OK, first.get(5, TimeUnit.SECONDS).getCode());
+        assertEquals(Status.Code.OK, second.get(5, TimeUnit.SECONDS).getCode());
+        assertEquals(Status.Code.OK, other.get(5, TimeUnit.SECONDS).getCode());
+
+        // Response OK được giữ trong cache TTL
+        assertEquals(Status.Code.OK, call(channel, CallOptions.DEFAULT, "a").get(5, TimeUnit.SECONDS).getCode());
+        assertEquals(2, handled.get());
+        assertEquals(2, count("leader"));
+        assertEquals(1, count("joined"));
+        assertEquals(1, count("cache_hit"));
+    }
+
+    @Test
+    void callsWithDifferentAuthorizationAreNotCoalesced() throws Exception {
+        CompletableFuture<Status> alice = call(withAuthorization("Bearer alice"), CallOptions.DEFAULT, "a");
+        CompletableFuture<Status> bob = call(withAuthorization("Bearer bob"), CallOptions.DEFAULT, "a");
+        awaitUntil(() -> handled.get() == 2);
+
+        respond();
+        assertEquals(Status.Code.OK, alice.get(5, TimeUnit.SECONDS).getCode());
+        assertEquals(Status.Code.OK, bob.get(5, TimeUnit.SECONDS).getCode());
+
+        // Cache cũng tách theo authorization
+        CompletableFuture<Status> carol = call(withAuthorization("Bearer carol"), CallOptions.DEFAULT, "a");
+        awaitUntil(() -> handled.get() == 3);
+        respond();
+        assertEquals(Status.Code.OK, carol.get(5, TimeUnit.SECONDS).getCode());
+        assertEquals(0, count("joined"));
+        assertEquals(0, count("cache_hit"));
+    }
+
+    @Test
+    void callsWithCredentialsOrAuthorityBypassCoalescing() throws Exception {
+        CallOptions withCredentials = CallOptions.DEFAULT.withCallCredentials(new HeaderCredentials("Bearer alice"));
+        List<CompletableFuture<Status>> calls = List.of(
+                call(channel, withCredentials, "a"),
+                call(channel, withCredentials, "a"),
+                call(channel, CallOptions.DEFAULT.withAuthority("other"), "a"),
+                call(channel, CallOptions.DEFAULT.withAuthority("other"), "a"));
+        awaitUntil(() -> handled.get() == 4);
+
+        respond();
+        for (CompletableFuture<Status> result : calls) {
+            assertEquals(Status.Code.OK, result.get(5, TimeUnit.SECONDS).getCode());
+        }
+        assertEquals(0, count("leader"));
+    }
+
+    @Test
+    void serverCallIsCancelledOnlyAfterEveryCallerCancels() throws Exception {
+        ClientCall<HealthCheckRequest, HealthCheckRequest> first = channel.newCall(CALL, CallOptions.DEFAULT);
+        ClientCall<HealthCheckRequest, HealthCheckRequest> second = channel.newCall(CALL, CallOptions.DEFAULT);
+        CompletableFuture<Status> firstResult = start(first, "a");
+        CompletableFuture<Status> secondResult = start(second, "a");
+        awaitUntil(() -> handled.get() == 1 && count("joined") == 1);
+
+        first.cancel("first gave up", null);
+        assertEquals(Status.Code.CANCELLED, firstResult.get(5, TimeUnit.SECONDS).getCode());
+        assertFalse(secondResult.isDone());
+        assertEquals(0, cancelled.get());
+
+        second.cancel("second gave up", null);
+        assertEquals(Status.Code.CANCELLED, secondResult.get(5, TimeUnit.SECONDS).getCode());
+        awaitUntil(() -> cancelled.get() == 1);
+    }
+
+    private void respond() {
+        for (Runnable response : pending) {
+            response.run();
+        }
+        pending.clear();
+    }
+
+    private Channel withAuthorization(String token) {
+        Metadata headers = new Metadata();
+        headers.put(AUTHORIZATION, token);
+        return ClientInterceptors.intercept(channel, MetadataUtils.newAttachHeadersInterceptor(headers));
+    }
+
+    private double count(String result) {
+        return registry.get("grpc.client.coalescing.calls").tag("result", result).counter().count();
+    }
+
+    private static final class HeaderCredentials extends CallCredentials {
+        private final String token;
+
+        HeaderCredentials(String token) {
+            this.token = token;
+        }
+
+        @Override
+        public void applyRequestMetadata(RequestInfo requestInfo, Executor appExecutor, MetadataApplier applier) {
+            Metadata headers = new Metadata();
+            headers.put(AUTHORIZATION, token);
+            applier.apply(headers);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.xhk.grpc.spring.interceptor;
+
+import com.xhk.grpc.spring.TestService;
+import com.xhk.grpc.spring.proto.proto.HealthCheckRequest;
+import com.xhk.grpc.spring.server.WarmupRecorder;
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientInterceptors;
+import io.grpc.ManagedChannel;
+import io.grpc.Metadata;
+import io.grpc.Server;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.ServerInterceptors;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.ClientCalls;
+import io.grpc.stub.MetadataUtils;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static com.xhk.grpc.spring.TestService.CALL;
+import static com.xhk.grpc.spring.TestService.awaitUntil;
+import static com.xhk.grpc.spring.TestService.request;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Mỗi call phải được ghi đúng một lần và calls.active về 0 kể cả khi call bị huỷ, lỗi hoặc handler ném exception
+ */
+class ServerMetricsInterceptorTest {
+    private static final Metadata.Key<String> REJECT = Metadata.Key.of("reject", Metadata.ASCII_STRING_MARSHALLER);
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final TestService service = new TestService().closeAfterCancel();
+    private Server server;
+    private ManagedChannel channel;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        String name = TestService.uniqueName("metrics");
+        // Interceptor cuối danh sách chạy trước: metrics bọc ngoài interceptor ném exception trong startCall
+        server = InProcessServerBuilder.forName(name)
+                .addService(ServerInterceptors.intercept(service.definition(), new FailingStartInterceptor(),
+                        new ServerMetricsInterceptor(registry, false)))
+                .build()
+                .start();
+        channel = InProcessChannelBuilder.forName(name).build();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void cancelledCallIsRecordedOnceEvenIfHandlerClosesLater() {
+        Future<HealthCheckRequest> future = ClientCalls.futureUnaryCall(
+                channel.newCall(CALL, CallOptions.DEFAULT), request(TestService.HANG));
+        // Huỷ sau khi handler đã đăng ký onCancel, nếu không handler không bao giờ thấy call bị huỷ
+        awaitUntil(() -> service.handled() == 1);
+        assertEquals(1, activeCalls());
+
+        future.cancel(true);
+        awaitUntil(() -> service.cancelled() == 1);
+
+        awaitUntil(() -> activeCalls() == 0);
+        assertEquals(1, timer(Status.Code.CANCELLED).count());
+        assertNull(registry.find("grpc.server.calls").tag("status", Status.Code.UNAVAILABLE.name()).timer());
+        assertEquals(1, totalRecorded());
+    }
+
+    @Test
+    void failedCallIsRecordedWithItsStatus() {
+        StatusRuntimeException error = assertThrows(StatusRuntimeException.class,
+                () -> ClientCalls.blockingUnaryCall(channel, CALL, CallOptions.DEFAULT, request(TestService.FAIL)));
+        assertEquals(Status.Code.NOT_FOUND, error.getStatus().getCode());
+
+        awaitUntil(() -> totalRecorded() == 1);
+        assertEquals(1, timer(Status.Code.NOT_FOUND).count());
+        assertEquals(0, activeCalls());
+    }
+
+    @Test
+    void handlerExceptionIsRecordedAsUnknown() {
+        StatusRuntimeException error = assertThrows(StatusRuntimeException.class,
+                () -> ClientCalls.blockingUnaryCall(channel, CALL, CallOptions.DEFAULT, request(TestService.THROW)));
+        assertEquals(Status.Code.UNKNOWN, error.getStatus().getCode());
+
+        awaitUntil(() -> activeCalls() == 0);
+        assertEquals(1, timer(Status.Code.UNKNOWN).count());
+        assertEquals(1, totalRecorded());
+    }
+
+    @Test
+    void exceptionFromStartCallIsRecordedAsUnknown() {
+        Metadata headers = new Metadata();
+        headers.put(REJECT, "true");
+        Channel rejecting = ClientInterceptors.intercept(channel, MetadataUtils.newAttachHeadersInterceptor(headers));
+        StatusRuntimeException error = assertThrows(StatusRuntimeException.class,
+                () -> ClientCalls.blockingUnaryCall(rejecting, CALL, CallOptions.DEFAULT, request("ok")));
+        assertEquals(Status.Code.UNKNOWN, error.getStatus().getCode());
+
+        awaitUntil(() -> totalRecorded() == 1);
+        assertEquals(1, timer(Status.Code.UNKNOWN).count());
+        assertEquals(0, activeCalls());
+    }
+
+    @Test
+    void deadlineExceededCallReleasesActiveGauge() {
+        StatusRuntimeException error = assertThrows(StatusRuntimeException.class,
+                () -> ClientCalls.blockingUnaryCall(channel, CALL,
+                        CallOptions.DEFAULT.withDeadlineAfter(100, TimeUnit.MILLISECONDS), request(TestService.HANG)));
+        assertEquals(Status.Code.DEADLINE_EXCEEDED, error.getStatus().getCode());
+
+        awaitUntil(() -> activeCalls() == 0);
+        assertEquals(1, totalRecorded());
+    }
+
+    @Test
+    void warmupCallsAreNotRecorded() {
+        Channel warmup = ClientInterceptors.intercept(channel, MetadataUtils.newAttachHeadersInterceptor(WarmupRecorder.warmupHeaders()));
+        ClientCalls.blockingUnaryCall(warmup, CALL, CallOptions.DEFAULT, request("ok"));
+        ClientCalls.blockingUnaryCall(channel, CALL, CallOptions.DEFAULT, request("ok"));
+
+        awaitUntil(() -> totalRecorded() == 1);
+        assertEquals(2, service.handled());
+        assertEquals(1, timer(Status.Code.OK).count());
+    }
+
+    // Gauge chỉ được đăng ký khi method có call đầu tiên
+    private double activeCalls() {
+        Gauge gauge = registry.find("grpc.server.calls.active").tag("method", CALL.getFullMethodName()).gauge();
+        return gauge != null ? gauge.value() : 0;
+    }
+
+    private Timer timer(Status.Code code) {
+        return registry.get("grpc.server.calls").tag("method", CALL.getFullMethodName()).tag("status", code.name()).timer();
+    }
+
+    private long totalRecorded() {
+        return registry.find("grpc.server.calls").timers().stream().mapToLong(Timer::count).sum();
+    }
+
+    // Ném exception trong startCall khi có header "reject", trước khi handler được gọi
+    private static final class FailingStartInterceptor implements ServerInterceptor {
+        @Override
+        public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(
+                ServerCall<ReqT, RespT> call, Metadata headers, ServerCallHandler<ReqT, RespT> next) {
+            if (headers.containsKey(REJECT)) {
+                throw new IllegalStateException("rejected in startCall");
+            }
+            return next.startCall(call, headers);
+        }
+    }
+}
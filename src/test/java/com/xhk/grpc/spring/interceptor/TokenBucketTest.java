@@ -0,0 +1,88 @@
+package com.xhk.grpc.spring.interceptor;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Thời gian được truyền vào tường minh nên kết quả không phụ thuộc tốc độ máy chạy test
+ */
+class TokenBucketTest {
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void burstIsAvailableImmediatelyThenRefillsAtRate() {
+        long now = 1_000 * SECOND;
+        TokenBucket bucket = new TokenBucket(10, 3, now);
+        for (int i = 0; i < 3; i++) {
+            assertTrue(bucket.tryAcquire(now));
+        }
+        assertFalse(bucket.tryAcquire(now));
+
+        // 10 permit/s: mỗi 100ms có thêm một permit
+        assertFalse(bucket.tryAcquire(now + SECOND / 10 - 1));
+        assertTrue(bucket.tryAcquire(now + SECOND / 10));
+        assertFalse(bucket.tryAcquire(now + SECOND / 10));
+    }
+
+    @Test
+    void idleTimeDoesNotAccumulateBeyondBurst() {
+        long now = 1_000 * SECOND;
+        TokenBucket bucket = new TokenBucket(10, 2, now);
+        long later = now + 60 * SECOND;
+        assertTrue(bucket.tryAcquire(later));
+        assertTrue(bucket.tryAcquire(later));
+        assertFalse(bucket.tryAcquire(later));
+    }
+
+    @Test
+    void bucketIsIdleOnlyAfterRefillAndIdlePeriod() {
+        long now = 1_000 * SECOND;
+        TokenBucket bucket = new TokenBucket(1, 5, now);
+        for (int i = 0; i < 5; i++) {
+            bucket.tryAcquire(now);
+        }
+        // Còn nợ 5 giây permit: chưa idle dù đã qua idleNanos tính từ lần acquire
+        assertFalse(bucket.isIdle(now + 3 * SECOND, SECOND));
+        assertTrue(bucket.isIdle(now + 7 * SECOND, SECOND));
+    }
+
+    @Test
+    void concurrentAcquiresNeverExceedBurst() throws Exception {
+        long now = 1_000 * SECOND;
+        TokenBucket bucket = new TokenBucket(1, 100, now);
+        AtomicInteger acquired = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            for (int t = 0; t < 8; t++) {
+                pool.execute(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    for (int i = 0; i < 1_000; i++) {
+                        if (bucket.tryAcquire(now)) {
+                            acquired.incrementAndGet();
+                        }
+                    }
+                });
+            }
+            start.countDown();
+        } finally {
+            pool.shutdown();
+            assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+        }
+        assertEquals(100, acquired.get());
+    }
+}
@@ -0,0 +1,234 @@
+package com.xhk.grpc.spring.marshaller;
+
+import com.xhk.grpc.spring.TestService;
+import com.xhk.grpc.spring.config.GrpcProperties;
+import com.xhk.grpc.spring.proto.proto.HealthCheckRequest;
+import io.grpc.Attributes;
+import io.grpc.Detachable;
+import io.grpc.HasByteBuffer;
+import io.grpc.KnownLength;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerCall;
+import io.grpc.ServerMethodDefinition;
+import io.grpc.ServerServiceDefinition;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.xhk.grpc.spring.TestService.CALL;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Stream giả lập stream của Netty: trả ByteBuffer, detach được và đếm số lần close (= buffer trả về pool)
+ */
+class ZeroCopyMarshallerTest {
+    private static final HealthCheckRequest MESSAGE = TestService.request("x".repeat(1024));
+
+    private final AtomicInteger closes = new AtomicInteger();
+    private final ZeroCopyMarshaller<HealthCheckRequest> marshaller =
+            new ZeroCopyMarshaller<>((MethodDescriptor.PrototypeMarshaller<HealthCheckRequest>) CALL.getRequestMarshaller(), 0);
+
+    @Test
+    void directBufferIsAliasedUntilReleased() {
+        HealthCheckRequest message = marshaller.parse(stream(MESSAGE, true));
+        assertEquals(MESSAGE, message);
+        assertEquals(0, closes.get());
+
+        assertTrue(ZeroCopyMarshaller.release(message));
+        assertEquals(1, closes.get());
+        assertFalse(ZeroCopyMarshaller.release(message));
+        assertEquals(1, closes.get());
+    }
+
+    @Test
+    void heapBufferIsCopiedAndReleasedImmediately() {
+        HealthCheckRequest message = marshaller.parse(stream(MESSAGE, false));
+        assertEquals(MESSAGE, message);
+        assertEquals(1, closes.get());
+        assertFalse(ZeroCopyMarshaller.release(message));
+    }
+
+    @Test
+    void messagesBelowMinSizeAreParsedWithoutDetaching() {
+        ZeroCopyMarshaller<HealthCheckRequest> large = new ZeroCopyMarshaller<>(
+                (MethodDescriptor.PrototypeMarshaller<HealthCheckRequest>) CALL.getRequestMarshaller(), 64 * 1024);
+        BufferStream stream = stream(MESSAGE, true);
+        HealthCheckRequest message = large.parse(stream);
+        assertEquals(MESSAGE, message);
+        assertFalse(stream.detached);
+        assertFalse(ZeroCopyMarshaller.release(message));
+    }
+
+    @Test
+    void invalidMessageReleasesBuffer() {
+        ByteBuffer invalid = ByteBuffer.allocateDirect(4).put(new byte[]{(byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff}).flip();
+        StatusRuntimeException e = assertThrows(StatusRuntimeException.class,
+                () -> marshaller.parse(new BufferStream(invalid, closes)));
+        assertEquals(Status.Code.INTERNAL, e.getStatus().getCode());
+        assertEquals(1, closes.get());
+    }
+
+    @Test
+    void serverReleasesRequestBuffersWhenCallEnds() {
+        for (boolean cancel : new boolean[]{false, true}) {
+            closes.set(0);
+            List<HealthCheckRequest> received = new ArrayList<>();
+            ServerMethodDefinition<HealthCheckRequest, HealthCheckRequest> method = zeroCopyMethod(received);
+            MethodDescriptor<HealthCheckRequest, HealthCheckRequest> descriptor = method.getMethodDescriptor();
+            ServerCall.Listener<HealthCheckRequest> listener =
+                    method.getServerCallHandler().startCall(new NoopServerCall(descriptor), new Metadata());
+
+            listener.onMessage(descriptor.getRequestMarshaller().parse(stream(MESSAGE, true)));
+            listener.onHalfClose();
+            assertEquals(List.of(MESSAGE), received);
+            assertEquals(0, closes.get());
+
+            if (cancel) {
+                listener.onCancel();
+            } else {
+                listener.onComplete();
+            }
+            assertEquals(1, closes.get());
+            // Handler không còn release được: buffer đã thuộc về call và đã được trả
+            assertFalse(ZeroCopyMarshaller.release(received.get(0)));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ServerMethodDefinition<HealthCheckRequest, HealthCheckRequest> zeroCopyMethod(List<HealthCheckRequest> received) {
+        ServerServiceDefinition definition = ServerServiceDefinition.builder(TestService.SERVICE_NAME)
+                .addMethod(CALL, (call, headers) -> new ServerCall.Listener<>() {
+                    @Override
+                    public void onMessage(HealthCheckRequest message) {
+                        received.add(message);
+                    }
+                })
+                .build();
+        GrpcProperties.ZeroCopy config = new GrpcProperties.ZeroCopy();
+        config.setMinMessageSize(0);
+        return (ServerMethodDefinition<HealthCheckRequest, HealthCheckRequest>)
+                new ZeroCopyMarshalling(config).apply(definition).getMethod(CALL.getFullMethodName());
+    }
+
+    private BufferStream stream(HealthCheckRequest message, boolean direct) {
+        byte[] bytes = message.toByteArray();
+        ByteBuffer buffer = direct ? ByteBuffer.allocateDirect(bytes.length) : ByteBuffer.allocate(bytes.length);
+        return new BufferStream(buffer.put(bytes).flip(), closes);
+    }
+
+    private static final class BufferStream extends InputStream implements Detachable, HasByteBuffer, KnownLength {
+        private ByteBuffer buffer;
+        private final AtomicInteger closes;
+        private int mark;
+        private boolean detached;
+
+        BufferStream(ByteBuffer buffer, AtomicInteger closes) {
+            this.buffer = buffer;
+            this.closes = closes;
+        }
+
+        @Override
+        public InputStream detach() {
+            detached = true;
+            BufferStream stream = new BufferStream(buffer, closes);
+            buffer = ByteBuffer.allocate(0);
+            return stream;
+        }
+
+        @Override
+        public boolean byteBufferSupported() {
+            return true;
+        }
+
+        @Override
+        public ByteBuffer getByteBuffer() {
+            return buffer.slice();
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+        }
+
+        @Override
+        public long skip(long n) {
+            int skipped = (int) Math.min(n, buffer.remaining());
+            buffer.position(buffer.position() + skipped);
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+
+        @Override
+        public boolean markSupported() {
+            return true;
+        }
+
+        @Override
+        public void mark(int readLimit) {
+            mark = buffer.position();
+        }
+
+        @Override
+        public void reset() {
+            buffer.position(mark);
+        }
+
+        @Override
+        public void close() {
+            closes.incrementAndGet();
+        }
+    }
+
+    private static final class NoopServerCall extends ServerCall<HealthCheckRequest, HealthCheckRequest> {
+        private final MethodDescriptor<HealthCheckRequest, HealthCheckRequest> method;
+
+        NoopServerCall(MethodDescriptor<HealthCheckRequest, HealthCheckRequest> method) {
+            this.method = method;
+        }
+
+        @Override
+        public void request(int numMessages) {
+        }
+
+        @Override
+        public void sendHeaders(Metadata headers) {
+        }
+
+        @Override
+        public void sendMessage(HealthCheckRequest message) {
+        }
+
+        @Override
+        public void close(Status status, Metadata trailers) {
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return false;
+        }
+
+        @Override
+        public Attributes getAttributes() {
+            return Attributes.EMPTY;
+        }
+
+        @Override
+        public MethodDescriptor<HealthCheckRequest, HealthCheckRequest> getMethodDescriptor() {
+            return method;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.xhk.grpc.spring.server;
+
+import com.xhk.grpc.spring.TestService;
+import com.xhk.grpc.spring.config.GrpcProperties;
+import com.xhk.grpc.spring.proto.proto.HealthCheckRequest;
+import io.grpc.CallOptions;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.ServerServiceDefinition;
+import io.grpc.Status;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.ServerCalls;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static com.xhk.grpc.spring.TestService.CALL;
+import static com.xhk.grpc.spring.TestService.awaitUntil;
+import static com.xhk.grpc.spring.TestService.call;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Call được nhận hoặc từ chối trước khi vào hàng đợi và được đếm theo call, không theo task.
+ * Handler "block" giữ thread của executor cho đến khi test mở latch.
+ */
+class InstrumentedExecutorTest {
+    private static final String BLOCK = "block";
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final TestService service = new TestService();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private InstrumentedExecutor executor;
+    private Server server;
+    private ManagedChannel channel;
+
+    @AfterEach
+    void tearDown() throws Exception {
+        release.countDown();
+        channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        executor.shutdown(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void callsBeyondQueueCapacityAreRejectedWithoutWaitingForThread() throws Exception {
+        start(GrpcProperties.ExecutorMode.FIXED);
+        CompletableFuture<Status> running = call(channel, CallOptions.DEFAULT, BLOCK);
+        awaitUntil(() -> gauge("active") == 1);
+        CompletableFuture<Status> waiting = call(channel, CallOptions.DEFAULT, "a");
+        awaitUntil(() -> gauge("queued") == 1);
+
+        // Thread duy nhất vẫn bị giữ: call bị từ chối không xếp hàng sau call đang chờ
+        assertEquals(Status.Code.RESOURCE_EXHAUSTED, call(channel, CallOptions.DEFAULT, "b").get(5, TimeUnit.SECONDS).getCode());
+        assertEquals(1, registry.get("grpc.server.executor.rejected").counter().count());
+
+        release.countDown();
+        assertEquals(Status.Code.OK, running.get(5, TimeUnit.SECONDS).getCode());
+        assertEquals(Status.Code.OK, waiting.get(5, TimeUnit.SECONDS).getCode());
+        awaitUntil(() -> gauge("queued") == 0 && gauge("active") == 0);
+        assertEquals(2, service.handled());
+    }
+
+    @Test
+    void callExpiredWhileQueuedLeavesQueue() throws Exception {
+        start(GrpcProperties.ExecutorMode.FIXED);
+        CompletableFuture<Status> running = call(channel, CallOptions.DEFAULT, BLOCK);
+        awaitUntil(() -> gauge("active") == 1);
+
+        CompletableFuture<Status> expired = call(channel, CallOptions.DEFAULT.withDeadlineAfter(50, TimeUnit.MILLISECONDS), "a");
+        assertEquals(Status.Code.DEADLINE_EXCEEDED, expired.get(5, TimeUnit.SECONDS).getCode());
+        awaitUntil(() -> gauge("queued") == 0);
+
+        // Chỗ trong hàng đợi đã được trả: call mới được nhận
+        CompletableFuture<Status> next = call(channel, CallOptions.DEFAULT, "b");
+        awaitUntil(() -> gauge("queued") == 1);
+        release.countDown();
+        assertEquals(Status.Code.OK, running.get(5, TimeUnit.SECONDS).getCode());
+        assertEquals(Status.Code.OK, next.get(5, TimeUnit.SECONDS).getCode());
+        awaitUntil(() -> gauge("active") == 0);
+    }
+
+    @Test
+    void defaultModeCountsCalls() throws Exception {
+        assertCountsHangingCall(GrpcProperties.ExecutorMode.DEFAULT);
+    }
+
+    @Test
+    void directModeCountsCalls() throws Exception {
+        assertCountsHangingCall(GrpcProperties.ExecutorMode.DIRECT);
+    }
+
+    private void assertCountsHangingCall(GrpcProperties.ExecutorMode mode) throws Exception {
+        start(mode);
+        CompletableFuture<Status> hanging = call(channel, CallOptions.DEFAULT.withDeadlineAfter(200, TimeUnit.MILLISECONDS), TestService.HANG);
+        awaitUntil(() -> gauge("active") == 1);
+        assertEquals(Status.Code.DEADLINE_EXCEEDED, hanging.get(5, TimeUnit.SECONDS).getCode());
+        awaitUntil(() -> gauge("active") == 0);
+        assertEquals(0, gauge("queued"));
+    }
+
+    private void start(GrpcProperties.ExecutorMode mode) throws Exception {
+        GrpcProperties.ServerExecutor config = new GrpcProperties.ServerExecutor();
+        config.setMode(mode);
+        config.setThreads(1);
+        config.setQueueCapacity(1);
+        executor = ServerExecutorFactory.create(config);
+        executor.bindTo(registry);
+
+        ServerServiceDefinition definition = ServerServiceDefinition.builder(TestService.SERVICE_NAME)
+                .addMethod(CALL, ServerCalls.<HealthCheckRequest, HealthCheckRequest>asyncUnaryCall((request, observer) -> {
+                    if (BLOCK.equals(request.getService())) {
+                        await();
+                    }
+                    service.handle(request, observer);
+                }))
+                .build();
+        String name = TestService.uniqueName("executor");
+        InProcessServerBuilder builder = InProcessServerBuilder.forName(name).addService(definition);
+        executor.configure(builder, mode == GrpcProperties.ExecutorMode.DIRECT);
+        server = builder.build().start();
+        channel = InProcessChannelBuilder.forName(name).build();
+    }
+
+    private void await() {
+        try {
+            release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private double gauge(String name) {
+        return registry.get("grpc.server.executor." + name).tag("mode", executor.getMode()).gauge().value();
+    }
+}
@@ -0,0 +1,290 @@
+package com.xhk.grpc.spring.stream;
+
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+
+import static com.xhk.grpc.spring.TestService.awaitUntil;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Flow control được giả lập bằng credit: mỗi onNext tiêu một credit, isReady khi còn credit,
+ * grant(n) thêm credit rồi gọi onReady như transport khi client đọc thêm
+ */
+class GrpcStreamsTest {
+
+    @Test
+    void produceSendsOnlyWhileReadyAndClosesSource() {
+        FakeServerObserver<Integer> observer = new FakeServerObserver<>(2);
+        AtomicBoolean closed = new AtomicBoolean();
+        GrpcStreams.produce(observer, IntStream.range(0, 5).boxed().onClose(() -> closed.set(true)));
+        assertEquals(List.of(0, 1), observer.sent);
+
+        observer.grant(2);
+        assertEquals(List.of(0, 1, 2, 3), observer.sent);
+        assertFalse(observer.completed);
+
+        observer.grant(10);
+        assertEquals(List.of(0, 1, 2, 3, 4), observer.sent);
+        assertTrue(observer.completed);
+        assertTrue(closed.get());
+    }
+
+    @Test
+    void produceStopsAndClosesSourceOnCancel() {
+        FakeServerObserver<Integer> observer = new FakeServerObserver<>(1);
+        AtomicBoolean closed = new AtomicBoolean();
+        GrpcStreams.produce(observer, IntStream.range(0, 5).boxed().onClose(() -> closed.set(true)));
+
+        observer.cancel();
+        observer.grant(10);
+        assertEquals(List.of(0), observer.sent);
+        assertTrue(closed.get());
+        assertFalse(observer.completed);
+        assertNull(observer.error);
+    }
+
+    @Test
+    void produceSendsSourceFailureAsError() {
+        FakeServerObserver<Integer> observer = new FakeServerObserver<>(10);
+        Iterator<Integer> failing = new Iterator<>() {
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public Integer next() {
+                if (next == 2) {
+                    throw new IllegalStateException("source failed");
+                }
+                return next++;
+            }
+        };
+        GrpcStreams.produce(observer, failing);
+        assertEquals(List.of(0, 1), observer.sent);
+        assertTrue(observer.error instanceof IllegalStateException);
+    }
+
+    @Test
+    void inboundRequestsHalfWindowAfterHandlerConsumes() {
+        FakeServerObserver<Void> observer = new FakeServerObserver<>(0);
+        List<String> handled = new ArrayList<>();
+        StreamObserver<String> inbound = GrpcStreams.inbound(observer, 8, new CollectingObserver<>(handled));
+        assertTrue(observer.autoRequestDisabled);
+        assertEquals(8, observer.requested);
+
+        for (int i = 0; i < 3; i++) {
+            inbound.onNext("m" + i);
+        }
+        assertEquals(8, observer.requested);
+        inbound.onNext("m3");
+        assertEquals(12, observer.requested);
+        assertEquals(4, handled.size());
+    }
+
+    @Test
+    void helpersRequireServerObserver() {
+        StreamObserver<String> plain = new CollectingObserver<>(new ArrayList<>());
+        assertThrows(IllegalArgumentException.class, () -> GrpcStreams.bounded(plain));
+        assertThrows(IllegalArgumentException.class, () -> GrpcStreams.inbound(new FakeServerObserver<>(0), 0, plain));
+    }
+
+    @Test
+    void boundedBuffersUntilReadyAndCompletesAfterDrain() {
+        FakeServerObserver<Integer> observer = new FakeServerObserver<>(0);
+        BoundedStreamObserver<Integer> bounded = GrpcStreams.bounded(observer, 4, OverflowStrategy.FAIL);
+        bounded.onNext(1);
+        bounded.onNext(2);
+        bounded.onCompleted();
+        assertEquals(2, bounded.getBufferedCount());
+        assertTrue(observer.sent.isEmpty());
+
+        observer.grant(1);
+        assertEquals(List.of(1), observer.sent);
+        assertFalse(observer.completed);
+        observer.grant(1);
+        assertEquals(List.of(1, 2), observer.sent);
+        assertTrue(observer.completed);
+    }
+
+    @Test
+    void boundedDropsByStrategy() {
+        FakeServerObserver<Integer> newest = new FakeServerObserver<>(0);
+        BoundedStreamObserver<Integer> dropNewest = GrpcStreams.bounded(newest, 2, OverflowStrategy.DROP_NEWEST);
+        FakeServerObserver<Integer> oldest = new FakeServerObserver<>(0);
+        BoundedStreamObserver<Integer> dropOldest = GrpcStreams.bounded(oldest, 2, OverflowStrategy.DROP_OLDEST);
+        for (int i = 0; i < 5; i++) {
+            dropNewest.onNext(i);
+            dropOldest.onNext(i);
+        }
+        newest.grant(10);
+        oldest.grant(10);
+        assertEquals(List.of(0, 1), newest.sent);
+        assertEquals(List.of(3, 4), oldest.sent);
+        assertEquals(3, dropNewest.getDroppedCount());
+        assertEquals(3, dropOldest.getDroppedCount());
+    }
+
+    @Test
+    void boundedFailsStreamOnOverflow() {
+        FakeServerObserver<Integer> observer = new FakeServerObserver<>(0);
+        BoundedStreamObserver<Integer> bounded = GrpcStreams.bounded(observer, 1, OverflowStrategy.FAIL);
+        bounded.onNext(1);
+        StatusRuntimeException e = assertThrows(StatusRuntimeException.class, () -> bounded.onNext(2));
+        assertEquals(Status.Code.RESOURCE_EXHAUSTED, e.getStatus().getCode());
+        assertTrue(observer.sent.isEmpty());
+        assertEquals(Status.Code.RESOURCE_EXHAUSTED, Status.fromThrowable(observer.error).getCode());
+    }
+
+    @Test
+    void boundedBlocksProducerUntilSpaceOrCancel() throws Exception {
+        FakeServerObserver<Integer> observer = new FakeServerObserver<>(0);
+        BoundedStreamObserver<Integer> bounded = GrpcStreams.bounded(observer, 1, OverflowStrategy.BLOCK);
+        bounded.onNext(1);
+        CompletableFuture<Void> blocked = CompletableFuture.runAsync(() -> bounded.onNext(2));
+        CompletableFuture<Void> afterCancel = new CompletableFuture<>();
+
+        observer.grant(1);
+        blocked.get(5, TimeUnit.SECONDS);
+        awaitUntil(() -> bounded.getBufferedCount() == 1);
+        assertEquals(List.of(1), observer.sent);
+
+        // Buffer lại đầy: producer bị chặn được nhả ra khi call bị huỷ, message bị bỏ
+        CompletableFuture.runAsync(() -> {
+            bounded.onNext(3);
+            afterCancel.complete(null);
+        });
+        observer.cancel();
+        afterCancel.get(5, TimeUnit.SECONDS);
+        observer.grant(10);
+        assertEquals(List.of(1), observer.sent);
+        assertTrue(bounded.isCancelled());
+    }
+
+    private static final class CollectingObserver<T> implements StreamObserver<T> {
+        private final List<T> values;
+
+        CollectingObserver(List<T> values) {
+            this.values = values;
+        }
+
+        @Override
+        public void onNext(T value) {
+            values.add(value);
+        }
+
+        @Override
+        public void onError(Throwable t) {
+        }
+
+        @Override
+        public void onCompleted() {
+        }
+    }
+
+    private static final class FakeServerObserver<T> extends ServerCallStreamObserver<T> {
+        private final List<T> sent = new ArrayList<>();
+        private int credit;
+        private int requested;
+        private boolean autoRequestDisabled;
+        private volatile boolean cancelled;
+        private boolean completed;
+        private Throwable error;
+        private Runnable onReady = () -> {
+        };
+        private Runnable onCancel = () -> {
+        };
+
+        FakeServerObserver(int credit) {
+            this.credit = credit;
+        }
+
+        void grant(int permits) {
+            synchronized (this) {
+                credit += permits;
+            }
+            onReady.run();
+        }
+
+        void cancel() {
+            cancelled = true;
+            onCancel.run();
+        }
+
+        @Override
+        public synchronized boolean isReady() {
+            return credit > 0;
+        }
+
+        @Override
+        public synchronized void onNext(T value) {
+            credit--;
+            sent.add(value);
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            error = t;
+        }
+
+        @Override
+        public void onCompleted() {
+            completed = true;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        @Override
+        public void setOnCancelHandler(Runnable onCancelHandler) {
+            onCancel = onCancelHandler;
+        }
+
+        @Override
+        public void setOnReadyHandler(Runnable onReadyHandler) {
+            onReady = onReadyHandler;
+        }
+
+        @Override
+        public void disableAutoRequest() {
+            autoRequestDisabled = true;
+        }
+
+        @Override
+        public void disableAutoInboundFlowControl() {
+            autoRequestDisabled = true;
+        }
+
+        @Override
+        public void request(int count) {
+            requested += count;
+        }
+
+        @Override
+        public void setCompression(String compression) {
+        }
+
+        @Override
+        public void setMessageCompression(boolean enable) {
+        }
+    }
+}